@@ -1,11 +1,15 @@
 package co.com.crediya.config;
 
 import co.com.crediya.model.loan.gateways.DebtCapacitySQS;
+import co.com.crediya.model.loan.gateways.LoanCache;
 import co.com.crediya.model.loan.gateways.LoanRepository;
 import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.loanimport.gateways.LoanImportRepository;
+import co.com.crediya.model.loanimport.gateways.LoanImportWorker;
 import co.com.crediya.model.typeloan.gateways.TypeLoanRepository;
-import co.com.crediya.model.stateloan.gateways.StateLoanRepository;
+import co.com.crediya.model.customer.gateways.CustomerDebtRepository;
 import co.com.crediya.model.customer.gateways.CustomerGateway; // si tu LoanUseCase lo usa
+import co.com.crediya.model.tx.gateway.GroupCommit;
 import co.com.crediya.model.tx.gateway.TxRunner;
 
 import org.junit.jupiter.api.Test;
@@ -57,10 +61,22 @@ public class UseCasesConfigTest {
         TypeLoanRepository typeLoanRepository() { return mock(TypeLoanRepository.class); }
 
         @Bean
-        StateLoanRepository stateLoanRepository() { return mock(StateLoanRepository.class); }
+        CustomerGateway customerGateway() { return mock(CustomerGateway.class); }
 
         @Bean
-        CustomerGateway customerGateway() { return mock(CustomerGateway.class); }
+        CustomerDebtRepository customerDebtRepository() { return mock(CustomerDebtRepository.class); }
+
+        @Bean
+        GroupCommit groupCommit() { return mock(GroupCommit.class); }
+
+        @Bean
+        LoanCache loanCache() { return mock(LoanCache.class); }
+
+        @Bean
+        LoanImportRepository loanImportRepository() { return mock(LoanImportRepository.class); }
+
+        @Bean
+        LoanImportWorker loanImportWorker() { return mock(LoanImportWorker.class); }
 
         @Bean
         TxRunner txRunner() {
@@ -0,0 +1,17 @@
+package co.com.crediya.model.customer.gateways;
+
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Deuda mensual aprobada por cliente, precalculada. Se ajusta en la misma transacción en la que
+ * un préstamo entra o sale de APPROVED.
+ */
+public interface CustomerDebtRepository {
+    /** Cero cuando el cliente no tiene préstamos aprobados. */
+    Mono<BigDecimal> findMonthlyApprovedDebt(String email);
+    Mono<Void> addApprovedLoan(UUID loanId);
+    Mono<Void> removeApprovedLoan(UUID loanId);
+}
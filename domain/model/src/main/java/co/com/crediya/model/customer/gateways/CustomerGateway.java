@@ -3,7 +3,12 @@ package co.com.crediya.model.customer.gateways;
 import co.com.crediya.model.customer.UserData;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.Set;
+
 public interface CustomerGateway {
     Mono<Boolean> existsByEmail(String email);
     Mono<UserData> findByEmail(String email);
+    /** Resuelve varios emails en bloque; los que no se encuentran no aparecen en el mapa. */
+    Mono<Map<String, UserData>> findByEmails(Set<String> emails);
 }
@@ -0,0 +1,5 @@
+package co.com.crediya.model.exceptions;
+
+public class DomainConflictException extends RuntimeException {
+    public DomainConflictException(String code, String detail) { super(code + ":" + detail); }
+}
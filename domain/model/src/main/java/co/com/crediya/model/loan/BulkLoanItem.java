@@ -0,0 +1,28 @@
+package co.com.crediya.model.loan;
+
+/**
+ * Una línea de una carga masiva. Entra con el préstamo solicitado (o el error de parseo/validación)
+ * y sale con el préstamo insertado o el motivo del rechazo, conservando {@code line}.
+ */
+public record BulkLoanItem(long line, Loan loan, boolean automaticValidation, RuntimeException error) {
+
+    public static BulkLoanItem requested(long line, Loan loan) {
+        return new BulkLoanItem(line, loan, false, null);
+    }
+
+    public static BulkLoanItem rejected(long line, RuntimeException error) {
+        return new BulkLoanItem(line, null, false, error);
+    }
+
+    public static BulkLoanItem created(long line, CreatedLoan created) {
+        return new BulkLoanItem(line, created.loan(), created.automaticValidation(), null);
+    }
+
+    public BulkLoanItem reject(RuntimeException cause) {
+        return rejected(line, cause);
+    }
+
+    public boolean isRejected() {
+        return error != null;
+    }
+}
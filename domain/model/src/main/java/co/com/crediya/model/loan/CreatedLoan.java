@@ -0,0 +1,4 @@
+package co.com.crediya.model.loan;
+
+/** Préstamo recién insertado junto con el flag de su tipo que decide si va a validación automática. */
+public record CreatedLoan(Loan loan, boolean automaticValidation) {}
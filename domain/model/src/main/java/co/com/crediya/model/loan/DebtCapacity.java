@@ -1,6 +1,8 @@
 package co.com.crediya.model.loan;
 
 import co.com.crediya.model.customer.UserData;
+import java.math.BigDecimal;
 import java.util.List;
 
-public record DebtCapacity(Loan loan, List<LoanApproved> loanApprovedList, UserData userData) {}
+public record DebtCapacity(Loan loan, List<LoanApproved> loanApprovedList, UserData userData,
+                           BigDecimal monthlyApprovedDebt) {}
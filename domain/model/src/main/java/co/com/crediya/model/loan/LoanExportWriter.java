@@ -0,0 +1,30 @@
+package co.com.crediya.model.loan;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Codifica el export de préstamos fila a fila sin construir un {@link Loan} por fila. El repositorio
+ * llama a {@link #row} por cada fila leída y entrega lo acumulado con {@link #drain} en cada tanda;
+ * {@code C} es el bloque ya codificado. Un writer por export, no es thread-safe.
+ */
+public interface LoanExportWriter<C> extends AutoCloseable {
+
+    /** Cabecera del formato (nombres de columna, schema). */
+    C start();
+
+    void row(UUID id, BigDecimal amount, int termMonths, String email, String state, String type, Instant createdAt);
+
+    /** Filas escritas desde el último {@link #drain}. */
+    int pendingRows();
+
+    C drain();
+
+    /** Filas pendientes más el cierre del formato. */
+    C finish();
+
+    /** Libera lo que no se haya entregado; se llama también si el export se cancela. */
+    @Override
+    void close();
+}
@@ -0,0 +1,26 @@
+package co.com.crediya.model.loan;
+
+import co.com.crediya.model.pageable.LoanStatus;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Filtros del streaming de préstamos; cada campo nulo (o vacío) no filtra.
+ * createdFrom es inclusivo y createdTo exclusivo.
+ */
+public record LoanStreamFilter(
+        Set<LoanStatus> statuses,
+        String typeLoanId,
+        Instant createdFrom,
+        Instant createdTo,
+        String email
+) {
+    public static LoanStreamFilter none() {
+        return new LoanStreamFilter(Set.of(), null, null, null, null);
+    }
+
+    public LoanStreamFilter withEmail(String email) {
+        return new LoanStreamFilter(statuses, typeLoanId, createdFrom, createdTo, email);
+    }
+}
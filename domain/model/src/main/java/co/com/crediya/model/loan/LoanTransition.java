@@ -0,0 +1,8 @@
+package co.com.crediya.model.loan;
+
+/**
+ * Resultado de un cambio de estado: el préstamo ya actualizado, el estado del que salió y los
+ * nombres que necesita {@link LoanStatusChanged}.
+ */
+public record LoanTransition(Loan loan, String previousStateId, String previousStateName,
+                             String stateName, String typeName) {}
@@ -0,0 +1,19 @@
+package co.com.crediya.model.loan;
+
+import java.util.UUID;
+
+/** Resultado por préstamo de un cambio de estado en lote: la transición aplicada o el motivo del fallo. */
+public record LoanTransitionResult(UUID loanId, LoanTransition transition, RuntimeException error) {
+
+    public static LoanTransitionResult applied(UUID loanId, LoanTransition transition) {
+        return new LoanTransitionResult(loanId, transition, null);
+    }
+
+    public static LoanTransitionResult failed(UUID loanId, RuntimeException error) {
+        return new LoanTransitionResult(loanId, null, error);
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
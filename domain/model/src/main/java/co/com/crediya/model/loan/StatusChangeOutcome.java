@@ -0,0 +1,20 @@
+package co.com.crediya.model.loan;
+
+/**
+ * Resultado de cada item de un cambio de estado masivo, en el orden de la petición.
+ * {@code changed.userData()} es nulo si el cliente no se encontró (no se notifica).
+ */
+public record StatusChangeOutcome(ChangeLoanStatus request, LoanStatusChanged changed, RuntimeException error) {
+
+    public static StatusChangeOutcome changed(ChangeLoanStatus request, LoanStatusChanged changed) {
+        return new StatusChangeOutcome(request, changed, null);
+    }
+
+    public static StatusChangeOutcome failed(ChangeLoanStatus request, RuntimeException error) {
+        return new StatusChangeOutcome(request, null, error);
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
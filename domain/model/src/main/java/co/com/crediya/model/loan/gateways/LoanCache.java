@@ -0,0 +1,21 @@
+package co.com.crediya.model.loan.gateways;
+
+import co.com.crediya.model.loan.Loan;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Caché de préstamos por id para las consultas de seguimiento. Se llena al crear y se invalida al
+ * cambiar de estado; las demás instancias se enteran por su cuenta (ver el adapter).
+ */
+public interface LoanCache {
+
+    /** En un miss, los llamadores concurrentes del mismo id comparten una sola ejecución de {@code loader}. */
+    Mono<Loan> get(UUID id, Function<UUID, Mono<Loan>> loader);
+
+    void put(Loan loan);
+
+    void invalidate(UUID id);
+}
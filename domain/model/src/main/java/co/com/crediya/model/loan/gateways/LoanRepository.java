@@ -1,18 +1,65 @@
 package co.com.crediya.model.loan.gateways;
 
+import co.com.crediya.model.loan.BulkLoanItem;
+import co.com.crediya.model.loan.CreatedLoan;
 import co.com.crediya.model.loan.Loan;
 import co.com.crediya.model.loan.LoanApproved;
+import co.com.crediya.model.loan.LoanExportWriter;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.loan.LoanTransition;
+import co.com.crediya.model.loan.LoanTransitionResult;
+import co.com.crediya.model.pageable.CountMode;
+import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
 import co.com.crediya.model.pageable.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.List;
 import java.util.UUID;
 
 public interface LoanRepository {
     Mono<Loan> save(Loan loan);
+    /**
+     * Valida el monto contra el rango del tipo, resuelve el estado por nombre e inserta en un solo viaje.
+     * Falla con DomainNotFoundException (TYPE_LOAN_NOT_FOUND, STATE_&lt;stateName&gt;_NOT_FOUND) o
+     * DomainValidationException (AMOUNT_OUT_OF_RANGE).
+     */
+    Mono<CreatedLoan> createValidated(Loan loan, String stateName);
+    /**
+     * Igual que {@link #createValidated} pero con un único INSERT multi-fila para todo el lote.
+     * Emite un resultado por item, en el mismo orden: creado o rechazado con el mismo código de error.
+     */
+    Flux<BulkLoanItem> createValidatedBatch(List<BulkLoanItem> items, String stateName);
+    /**
+     * Cambia el estado en una sola sentencia, condicionada a que el estado leído no cambie entre la
+     * lectura y la escritura. Se informa {@code newStateId} o {@code newStateName}.
+     * Falla con DomainNotFoundException (LOAN_NOT_FOUND, STATE_LOAN_NOT_FOUND) o
+     * DomainConflictException (LOAN_STATUS_CONFLICT) si otra transición ganó la carrera.
+     */
+    Mono<LoanTransition> changeState(UUID loanId, UUID newStateId, String newStateName);
+    /**
+     * {@link #changeState} para varios préstamos hacia el mismo estado, con un solo UPDATE ... WHERE id = ANY.
+     * Emite un resultado por id, en el mismo orden, con los mismos códigos de error por préstamo.
+     */
+    Flux<LoanTransitionResult> changeStateBatch(List<UUID> loanIds, UUID newStateId, String newStateName);
     Mono<Loan> findById(UUID id);
-    Flux<LoanApproved> findByEmailAndStatusId(String email, UUID statusId);
+    /** Por el código de estado del préstamo, sin resolver antes el id de loan_state. */
+    Flux<LoanApproved> findByEmailAndStatus(String email, LoanStatus status);
     Flux<Loan> findAll();
-    Mono<Pageable<LoanSummary>> findForManualReview(ManualReviewFilter filter, int page, int size);
+    /**
+     * Streaming con cursor del lado del servidor: trae las filas por tandas según la demanda, con los
+     * filtros aplicados en SQL, ordenado del más reciente al más antiguo.
+     */
+    Flux<Loan> stream(LoanStreamFilter filter);
+    /**
+     * Mismo recorrido que {@link #stream} pero cada fila va directo al writer: emite la cabecera, un
+     * bloque por cada tanda del cursor y el cierre.
+     */
+    <C> Flux<C> export(LoanStreamFilter filter, LoanExportWriter<C> writer);
+    Mono<Pageable<LoanSummary>> findForManualReview(ManualReviewFilter filter, int page, int size, CountMode countMode);
+    /** Paginación keyset: {@code after} nulo devuelve la primera página. */
+    Mono<Pageable<LoanSummary>> findForManualReviewByCursor(ManualReviewFilter filter, PageCursor after, int size,
+                                                            CountMode countMode);
 }
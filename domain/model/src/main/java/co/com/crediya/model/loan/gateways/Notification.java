@@ -2,10 +2,18 @@ package co.com.crediya.model.loan.gateways;
 
 import co.com.crediya.model.loan.Loan;
 import co.com.crediya.model.loan.LoanStatusChanged;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface Notification {
 
     Mono<Void> sendMessage(LoanStatusChanged loanStatusChanged);
 
+    /** Encola varias notificaciones de una vez; las implementaciones pueden hacerlo en una sola escritura. */
+    default Mono<Void> sendMessages(List<LoanStatusChanged> changes) {
+        return Flux.fromIterable(changes).concatMap(this::sendMessage).then();
+    }
+
 }
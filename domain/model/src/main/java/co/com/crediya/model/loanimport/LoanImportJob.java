@@ -0,0 +1,23 @@
+package co.com.crediya.model.loanimport;
+
+import java.time.Instant;
+
+/**
+ * Progreso de una importación. Los contadores se actualizan al cerrar cada fase: stagedRows tras el
+ * COPY, rejectedRows tras validar (y al hacer el merge, si aparecieron conflictos), importedRows tras
+ * el merge. Con dryRun el job termina después de validar.
+ */
+public record LoanImportJob(
+        String id,
+        LoanImportStatus status,
+        String requestedBy,
+        boolean dryRun,
+        long stagedRows,
+        long rejectedRows,
+        long importedRows,
+        String error,
+        Instant createdAt,
+        Instant updatedAt,
+        Instant finishedAt
+) {
+}
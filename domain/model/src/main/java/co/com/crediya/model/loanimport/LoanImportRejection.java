@@ -0,0 +1,8 @@
+package co.com.crediya.model.loanimport;
+
+/**
+ * Fila rechazada del CSV. line es el número de registro de datos (1 = el primero después de la
+ * cabecera) y row los valores tal como llegaron, separados por coma.
+ */
+public record LoanImportRejection(long line, String reason, String row) {
+}
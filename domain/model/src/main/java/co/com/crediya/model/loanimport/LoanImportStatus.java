@@ -0,0 +1,14 @@
+package co.com.crediya.model.loanimport;
+
+/** STAGING (COPY) → VALIDATING → MERGING → COMPLETED, o FAILED en cualquier fase. */
+public enum LoanImportStatus {
+    STAGING,
+    VALIDATING,
+    MERGING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,27 @@
+package co.com.crediya.model.loanimport.gateways;
+
+import co.com.crediya.model.loanimport.LoanImportJob;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+public interface LoanImportRepository {
+    /** Registra el job en STAGING y prepara su área de staging. */
+    Mono<LoanImportJob> create(String requestedBy, boolean dryRun);
+    /**
+     * Carga el CSV (cabecera id,amount,term_months,email,state,type,created_at, la misma del export) en
+     * el staging del job. Devuelve las filas cargadas.
+     */
+    Mono<Long> stage(String jobId, Flux<ByteBuffer> csv);
+    /** Escribe el reporte de rechazos del staging. Devuelve las filas rechazadas. */
+    Mono<Long> validate(String jobId);
+    /** Inserta en loan las filas válidas resolviendo tipo y estado por nombre. Devuelve las insertadas. */
+    Mono<Long> merge(String jobId);
+    Mono<Void> updateStatus(String jobId, LoanImportStatus status, String error);
+    Mono<Void> dropStaging(String jobId);
+    Mono<LoanImportJob> findById(String jobId);
+    Flux<LoanImportRejection> findRejections(String jobId);
+}
@@ -0,0 +1,18 @@
+package co.com.crediya.model.loanimport.gateways;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Dueño de las importaciones en curso: corre validación y merge en segundo plano con concurrencia
+ * acotada y mantiene vivos los jobs de esta instancia, para que los que dejó una instancia caída se
+ * puedan dar por fallidos.
+ */
+public interface LoanImportWorker {
+    /** Mantiene vivo el job mientras corre {@code phase}, la parte que va dentro de la petición (el COPY). */
+    <T> Mono<T> track(String jobId, Mono<T> phase);
+    /**
+     * Encola {@code work} y completa al encolarlo, sin esperar a que termine. Falla con
+     * DomainConflictException (LOAN_IMPORT_BUSY) si la cola está llena.
+     */
+    Mono<Void> submit(String jobId, Mono<?> work);
+}
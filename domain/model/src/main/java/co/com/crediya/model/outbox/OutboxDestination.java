@@ -0,0 +1,6 @@
+package co.com.crediya.model.outbox;
+
+public enum OutboxDestination {
+    DEBT_CAPACITY,
+    NOTIFICATION
+}
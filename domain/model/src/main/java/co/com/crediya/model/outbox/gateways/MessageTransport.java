@@ -0,0 +1,12 @@
+package co.com.crediya.model.outbox.gateways;
+
+import co.com.crediya.model.outbox.OutboxDestination;
+import reactor.core.publisher.Mono;
+
+public interface MessageTransport {
+
+    OutboxDestination destination();
+
+    Mono<Void> deliver(String payload);
+
+}
@@ -0,0 +1,24 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+
+import java.util.Locale;
+
+/**
+ * Cómo se calcula el total de un listado paginado.
+ * EXACT cuenta todas las filas, APPROX usa la estimación del planner y NONE no cuenta.
+ */
+public enum CountMode {
+    EXACT,
+    APPROX,
+    NONE;
+
+    public static CountMode from(String value) {
+        if (value == null || value.isBlank()) return EXACT;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new DomainValidationException("INVALID_COUNT_MODE", value);
+        }
+    }
+}
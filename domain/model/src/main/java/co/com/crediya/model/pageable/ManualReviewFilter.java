@@ -8,5 +8,15 @@ public record ManualReviewFilter(
         Set<LoanStatus> statuses,
         String typeLoanId,
         BigDecimal minAmount,
-        BigDecimal maxAmount
-) {}
+        BigDecimal maxAmount,
+        SearchMode searchMode
+) {
+    public ManualReviewFilter {
+        if (searchMode == null) searchMode = SearchMode.CONTAINS;
+    }
+
+    public ManualReviewFilter(String search, Set<LoanStatus> statuses, String typeLoanId,
+                              BigDecimal minAmount, BigDecimal maxAmount) {
+        this(search, statuses, typeLoanId, minAmount, maxAmount, SearchMode.CONTAINS);
+    }
+}
@@ -0,0 +1,39 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición opaca para paginación keyset sobre (created_at, id) descendente.
+ * El cliente solo ve el valor codificado en base64url.
+ */
+public record PageCursor(Instant createdAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public PageCursor {
+        if (createdAt == null || id == null) throw new DomainValidationException("INVALID_CURSOR", "empty");
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String value) {
+        if (value == null || value.isBlank()) throw new DomainValidationException("INVALID_CURSOR", "empty");
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) throw new DomainValidationException("INVALID_CURSOR", "malformed cursor");
+            return new PageCursor(Instant.parse(raw.substring(0, idx)), UUID.fromString(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new DomainValidationException("INVALID_CURSOR", "malformed cursor");
+        }
+    }
+}
@@ -2,6 +2,27 @@ package co.com.crediya.model.pageable;
 
 import java.util.List;
 
-public record Pageable<T>(List<T> content, long totalElements, int page, int size) {
-    public int totalPages() { return (int) Math.ceil((double) totalElements / (double) size); }
+/**
+ * nextCursor solo se informa en modo cursor (keyset); es nulo cuando no hay más resultados
+ * o cuando la página se pidió por número.
+ * totalExact es falso cuando el total es una estimación; con {@link CountMode#NONE} el total
+ * es {@link #UNKNOWN_TOTAL}.
+ */
+public record Pageable<T>(List<T> content, long totalElements, int page, int size, String nextCursor,
+                          boolean totalExact) {
+
+    public static final long UNKNOWN_TOTAL = -1L;
+
+    public Pageable(List<T> content, long totalElements, int page, int size, String nextCursor) {
+        this(content, totalElements, page, size, nextCursor, true);
+    }
+
+    public Pageable(List<T> content, long totalElements, int page, int size) {
+        this(content, totalElements, page, size, null);
+    }
+
+    public int totalPages() {
+        if (totalElements < 0) return -1;
+        return (int) Math.ceil((double) totalElements / (double) size);
+    }
 }
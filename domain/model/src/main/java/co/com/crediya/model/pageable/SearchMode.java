@@ -0,0 +1,22 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+
+import java.util.Locale;
+
+/** Cómo se compara {@link ManualReviewFilter#search()} contra el email. */
+public enum SearchMode {
+    /** El email contiene el texto (índice trigram). */
+    CONTAINS,
+    /** El email empieza por el texto (índice text_pattern_ops). */
+    PREFIX;
+
+    public static SearchMode from(String value) {
+        if (value == null || value.isBlank()) return CONTAINS;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new DomainValidationException("INVALID_SEARCH_MODE", value);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package co.com.crediya.model.tx;
+
+import java.util.UUID;
+
+/**
+ * Dato que decide dónde corre una transacción cuando los préstamos están repartidos entre varias bases:
+ * el email del cliente, el id de un préstamo ya existente cuando el email no se conoce de antemano, o la
+ * base ya resuelta por {@link co.com.crediya.model.tx.gateway.TxRunner#partitions} para un lote.
+ */
+public record TxRoute(String customerEmail, UUID loanId, String partition) {
+
+    public static TxRoute customer(String email) {
+        return new TxRoute(email, null, null);
+    }
+
+    public static TxRoute loan(UUID loanId) {
+        return new TxRoute(null, loanId, null);
+    }
+
+    public static TxRoute partition(String partition) {
+        return new TxRoute(null, null, partition);
+    }
+}
@@ -0,0 +1,18 @@
+package co.com.crediya.model.tx.gateway;
+
+import reactor.core.publisher.Mono;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Junta las peticiones concurrentes de una misma operación que llegan dentro de una ventana corta y
+ * las aplica con un solo {@code commit}, que recibe el lote y devuelve un resultado por petición en
+ * el mismo orden. Cada llamador recibe solo el suyo; si el commit falla, el error llega a todos.
+ */
+public interface GroupCommit {
+
+    /** Deshabilitado, el llamador debería seguir su camino de una transacción por petición. */
+    boolean isEnabled();
+
+    <I, O> Mono<O> submit(String operation, I request, Function<List<I>, Mono<List<O>>> commit);
+}
@@ -1,13 +1,36 @@
 package co.com.crediya.model.tx.gateway;
 
+import co.com.crediya.model.tx.TxRoute;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public interface TxRunner {
+    /** Partición de todas las rutas cuando los préstamos viven en una sola base. */
+    String SINGLE_PARTITION = "single";
+
     <T> Mono<T> required(Supplier<Mono<T>> action);
     <T> Flux<T> requiredMany(Supplier<Flux<T>> action);
 
     default <T> Mono<T> readOnly(Supplier<Mono<T>> action) { return required(action); }
     default <T> Flux<T> readOnlyMany(Supplier<Flux<T>> action) { return requiredMany(action); }
+
+    // Variantes con nombre de operación: permiten medir cuánto retiene la conexión cada caso de uso.
+    default <T> Mono<T> required(String operation, Supplier<Mono<T>> action) { return required(action); }
+    default <T> Flux<T> requiredMany(String operation, Supplier<Flux<T>> action) { return requiredMany(action); }
+    default <T> Mono<T> readOnly(String operation, Supplier<Mono<T>> action) { return readOnly(action); }
+    default <T> Flux<T> readOnlyMany(String operation, Supplier<Flux<T>> action) { return readOnlyMany(action); }
+
+    // Con los préstamos repartidos en varias bases, la transacción se abre en la que corresponde a route.
+    default <T> Mono<T> required(String operation, TxRoute route, Supplier<Mono<T>> action) { return required(operation, action); }
+    default <T> Flux<T> requiredMany(String operation, TxRoute route, Supplier<Flux<T>> action) { return requiredMany(operation, action); }
+
+    /** Base de cada ruta, para abrir una transacción por base en un lote. Sin reparto, todas van a la misma. */
+    default Mono<Map<TxRoute, String>> partitions(Collection<TxRoute> routes) {
+        return Mono.just(routes.stream().distinct().collect(Collectors.toMap(Function.identity(), route -> SINGLE_PARTITION)));
+    }
 }
@@ -0,0 +1,28 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountModeTest {
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void missing_defaultsToExact(String s) {
+        assertEquals(CountMode.EXACT, CountMode.from(s));
+    }
+
+    @Test
+    void parsing_isCaseInsensitive() {
+        assertEquals(CountMode.APPROX, CountMode.from("approx"));
+        assertEquals(CountMode.NONE, CountMode.from(" None "));
+    }
+
+    @Test
+    void unknown_throws() {
+        assertThrows(DomainValidationException.class, () -> CountMode.from("fast"));
+    }
+}
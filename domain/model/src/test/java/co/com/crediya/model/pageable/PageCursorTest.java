@@ -0,0 +1,47 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encode_decode_roundTrip_keepsMicroseconds() {
+        var cursor = new PageCursor(Instant.parse("2025-03-04T10:11:12.123456Z"), UUID.randomUUID());
+
+        var decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void encoded_isUrlSafe() {
+        var encoded = new PageCursor(Instant.now(), UUID.randomUUID()).encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {" ", "not-base64!", "Zm9v"})
+    void invalid_cursors_throw(String s) {
+        var ex = assertThrows(DomainValidationException.class, () -> PageCursor.decode(s));
+        assertTrue(ex.getMessage().startsWith("INVALID_CURSOR"));
+    }
+
+    @Test
+    void cursor_withBadUuid_throws() {
+        var raw = Base64.getUrlEncoder().encodeToString("2025-03-04T10:11:12Z|nope".getBytes(StandardCharsets.UTF_8));
+        assertThrows(DomainValidationException.class, () -> PageCursor.decode(raw));
+    }
+}
@@ -0,0 +1,25 @@
+package co.com.crediya.model.pageable;
+
+import co.com.crediya.model.exceptions.DomainValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchModeTest {
+
+    @Test
+    void missing_defaultsToContains() {
+        assertEquals(SearchMode.CONTAINS, SearchMode.from(null));
+        assertEquals(SearchMode.CONTAINS, new ManualReviewFilter("x", null, null, null, null).searchMode());
+    }
+
+    @Test
+    void prefix_isParsed() {
+        assertEquals(SearchMode.PREFIX, SearchMode.from("Prefix"));
+    }
+
+    @Test
+    void unknown_throws() {
+        assertThrows(DomainValidationException.class, () -> SearchMode.from("regex"));
+    }
+}
@@ -1,5 +1,6 @@
 package co.com.crediya.model.tx.gateway;
 
+import co.com.crediya.model.tx.TxRoute;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -47,4 +48,15 @@ class TxRunnerTest {
         assertEquals(0, runner.requiredCalls.get());
         assertEquals(1, runner.requiredManyCalls.get());
     }
+
+    @Test
+    void requiredWithRoute_delegatesTo_required() {
+        var runner = new TestTxRunner();
+
+        StepVerifier.create(runner.required("op", TxRoute.customer("a@b.com"), () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertEquals(1, runner.requiredCalls.get());
+    }
 }
@@ -1,26 +1,49 @@
 package co.com.crediya.usecase.loan;
 
 import co.com.crediya.model.customer.UserData;
+import co.com.crediya.model.customer.gateways.CustomerDebtRepository;
 import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.exceptions.DomainConflictException;
 import co.com.crediya.model.exceptions.DomainNotFoundException;
 import co.com.crediya.model.exceptions.DomainValidationException;
 import co.com.crediya.model.loan.*;
 import co.com.crediya.model.loan.gateways.DebtCapacitySQS;
+import co.com.crediya.model.loan.gateways.LoanCache;
 import co.com.crediya.model.loan.gateways.LoanRepository;
+import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.pageable.CountMode;
+import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
 import co.com.crediya.model.pageable.Pageable;
-import co.com.crediya.model.stateloan.StateLoan;
-import co.com.crediya.model.stateloan.gateways.StateLoanRepository;
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.model.tx.gateway.GroupCommit;
 import co.com.crediya.model.tx.gateway.TxRunner;
-import co.com.crediya.model.typeloan.TypeLoan;
 import co.com.crediya.model.typeloan.gateways.TypeLoanRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RequiredArgsConstructor
 @Log
@@ -30,177 +53,453 @@ public class LoanUseCase {
 
     private final TypeLoanRepository typeLoanRepository;
 
-    private final StateLoanRepository stateLoanRepository;
-
     private final CustomerGateway customerGateway;
 
     private final DebtCapacitySQS debtCapacitySQS;
 
+    private final Notification notification;
+
+    private final CustomerDebtRepository customerDebtRepository;
+
     private final TxRunner txRunner;
 
+    private final GroupCommit groupCommit;
+
+    private final LoanCache loanCache;
+
     public static final String DEFAULT_PENDING_STATE_NAME = "PENDING_REVIEW";
 
     public static final String DEFAULT_APPROVED_STATE_NAME = "APPROVED";
 
+    /** Líneas por INSERT multi-fila en la carga masiva. */
+    public static final int BULK_CHUNK_SIZE = 200;
+
+    /** Lotes en vuelo a la vez; acota memoria y conexiones ocupadas por una sola carga. */
+    public static final int BULK_CONCURRENCY = 2;
+
+    /** Consultas previas (auth, deuda) concurrentes dentro de un lote. */
+    private static final int BULK_LOOKUP_CONCURRENCY = 16;
+
+    /** Máximo de items por petición de cambio de estado masivo. */
+    public static final int MAX_BULK_STATUS_CHANGES = 500;
+
+    /** Un lote parcial se envía igual pasado este tiempo, para responder mientras la carga sigue llegando. */
+    private static final Duration BULK_MAX_WAIT = Duration.ofMillis(250);
+
     public Mono<Loan> create(Loan loan) {
         log.info("Creating loan. email= " + loan.email().value() +
                 ", typeLoanId= " + loan.typeLoanId() +
                 ", amount= " + loan.amount().value().toString());
 
-        Mono<TypeLoan> typeLoanMono =
-                typeLoanRepository.findById(UUID.fromString(loan.typeLoanId()))
-                        .switchIfEmpty(Mono.error(new DomainNotFoundException(
-                                "TYPE_LOAN_NOT_FOUND")));
-
-        Mono<StateLoan> pendingStateMono =
-                stateLoanRepository.findByName(DEFAULT_PENDING_STATE_NAME)
-                        .switchIfEmpty(Mono.error(new DomainNotFoundException(
-                                "STATE_PENDING_REVIEW_NOT_FOUND")));
-
-
-        return txRunner.required(
-                () -> Mono.zip(typeLoanMono, pendingStateMono)
-                        .flatMap(tuple -> {
-                            TypeLoan type = tuple.getT1();
-                            StateLoan pendingState = tuple.getT2();
-
-                            return validateAmountInRange(loan,
-                                    type)        // <- encadenado
-                                    .then(Mono.defer(() -> {
-                                        if (type.automaticValidation()) {
-                                            Mono<UserData> userDataMono =
-                                                    customerGateway.findByEmail(
-                                                            loan.email()
-                                                                    .value());
-                                            Mono<List<LoanApproved>>
-                                                    loanApprovedListMono =
-                                                    getListLoanApproved(
-                                                            loan.email()
-                                                                    .value());
-
-                                            return Mono.zip(userDataMono,
-                                                            loanApprovedListMono)
-                                                    .flatMap(t -> {
-                                                        UserData userData =
-                                                                t.getT1();
-                                                        List<LoanApproved>
-                                                                loanApprovedList =
-                                                                t.getT2();
-
-                                                        var loanToSave =
-                                                                new Loan(
-                                                                        null,
-                                                                        loan.amount(),
-                                                                        loan.termMonths(),
-                                                                        loan.email(),
-                                                                        pendingState.id(),
-                                                                        loan.typeLoanId()
-                                                                );
-
-                                                        return loanRepository.save(
-                                                                        loanToSave)
-                                                                .flatMap(
-                                                                        loanSaved -> {
-                                                                            var
-                                                                                    debtCapacity =
-                                                                                    new DebtCapacity(
-                                                                                            loanSaved,
-                                                                                            loanApprovedList,
-                                                                                            userData);
-                                                                            return debtCapacitySQS.sendMessage(
-                                                                                            debtCapacity)
-                                                                                    .thenReturn(
-                                                                                            loanSaved);
-                                                                        });
-                                                    });
+        // lo remoto (auth) y las lecturas van antes: la transacción solo cubre insert + outbox
+        return typeLoanRepository.findById(UUID.fromString(loan.typeLoanId()))
+                .switchIfEmpty(Mono.error(new DomainNotFoundException("TYPE_LOAN_NOT_FOUND")))
+                .flatMap(type -> type.automaticValidation()
+                        ? loadDebtContext(loan.email().value()).map(Optional::of)
+                        : Mono.just(Optional.<DebtContext>empty()))
+                .flatMap(context -> txRunner.required("LoanUseCase.create", TxRoute.customer(loan.email().value()),
+                        // rango del tipo, estado inicial e insert en una sola sentencia
+                        () -> loanRepository.createValidated(loan, DEFAULT_PENDING_STATE_NAME)
+                                .flatMap(created -> created.automaticValidation()
+                                        ? sendDebtCapacity(created.loan(), context).thenReturn(created.loan())
+                                        : Mono.just(created.loan()))))
+                .doOnNext(saved -> {
+                    // ya confirmado: el GET que hace el cliente justo después no va a la base
+                    loanCache.put(saved);
+                    log.info("Loan created id= " + saved.id());
+                });
+    }
+
+    public Mono<Loan> getLoanById(UUID id) {
+        return loanCache.get(id, key -> txRunner.readOnly("LoanUseCase.getLoanById",
+                        () -> loanRepository.findById(key)))
+                .switchIfEmpty(Mono.error(new DomainNotFoundException("LOAN_NOT_FOUND")));
+    }
+
+    private record DebtContext(UserData userData, List<LoanApproved> approvedLoans, BigDecimal monthlyApprovedDebt) {}
+
+    /**
+     * Carga masiva: agrupa en lotes, valida e inserta cada lote con un INSERT multi-fila y emite un
+     * resultado por línea en el orden de entrada. Con {@code bufferTimeout} justo y
+     * {@code flatMapSequential} acotado, la memoria depende del tamaño de lote, no del de la carga.
+     * <p>
+     * Lo que falla por línea (validación, tipo, cliente inexistente, timeout de auth) la rechaza y la
+     * carga sigue. Un error de infraestructura (base caída, transacción abortada) rechaza las líneas que
+     * no llegaron a confirmar, deja terminar los lotes que ya estaban en curso, no empieza ninguno más y
+     * termina el stream con ese error: las líneas posteriores quedan sin resultado.
+     */
+    public Flux<BulkLoanItem> createBulk(Flux<BulkLoanItem> items) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        return items
+                .bufferTimeout(BULK_CHUNK_SIZE, BULK_MAX_WAIT, true)
+                .takeWhile(chunk -> failure.get() == null)
+                .flatMapSequential(chunk -> createChunk(chunk, failure), BULK_CONCURRENCY, 1)
+                .concatWith(Mono.defer(() -> failure.get() == null
+                        ? Mono.<BulkLoanItem>empty()
+                        : Mono.error(failure.get())));
+    }
+
+    private Flux<BulkLoanItem> createChunk(List<BulkLoanItem> chunk, AtomicReference<RuntimeException> failure) {
+        // igual que create(): tipo (caché) y consultas remotas antes de abrir la transacción
+        return Flux.fromIterable(chunk)
+                .flatMapSequential(item -> item.isRejected()
+                        ? Mono.just(new PreparedItem(item, Optional.empty()))
+                        : prepare(item), BULK_LOOKUP_CONCURRENCY)
+                .collectList()
+                .flatMapMany(prepared -> {
+                    List<BulkLoanItem> accepted = prepared.stream()
+                            .map(PreparedItem::item)
+                            .filter(item -> !item.isRejected())
+                            .toList();
+                    if (accepted.isEmpty()) {
+                        return Flux.fromIterable(prepared).map(PreparedItem::item);
+                    }
+                    Map<Long, Optional<DebtContext>> contexts = prepared.stream()
+                            .collect(Collectors.toMap(p -> p.item().line(), PreparedItem::context));
+                    // con shards, un INSERT y una transacción por shard: cada préstamo queda en el de su cliente
+                    return byPartition(accepted, item -> TxRoute.customer(item.loan().email().value()))
+                            .flatMapMany(groups -> Flux.fromIterable(groups.entrySet()))
+                            // el fallo de un shard rechaza solo sus líneas: las de los shards ya confirmados se reportan
+                            .concatMap(group -> insertGroup(group.getKey(), group.getValue(), contexts)
+                                    .collectList()
+                                    .onErrorResume(RuntimeException.class, e -> {
+                                        if (!isDomainError(e)) {
+                                            failure.compareAndSet(null, e);
                                         }
-                                        var loanToSave = new Loan(
-                                                null, loan.amount(),
-                                                loan.termMonths(),
-                                                loan.email(), pendingState.id(),
-                                                loan.typeLoanId()
-                                        );
-                                        return loanRepository.save(loanToSave);
-                                    }));
-                        })
-                        .doOnSuccess(saved -> log.info(
-                                "Loan created id= " + saved.id()))
-        );
+                                        return Mono.just(group.getValue().stream().map(item -> item.reject(e)).toList());
+                                    })
+                                    .flatMapIterable(results -> results))
+                            .collectMap(BulkLoanItem::line)
+                            .flatMapIterable(results -> prepared.stream()
+                                    .map(p -> results.getOrDefault(p.item().line(), p.item()))
+                                    .toList());
+                });
+    }
+
+    /**
+     * INSERT y outbox de un grupo en su transacción. Si el contexto de deuda de una línea no se puede
+     * cargar (el tipo pasó a automático después de prepare), la transacción se revierte y el grupo se
+     * reintenta sin esas líneas, que quedan rechazadas: así no queda un préstamo sin su mensaje.
+     */
+    private Flux<BulkLoanItem> insertGroup(String partition, List<BulkLoanItem> items,
+                                           Map<Long, Optional<DebtContext>> contexts) {
+        Map<Long, BulkLoanItem> rejected = new LinkedHashMap<>();
+        return txRunner.requiredMany("LoanUseCase.createBulk", TxRoute.partition(partition),
+                        () -> loanRepository.createValidatedBatch(items, DEFAULT_PENDING_STATE_NAME)
+                                .concatMap(result -> !result.isRejected() && result.automaticValidation()
+                                        ? debtContext(result.loan(), contexts.get(result.line()))
+                                                .flatMap(context -> sendDebtCapacity(result.loan(), context)
+                                                        .thenReturn(result))
+                                                .onErrorResume(MissingDebtContext.class, e -> {
+                                                    rejected.put(result.line(), result.reject(e.cause()));
+                                                    return Mono.empty();
+                                                })
+                                        : Mono.just(result))
+                                .concatWith(Mono.defer(() -> rejected.isEmpty()
+                                        ? Mono.<BulkLoanItem>empty()
+                                        : Mono.error(new RetryWithout()))))
+                .collectList()
+                .flatMapMany(Flux::fromIterable)
+                .onErrorResume(RetryWithout.class, e -> insertGroup(partition, items.stream()
+                                .filter(item -> !rejected.containsKey(item.line()))
+                                .toList(), contexts)
+                        .concatWith(Flux.fromIterable(rejected.values())));
+    }
+
+    /** Revierte la transacción de un grupo para reintentarlo sin las líneas rechazadas. */
+    private static final class RetryWithout extends RuntimeException {
+        private RetryWithout() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** La carga del contexto de una línea falló: se rechaza esa línea, no el grupo. */
+    private static final class MissingDebtContext extends RuntimeException {
+        private MissingDebtContext(RuntimeException cause) {
+            super(null, cause, false, false);
+        }
+
+        private RuntimeException cause() {
+            return (RuntimeException) getCause();
+        }
+    }
+
+    private static boolean isDomainError(Throwable e) {
+        return e instanceof DomainValidationException
+                || e instanceof DomainNotFoundException
+                || e instanceof DomainConflictException;
+    }
+
+    private record PreparedItem(BulkLoanItem item, Optional<DebtContext> context) {}
+
+    /** Agrupa un lote por la base en la que corre la transacción de cada item, conservando el orden. */
+    private <T> Mono<Map<String, List<T>>> byPartition(List<T> items, Function<T, TxRoute> route) {
+        List<TxRoute> routes = items.stream().map(route).toList();
+        return txRunner.partitions(routes)
+                .map(partitions -> IntStream.range(0, items.size()).boxed()
+                        .collect(Collectors.groupingBy(i -> partitions.get(routes.get(i)), LinkedHashMap::new,
+                                Collectors.mapping(items::get, Collectors.toList()))));
+    }
+
+    private Mono<PreparedItem> prepare(BulkLoanItem item) {
+        Loan loan = item.loan();
+        return Mono.defer(() -> typeLoanRepository.findById(UUID.fromString(loan.typeLoanId())))
+                .switchIfEmpty(Mono.error(new DomainNotFoundException("TYPE_LOAN_NOT_FOUND")))
+                .flatMap(type -> type.automaticValidation()
+                        ? loadDebtContext(loan.email().value()).map(Optional::of)
+                        : Mono.just(Optional.<DebtContext>empty()))
+                .map(context -> new PreparedItem(item, context))
+                // el rechazo de una línea no corta la carga
+                .onErrorResume(RuntimeException.class,
+                        e -> Mono.just(new PreparedItem(item.reject(e), Optional.empty())));
+    }
+
+    private Mono<DebtContext> loadDebtContext(String email) {
+        return Mono.zip(
+                        customerGateway.findByEmail(email)
+                                .switchIfEmpty(Mono.error(new DomainNotFoundException("CUSTOMER_NOT_FOUND"))),
+                        getListLoanApproved(email),
+                        customerDebtRepository.findMonthlyApprovedDebt(email))
+                .map(t -> new DebtContext(t.getT1(), t.getT2(), t.getT3()));
+    }
+
+    private Mono<Void> sendDebtCapacity(Loan saved, Optional<DebtContext> preloaded) {
+        // el tipo pasó a automático entre la lectura (caché) y el insert: se carga aquí
+        return preloaded.map(Mono::just)
+                .orElseGet(() -> loadDebtContext(saved.email().value()))
+                .flatMap(context -> sendDebtCapacity(saved, context));
+    }
+
+    private Mono<Void> sendDebtCapacity(Loan saved, DebtContext context) {
+        return debtCapacitySQS.sendMessage(new DebtCapacity(saved,
+                context.approvedLoans(), context.userData(), context.monthlyApprovedDebt()));
+    }
+
+    /** Como en sendDebtCapacity, pero el fallo de la carga se distingue del de la escritura al outbox. */
+    private Mono<DebtContext> debtContext(Loan saved, Optional<DebtContext> preloaded) {
+        return preloaded.map(Mono::just)
+                .orElseGet(() -> loadDebtContext(saved.email().value())
+                        .onErrorMap(RuntimeException.class, MissingDebtContext::new));
     }
 
     public Mono<LoanStatusChanged> changeLoanStatus(
             ChangeLoanStatus changeLoanStatus) {
         log.info("Changing loan status. loanId= " + changeLoanStatus.loanId() +
                 ", newStateId= " + changeLoanStatus.newStateId());
-        return txRunner.required(() -> loanRepository.findById(
-                        UUID.fromString(changeLoanStatus.loanId()))
-                .switchIfEmpty(Mono.error(
-                        new DomainNotFoundException("LOAN_NOT_FOUND")))
-                .flatMap(loan -> {
-                    Mono<StateLoan> newStateMono;
-                    try {
-                        newStateMono = stateLoanRepository.findById(UUID.fromString(changeLoanStatus.newStateId()));
-                    } catch (IllegalArgumentException e) {
-                        newStateMono = stateLoanRepository.findByName(changeLoanStatus.newStateId());
-                    }
-                    return newStateMono.switchIfEmpty(Mono.error(new DomainNotFoundException(
-                                            "STATE_LOAN_NOT_FOUND")))
-                                    .flatMap(newState -> {
-                                        var updatedLoan = new Loan(
-                                                loan.id(),
-                                                loan.amount(),
-                                                loan.termMonths(),
-                                                loan.email(),
-                                                newState.id(),
-                                                loan.typeLoanId()
-                                        );
-                                        return loanRepository.save(updatedLoan);
-                                    });
-                        }
-                ).flatMap(saved ->
-                        Mono.zip(
-                                stateLoanRepository.findById(
-                                                UUID.fromString(saved.stateLoanId()))
-                                        .map(StateLoan::name),
-                                typeLoanRepository.findById(
-                                                UUID.fromString(saved.typeLoanId()))
-                                        .map(TypeLoan::name),
-                                customerGateway.findByEmail(
-                                        saved.email().value())
-                        ).map(t -> new LoanStatusChanged(saved, t.getT1(),
-                                t.getT2(),
-                                changeLoanStatus.reason(), t.getT3()))
-                ));
+        if (groupCommit.isEnabled()) {
+            // se une a los cambios concurrentes: un solo UPDATE multi-fila y un solo commit por lote
+            return groupCommit.submit("LoanUseCase.changeLoanStatus", changeLoanStatus, this::changeLoanStatusGroup)
+                    .flatMap(outcome -> outcome.isFailed()
+                            ? Mono.error(outcome.error())
+                            : Mono.justOrEmpty(outcome.changed()).filter(changed -> changed.userData() != null));
+        }
+        UUID loanId = UUID.fromString(changeLoanStatus.loanId());
+        UUID newStateId = parseUuid(changeLoanStatus.newStateId());
+        String newStateName = newStateId == null ? changeLoanStatus.newStateId() : null;
+        // lectura, validación del estado y UPDATE en una sola sentencia condicionada al estado actual
+        return txRunner.required("LoanUseCase.changeLoanStatus", TxRoute.loan(loanId), () -> loanRepository.changeState(
+                        loanId, newStateId, newStateName)
+                .flatMap(transition -> updateApprovedDebt(transition).thenReturn(transition))
+                .flatMap(transition -> customerGateway.findByEmail(transition.loan().email().value())
+                        .map(userData -> new LoanStatusChanged(transition.loan(), transition.stateName(),
+                                transition.typeName(), changeLoanStatus.reason(), userData)))
+                .flatMap(changed -> notification.sendMessage(changed)
+                        .thenReturn(changed)))
+                // después del commit (o del rollback): una lectura concurrente no puede dejar el estado viejo
+                .doFinally(signal -> loanCache.invalidate(loanId));
     }
 
-    private Mono<Void> validateAmountInRange(Loan loan, TypeLoan type) {
-        var amount = loan.amount().value();
-        var min = type.minimumAmount().value();
-        var max = type.maximumAmount().value();
-        if (amount.compareTo(min) < 0 || amount.compareTo(max) > 0) {
-            return Mono.error(
-                    new DomainValidationException("AMOUNT_OUT_OF_RANGE",
-                            "Amount must be between " + min + " and " + max));
+    /** Mantiene customer_debt cuando el préstamo entra o sale de APPROVED. */
+    private Mono<Void> updateApprovedDebt(LoanTransition transition) {
+        if (Objects.equals(transition.previousStateId(), transition.loan().stateLoanId())) {
+            return Mono.empty();
+        }
+        UUID loanId = UUID.fromString(transition.loan().id());
+        if (DEFAULT_APPROVED_STATE_NAME.equals(transition.stateName())) {
+            return customerDebtRepository.addApprovedLoan(loanId);
+        }
+        if (DEFAULT_APPROVED_STATE_NAME.equals(transition.previousStateName())) {
+            return customerDebtRepository.removeApprovedLoan(loanId);
         }
         return Mono.empty();
     }
 
-    public Flux<Loan> getAllLoans() {
-        log.info("Getting all loans");
-        return txRunner.readOnlyMany(loanRepository::findAll);
+    /** El estado destino puede venir como id o como nombre. */
+    private static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cambio de estado masivo en una transacción: un UPDATE por estado destino, una sola consulta de
+     * clientes y un solo INSERT al outbox. Devuelve un resultado por item, en el orden de la petición;
+     * los fallos individuales (no encontrado, conflicto, duplicado) no abortan el resto. Con shards es
+     * una transacción por shard, cada una con los préstamos que viven en él; si una falla, sus items
+     * salen fallidos con ese error y los de los demás shards conservan su resultado.
+     */
+    public Mono<List<StatusChangeOutcome>> changeLoanStatusBulk(List<ChangeLoanStatus> changes) {
+        log.info("Changing loan status in bulk. items= " + changes.size());
+        if (changes.size() > MAX_BULK_STATUS_CHANGES) {
+            return Mono.error(new DomainValidationException("BULK_TOO_LARGE",
+                    "At most " + MAX_BULK_STATUS_CHANGES + " items per request"));
+        }
+        return applyStatusChanges(changes);
+    }
+
+    /** Cuerpo de {@link #changeLoanStatusBulk} sin el límite por petición; el group commit corta sus propios lotes. */
+    private Mono<List<StatusChangeOutcome>> applyStatusChanges(List<ChangeLoanStatus> changes) {
+        Map<Integer, StatusChangeOutcome> outcomes = new HashMap<>();
+        List<Integer> valid = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            UUID loanId = parseUuid(changes.get(i).loanId());
+            if (loanId == null) {
+                outcomes.put(i, StatusChangeOutcome.failed(changes.get(i),
+                        new DomainValidationException("INVALID_LOAN_ID", changes.get(i).loanId())));
+            } else if (!seen.add(loanId)) {
+                outcomes.put(i, StatusChangeOutcome.failed(changes.get(i),
+                        new DomainValidationException("DUPLICATE_LOAN_ID", loanId.toString())));
+            } else {
+                valid.add(i);
+            }
+        }
+        return byPartition(valid, i -> TxRoute.loan(UUID.fromString(changes.get(i).loanId())))
+                .flatMapMany(groups -> Flux.fromIterable(groups.entrySet()))
+                // el fallo de un shard se reporta en sus items: lo confirmado en los demás no se pierde
+                .concatMap(group -> txRunner.required("LoanUseCase.changeLoanStatusBulk",
+                                TxRoute.partition(group.getKey()), () -> applyInPartition(changes, group.getValue()))
+                        .onErrorResume(RuntimeException.class, e -> Mono.just(group.getValue().stream()
+                                .collect(Collectors.toMap(i -> i, i -> StatusChangeOutcome.failed(changes.get(i), e))))))
+                .doOnNext(outcomes::putAll)
+                .then(Mono.fromSupplier(() -> IntStream.range(0, changes.size()).mapToObj(outcomes::get).toList()))
+                .doFinally(signal -> seen.forEach(loanCache::invalidate));
+    }
+
+    /** Los cambios de un mismo shard (o de la única base): todo lo que escriben confirma junto. */
+    private Mono<Map<Integer, StatusChangeOutcome>> applyInPartition(List<ChangeLoanStatus> changes,
+                                                                     List<Integer> indexes) {
+        Map<String, List<Integer>> byTarget = new LinkedHashMap<>();
+        indexes.forEach(i -> byTarget.computeIfAbsent(changes.get(i).newStateId(), target -> new ArrayList<>()).add(i));
+        return Flux.fromIterable(byTarget.entrySet())
+                .concatMap(group -> applyTransitions(changes, group.getKey(), group.getValue()))
+                .collectMap(Tuple2::getT1, Tuple2::getT2)
+                .flatMap(results -> Flux.fromIterable(results.values())
+                        .filter(result -> !result.isFailed())
+                        .concatMap(result -> updateApprovedDebt(result.transition()))
+                        .then(notifyBulk(changes, results)));
+    }
+
+    /**
+     * Commit de un lote del group commit. Peticiones concurrentes sobre el mismo préstamo van a rondas
+     * posteriores (cada una su transacción) para que vean el estado que dejó la anterior; el fallo de
+     * una ronda se reporta a sus items sin afectar a las rondas ya confirmadas.
+     */
+    private Mono<List<StatusChangeOutcome>> changeLoanStatusGroup(List<ChangeLoanStatus> changes) {
+        List<List<Integer>> rounds = new ArrayList<>();
+        Map<String, Integer> roundByLoan = new HashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            String loanId = changes.get(i).loanId();
+            int round = roundByLoan.merge(Objects.toString(parseUuid(loanId), loanId), 0, (r, first) -> r + 1);
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(i);
+        }
+        StatusChangeOutcome[] outcomes = new StatusChangeOutcome[changes.size()];
+        return Flux.fromIterable(rounds)
+                .concatMap(round -> {
+                    List<ChangeLoanStatus> batch = round.stream().map(changes::get).toList();
+                    return applyStatusChanges(batch)
+                            .onErrorResume(RuntimeException.class, e -> Mono.just(batch.stream()
+                                    .map(change -> StatusChangeOutcome.failed(change, e))
+                                    .toList()))
+                            .doOnNext(results -> {
+                                for (int j = 0; j < round.size(); j++) {
+                                    outcomes[round.get(j)] = results.get(j);
+                                }
+                            });
+                })
+                .then(Mono.fromSupplier(() -> List.of(outcomes)));
+    }
+
+    private Flux<Tuple2<Integer, LoanTransitionResult>> applyTransitions(List<ChangeLoanStatus> changes,
+                                                                         String target, List<Integer> indexes) {
+        UUID newStateId = parseUuid(target);
+        String newStateName = newStateId == null ? target : null;
+        List<UUID> loanIds = indexes.stream().map(i -> UUID.fromString(changes.get(i).loanId())).toList();
+        // changeStateBatch devuelve un resultado por id en el mismo orden
+        return loanRepository.changeStateBatch(loanIds, newStateId, newStateName)
+                .index()
+                .map(t -> Tuples.of(indexes.get(t.getT1().intValue()), t.getT2()));
+    }
+
+    private Mono<Map<Integer, StatusChangeOutcome>> notifyBulk(List<ChangeLoanStatus> changes,
+                                                               Map<Integer, LoanTransitionResult> results) {
+        Set<String> emails = results.values().stream()
+                .filter(result -> !result.isFailed())
+                .map(result -> result.transition().loan().email().value())
+                .collect(Collectors.toSet());
+        Mono<Map<String, UserData>> users = emails.isEmpty()
+                ? Mono.just(Map.of())
+                : customerGateway.findByEmails(emails);
+        return users.flatMap(byEmail -> {
+            // en el orden de la petición, también para el outbox
+            Map<Integer, StatusChangeOutcome> outcomes = new TreeMap<>();
+            results.forEach((i, result) -> {
+                ChangeLoanStatus request = changes.get(i);
+                if (result.isFailed()) {
+                    outcomes.put(i, StatusChangeOutcome.failed(request, result.error()));
+                    return;
+                }
+                LoanTransition transition = result.transition();
+                outcomes.put(i, StatusChangeOutcome.changed(request, new LoanStatusChanged(transition.loan(),
+                        transition.stateName(), transition.typeName(), request.reason(),
+                        byEmail.get(transition.loan().email().value()))));
+            });
+            // como en changeLoanStatus, sin cliente no hay a quién notificar
+            List<LoanStatusChanged> toNotify = outcomes.values().stream()
+                    .filter(outcome -> !outcome.isFailed() && outcome.changed().userData() != null)
+                    .map(StatusChangeOutcome::changed)
+                    .toList();
+            return notification.sendMessages(toNotify).thenReturn(outcomes);
+        });
+    }
+
+    public Flux<Loan> getAllLoans(LoanStreamFilter filter) {
+        log.info("Streaming loans. filter= " + filter);
+        return txRunner.readOnlyMany("LoanUseCase.getAllLoans", () -> loanRepository.stream(filter));
+    }
+
+    /** Export masivo: las filas se codifican en el writer sin pasar por {@link Loan}. */
+    public <C> Flux<C> exportLoans(LoanStreamFilter filter, LoanExportWriter<C> writer) {
+        log.info("Exporting loans. filter= " + filter);
+        return txRunner.readOnlyMany("LoanUseCase.exportLoans", () -> loanRepository.export(filter, writer));
     }
 
     public Mono<Pageable<LoanSummary>> execute(ManualReviewFilter filter,
-                                               int page, int size) {
-        return txRunner.readOnly(
-                () -> loanRepository.findForManualReview(filter, page, size));
+                                               int page, int size, CountMode countMode) {
+        return txRunner.readOnly("LoanUseCase.execute",
+                () -> loanRepository.findForManualReview(filter, page, size, countMode));
+    }
+
+    public Mono<Pageable<LoanSummary>> executeByCursor(ManualReviewFilter filter,
+                                                       String cursor, int size, CountMode countMode) {
+        return Mono.fromSupplier(() -> cursor == null || cursor.isBlank()
+                        ? Optional.<PageCursor>empty()
+                        : Optional.of(PageCursor.decode(cursor)))
+                .flatMap(after -> txRunner.readOnly("LoanUseCase.executeByCursor",
+                        () -> loanRepository.findForManualReviewByCursor(filter, after.orElse(null), size, countMode)));
     }
 
     private Mono<List<LoanApproved>> getListLoanApproved(String email) {
         log.info("Getting mensual debt for loans with email= " + email);
-        return stateLoanRepository.findByName(DEFAULT_APPROVED_STATE_NAME)
-                .flatMap(stateLoan -> loanRepository.findByEmailAndStatusId(email,
-                                UUID.fromString(stateLoan.id())).collectList());
+        return loanRepository.findByEmailAndStatus(email, LoanStatus.APPROVED).collectList();
     }
 
     /// Helper method to Debt Capacity Opcion 1
@@ -0,0 +1,92 @@
+package co.com.crediya.usecase.loanimport;
+
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import co.com.crediya.model.loanimport.LoanImportJob;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.model.loanimport.gateways.LoanImportRepository;
+import co.com.crediya.model.loanimport.gateways.LoanImportWorker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Importación masiva para backfills y migraciones: COPY a staging, validación y merge en SQL por
+ * conjuntos. No pasa por las reglas de creación del API (capacidad de endeudamiento, notificaciones):
+ * los préstamos llegan con su estado final.
+ */
+@RequiredArgsConstructor
+@Log
+public class LoanImportUseCase {
+
+    private final LoanImportRepository loanImportRepository;
+
+    private final LoanImportWorker loanImportWorker;
+
+    /**
+     * El COPY corre mientras llega la petición (el cuerpo no se puede leer después de responder);
+     * validación y merge siguen en segundo plano, en el worker, y el progreso se consulta con
+     * {@link #findJob}. Si la carga falla, o el worker no tiene cupo, el job queda FAILED y el error se
+     * propaga.
+     */
+    public Mono<LoanImportJob> start(String requestedBy, boolean dryRun, Flux<ByteBuffer> csv) {
+        return loanImportRepository.create(requestedBy, dryRun)
+                .flatMap(job -> loanImportWorker.track(job.id(), loanImportRepository.stage(job.id(), csv)
+                                .doOnNext(rows -> log.info("Loan import " + job.id() + " staged " + rows + " rows"))
+                                .then(Mono.defer(() -> loanImportRepository.updateStatus(job.id(),
+                                        LoanImportStatus.VALIDATING, null)))
+                                .then(Mono.defer(() -> loanImportRepository.findById(job.id())))
+                                .flatMap(staged -> loanImportWorker.submit(staged.id(),
+                                                Mono.defer(() -> process(staged)))
+                                        .thenReturn(staged)))
+                        .onErrorResume(e -> fail(job.id(), e).then(Mono.error(e))));
+    }
+
+    /** Valida y, salvo dryRun, hace el merge. Siempre termina en COMPLETED o FAILED y sin staging. */
+    Mono<LoanImportJob> process(LoanImportJob job) {
+        String id = job.id();
+        Mono<Long> merge = job.dryRun()
+                ? Mono.empty()
+                : Mono.defer(() -> loanImportRepository.updateStatus(id, LoanImportStatus.MERGING, null)
+                        .then(loanImportRepository.merge(id)))
+                        .doOnNext(rows -> log.info("Loan import " + id + " merged " + rows + " rows"));
+        return loanImportRepository.validate(id)
+                .doOnNext(rows -> log.info("Loan import " + id + " rejected " + rows + " rows"))
+                .then(merge)
+                .then(Mono.defer(() -> loanImportRepository.dropStaging(id)))
+                .then(Mono.defer(() -> loanImportRepository.updateStatus(id, LoanImportStatus.COMPLETED, null)))
+                .onErrorResume(e -> fail(id, e))
+                .then(Mono.defer(() -> loanImportRepository.findById(id)));
+    }
+
+    public Mono<LoanImportJob> findJob(String jobId) {
+        return Mono.defer(() -> loanImportRepository.findById(validJobId(jobId)))
+                .switchIfEmpty(Mono.error(() -> new DomainNotFoundException("Loan import job not found: " + jobId)));
+    }
+
+    public Flux<LoanImportRejection> findRejections(String jobId) {
+        return findJob(jobId).thenMany(Flux.defer(() -> loanImportRepository.findRejections(jobId)));
+    }
+
+    private Mono<Void> fail(String jobId, Throwable error) {
+        log.warning("Loan import " + jobId + " failed: " + error.getMessage());
+        return loanImportRepository.updateStatus(jobId, LoanImportStatus.FAILED, error.getMessage())
+                .then(Mono.defer(() -> loanImportRepository.dropStaging(jobId)))
+                .onErrorResume(e -> {
+                    log.warning("Could not record failure of loan import " + jobId + ": " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static String validJobId(String jobId) {
+        try {
+            return UUID.fromString(jobId).toString();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new DomainValidationException("INVALID_IMPORT_JOB_ID", String.valueOf(jobId));
+        }
+    }
+}
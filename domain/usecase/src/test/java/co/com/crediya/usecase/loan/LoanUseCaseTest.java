@@ -1,18 +1,24 @@
 package co.com.crediya.usecase.loan;
 
 import co.com.crediya.model.customer.UserData;                   // <-- ajusta si tu dominio lo nombra distinto
+import co.com.crediya.model.customer.gateways.CustomerDebtRepository;
 import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.exceptions.DomainConflictException;
 import co.com.crediya.model.exceptions.DomainNotFoundException;
 import co.com.crediya.model.exceptions.DomainValidationException;
 import co.com.crediya.model.loan.*;
 import co.com.crediya.model.loan.gateways.DebtCapacitySQS;
+import co.com.crediya.model.loan.gateways.LoanCache;
 import co.com.crediya.model.loan.gateways.LoanRepository;
 import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.pageable.CountMode;
+import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
 import co.com.crediya.model.pageable.Pageable;
-import co.com.crediya.model.stateloan.StateLoan;
-import co.com.crediya.model.stateloan.gateways.StateLoanRepository;
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.model.tx.gateway.GroupCommit;
 import co.com.crediya.model.tx.gateway.TxRunner;
 import co.com.crediya.model.typeloan.TypeLoan;
 import co.com.crediya.model.typeloan.gateways.TypeLoanRepository;
@@ -30,9 +36,14 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,28 +54,42 @@ class LoanUseCaseTest {
 
     LoanRepository loanRepo      = mock(LoanRepository.class);
     TypeLoanRepository typeRepo  = mock(TypeLoanRepository.class);
-    StateLoanRepository stateRepo= mock(StateLoanRepository.class);
     CustomerGateway customerGw   = mock(CustomerGateway.class);
     DebtCapacitySQS debtCapacitySQS = mock(DebtCapacitySQS.class);
+    Notification notification    = mock(Notification.class);
+    CustomerDebtRepository customerDebtRepo = mock(CustomerDebtRepository.class);
     TxRunner txRunner            = mock(TxRunner.class);
+    GroupCommit groupCommit      = mock(GroupCommit.class);
+    LoanCache loanCache          = mock(LoanCache.class);
 
     LoanUseCase useCase;
 
     @BeforeEach
     void setUp() {
-        useCase = new LoanUseCase(loanRepo, typeRepo, stateRepo, customerGw, debtCapacitySQS, txRunner);
+        useCase = new LoanUseCase(loanRepo, typeRepo, customerGw, debtCapacitySQS, notification,
+                customerDebtRepo, txRunner, groupCommit, loanCache);
 
         // TxRunner passthrough
         when(txRunner.required(any())).thenAnswer(inv -> ((Supplier<Mono<?>>)inv.getArgument(0)).get());
         when(txRunner.readOnly(any())).thenAnswer(inv -> ((Supplier<Mono<?>>)inv.getArgument(0)).get());
         when(txRunner.readOnlyMany(any())).thenAnswer(inv -> ((Supplier<Flux<?>>)inv.getArgument(0)).get());
+        when(txRunner.required(anyString(), any())).thenAnswer(inv -> ((Supplier<Mono<?>>)inv.getArgument(1)).get());
+        when(txRunner.required(anyString(), any(TxRoute.class), any())).thenAnswer(inv -> ((Supplier<Mono<?>>)inv.getArgument(2)).get());
+        when(txRunner.requiredMany(anyString(), any())).thenAnswer(inv -> ((Supplier<Flux<?>>)inv.getArgument(1)).get());
+        when(txRunner.requiredMany(anyString(), any(TxRoute.class), any())).thenAnswer(inv -> ((Supplier<Flux<?>>)inv.getArgument(2)).get());
+        when(txRunner.partitions(any())).thenCallRealMethod();
+        when(txRunner.readOnly(anyString(), any())).thenAnswer(inv -> ((Supplier<Mono<?>>)inv.getArgument(1)).get());
+        when(txRunner.readOnlyMany(anyString(), any())).thenAnswer(inv -> ((Supplier<Flux<?>>)inv.getArgument(1)).get());
 
         // publishers no-nulos por defecto (evita NPE en .then(...) si olvidas stub en un test)
-        when(typeRepo.findById(any())).thenReturn(Mono.never());
-        when(stateRepo.findByName(anyString())).thenReturn(Mono.never());
-        when(stateRepo.findById(any())).thenReturn(Mono.never());
+        when(typeRepo.findById(any())).thenReturn(Mono.just(typeLoan(false)));
         when(loanRepo.save(any())).thenReturn(Mono.never());
         when(debtCapacitySQS.sendMessage(any())).thenReturn(Mono.empty());
+        when(notification.sendMessage(any())).thenReturn(Mono.empty());
+        when(notification.sendMessages(any())).thenReturn(Mono.empty());
+        when(customerDebtRepo.findMonthlyApprovedDebt(anyString())).thenReturn(Mono.just(BigDecimal.ZERO));
+        when(customerDebtRepo.addApprovedLoan(any())).thenReturn(Mono.empty());
+        when(customerDebtRepo.removeApprovedLoan(any())).thenReturn(Mono.empty());
     }
 
     // ---------------- helpers de dominio ----------------
@@ -80,21 +105,17 @@ class LoanUseCaseTest {
         );
     }
 
-    static TypeLoan typeLoan(BigDecimal min, BigDecimal max) {
+    static TypeLoan typeLoan(boolean automaticValidation) {
         return new TypeLoan(
                 "TYPE-1",
                 "PERSONAL",
-                new Money(min),
-                new Money(max),
+                new Money(new BigDecimal("1000")),
+                new Money(new BigDecimal("5000")),
                 new InterestRate(new BigDecimal("0.02")),
-                true
+                automaticValidation
         );
     }
 
-    static StateLoan state(String id, String name) {
-        return new StateLoan(id, name, "");
-    }
-
     static ChangeLoanStatus change(String loanId, String newStateId, String reason) {
         return new ChangeLoanStatus(loanId, newStateId, reason);
     }
@@ -103,60 +124,48 @@ class LoanUseCaseTest {
 
     @Test
     void create_whenAmountOutOfRange_emitsDomainValidation() {
-        var email  = "ok@example.com";
-        var typeId = UUID.randomUUID().toString();
-        var input  = loan(email, typeId, new BigDecimal("10000000"), 12, null); // monto fuera de rango
+        var input = loan("ok@example.com", UUID.randomUUID().toString(), new BigDecimal("10000000"), 12, null);
 
-        var type = typeLoan(new BigDecimal("1000"), new BigDecimal("5000"));
-        var pending = state(UUID.randomUUID().toString(), LoanUseCase.DEFAULT_PENDING_STATE_NAME);
-
-        when(customerGw.existsByEmail(email)).thenReturn(Mono.just(true));
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(type));
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME)).thenReturn(Mono.just(pending));
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.error(new DomainValidationException("AMOUNT_OUT_OF_RANGE",
+                        "Amount must be between 1000.00 and 5000.00")));
 
         StepVerifier.create(useCase.create(input))
                 .expectError(DomainValidationException.class)
                 .verify();
 
-        verify(typeRepo).findById(UUID.fromString(typeId));
-        verifyNoInteractions(loanRepo);
+        verify(loanRepo, never()).save(any());
+        verifyNoInteractions(debtCapacitySQS);
     }
 
     @Test
     void create_whenTypeLoanMissing_emitsDomainNotFound() {
-        var email  = "ok@example.com";
-        var typeId = UUID.randomUUID().toString();
-        var input  = loan(email, typeId, new BigDecimal("3000"), 12, null);
+        var input = loan("ok@example.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
 
-        when(customerGw.existsByEmail(email)).thenReturn(Mono.just(true));
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.empty());
+        when(typeRepo.findById(UUID.fromString(input.typeLoanId()))).thenReturn(Mono.empty());
 
         StepVerifier.create(useCase.create(input))
-                .expectError(DomainNotFoundException.class)
+                .expectErrorMessage("TYPE_LOAN_NOT_FOUND")
                 .verify();
 
-        verify(typeRepo).findById(UUID.fromString(typeId));
-        verifyNoInteractions(loanRepo);
+        // falla antes de abrir la transacción
+        verify(txRunner, never()).required(anyString(), any(TxRoute.class), any());
+        verify(loanRepo, never()).createValidated(any(), anyString());
+        verifyNoInteractions(debtCapacitySQS);
     }
 
     @Test
     void create_whenPendingStateMissing_emitsDomainNotFound() {
-        var email = "ok@example.com";
-        var typeId = UUID.randomUUID().toString();
-        var input = loan(email, typeId, new BigDecimal("3000"), 12, null);
-        var type = typeLoan(new BigDecimal("1000"), new BigDecimal("5000"));
+        var input = loan("ok@example.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
 
-        when(customerGw.existsByEmail(email)).thenReturn(Mono.just(true));
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(type));
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME)).thenReturn(Mono.empty());
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.error(new DomainNotFoundException("STATE_PENDING_REVIEW_NOT_FOUND")));
 
         StepVerifier.create(useCase.create(input))
                 .expectError(DomainNotFoundException.class)
                 .verify();
 
-        verify(typeRepo).findById(UUID.fromString(typeId));
-        verify(stateRepo).findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME);
-        verifyNoInteractions(loanRepo);
+        verifyNoInteractions(debtCapacitySQS);
     }
 
     @Test
@@ -164,30 +173,19 @@ class LoanUseCaseTest {
         var email   = "ok@example.com";
         var typeId  = UUID.randomUUID().toString();
         var input   = loan(email, typeId, new BigDecimal("3000"), 12, null);
-        var typeManual = new TypeLoan(
-                "TYPE-1", "PERSONAL",
-                new Money(new BigDecimal("1000")),
-                new Money(new BigDecimal("5000")),
-                new InterestRate(new BigDecimal("0.02")),
-                false // <- manual
-        );
-        var pending = state(UUID.randomUUID().toString(), LoanUseCase.DEFAULT_PENDING_STATE_NAME);
+        var saved   = loan(email, typeId, new BigDecimal("3000"), 12, UUID.randomUUID().toString());
 
-        var saved = loan(email, typeId, new BigDecimal("3000"), 12, pending.id());
-
-        when(customerGw.existsByEmail(email)).thenReturn(Mono.just(true));
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(typeManual));
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME)).thenReturn(Mono.just(pending));
-        when(loanRepo.save(any(Loan.class))).thenReturn(Mono.just(saved));
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.just(new CreatedLoan(saved, false)));
 
         StepVerifier.create(useCase.create(input))
                 .expectNext(saved)
                 .verifyComplete();
 
-        // capturar que el loan guardado traía el pending state
-        var captor = ArgumentCaptor.forClass(Loan.class);
-        verify(loanRepo).save(captor.capture());
-        assertThat(captor.getValue().stateLoanId()).isEqualTo(pending.id());
+        // tipo y estado se resuelven dentro de la sentencia, no en Java
+        verify(loanRepo, never()).save(any());
+        // read-your-writes: el GET siguiente sale de la caché
+        verify(loanCache).put(saved);
     }
 
     @Test
@@ -195,40 +193,77 @@ class LoanUseCaseTest {
         var email   = "ok@example.com";
         var typeId  = UUID.randomUUID().toString();
         var input   = loan(email, typeId, new BigDecimal("3000"), 12, null);
-
-        // type con automaticValidation=true (tu helper ya lo deja en true)
-        var type    = typeLoan(new BigDecimal("1000"), new BigDecimal("5000"));
-        var pending = state(UUID.randomUUID().toString(), LoanUseCase.DEFAULT_PENDING_STATE_NAME);
+        var saved   = loan(email, typeId, new BigDecimal("3000"), 12, UUID.randomUUID().toString());
 
         // Datos que devuelve el gateway
         var userData = mock(UserData.class);
         when(customerGw.findByEmail(email)).thenReturn(Mono.just(userData));
 
         // Aprobados existentes (vía getListLoanApproved)
-        var approvedState = state(UUID.randomUUID().toString(), LoanUseCase.DEFAULT_APPROVED_STATE_NAME);
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_APPROVED_STATE_NAME)).thenReturn(Mono.just(approvedState));
-
         var la1 = mock(LoanApproved.class);
-        when(loanRepo.findByEmailAndStatusId(eq(email), eq(UUID.fromString(approvedState.id()))))
-                .thenReturn(Flux.just(la1));
-
-        // Guardado
-        var saved = loan(email, typeId, new BigDecimal("3000"), 12, pending.id());
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(type));
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME)).thenReturn(Mono.just(pending));
-        when(loanRepo.save(any(Loan.class))).thenReturn(Mono.just(saved));
+        when(loanRepo.findByEmailAndStatus(email, LoanStatus.APPROVED)).thenReturn(Flux.just(la1));
+
+        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(typeLoan(true)));
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.just(new CreatedLoan(saved, true)));
         when(debtCapacitySQS.sendMessage(any(DebtCapacity.class))).thenReturn(Mono.empty());
+        when(customerDebtRepo.findMonthlyApprovedDebt(email)).thenReturn(Mono.just(new BigDecimal("450.25")));
+
+        StepVerifier.create(useCase.create(input))
+                .expectNext(saved)
+                .verifyComplete();
+
+        // Verificamos que sí se envió a SQS, con el préstamo insertado y la deuda precalculada
+        var debtCaptor = ArgumentCaptor.forClass(DebtCapacity.class);
+        verify(debtCapacitySQS).sendMessage(debtCaptor.capture());
+        assertThat(debtCaptor.getValue().loan()).isEqualTo(saved);
+        assertThat(debtCaptor.getValue().monthlyApprovedDebt()).isEqualByComparingTo("450.25");
+
+        // Y que consultó la lista de aprobados por código de estado
+        verify(loanRepo).findByEmailAndStatus(email, LoanStatus.APPROVED);
+
+        // la llamada HTTP a auth ocurre antes de abrir la transacción de escritura
+        var order = inOrder(customerGw, txRunner, loanRepo);
+        order.verify(customerGw).findByEmail(email);
+        order.verify(txRunner).required(eq("LoanUseCase.create"), eq(TxRoute.customer(email)), any());
+        order.verify(loanRepo).createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME);
+    }
+
+    @Test
+    void create_whenTypeTurnsAutomaticAfterLookup_loadsDebtContextInsideTx() {
+        var email   = "ok@example.com";
+        var input   = loan(email, UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var saved   = loan(email, input.typeLoanId(), new BigDecimal("3000"), 12, UUID.randomUUID().toString());
+
+        // la caché aún dice manual, pero la sentencia ya ve el tipo automático
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.just(new CreatedLoan(saved, true)));
+        when(customerGw.findByEmail(email)).thenReturn(Mono.just(mock(UserData.class)));
+        when(loanRepo.findByEmailAndStatus(anyString(), any())).thenReturn(Flux.empty());
 
         StepVerifier.create(useCase.create(input))
                 .expectNext(saved)
                 .verifyComplete();
 
-        // Verificamos que sí se envió a SQS
         verify(debtCapacitySQS).sendMessage(any(DebtCapacity.class));
+    }
+
+    @Test
+    void create_withAutoValidation_whenCustomerMissing_emitsDomainNotFound() {
+        var email   = "ghost@example.com";
+        var input   = loan(email, UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+
+        when(typeRepo.findById(UUID.fromString(input.typeLoanId()))).thenReturn(Mono.just(typeLoan(true)));
+        when(customerGw.findByEmail(email)).thenReturn(Mono.empty());
+        when(loanRepo.findByEmailAndStatus(anyString(), any())).thenReturn(Flux.empty());
+
+        // el cliente se valida antes de la transacción: no se inserta nada
+        StepVerifier.create(useCase.create(input))
+                .expectErrorMessage("CUSTOMER_NOT_FOUND")
+                .verify();
 
-        // Y que consultó la lista de aprobados
-        verify(stateRepo).findByName(LoanUseCase.DEFAULT_APPROVED_STATE_NAME);
-        verify(loanRepo).findByEmailAndStatusId(eq(email), eq(UUID.fromString(approvedState.id())));
+        verify(loanRepo, never()).createValidated(any(), anyString());
+        verifyNoInteractions(debtCapacitySQS);
     }
 
     @Test
@@ -236,20 +271,10 @@ class LoanUseCaseTest {
         var email   = "ok@example.com";
         var typeId  = UUID.randomUUID().toString();
         var input   = loan(email, typeId, new BigDecimal("3000"), 12, null);
+        var saved   = loan(email, typeId, new BigDecimal("3000"), 12, UUID.randomUUID().toString());
 
-        var typeManual = new TypeLoan(
-                "TYPE-1", "PERSONAL",
-                new Money(new BigDecimal("1000")),
-                new Money(new BigDecimal("5000")),
-                new InterestRate(new BigDecimal("0.02")),
-                false // <- manual
-        );
-        var pending = state(UUID.randomUUID().toString(), LoanUseCase.DEFAULT_PENDING_STATE_NAME);
-        var saved   = loan(email, typeId, new BigDecimal("3000"), 12, pending.id());
-
-        when(typeRepo.findById(UUID.fromString(typeId))).thenReturn(Mono.just(typeManual));
-        when(stateRepo.findByName(LoanUseCase.DEFAULT_PENDING_STATE_NAME)).thenReturn(Mono.just(pending));
-        when(loanRepo.save(any(Loan.class))).thenReturn(Mono.just(saved));
+        when(loanRepo.createValidated(input, LoanUseCase.DEFAULT_PENDING_STATE_NAME))
+                .thenReturn(Mono.just(new CreatedLoan(saved, false)));
 
         StepVerifier.create(useCase.create(input))
                 .expectNext(saved)
@@ -257,34 +282,210 @@ class LoanUseCaseTest {
 
         // NO se llama a SQS ni se consulta aprobados
         verifyNoInteractions(debtCapacitySQS);
-        verify(loanRepo, never()).findByEmailAndStatusId(anyString(), any());
+        verifyNoInteractions(customerGw);
+        verify(loanRepo, never()).findByEmailAndStatus(anyString(), any());
     }
 
-    // ---------------- tests de changeLoanStatus() ----------------
+    // ---------------- tests de createBulk() ----------------
+
+    /** Simula el INSERT multi-fila: todo lo que llega se crea. */
+    private void batchInsertCreatesAll() {
+        when(loanRepo.createValidatedBatch(anyList(), eq(LoanUseCase.DEFAULT_PENDING_STATE_NAME)))
+                .thenAnswer(inv -> Flux.fromIterable(inv.<List<BulkLoanItem>>getArgument(0))
+                        .map(item -> BulkLoanItem.created(item.line(), new CreatedLoan(item.loan(), false))));
+    }
 
     @Test
-    void changeLoanStatus_whenNewStateProvidedByName_usesFindByName() {
-        var typeId = UUID.randomUUID().toString();
-        var existing = loan("u@e.com", typeId, new BigDecimal("2500"), 18, "STATE-OLD");
+    void createBulk_keepsInputOrder_andPassesPreRejectedLinesThrough() {
+        var l1 = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var l3 = loan("c@d.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 6, null);
+        var invalid = new DomainValidationException("INVALID_EMAIL", "format");
+        batchInsertCreatesAll();
+
+        StepVerifier.create(useCase.createBulk(Flux.just(
+                        BulkLoanItem.requested(1, l1),
+                        BulkLoanItem.rejected(2, invalid),
+                        BulkLoanItem.requested(3, l3))))
+                .assertNext(r -> assertThat(r).returns(1L, BulkLoanItem::line).returns(l1, BulkLoanItem::loan))
+                .assertNext(r -> assertThat(r.error()).isSameAs(invalid))
+                .assertNext(r -> assertThat(r).returns(3L, BulkLoanItem::line).returns(l3, BulkLoanItem::loan))
+                .verifyComplete();
 
-        var newState = state(UUID.randomUUID().toString(), "APPROVED");
-        var cmd = change(existing.id(), "APPROVED", "reason-by-name");
+        // un único INSERT multi-fila, solo con las líneas válidas
+        var captor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepo).createValidatedBatch(captor.capture(), eq(LoanUseCase.DEFAULT_PENDING_STATE_NAME));
+        assertThat(captor.getValue()).hasSize(2);
+        verify(txRunner).requiredMany(eq("LoanUseCase.createBulk"), eq(TxRoute.partition(TxRunner.SINGLE_PARTITION)), any());
+        verify(loanRepo, never()).createValidated(any(), anyString());
+    }
 
-        var updated = new Loan(existing.id(), existing.amount(), existing.termMonths(),
-                existing.email(), newState.id(), existing.typeLoanId());
+    @Test
+    void createBulk_whenTypeMissing_rejectsOnlyThatLine() {
+        var missingType = UUID.randomUUID().toString();
+        var ok = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var bad = loan("c@d.com", missingType, new BigDecimal("3000"), 12, null);
+        when(typeRepo.findById(UUID.fromString(missingType))).thenReturn(Mono.empty());
+        batchInsertCreatesAll();
+
+        StepVerifier.create(useCase.createBulk(Flux.just(
+                        BulkLoanItem.requested(1, ok), BulkLoanItem.requested(2, bad))))
+                .assertNext(r -> assertThat(r.isRejected()).isFalse())
+                .assertNext(r -> assertThat(r.error()).hasMessage("TYPE_LOAN_NOT_FOUND"))
+                .verifyComplete();
+    }
+
+    @Test
+    void createBulk_splitsLargeUploadsIntoChunks() {
+        int lines = LoanUseCase.BULK_CHUNK_SIZE * 2 + 50;
+        batchInsertCreatesAll();
+
+        var items = Flux.range(1, lines)
+                .map(i -> BulkLoanItem.requested(i,
+                        loan("u" + i + "@e.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null)));
 
-        var type = new TypeLoan(typeId, "Libre Inversión",
-                new Money(new BigDecimal("1000")), new Money(new BigDecimal("10000")),
-                new InterestRate(new BigDecimal("0.015")), true);
+        StepVerifier.create(useCase.createBulk(items).map(BulkLoanItem::line))
+                .expectNextSequence(LongStream.rangeClosed(1, lines).boxed().toList())
+                .verifyComplete();
+
+        verify(loanRepo, times(3)).createValidatedBatch(anyList(), anyString());
+    }
 
+    @Test
+    void createBulk_withAutoValidation_enqueuesDebtCapacityPerCreatedLoan() {
+        var email = "a@b.com";
+        var input = loan(email, UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var saved = loan(email, input.typeLoanId(), new BigDecimal("3000"), 12, UUID.randomUUID().toString());
+
+        when(typeRepo.findById(UUID.fromString(input.typeLoanId()))).thenReturn(Mono.just(typeLoan(true)));
+        when(customerGw.findByEmail(email)).thenReturn(Mono.just(mock(UserData.class)));
+        when(loanRepo.findByEmailAndStatus(anyString(), any())).thenReturn(Flux.empty());
+        when(loanRepo.createValidatedBatch(anyList(), anyString()))
+                .thenReturn(Flux.just(BulkLoanItem.created(1, new CreatedLoan(saved, true))));
+
+        StepVerifier.create(useCase.createBulk(Flux.just(BulkLoanItem.requested(1, input))))
+                .assertNext(r -> assertThat(r.loan()).isEqualTo(saved))
+                .verifyComplete();
+
+        var debtCaptor = ArgumentCaptor.forClass(DebtCapacity.class);
+        verify(debtCapacitySQS).sendMessage(debtCaptor.capture());
+        assertThat(debtCaptor.getValue().loan()).isEqualTo(saved);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createBulk_whenDebtContextFallbackFails_rejectsThatLine_andKeepsTheRest() {
+        var ghost = loan("ghost@example.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var ok = loan("ok@example.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 6, null);
+        // la caché dice manual, pero la sentencia ya ve automático el tipo del cliente inexistente
+        when(loanRepo.createValidatedBatch(anyList(), anyString()))
+                .thenAnswer(inv -> Flux.fromIterable(inv.<List<BulkLoanItem>>getArgument(0))
+                        .map(item -> BulkLoanItem.created(item.line(),
+                                new CreatedLoan(item.loan(), item.loan() == ghost))));
+        when(customerGw.findByEmail("ghost@example.com")).thenReturn(Mono.empty());
+        when(loanRepo.findByEmailAndStatus(anyString(), any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(useCase.createBulk(Flux.just(BulkLoanItem.requested(1, ghost), BulkLoanItem.requested(2, ok))))
+                .assertNext(r -> assertThat(r.error()).hasMessage("CUSTOMER_NOT_FOUND"))
+                .assertNext(r -> assertThat(r).returns(false, BulkLoanItem::isRejected).returns(ok, BulkLoanItem::loan))
+                .verifyComplete();
+
+        // la primera transacción se revierte y el lote se reintenta sin la línea rechazada
+        var captor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepo, times(2)).createValidatedBatch(captor.capture(), anyString());
+        assertThat(captor.getAllValues()).map(batch -> ((List<BulkLoanItem>) batch).stream().map(BulkLoanItem::line).toList())
+                .containsExactly(List.of(1L, 2L), List.of(2L));
+        verifyNoInteractions(debtCapacitySQS);
+    }
+
+    @Test
+    void createBulk_whenTheDatabaseFails_rejectsTheChunk_andEndsTheStream() {
+        var l1 = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var l2 = loan("c@d.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 6, null);
+        when(loanRepo.createValidatedBatch(anyList(), anyString()))
+                .thenReturn(Flux.error(new IllegalStateException("connection reset")));
+
+        // el cliente ve qué líneas no se confirmaron antes de que se corte la carga
+        StepVerifier.create(useCase.createBulk(Flux.just(BulkLoanItem.requested(1, l1), BulkLoanItem.requested(2, l2))))
+                .assertNext(r -> assertThat(r).returns(1L, BulkLoanItem::line).returns(true, BulkLoanItem::isRejected))
+                .assertNext(r -> assertThat(r).returns(2L, BulkLoanItem::line).returns(true, BulkLoanItem::isRejected))
+                .expectErrorMessage("connection reset")
+                .verify();
+        verify(loanRepo).createValidatedBatch(anyList(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createBulk_withShards_insertsEachCustomerInItsShard() {
+        var l1 = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var l2 = loan("c@d.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 6, null);
+        var l3 = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("1000"), 6, null);
+        when(txRunner.partitions(any())).thenReturn(Mono.just(Map.of(
+                TxRoute.customer("a@b.com"), "shard-0", TxRoute.customer("c@d.com"), "shard-1")));
+        batchInsertCreatesAll();
+
+        StepVerifier.create(useCase.createBulk(Flux.just(
+                        BulkLoanItem.requested(1, l1), BulkLoanItem.requested(2, l2), BulkLoanItem.requested(3, l3)))
+                        .map(BulkLoanItem::line))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+
+        // un INSERT por shard, cada uno en la transacción de ese shard
+        var captor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepo, times(2)).createValidatedBatch(captor.capture(), anyString());
+        assertThat(captor.getAllValues()).map(batch -> ((List<BulkLoanItem>) batch).stream().map(BulkLoanItem::line).toList())
+                .containsExactly(List.of(1L, 3L), List.of(2L));
+        verify(txRunner).requiredMany(eq("LoanUseCase.createBulk"), eq(TxRoute.partition("shard-0")), any());
+        verify(txRunner).requiredMany(eq("LoanUseCase.createBulk"), eq(TxRoute.partition("shard-1")), any());
+    }
+
+    @Test
+    void createBulk_withShards_whenALaterShardFails_stillReportsTheCommittedOnes() {
+        var l1 = loan("a@b.com", UUID.randomUUID().toString(), new BigDecimal("3000"), 12, null);
+        var l2 = loan("c@d.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 6, null);
+        when(txRunner.partitions(any())).thenReturn(Mono.just(Map.of(
+                TxRoute.customer("a@b.com"), "shard-0", TxRoute.customer("c@d.com"), "shard-1")));
+        when(loanRepo.createValidatedBatch(anyList(), anyString()))
+                .thenReturn(Flux.just(BulkLoanItem.created(1, new CreatedLoan(l1, false))))
+                .thenReturn(Flux.error(new IllegalStateException("shard-1 unreachable")));
+
+        // la línea del shard-0 ya confirmó: sale creada aunque el shard-1 falle después
+        StepVerifier.create(useCase.createBulk(Flux.just(BulkLoanItem.requested(1, l1), BulkLoanItem.requested(2, l2))))
+                .assertNext(r -> assertThat(r).returns(1L, BulkLoanItem::line).returns(false, BulkLoanItem::isRejected))
+                .assertNext(r -> assertThat(r).returns(2L, BulkLoanItem::line).returns(true, BulkLoanItem::isRejected))
+                .expectErrorMessage("shard-1 unreachable")
+                .verify();
+    }
+
+    @Test
+    void createBulk_whenEveryLineRejected_doesNotOpenTransaction() {
+        StepVerifier.create(useCase.createBulk(Flux.just(
+                        BulkLoanItem.rejected(1, new DomainValidationException("INVALID_EMAIL", "format")))))
+                .assertNext(r -> assertThat(r.isRejected()).isTrue())
+                .verifyComplete();
+
+        verify(txRunner, never()).requiredMany(anyString(), any(TxRoute.class), any());
+        verify(loanRepo, never()).createValidatedBatch(anyList(), anyString());
+    }
+
+    // ---------------- tests de changeLoanStatus() ----------------
+
+    static LoanTransition transition(Loan updated, String previousStateId, String previousStateName,
+                                     String stateName) {
+        return new LoanTransition(updated, previousStateId, previousStateName, stateName, "Libre Inversión");
+    }
+
+    @Test
+    void changeLoanStatus_whenNewStateProvidedByName_passesNameToRepository() {
+        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2500"), 18, "STATE-OLD");
+        var newStateId = UUID.randomUUID().toString();
+        var cmd = change(existing.id(), "APPROVED", "reason-by-name");
+
+        var updated = new Loan(existing.id(), existing.amount(), existing.termMonths(),
+                existing.email(), newStateId, existing.typeLoanId());
         var customer = mock(UserData.class);
 
-        when(loanRepo.findById(UUID.fromString(cmd.loanId()))).thenReturn(Mono.just(existing));
-        when(stateRepo.findById(any())).thenReturn(Mono.never()); // que no entre por aquí
-        when(stateRepo.findByName("APPROVED")).thenReturn(Mono.just(newState));
-        when(loanRepo.save(any(Loan.class))).thenReturn(Mono.just(updated));
-        when(stateRepo.findById(UUID.fromString(updated.stateLoanId()))).thenReturn(Mono.just(newState));
-        when(typeRepo.findById(UUID.fromString(updated.typeLoanId()))).thenReturn(Mono.just(type));
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), null, "APPROVED"))
+                .thenReturn(Mono.just(transition(updated, "STATE-OLD", "PENDING_REVIEW", "APPROVED")));
         when(customerGw.findByEmail(updated.email().value())).thenReturn(Mono.just(customer));
 
         StepVerifier.create(useCase.changeLoanStatus(cmd))
@@ -296,93 +497,70 @@ class LoanUseCaseTest {
                     assertThat(changed.userData()).isEqualTo(customer);
                 })
                 .verifyComplete();
-
-        // Verificamos que usó findByName y no forzó UUID:
-        verify(stateRepo).findByName("APPROVED");
     }
 
     @Test
     void changeLoanStatus_whenStateNameNotFound_emitsDomainNotFound() {
-        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 10, "STATE-OLD");
-        var cmd = change(existing.id(), "NOT_EXISTS", "reason-x");
+        var cmd = change(UUID.randomUUID().toString(), "NOT_EXISTS", "reason-x");
 
-        when(loanRepo.findById(UUID.fromString(cmd.loanId()))).thenReturn(Mono.just(existing));
-        when(stateRepo.findByName("NOT_EXISTS")).thenReturn(Mono.empty());
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), null, "NOT_EXISTS"))
+                .thenReturn(Mono.error(new DomainNotFoundException("STATE_LOAN_NOT_FOUND")));
 
         StepVerifier.create(useCase.changeLoanStatus(cmd))
-                .expectError(DomainNotFoundException.class)
+                .expectErrorMessage("STATE_LOAN_NOT_FOUND")
                 .verify();
 
-        verify(stateRepo).findByName("NOT_EXISTS");
+        verifyNoInteractions(notification, customerDebtRepo);
     }
 
-
     @Test
     void changeLoanStatus_whenLoanMissing_emitsDomainNotFound() {
         var cmd = change("00000000-0000-0000-0000-000000000000", "STATE-NEW", "ok");
 
-        when(loanRepo.findById(any())).thenReturn(Mono.empty());
+        when(loanRepo.changeState(any(), any(), any()))
+                .thenReturn(Mono.error(new DomainNotFoundException("LOAN_NOT_FOUND")));
 
         StepVerifier.create(useCase.changeLoanStatus(cmd))
                 .expectError(DomainNotFoundException.class)
                 .verify();
 
-        verify(loanRepo).findById(any());
-        verifyNoMoreInteractions(loanRepo, stateRepo, typeRepo, customerGw);
+        verify(loanRepo).changeState(any(), any(), any());
+        verifyNoMoreInteractions(loanRepo, customerGw);
     }
 
     @Test
-    void changeLoanStatus_whenNewStateMissing_emitsDomainNotFound() {
-        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2000"), 10, "STATE-OLD");
-        var cmd = change(existing.id(), UUID.randomUUID().toString(), "reason-x");
+    void changeLoanStatus_whenConcurrentTransitionWins_emitsConflict() {
+        var newStateId = UUID.randomUUID();
+        var cmd = change(UUID.randomUUID().toString(), newStateId.toString(), "late");
 
-        when(loanRepo.findById(UUID.fromString(cmd.loanId()))).thenReturn(Mono.just(existing));
-        when(stateRepo.findById(UUID.fromString(cmd.newStateId()))).thenReturn(Mono.empty());
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), newStateId, null))
+                .thenReturn(Mono.error(new DomainConflictException("LOAN_STATUS_CONFLICT", "changed")));
 
         StepVerifier.create(useCase.changeLoanStatus(cmd))
-                .expectError(DomainNotFoundException.class)
+                .expectError(DomainConflictException.class)
                 .verify();
 
-        verify(loanRepo).findById(UUID.fromString(cmd.loanId()));
-        verify(stateRepo).findById(UUID.fromString(cmd.newStateId()));
-        verifyNoMoreInteractions(loanRepo, stateRepo, typeRepo, customerGw);
+        verifyNoInteractions(notification, customerDebtRepo, customerGw);
+        // el otro cambio sí se confirmó: lo cacheado ya no vale
+        verify(loanCache).invalidate(UUID.fromString(cmd.loanId()));
     }
 
     @Test
     void changeLoanStatus_happyPath_buildsUpdatedLoan_andEmitsLoanStatusChanged() {
-        // loan actual
-        var typeId = UUID.randomUUID().toString();
-        var oldState = "STATE-OLD";
-        var existing = loan("u@e.com", typeId, new BigDecimal("2500"), 18, oldState);
-
-        // target state
-        var newState = state(UUID.randomUUID().toString(), "APPROVED");
-        var cmd = change(existing.id(), newState.id(), "approved-after-review");
+        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2500"), 18, "STATE-OLD");
+        var newStateId = UUID.randomUUID();
+        var cmd = change(existing.id(), newStateId.toString(), "approved-after-review");
 
-        // al guardar devolvemos el mismo loan con el nuevo estado:
         var updated = new Loan(existing.id(), existing.amount(), existing.termMonths(),
-                existing.email(), newState.id(), existing.typeLoanId());
-
-        // para armar LoanStatusChanged:
-        var type = new TypeLoan(typeId, "Libre Inversión",
-                new Money(new BigDecimal("1000")),
-                new Money(new BigDecimal("10000")),
-                new InterestRate(new BigDecimal("0.015")),
-                true);
-
+                existing.email(), newStateId.toString(), existing.typeLoanId());
         UserData customer = mock(UserData.class);
 
-        // stubs
-        when(loanRepo.findById(UUID.fromString(cmd.loanId()))).thenReturn(Mono.just(existing));
-        when(stateRepo.findById(UUID.fromString(cmd.newStateId()))).thenReturn(Mono.just(newState));
-        when(loanRepo.save(any(Loan.class))).thenReturn(Mono.just(updated));
-        when(stateRepo.findById(UUID.fromString(updated.stateLoanId()))).thenReturn(Mono.just(newState));
-        when(typeRepo.findById(UUID.fromString(updated.typeLoanId()))).thenReturn(Mono.just(type));
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), newStateId, null))
+                .thenReturn(Mono.just(transition(updated, "STATE-OLD", "PENDING_REVIEW", "APPROVED")));
         when(customerGw.findByEmail(updated.email().value())).thenReturn(Mono.just(customer));
 
         StepVerifier.create(useCase.changeLoanStatus(cmd))
                 .assertNext(changed -> {
-                    // estructura general
                     assertThat(changed).isInstanceOf(LoanStatusChanged.class);
                     assertThat(changed.loan()).isEqualTo(updated);
                     assertThat(changed.stateName()).isEqualTo("APPROVED");
@@ -392,11 +570,364 @@ class LoanUseCaseTest {
                 })
                 .verifyComplete();
 
-        // se guardó un loan con el nuevo estado
-        var captor = ArgumentCaptor.forClass(Loan.class);
-        verify(loanRepo).save(captor.capture());
-        assertThat(captor.getValue().stateLoanId()).isEqualTo(newState.id());
+        // una sola sentencia: ni save ni relecturas de estado/tipo
+        verify(loanRepo, never()).findById(any());
+        verify(loanRepo, never()).save(any());
 
+        // la notificación se encola dentro de la misma transacción
+        verify(notification).sendMessage(any(LoanStatusChanged.class));
+        verify(txRunner).required(eq("LoanUseCase.changeLoanStatus"), eq(TxRoute.loan(UUID.fromString(existing.id()))), any());
+
+        // entra a APPROVED: suma al ledger de deuda
+        verify(customerDebtRepo).addApprovedLoan(UUID.fromString(existing.id()));
+        verify(customerDebtRepo, never()).removeApprovedLoan(any());
+
+        var order = inOrder(txRunner, loanCache);
+        order.verify(txRunner).required(eq("LoanUseCase.changeLoanStatus"), any(TxRoute.class), any());
+        order.verify(loanCache).invalidate(UUID.fromString(existing.id()));
+    }
+
+    @Test
+    void changeLoanStatus_whenNotificationEnqueueFails_propagatesError() {
+        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2500"), 18, "STATE-OLD");
+        var newStateId = UUID.randomUUID();
+        var cmd = change(existing.id(), newStateId.toString(), "rejected");
+        var updated = new Loan(existing.id(), existing.amount(), existing.termMonths(),
+                existing.email(), newStateId.toString(), existing.typeLoanId());
+
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), newStateId, null))
+                .thenReturn(Mono.just(transition(updated, "STATE-OLD", "PENDING_REVIEW", "REJECTED")));
+        when(customerGw.findByEmail(updated.email().value())).thenReturn(Mono.just(mock(UserData.class)));
+        when(notification.sendMessage(any())).thenReturn(Mono.error(new RuntimeException("outbox down")));
+
+        // el error sale dentro de txRunner.required, por lo que el cambio de estado hace rollback
+        StepVerifier.create(useCase.changeLoanStatus(cmd))
+                .expectErrorMessage("outbox down")
+                .verify();
+    }
+
+    @Test
+    void changeLoanStatus_whenLeavingApproved_removesFromDebtLedger() {
+        var approvedId = UUID.randomUUID().toString();
+        var rejectedId = UUID.randomUUID();
+        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2500"), 18, approvedId);
+        var cmd = change(existing.id(), rejectedId.toString(), "revoked");
+        var updated = new Loan(existing.id(), existing.amount(), existing.termMonths(),
+                existing.email(), rejectedId.toString(), existing.typeLoanId());
+
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), rejectedId, null))
+                .thenReturn(Mono.just(transition(updated, approvedId,
+                        LoanUseCase.DEFAULT_APPROVED_STATE_NAME, "REJECTED")));
+        when(customerGw.findByEmail("u@e.com")).thenReturn(Mono.just(mock(UserData.class)));
+
+        StepVerifier.create(useCase.changeLoanStatus(cmd))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(customerDebtRepo).removeApprovedLoan(UUID.fromString(existing.id()));
+        verify(customerDebtRepo, never()).addApprovedLoan(any());
+    }
+
+    @Test
+    void changeLoanStatus_toSameState_leavesDebtLedgerUntouched() {
+        var approvedId = UUID.randomUUID();
+        var existing = loan("u@e.com", UUID.randomUUID().toString(), new BigDecimal("2500"), 18, approvedId.toString());
+        var cmd = change(existing.id(), approvedId.toString(), "again");
+
+        when(loanRepo.changeState(UUID.fromString(cmd.loanId()), approvedId, null))
+                .thenReturn(Mono.just(transition(existing, approvedId.toString(),
+                        LoanUseCase.DEFAULT_APPROVED_STATE_NAME, LoanUseCase.DEFAULT_APPROVED_STATE_NAME)));
+        when(customerGw.findByEmail("u@e.com")).thenReturn(Mono.just(mock(UserData.class)));
+
+        StepVerifier.create(useCase.changeLoanStatus(cmd))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verifyNoInteractions(customerDebtRepo);
+    }
+
+    // ---------------- tests de changeLoanStatusBulk() ----------------
+
+    static Loan moved(Loan loan, String stateId) {
+        return new Loan(loan.id(), loan.amount(), loan.termMonths(), loan.email(), stateId, loan.typeLoanId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changeLoanStatusBulk_groupsByTargetState_andNotifiesInOneBatch() {
+        var approvedId = UUID.randomUUID();
+        var a = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var b = loan("b@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var c = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var changes = List.of(
+                change(a.id(), approvedId.toString(), "ok"),
+                change(b.id(), "REJECTED", "no"),
+                change(c.id(), approvedId.toString(), "ok"));
+        UserData customerA = mock(UserData.class);
+        UserData customerB = mock(UserData.class);
+
+        when(loanRepo.changeStateBatch(List.of(UUID.fromString(a.id()), UUID.fromString(c.id())), approvedId, null))
+                .thenReturn(Flux.just(
+                        LoanTransitionResult.applied(UUID.fromString(a.id()),
+                                transition(moved(a, approvedId.toString()), "STATE-OLD", "PENDING_REVIEW", "APPROVED")),
+                        LoanTransitionResult.applied(UUID.fromString(c.id()),
+                                transition(moved(c, approvedId.toString()), "STATE-OLD", "PENDING_REVIEW", "APPROVED"))));
+        when(loanRepo.changeStateBatch(List.of(UUID.fromString(b.id())), null, "REJECTED"))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(UUID.fromString(b.id()),
+                        transition(moved(b, "STATE-REJ"), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(customerGw.findByEmails(Set.of("a@e.com", "b@e.com")))
+                .thenReturn(Mono.just(Map.of("a@e.com", customerA, "b@e.com", customerB)));
+
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .assertNext(outcomes -> {
+                    assertThat(outcomes).extracting(StatusChangeOutcome::request).isEqualTo(changes);
+                    assertThat(outcomes).noneMatch(StatusChangeOutcome::isFailed);
+                    assertThat(outcomes).extracting(o -> o.changed().stateName())
+                            .containsExactly("APPROVED", "REJECTED", "APPROVED");
+                    assertThat(outcomes).extracting(o -> o.changed().userData())
+                            .containsExactly(customerA, customerB, customerA);
+                })
+                .verifyComplete();
+
+        // una sola transacción, una sola consulta de clientes y un solo lote al outbox
+        verify(txRunner).required(eq("LoanUseCase.changeLoanStatusBulk"), eq(TxRoute.partition(TxRunner.SINGLE_PARTITION)), any());
+        verify(customerGw).findByEmails(any());
+        verify(customerGw, never()).findByEmail(anyString());
+        ArgumentCaptor<List<LoanStatusChanged>> sent = ArgumentCaptor.forClass(List.class);
+        verify(notification).sendMessages(sent.capture());
+        verify(notification, never()).sendMessage(any());
+        assertThat(sent.getValue()).hasSize(3);
+        verify(customerDebtRepo).addApprovedLoan(UUID.fromString(a.id()));
+        verify(customerDebtRepo).addApprovedLoan(UUID.fromString(c.id()));
+        for (var id : List.of(a.id(), b.id(), c.id())) {
+            verify(loanCache).invalidate(UUID.fromString(id));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changeLoanStatusBulk_reportsPerItemFailures_withoutAbortingTheRest() {
+        var stateId = UUID.randomUUID();
+        var ok = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var conflicted = UUID.randomUUID();
+        var changes = List.of(
+                change(ok.id(), stateId.toString(), "ok"),
+                change("not-a-uuid", stateId.toString(), "bad"),
+                change(conflicted.toString(), stateId.toString(), "late"),
+                change(ok.id(), stateId.toString(), "twice"));
+
+        when(loanRepo.changeStateBatch(List.of(UUID.fromString(ok.id()), conflicted), stateId, null))
+                .thenReturn(Flux.just(
+                        LoanTransitionResult.applied(UUID.fromString(ok.id()),
+                                transition(moved(ok, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED")),
+                        LoanTransitionResult.failed(conflicted,
+                                new DomainConflictException("LOAN_STATUS_CONFLICT", conflicted.toString()))));
+        when(customerGw.findByEmails(Set.of("a@e.com"))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .assertNext(outcomes -> {
+                    assertThat(outcomes).extracting(StatusChangeOutcome::isFailed)
+                            .containsExactly(false, true, true, true);
+                    assertThat(outcomes.get(1).error().getMessage()).startsWith("INVALID_LOAN_ID:");
+                    assertThat(outcomes.get(2).error()).isInstanceOf(DomainConflictException.class);
+                    assertThat(outcomes.get(3).error().getMessage()).startsWith("DUPLICATE_LOAN_ID:");
+                    // sin cliente el cambio se aplica pero no se notifica
+                    assertThat(outcomes.get(0).changed().userData()).isNull();
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<LoanStatusChanged>> sent = ArgumentCaptor.forClass(List.class);
+        verify(notification).sendMessages(sent.capture());
+        assertThat(sent.getValue()).isEmpty();
+    }
+
+    @Test
+    void changeLoanStatusBulk_withShards_commitsEachShardOnItsOwn() {
+        var stateId = UUID.randomUUID();
+        var a = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var b = loan("b@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var idA = UUID.fromString(a.id());
+        var idB = UUID.fromString(b.id());
+        var changes = List.of(change(b.id(), stateId.toString(), "b"), change(a.id(), stateId.toString(), "a"));
+        when(txRunner.partitions(any())).thenReturn(Mono.just(Map.of(
+                TxRoute.loan(idA), "shard-0", TxRoute.loan(idB), "shard-1")));
+        when(loanRepo.changeStateBatch(List.of(idA), stateId, null))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(idA,
+                        transition(moved(a, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(loanRepo.changeStateBatch(List.of(idB), stateId, null))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(idB,
+                        transition(moved(b, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(customerGw.findByEmails(any())).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .assertNext(outcomes -> {
+                    assertThat(outcomes).extracting(StatusChangeOutcome::request).isEqualTo(changes);
+                    assertThat(outcomes).noneMatch(StatusChangeOutcome::isFailed);
+                })
+                .verifyComplete();
+
+        // cada UPDATE y su outbox confirman en el shard del préstamo
+        verify(txRunner).required(eq("LoanUseCase.changeLoanStatusBulk"), eq(TxRoute.partition("shard-0")), any());
+        verify(txRunner).required(eq("LoanUseCase.changeLoanStatusBulk"), eq(TxRoute.partition("shard-1")), any());
+        verify(notification, times(2)).sendMessages(any());
+    }
+
+    @Test
+    void changeLoanStatusBulk_withShards_whenALaterShardFails_reportsOnlyItsItems() {
+        var stateId = UUID.randomUUID();
+        var a = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var b = loan("b@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var idA = UUID.fromString(a.id());
+        var idB = UUID.fromString(b.id());
+        var changes = List.of(change(b.id(), stateId.toString(), "b"), change(a.id(), stateId.toString(), "a"));
+        when(txRunner.partitions(any())).thenReturn(Mono.just(Map.of(
+                TxRoute.loan(idA), "shard-0", TxRoute.loan(idB), "shard-1")));
+        when(loanRepo.changeStateBatch(List.of(idB), stateId, null))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(idB,
+                        transition(moved(b, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(loanRepo.changeStateBatch(List.of(idA), stateId, null))
+                .thenReturn(Flux.error(new IllegalStateException("shard-0 unreachable")));
+        when(customerGw.findByEmails(any())).thenReturn(Mono.just(Map.of()));
+
+        // el shard-1 confirmó primero: su cambio no se pierde por el fallo del shard-0
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .assertNext(outcomes -> {
+                    assertThat(outcomes).extracting(StatusChangeOutcome::request).isEqualTo(changes);
+                    assertThat(outcomes.get(0).isFailed()).isFalse();
+                    assertThat(outcomes.get(1).error()).hasMessage("shard-0 unreachable");
+                })
+                .verifyComplete();
+
+        verify(loanCache).invalidate(idA);
+        verify(loanCache).invalidate(idB);
+    }
+
+    @Test
+    void changeLoanStatusBulk_whenNothingApplies_skipsCustomerLookup() {
+        var changes = List.of(change("not-a-uuid", UUID.randomUUID().toString(), "bad"));
+
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .assertNext(outcomes -> assertThat(outcomes).singleElement()
+                        .returns(true, StatusChangeOutcome::isFailed))
+                .verifyComplete();
+
+        verify(loanRepo, never()).changeStateBatch(any(), any(), any());
+        verifyNoInteractions(customerGw);
+    }
+
+    @Test
+    void changeLoanStatusBulk_whenOverLimit_emitsDomainValidation() {
+        var changes = LongStream.rangeClosed(0, LoanUseCase.MAX_BULK_STATUS_CHANGES)
+                .mapToObj(i -> change(UUID.randomUUID().toString(), "APPROVED", "x"))
+                .toList();
+
+        StepVerifier.create(useCase.changeLoanStatusBulk(changes))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DomainValidationException.class)
+                        .hasMessageStartingWith("BULK_TOO_LARGE:"))
+                .verify();
+
+        verifyNoInteractions(loanRepo);
+    }
+
+    // ---------------- tests de changeLoanStatus() con group commit ----------------
+
+    @SuppressWarnings("unchecked")
+    private Function<List<ChangeLoanStatus>, Mono<List<StatusChangeOutcome>>> captureGroupCommit() {
+        ArgumentCaptor<Function<List<ChangeLoanStatus>, Mono<List<StatusChangeOutcome>>>> commit =
+                ArgumentCaptor.forClass(Function.class);
+        verify(groupCommit).submit(eq("LoanUseCase.changeLoanStatus"), any(), commit.capture());
+        return commit.getValue();
+    }
+
+    @Test
+    void changeLoanStatus_withGroupCommit_returnsOwnOutcome_fromTheSharedBatch() {
+        var stateId = UUID.randomUUID();
+        var existing = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var cmd = change(existing.id(), stateId.toString(), "ok");
+        UserData customer = mock(UserData.class);
+        when(groupCommit.isEnabled()).thenReturn(true);
+        when(groupCommit.submit(anyString(), any(), any())).thenAnswer(inv -> {
+            Function<List<ChangeLoanStatus>, Mono<List<StatusChangeOutcome>>> commit = inv.getArgument(2);
+            return commit.apply(List.of(inv.getArgument(1))).map(results -> results.get(0));
+        });
+        when(loanRepo.changeStateBatch(List.of(UUID.fromString(existing.id())), stateId, null))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(UUID.fromString(existing.id()),
+                        transition(moved(existing, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(customerGw.findByEmails(Set.of("a@e.com"))).thenReturn(Mono.just(Map.of("a@e.com", customer)));
+
+        StepVerifier.create(useCase.changeLoanStatus(cmd))
+                .assertNext(changed -> assertThat(changed).returns(customer, LoanStatusChanged::userData)
+                        .returns("REJECTED", LoanStatusChanged::stateName))
+                .verifyComplete();
+
+        verify(loanRepo, never()).changeState(any(), any(), any());
+        verify(notification).sendMessages(any());
+    }
+
+    @Test
+    void changeLoanStatus_withGroupCommit_surfacesItemFailureAsError() {
+        var loanId = UUID.randomUUID();
+        var cmd = change(loanId.toString(), "APPROVED", "late");
+        when(groupCommit.isEnabled()).thenReturn(true);
+        when(groupCommit.submit(anyString(), any(), any())).thenReturn(Mono.just(StatusChangeOutcome.failed(cmd,
+                new DomainConflictException("LOAN_STATUS_CONFLICT", loanId.toString()))));
+
+        StepVerifier.create(useCase.changeLoanStatus(cmd))
+                .expectError(DomainConflictException.class)
+                .verify();
+    }
+
+    @Test
+    void changeLoanStatus_groupCommitBatch_defersRepeatedLoansToALaterRound() {
+        var stateId = UUID.randomUUID();
+        var existing = loan("a@e.com", "TYPE-1", new BigDecimal("2500"), 18, "STATE-OLD");
+        var loanId = UUID.fromString(existing.id());
+        var first = change(existing.id(), stateId.toString(), "first");
+        var second = change(existing.id(), "APPROVED", "second");
+        when(groupCommit.isEnabled()).thenReturn(true);
+        when(groupCommit.submit(anyString(), any(), any())).thenReturn(Mono.empty());
+        StepVerifier.create(useCase.changeLoanStatus(first)).verifyComplete();
+
+        when(loanRepo.changeStateBatch(List.of(loanId), stateId, null))
+                .thenReturn(Flux.just(LoanTransitionResult.applied(loanId,
+                        transition(moved(existing, stateId.toString()), "STATE-OLD", "PENDING_REVIEW", "REJECTED"))));
+        when(loanRepo.changeStateBatch(List.of(loanId), null, "APPROVED"))
+                .thenReturn(Flux.just(LoanTransitionResult.failed(loanId,
+                        new DomainConflictException("LOAN_STATUS_CONFLICT", existing.id()))));
+        when(customerGw.findByEmails(any())).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(captureGroupCommit().apply(List.of(first, second)))
+                .assertNext(outcomes -> {
+                    assertThat(outcomes).extracting(StatusChangeOutcome::request).containsExactly(first, second);
+                    assertThat(outcomes.get(0).isFailed()).isFalse();
+                    // la repetición no es DUPLICATE_LOAN_ID: se aplica después, en su propia transacción
+                    assertThat(outcomes.get(1).error()).isInstanceOf(DomainConflictException.class);
+                })
+                .verifyComplete();
+
+        verify(txRunner, times(2)).required(eq("LoanUseCase.changeLoanStatusBulk"), any(TxRoute.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changeLoanStatus_groupCommitBatch_isNotLimitedByTheBulkRequestSize() {
+        var changes = LongStream.rangeClosed(0, LoanUseCase.MAX_BULK_STATUS_CHANGES)
+                .mapToObj(i -> change(UUID.randomUUID().toString(), "APPROVED", "x"))
+                .toList();
+        when(groupCommit.isEnabled()).thenReturn(true);
+        when(groupCommit.submit(anyString(), any(), any())).thenReturn(Mono.empty());
+        StepVerifier.create(useCase.changeLoanStatus(changes.get(0))).verifyComplete();
+
+        when(loanRepo.changeStateBatch(anyList(), isNull(), eq("APPROVED"))).thenAnswer(inv -> Flux.fromIterable(
+                (List<UUID>) inv.getArgument(0))
+                .map(id -> LoanTransitionResult.failed(id, new DomainNotFoundException("LOAN_NOT_FOUND"))));
+
+        // maxBatchSize del group commit puede pasar de MAX_BULK_STATUS_CHANGES: no es BULK_TOO_LARGE
+        StepVerifier.create(captureGroupCommit().apply(changes))
+                .assertNext(outcomes -> assertThat(outcomes).hasSize(changes.size())
+                        .allSatisfy(o -> assertThat(o.error()).isInstanceOf(DomainNotFoundException.class)))
+                .verifyComplete();
     }
 
     // ---------------- tests de execute() y getAllLoans() ----------------
@@ -411,14 +942,99 @@ class LoanUseCaseTest {
         );
         var page = new Pageable<>(List.of(s1), 1L, 0, 10);
 
-        when(loanRepo.findForManualReview(filter, 0, 10)).thenReturn(Mono.just(page));
+        when(loanRepo.findForManualReview(filter, 0, 10, CountMode.EXACT)).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.execute(filter, 0, 10, CountMode.EXACT))
+                .expectNext(page)
+                .verifyComplete();
+
+        verify(txRunner).readOnly(eq("LoanUseCase.execute"), any());
+        verify(loanRepo).findForManualReview(filter, 0, 10, CountMode.EXACT);
+    }
+
+    @Test
+    void executeByCursor_decodesCursor_andDelegatesToKeysetQuery() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+        var cursor = new PageCursor(Instant.parse("2025-01-02T03:04:05.123456Z"), UUID.randomUUID());
+        var page = new Pageable<LoanSummary>(List.of(), 0L, 0, 10, null);
+
+        when(loanRepo.findForManualReviewByCursor(filter, cursor, 10, CountMode.EXACT)).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.executeByCursor(filter, cursor.encode(), 10, CountMode.EXACT))
+                .expectNext(page)
+                .verifyComplete();
+
+        verify(txRunner).readOnly(eq("LoanUseCase.executeByCursor"), any());
+    }
+
+    @Test
+    void executeByCursor_withBlankCursor_requestsFirstPage() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+        var page = new Pageable<LoanSummary>(List.of(), 0L, 0, 10, null);
+
+        when(loanRepo.findForManualReviewByCursor(filter, null, 10, CountMode.NONE)).thenReturn(Mono.just(page));
 
-        StepVerifier.create(useCase.execute(filter, 0, 10))
+        StepVerifier.create(useCase.executeByCursor(filter, "", 10, CountMode.NONE))
                 .expectNext(page)
                 .verifyComplete();
+    }
+
+    @Test
+    void executeByCursor_withInvalidCursor_emitsDomainValidation() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+
+        StepVerifier.create(useCase.executeByCursor(filter, "not-a-cursor", 10, CountMode.EXACT))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DomainValidationException.class)
+                        .hasMessageStartingWith("INVALID_CURSOR"))
+                .verify();
+
+        verifyNoInteractions(loanRepo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getLoanById_whenCached_doesNotOpenTransaction() {
+        var id = UUID.randomUUID();
+        var cached = loan("c@e.com", "TYPE-1", new BigDecimal("1000"), 12, "STATE-1");
+        when(loanCache.get(eq(id), any(Function.class))).thenReturn(Mono.just(cached));
+
+        StepVerifier.create(useCase.getLoanById(id))
+                .expectNext(cached)
+                .verifyComplete();
 
-        verify(txRunner).readOnly(any());
-        verify(loanRepo).findForManualReview(filter, 0, 10);
+        verifyNoInteractions(txRunner, loanRepo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getLoanById_onMiss_loadsInsideReadOnlyTx() {
+        var id = UUID.randomUUID();
+        var stored = loan("c@e.com", "TYPE-1", new BigDecimal("1000"), 12, "STATE-1");
+        when(loanCache.get(eq(id), any(Function.class))).thenAnswer(inv ->
+                ((Function<UUID, Mono<Loan>>) inv.getArgument(1)).apply(id));
+        when(loanRepo.findById(id)).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(useCase.getLoanById(id))
+                .expectNext(stored)
+                .verifyComplete();
+
+        verify(txRunner).readOnly(eq("LoanUseCase.getLoanById"), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getLoanById_whenMissing_emitsDomainNotFound() {
+        var id = UUID.randomUUID();
+        when(loanCache.get(eq(id), any(Function.class))).thenAnswer(inv ->
+                ((Function<UUID, Mono<Loan>>) inv.getArgument(1)).apply(id));
+        when(loanRepo.findById(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.getLoanById(id))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DomainNotFoundException.class)
+                        .hasMessage("LOAN_NOT_FOUND"))
+                .verify();
     }
 
     @Test
@@ -426,13 +1042,31 @@ class LoanUseCaseTest {
         var l1 = mock(Loan.class);
         var l2 = mock(Loan.class);
 
-        when(loanRepo.findAll()).thenReturn(Flux.just(l1, l2));
+        var filter = new LoanStreamFilter(Set.of(LoanStatus.APPROVED), null, null, null, "a@b.com");
+
+        when(loanRepo.stream(filter)).thenReturn(Flux.just(l1, l2));
 
-        StepVerifier.create(useCase.getAllLoans())
+        StepVerifier.create(useCase.getAllLoans(filter))
                 .expectNext(l1, l2)
                 .verifyComplete();
 
-        verify(txRunner).readOnlyMany(any());
-        verify(loanRepo).findAll();
+        verify(txRunner).readOnlyMany(eq("LoanUseCase.getAllLoans"), any());
+        verify(loanRepo).stream(filter);
+        verify(loanRepo, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportLoans_forwardsWriterToRepository_insideReadOnlyTx() {
+        var filter = LoanStreamFilter.none();
+        LoanExportWriter<String> writer = mock(LoanExportWriter.class);
+        when(loanRepo.export(filter, writer)).thenReturn(Flux.just("header", "rows", "trailer"));
+
+        StepVerifier.create(useCase.exportLoans(filter, writer))
+                .expectNext("header", "rows", "trailer")
+                .verifyComplete();
+
+        verify(txRunner).readOnlyMany(eq("LoanUseCase.exportLoans"), any());
+        verify(loanRepo, never()).stream(any());
     }
 }
@@ -0,0 +1,162 @@
+package co.com.crediya.usecase.loanimport;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import co.com.crediya.model.loanimport.LoanImportJob;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.model.loanimport.gateways.LoanImportRepository;
+import co.com.crediya.model.loanimport.gateways.LoanImportWorker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanImportUseCaseTest {
+
+    LoanImportRepository repository = mock(LoanImportRepository.class);
+    LoanImportWorker worker = mock(LoanImportWorker.class);
+
+    LoanImportUseCase useCase;
+
+    final String jobId = UUID.randomUUID().toString();
+    final Flux<ByteBuffer> csv = Flux.just(ByteBuffer.wrap("id,amount\n".getBytes(StandardCharsets.UTF_8)));
+
+    @BeforeEach
+    void setUp() {
+        useCase = new LoanImportUseCase(repository, worker);
+        // el worker corre el trabajo en cuanto se encola
+        lenient().when(worker.track(anyString(), any())).thenAnswer(inv -> inv.getArgument(1));
+        lenient().when(worker.submit(anyString(), any())).thenAnswer(inv -> inv.<Mono<?>>getArgument(1).then());
+        lenient().when(repository.updateStatus(anyString(), any(), any())).thenReturn(Mono.empty());
+        lenient().when(repository.dropStaging(anyString())).thenReturn(Mono.empty());
+    }
+
+    private LoanImportJob job(LoanImportStatus status, boolean dryRun) {
+        return new LoanImportJob(jobId, status, "admin@mail.com", dryRun, 0, 0, 0, null, Instant.now(),
+                Instant.now(), null);
+    }
+
+    @Test
+    void start_stagesWhileTheRequestIsOpen_thenValidatesAndMergesInBackground() {
+        var staged = job(LoanImportStatus.VALIDATING, false);
+        when(repository.create("admin@mail.com", false)).thenReturn(Mono.just(job(LoanImportStatus.STAGING, false)));
+        when(repository.stage(jobId, csv)).thenReturn(Mono.just(3L));
+        when(repository.findById(jobId)).thenReturn(Mono.just(staged));
+        when(repository.validate(jobId)).thenReturn(Mono.just(1L));
+        when(repository.merge(jobId)).thenReturn(Mono.just(2L));
+
+        StepVerifier.create(useCase.start("admin@mail.com", false, csv))
+                .expectNext(staged)
+                .verifyComplete();
+
+        verify(worker).track(eq(jobId), any());
+        verify(worker).submit(eq(jobId), any());
+        InOrder order = inOrder(repository);
+        order.verify(repository).stage(jobId, csv);
+        order.verify(repository).updateStatus(jobId, LoanImportStatus.VALIDATING, null);
+        order.verify(repository).validate(jobId);
+        order.verify(repository).updateStatus(jobId, LoanImportStatus.MERGING, null);
+        order.verify(repository).merge(jobId);
+        order.verify(repository).dropStaging(jobId);
+        order.verify(repository).updateStatus(jobId, LoanImportStatus.COMPLETED, null);
+    }
+
+    @Test
+    void process_dryRun_validatesWithoutMerging() {
+        when(repository.validate(jobId)).thenReturn(Mono.just(4L));
+        when(repository.findById(jobId)).thenReturn(Mono.just(job(LoanImportStatus.COMPLETED, true)));
+
+        StepVerifier.create(useCase.process(job(LoanImportStatus.VALIDATING, true)))
+                .expectNextMatches(done -> done.status() == LoanImportStatus.COMPLETED)
+                .verifyComplete();
+
+        verify(repository, never()).merge(any());
+        verify(repository, never()).updateStatus(jobId, LoanImportStatus.MERGING, null);
+        verify(repository).updateStatus(jobId, LoanImportStatus.COMPLETED, null);
+    }
+
+    @Test
+    void process_whenMergeFails_marksJobFailed_andDropsStaging() {
+        when(repository.validate(jobId)).thenReturn(Mono.just(0L));
+        when(repository.merge(jobId)).thenReturn(Mono.error(new IllegalStateException("deadlock detected")));
+        when(repository.findById(jobId)).thenReturn(Mono.just(job(LoanImportStatus.FAILED, false)));
+
+        StepVerifier.create(useCase.process(job(LoanImportStatus.VALIDATING, false)))
+                .expectNextMatches(done -> done.status() == LoanImportStatus.FAILED)
+                .verifyComplete();
+
+        verify(repository).updateStatus(jobId, LoanImportStatus.FAILED, "deadlock detected");
+        verify(repository, never()).updateStatus(jobId, LoanImportStatus.COMPLETED, null);
+        verify(repository).dropStaging(jobId);
+    }
+
+    @Test
+    void start_whenCopyFails_marksJobFailed_andPropagatesTheError() {
+        when(repository.create("admin@mail.com", false)).thenReturn(Mono.just(job(LoanImportStatus.STAGING, false)));
+        when(repository.stage(jobId, csv))
+                .thenReturn(Mono.error(new IllegalArgumentException("extra data after last expected column")));
+
+        StepVerifier.create(useCase.start("admin@mail.com", false, csv))
+                .expectErrorMessage("extra data after last expected column")
+                .verify();
+
+        verify(repository).updateStatus(jobId, LoanImportStatus.FAILED, "extra data after last expected column");
+        verify(repository).dropStaging(jobId);
+        verify(repository, never()).validate(any());
+    }
+
+    @Test
+    void start_whenTheWorkerIsFull_marksJobFailed_andPropagatesTheConflict() {
+        when(repository.create("admin@mail.com", false)).thenReturn(Mono.just(job(LoanImportStatus.STAGING, false)));
+        when(repository.stage(jobId, csv)).thenReturn(Mono.just(3L));
+        when(repository.findById(jobId)).thenReturn(Mono.just(job(LoanImportStatus.VALIDATING, false)));
+        when(worker.submit(eq(jobId), any())).thenReturn(Mono.error(
+                new DomainConflictException("LOAN_IMPORT_BUSY", "Too many loan imports in progress, try again later")));
+
+        StepVerifier.create(useCase.start("admin@mail.com", false, csv))
+                .expectError(DomainConflictException.class)
+                .verify();
+
+        verify(repository).updateStatus(eq(jobId), eq(LoanImportStatus.FAILED), anyString());
+        verify(repository).dropStaging(jobId);
+        verify(repository, never()).validate(any());
+    }
+
+    @Test
+    void findJob_unknownOrMalformedId() {
+        when(repository.findById(jobId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.findJob(jobId))
+                .expectError(DomainNotFoundException.class)
+                .verify();
+        StepVerifier.create(useCase.findJob("not-a-uuid"))
+                .expectError(DomainValidationException.class)
+                .verify();
+    }
+
+    @Test
+    void findRejections_streamsTheReportOfAnExistingJob() {
+        var rejection = new LoanImportRejection(2, "UNKNOWN_LOAN_TYPE", ",100,12,a@mail.com,APPROVED,NOPE,");
+        when(repository.findById(jobId)).thenReturn(Mono.just(job(LoanImportStatus.COMPLETED, false)));
+        when(repository.findRejections(jobId)).thenReturn(Flux.just(rejection));
+
+        StepVerifier.create(useCase.findRejections(jobId))
+                .expectNext(rejection)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,108 @@
+package co.com.crediya.r2dbc.cache;
+
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import co.com.crediya.r2dbc.shard.ShardingProperties;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantiene una conexión dedicada (fuera del pool) escuchando los canales que notifican los triggers
+ * de loan_type/loan_state (V3) y de loan (V10), para invalidar {@link ReferenceDataCache} y
+ * {@link CaffeineLoanCache} en todas las instancias. Con shards abre una más por shard: los préstamos
+ * cambian allí y el NOTIFY solo llega a quien escucha en esa base. Cada conexión se reintenta por su
+ * cuenta.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationListener implements DisposableBean {
+
+    public static final String CHANNEL = "reference_data_changed";
+    public static final String LOAN_CHANNEL = "loan_changed";
+
+    /** Payload de V10 cuando los ids de la sentencia no caben en un NOTIFY. */
+    static final String ALL_LOANS = "*";
+
+    /** Primario y, con shards, uno por shard. */
+    private final Map<String, PostgresqlConnectionFactory> connectionFactories = new LinkedHashMap<>();
+    private final ReferenceDataCache cache;
+    private final CaffeineLoanCache loanCache;
+    private volatile Disposable subscription;
+
+    public CacheInvalidationListener(PostgresqlConnectionProperties properties, ShardingProperties sharding,
+                                     ReferenceDataCache cache, CaffeineLoanCache loanCache) {
+        connectionFactories.put(ReadReplicaRouter.PRIMARY,
+                new PostgresqlConnectionFactory(PostgreSQLConnectionPool.connectionConfiguration(properties)));
+        LoanShardRouter.connections(sharding, properties)
+                .forEach((shard, configuration) -> connectionFactories.put(shard, new PostgresqlConnectionFactory(configuration)));
+        this.cache = cache;
+        this.loanCache = loanCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.fromIterable(connectionFactories.entrySet())
+                .flatMap(target -> listen(target.getValue())
+                        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                                .maxBackoff(Duration.ofMinutes(1))
+                                .doBeforeRetry(signal -> log.warn("LISTEN {}, {} on {} lost, reconnecting: {}",
+                                        CHANNEL, LOAN_CHANNEL, target.getKey(), signal.failure().getMessage()))),
+                        connectionFactories.size())
+                .subscribe(this::dispatch);
+    }
+
+    Flux<Notification> listen(PostgresqlConnectionFactory connectionFactory) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> connection.createStatement("LISTEN " + CHANNEL + "; LISTEN " + LOAN_CHANNEL)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .then()
+                        // mientras no hubo LISTEN pudimos perder notificaciones
+                        .doOnSuccess(v -> {
+                            cache.invalidate("listener connected");
+                            loanCache.invalidateAll("listener connected");
+                        })
+                        .thenMany(connection.getNotifications()),
+                PostgresqlConnection::close);
+    }
+
+    void dispatch(Notification notification) {
+        if (!LOAN_CHANNEL.equals(notification.getName())) {
+            cache.invalidate("notify:" + notification.getParameter());
+            return;
+        }
+        String payload = notification.getParameter();
+        if (payload == null || ALL_LOANS.equals(payload)) {
+            loanCache.invalidateAll("notify:" + LOAN_CHANNEL);
+            return;
+        }
+        for (String id : payload.split(",")) {
+            loanCache.invalidate(UUID.fromString(id));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+}
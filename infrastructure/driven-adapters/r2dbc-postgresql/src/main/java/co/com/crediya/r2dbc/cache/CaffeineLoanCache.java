@@ -0,0 +1,67 @@
+package co.com.crediya.r2dbc.cache;
+
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.gateways.LoanCache;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link LoanCache} en proceso, acotada por tamaño y ttl. Invalidar un id también descarta una carga
+ * en vuelo, así una lectura que empezó antes del commit no deja el estado viejo en la caché. Los
+ * cambios hechos por otras instancias (o por SQL directo) llegan por {@link CacheInvalidationListener}.
+ */
+@Slf4j
+@Component
+public class CaffeineLoanCache implements LoanCache {
+
+    public static final String CACHE_NAME = "loan.by-id";
+
+    private final AsyncCache<UUID, Loan> cache;
+
+    public CaffeineLoanCache(LoanCacheProperties properties, MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Mono<Loan> get(UUID id, Function<UUID, Mono<Loan>> loader) {
+        // suppressCancel: cancelar a un suscriptor no debe abortar la carga compartida con los demás
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> load(key, loader)), true);
+    }
+
+    @Override
+    public void put(Loan loan) {
+        cache.put(UUID.fromString(loan.id()), CompletableFuture.completedFuture(loan));
+    }
+
+    @Override
+    public void invalidate(UUID id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll(String reason) {
+        cache.synchronous().invalidateAll();
+        log.info("Loan cache invalidated ({})", reason);
+    }
+
+    /** Vacío completa el future con null y Caffeine no guarda la entrada: un id inexistente no se cachea. */
+    private static CompletableFuture<Loan> load(UUID id, Function<UUID, Mono<Loan>> loader) {
+        return loader.apply(id)
+                // la carga no debe usar la conexión transaccional del request que la disparó
+                .contextWrite(ctx -> Context.empty())
+                .toFuture();
+    }
+}
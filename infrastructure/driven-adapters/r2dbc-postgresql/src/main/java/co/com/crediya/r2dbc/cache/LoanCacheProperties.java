@@ -0,0 +1,18 @@
+package co.com.crediya.r2dbc.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * ttl corto a propósito: la invalidación entre instancias llega por NOTIFY y el ttl solo acota lo
+ * que pueda quedar viejo mientras el listener está reconectando.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.loan-cache")
+public record LoanCacheProperties(Duration ttl, Long maxSize) {
+
+    public LoanCacheProperties {
+        if (ttl == null) ttl = Duration.ofSeconds(30);
+        if (maxSize == null || maxSize < 1) maxSize = 10_000L;
+    }
+}
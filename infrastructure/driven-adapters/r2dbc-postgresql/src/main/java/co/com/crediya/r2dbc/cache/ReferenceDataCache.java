@@ -0,0 +1,181 @@
+package co.com.crediya.r2dbc.cache;
+
+import co.com.crediya.model.pageable.LoanStatus;
+import co.com.crediya.model.stateloan.StateLoan;
+import co.com.crediya.model.typeloan.TypeLoan;
+import co.com.crediya.r2dbc.stateloan.StateLoanReactiveRepository;
+import co.com.crediya.r2dbc.stateloan.mapper.StateLoanEntityMapper;
+import co.com.crediya.r2dbc.typeloan.TypeLoanReactiveRepository;
+import co.com.crediya.r2dbc.typeloan.mapper.TypeLoanEntityMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Snapshot en memoria de loan_type y loan_state. Son tablas pequeñas que casi nunca cambian,
+ * así que se cargan completas y se invalidan vía LISTEN/NOTIFY ({@link CacheInvalidationListener}).
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    private static final Map<String, LoanStatus> STATUS_BY_NAME = Arrays.stream(LoanStatus.values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, Function.identity()));
+
+    private final TypeLoanReactiveRepository typeRepository;
+    private final TypeLoanEntityMapper typeMapper;
+    private final StateLoanReactiveRepository stateRepository;
+    private final StateLoanEntityMapper stateMapper;
+
+    private final AtomicReference<Mono<Snapshot>> inflight = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot current;
+
+    private final Counter typeHits;
+    private final Counter typeMisses;
+    private final Counter stateHits;
+    private final Counter stateMisses;
+    private final Counter reloads;
+
+    public ReferenceDataCache(TypeLoanReactiveRepository typeRepository, TypeLoanEntityMapper typeMapper,
+                              StateLoanReactiveRepository stateRepository, StateLoanEntityMapper stateMapper,
+                              MeterRegistry registry) {
+        this.typeRepository = typeRepository;
+        this.typeMapper = typeMapper;
+        this.stateRepository = stateRepository;
+        this.stateMapper = stateMapper;
+        this.typeHits = lookups(registry, "type_loan", "hit");
+        this.typeMisses = lookups(registry, "type_loan", "miss");
+        this.stateHits = lookups(registry, "state_loan", "hit");
+        this.stateMisses = lookups(registry, "state_loan", "miss");
+        this.reloads = Counter.builder("reference.data.cache.reloads").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        snapshot().subscribe(
+                s -> log.info("Reference data cache loaded: {} loan types, {} loan states",
+                        s.types().size(), s.states().size()),
+                e -> log.warn("Reference data preload failed, it will be loaded on demand: {}", e.getMessage()));
+    }
+
+    public Mono<TypeLoan> findTypeLoan(UUID id) {
+        return snapshot().flatMap(s -> track(s.types().get(id), typeHits, typeMisses));
+    }
+
+    public Mono<StateLoan> findStateLoan(UUID id) {
+        return snapshot().flatMap(s -> track(s.states().get(id), stateHits, stateMisses));
+    }
+
+    public Mono<StateLoan> findStateLoanByName(String name) {
+        LoanStatus status = STATUS_BY_NAME.get(name);
+        if (status != null) {
+            return findStateLoan(status);
+        }
+        return snapshot().flatMap(s -> track(s.statesByName().get(name), stateHits, stateMisses));
+    }
+
+    public Mono<StateLoan> findStateLoan(LoanStatus status) {
+        return snapshot().flatMap(s -> {
+            UUID id = s.stateIdByStatus()[status.ordinal()];
+            return track(id == null ? null : s.states().get(id), stateHits, stateMisses);
+        });
+    }
+
+    public void invalidate(String reason) {
+        generation.incrementAndGet();
+        current = null;
+        inflight.set(null);
+        log.info("Reference data cache invalidated ({})", reason);
+    }
+
+    Mono<Snapshot> snapshot() {
+        Snapshot s = current;
+        return s != null ? Mono.just(s) : load();
+    }
+
+    /**
+     * Carga single-flight: los misses concurrentes comparten la misma consulta en lugar de
+     * disparar una por request (stampede tras una invalidación).
+     */
+    private Mono<Snapshot> load() {
+        Mono<Snapshot> pending = inflight.get();
+        if (pending != null) {
+            return pending;
+        }
+        long loadGeneration = generation.get();
+        AtomicReference<Mono<Snapshot>> self = new AtomicReference<>();
+        Mono<Snapshot> fresh = Mono.zip(
+                        typeRepository.findAll().map(typeMapper::toDomain).collectList(),
+                        stateRepository.findAll().map(stateMapper::toDomain).collectList())
+                .map(t -> Snapshot.of(t.getT1(), t.getT2()))
+                .doOnNext(loaded -> {
+                    reloads.increment();
+                    if (generation.get() == loadGeneration) {
+                        current = loaded;
+                    }
+                })
+                // solo libera su propio slot: una invalidación pudo haber lanzado ya una carga más nueva
+                .doFinally(signal -> inflight.compareAndSet(self.get(), null))
+                // la carga no debe usar la conexión transaccional del request que la disparó
+                .contextWrite(ctx -> Context.empty())
+                .cache();
+        self.set(fresh);
+        if (inflight.compareAndSet(null, fresh)) {
+            return fresh;
+        }
+        return Mono.defer(this::snapshot);
+    }
+
+    private static <T> Mono<T> track(T value, Counter hits, Counter misses) {
+        (value != null ? hits : misses).increment();
+        return Mono.justOrEmpty(value);
+    }
+
+    private static Counter lookups(MeterRegistry registry, String cache, String result) {
+        return Counter.builder("reference.data.cache")
+                .description("Lookups against the in-process loan_type/loan_state cache")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    record Snapshot(Map<UUID, TypeLoan> types,
+                    Map<UUID, StateLoan> states,
+                    Map<String, StateLoan> statesByName,
+                    UUID[] stateIdByStatus) {
+
+        static Snapshot of(List<TypeLoan> typeLoans, List<StateLoan> stateLoans) {
+            Map<UUID, TypeLoan> types = new HashMap<>();
+            typeLoans.forEach(t -> types.put(UUID.fromString(t.id()), t));
+
+            Map<UUID, StateLoan> states = new HashMap<>();
+            Map<String, StateLoan> byName = new HashMap<>();
+            UUID[] byStatus = new UUID[LoanStatus.values().length];
+            for (StateLoan state : stateLoans) {
+                UUID id = UUID.fromString(state.id());
+                states.put(id, state);
+                byName.put(state.name(), state);
+                LoanStatus status = STATUS_BY_NAME.get(state.name());
+                if (status != null) {
+                    byStatus[status.ordinal()] = id;
+                }
+            }
+            return new Snapshot(Map.copyOf(types), Map.copyOf(states), Map.copyOf(byName), byStatus);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package co.com.crediya.r2dbc.config;
 
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.replica.ReadReplicaRoutingConnectionFactory;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class PostgreSQLConnectionPool {
@@ -19,17 +26,8 @@ public class PostgreSQLConnectionPool {
 
 	@Bean
 	public ConnectionPool getConnectionConfig(PostgresqlConnectionProperties properties) {
-		PostgresqlConnectionConfiguration dbConfiguration = PostgresqlConnectionConfiguration.builder()
-                .host(properties.host())
-                .port(properties.port())
-                .database(properties.database())
-                .schema(properties.schema())
-                .username(properties.username())
-                .password(properties.password())
-                .build();
-
         ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration.builder()
-                .connectionFactory(new PostgresqlConnectionFactory(dbConfiguration))
+                .connectionFactory(new PostgresqlConnectionFactory(connectionConfiguration(properties)))
                 .name("api-postgres-connection-pool")
                 .initialSize(INITIAL_SIZE)
                 .maxSize(MAX_SIZE)
@@ -39,4 +37,51 @@ public class PostgreSQLConnectionPool {
 
 		return new ConnectionPool(poolConfiguration);
 	}
-}
\ No newline at end of file
+
+    /**
+     * El ConnectionFactory que usan el transaction manager y DatabaseClient. Sin réplicas ni shards
+     * configurados todo resuelve al pool del primario.
+     */
+    @Bean
+    @Primary
+    public ConnectionFactory routingConnectionFactory(ConnectionPool primary, ReadReplicaRouter router,
+                                                      LoanShardRouter shards) {
+        if (shards.isEnabled() && !router.targets().isEmpty()) {
+            throw new IllegalStateException("adapters.r2dbc.sharding and adapters.r2dbc.read-replica cannot be enabled together");
+        }
+        Map<Object, Object> targets = new HashMap<>(router.targets());
+        targets.putAll(shards.targets());
+        targets.put(ReadReplicaRouter.PRIMARY, primary);
+        var routing = new ReadReplicaRoutingConnectionFactory();
+        routing.setTargetConnectionFactories(targets);
+        routing.setDefaultTargetConnectionFactory(primary);
+        return routing;
+    }
+
+    /**
+     * Configuración de conexión compartida por el pool y por las conexiones dedicadas
+     * (por ejemplo, el LISTEN de invalidación de caché) que no deben salir del pool.
+     */
+    public static PostgresqlConnectionConfiguration connectionConfiguration(PostgresqlConnectionProperties properties) {
+        return connectionConfiguration(properties, properties.host(), properties.port());
+    }
+
+    /** Mismas credenciales contra otro host, p. ej. una réplica de lectura. */
+    public static PostgresqlConnectionConfiguration connectionConfiguration(PostgresqlConnectionProperties properties,
+                                                                            String host, int port) {
+        return connectionConfiguration(properties, host, port, properties.database());
+    }
+
+    /** Mismas credenciales contra otra base, p. ej. un shard de préstamos. */
+    public static PostgresqlConnectionConfiguration connectionConfiguration(PostgresqlConnectionProperties properties,
+                                                                            String host, int port, String database) {
+        return PostgresqlConnectionConfiguration.builder()
+                .host(host)
+                .port(port)
+                .database(database)
+                .schema(properties.schema())
+                .username(properties.username())
+                .password(properties.password())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package co.com.crediya.r2dbc.customerdebt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * rebuildInterval nulo deshabilita el rebuild periódico; la migración V6 ya hace el backfill inicial.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.customer-debt")
+public record CustomerDebtProperties(
+        Boolean rebuildOnStartup,
+        Duration rebuildInterval) {
+
+    public CustomerDebtProperties {
+        if (rebuildOnStartup == null) rebuildOnStartup = false;
+    }
+}
@@ -0,0 +1,84 @@
+package co.com.crediya.r2dbc.customerdebt;
+
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.model.tx.gateway.TxRunner;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Backfill / reconciliación de customer_debt a partir de los préstamos APPROVED. Opcionalmente
+ * corre al arrancar y cada {@code rebuildInterval}; las filas corregidas indican deriva del ledger.
+ * Con shards se repite en cada uno, además del primario: el ledger de un cliente vive junto a sus préstamos.
+ */
+@Slf4j
+@Component
+public class CustomerDebtRebuildJob implements DisposableBean {
+
+    private final CustomerDebtRepositoryAdapter repository;
+    private final TxRunner txRunner;
+    private final CustomerDebtProperties properties;
+    private final LoanShardRouter shards;
+    private final Counter corrected;
+    private volatile Disposable loop;
+
+    public CustomerDebtRebuildJob(CustomerDebtRepositoryAdapter repository, TxRunner txRunner,
+                                  CustomerDebtProperties properties, LoanShardRouter shards, MeterRegistry registry) {
+        this.repository = repository;
+        this.txRunner = txRunner;
+        this.properties = properties;
+        this.shards = shards;
+        this.corrected = Counter.builder("customer.debt.rebuild.corrected")
+                .description("Filas de customer_debt corregidas por el rebuild")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration interval = properties.rebuildInterval();
+        Flux<Long> ticks = interval == null
+                ? (properties.rebuildOnStartup() ? Flux.just(0L) : Flux.empty())
+                : Flux.interval(properties.rebuildOnStartup() ? Duration.ZERO : interval, interval).onBackpressureDrop();
+
+        loop = ticks
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(e -> {
+                            log.warn("Customer debt rebuild failed: {}", e.getMessage());
+                            return Mono.just(0L);
+                        }))
+                .subscribe();
+    }
+
+    public Mono<Long> rebuild() {
+        Mono<Long> rebuilt = !shards.isEnabled()
+                ? txRunner.required("CustomerDebtRebuildJob.rebuild", repository::rebuild)
+                : Flux.concat(Flux.just(ReadReplicaRouter.PRIMARY), Flux.fromIterable(shards.shards()))
+                        .concatMap(route -> txRunner.required("CustomerDebtRebuildJob.rebuild",
+                                TxRoute.partition(route), repository::rebuild))
+                        .reduce(0L, Long::sum);
+        return rebuilt
+                .doOnNext(rows -> {
+                    corrected.increment(rows);
+                    log.info("Customer debt rebuild done, {} rows corrected", rows);
+                });
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = loop;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+}
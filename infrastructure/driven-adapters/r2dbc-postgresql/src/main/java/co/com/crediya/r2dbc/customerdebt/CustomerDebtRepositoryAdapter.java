@@ -0,0 +1,109 @@
+package co.com.crediya.r2dbc.customerdebt;
+
+import co.com.crediya.model.customer.gateways.CustomerDebtRepository;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Acceso a customer_debt (V6). Los ajustes son un UPSERT con delta, por lo que dos préstamos
+ * del mismo cliente aprobados a la vez se serializan sobre la fila del email sin perder ninguno.
+ * La cuota se calcula con la tasa vigente del tipo; si la tasa cambia, el rebuild corrige la deriva.
+ * Con shards la fila de cada cliente vive en su shard, junto a sus préstamos.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerDebtRepositoryAdapter implements CustomerDebtRepository {
+
+    private static final String ADJUST_SQL = """
+        INSERT INTO customer_debt AS cd (email, monthly_debt, approved_loans)
+        SELECT l.email,
+               :sign * loan_monthly_payment(l.amount, lt.annual_interest_percent, l.term_months),
+               :sign
+        FROM loan l
+        JOIN loan_type lt ON lt.id = l.id_type_loan
+        WHERE l.id = :loanId
+        ON CONFLICT (email) DO UPDATE
+           SET monthly_debt   = cd.monthly_debt + EXCLUDED.monthly_debt,
+               approved_loans = cd.approved_loans + EXCLUDED.approved_loans,
+               updated_at     = now()
+        """;
+
+    private static final String REBUILD_SQL = """
+        WITH fresh AS (
+            SELECT l.email,
+                   SUM(loan_monthly_payment(l.amount, lt.annual_interest_percent, l.term_months)) AS monthly_debt,
+                   COUNT(*)::int AS approved_loans
+            FROM (
+                SELECT email, amount, term_months, id_type_loan FROM loan
+                WHERE state_code = loan_status_code('APPROVED')
+                UNION ALL
+                SELECT email, amount, term_months, id_type_loan FROM loan_archive
+                WHERE state_code = loan_status_code('APPROVED')
+            ) l
+            JOIN loan_type  lt ON lt.id = l.id_type_loan
+            GROUP BY l.email
+        ), removed AS (
+            DELETE FROM customer_debt cd
+            WHERE NOT EXISTS (SELECT 1 FROM fresh f WHERE f.email = cd.email)
+        )
+        INSERT INTO customer_debt AS cd (email, monthly_debt, approved_loans)
+        SELECT email, monthly_debt, approved_loans FROM fresh
+        ON CONFLICT (email) DO UPDATE
+           SET monthly_debt   = EXCLUDED.monthly_debt,
+               approved_loans = EXCLUDED.approved_loans,
+               updated_at     = now()
+         WHERE cd.monthly_debt   IS DISTINCT FROM EXCLUDED.monthly_debt
+            OR cd.approved_loans IS DISTINCT FROM EXCLUDED.approved_loans
+        """;
+
+    private final DatabaseClient client;
+
+    private final LoanShardRouter shards;
+
+    /** Corre fuera de la transacción de create: sin ruta en el contexto iría al primario, no al shard. */
+    @Override
+    public Mono<BigDecimal> findMonthlyApprovedDebt(String email) {
+        DatabaseClient target = shards.isEnabled() ? shards.client(shards.shardOf(email)) : client;
+        return target.sql("SELECT monthly_debt FROM customer_debt WHERE email = :email")
+                .bind("email", email)
+                .map((row, meta) -> row.get("monthly_debt", BigDecimal.class))
+                .one()
+                .defaultIfEmpty(BigDecimal.ZERO);
+    }
+
+    @Override
+    public Mono<Void> addApprovedLoan(UUID loanId) {
+        return adjust(loanId, 1);
+    }
+
+    @Override
+    public Mono<Void> removeApprovedLoan(UUID loanId) {
+        return adjust(loanId, -1);
+    }
+
+    private Mono<Void> adjust(UUID loanId, int sign) {
+        return client.sql(ADJUST_SQL)
+                .bind("sign", sign)
+                .bind("loanId", loanId)
+                .then();
+    }
+
+    /**
+     * Recalcula el ledger completo desde loan y loan_archive (los aprobados archivados siguen
+     * siendo deuda). Debe correr dentro de una transacción: el LOCK
+     * espera a los ajustes en curso y bloquea los nuevos hasta el commit, así ningún delta
+     * concurrente se pisa con la foto del rebuild. Devuelve las filas insertadas o corregidas
+     * (las eliminadas por quedar sin préstamos aprobados no se cuentan).
+     */
+    public Mono<Long> rebuild() {
+        return client.sql("LOCK TABLE customer_debt IN SHARE ROW EXCLUSIVE MODE")
+                .then()
+                .then(client.sql(REBUILD_SQL).fetch().rowsUpdated());
+    }
+}
@@ -0,0 +1,59 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import io.r2dbc.spi.Row;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Fila única del UPDATE ... RETURNING de cambio de estado. Con id nulo, los flags distinguen
+ * préstamo o estado inexistente de una transición concurrente que cambió el estado primero.
+ */
+public record ChangeStateRow(
+        UUID id,
+        BigDecimal amount,
+        Integer termMonths,
+        String email,
+        UUID stateLoanId,
+        UUID typeLoanId,
+        UUID previousStateId,
+        String previousStateName,
+        String stateName,
+        String typeName,
+        boolean loanFound,
+        boolean stateFound
+) {
+
+    static ChangeStateRow from(Row row) {
+        return new ChangeStateRow(
+                row.get("id", UUID.class),
+                row.get("amount", BigDecimal.class),
+                row.get("term_months", Integer.class),
+                row.get("email", String.class),
+                row.get("id_state_loan", UUID.class),
+                row.get("id_type_loan", UUID.class),
+                row.get("previous_state_id", UUID.class),
+                row.get("previous_state_name", String.class),
+                row.get("state_name", String.class),
+                row.get("type_name", String.class),
+                Boolean.TRUE.equals(row.get("loan_found", Boolean.class)),
+                Boolean.TRUE.equals(row.get("state_found", Boolean.class)));
+    }
+
+    public LoanEntity requireUpdated(UUID loanId) {
+        if (!loanFound) {
+            throw new DomainNotFoundException("LOAN_NOT_FOUND");
+        }
+        if (!stateFound) {
+            throw new DomainNotFoundException("STATE_LOAN_NOT_FOUND");
+        }
+        if (id == null) {
+            throw new DomainConflictException("LOAN_STATUS_CONFLICT",
+                    "Loan " + loanId + " changed state concurrently");
+        }
+        return new LoanEntity(id, amount, termMonths, email, stateLoanId, typeLoanId);
+    }
+}
@@ -0,0 +1,57 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import io.r2dbc.spi.Row;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Fila única que devuelve el INSERT validado. Cuando no se insertó (id nulo) los flags indican
+ * el motivo, con los mismos códigos que antes resolvía LoanUseCase en Java.
+ */
+public record CreateLoanRow(
+        UUID id,
+        BigDecimal amount,
+        Integer termMonths,
+        String email,
+        UUID stateLoanId,
+        UUID typeLoanId,
+        boolean typeFound,
+        boolean stateFound,
+        boolean automaticValidation,
+        BigDecimal minimumAmount,
+        BigDecimal maximumAmount
+) {
+
+    static CreateLoanRow from(Row row) {
+        return new CreateLoanRow(
+                row.get("id", UUID.class),
+                row.get("amount", BigDecimal.class),
+                row.get("term_months", Integer.class),
+                row.get("email", String.class),
+                row.get("id_state_loan", UUID.class),
+                row.get("id_type_loan", UUID.class),
+                Boolean.TRUE.equals(row.get("type_found", Boolean.class)),
+                Boolean.TRUE.equals(row.get("state_found", Boolean.class)),
+                Boolean.TRUE.equals(row.get("automatic_validation", Boolean.class)),
+                row.get("minimum_amount", BigDecimal.class),
+                row.get("maximum_amount", BigDecimal.class));
+    }
+
+    public LoanEntity requireInserted(String stateName) {
+        if (!typeFound) {
+            throw new DomainNotFoundException("TYPE_LOAN_NOT_FOUND");
+        }
+        if (!stateFound) {
+            throw new DomainNotFoundException("STATE_" + stateName + "_NOT_FOUND");
+        }
+        if (id == null) {
+            throw new DomainValidationException("AMOUNT_OUT_OF_RANGE",
+                    "Amount must be between " + minimumAmount + " and " + maximumAmount);
+        }
+        return new LoanEntity(id, amount, termMonths, email, stateLoanId, typeLoanId);
+    }
+}
@@ -6,6 +6,7 @@ import co.com.crediya.r2dbc.loan.entity.LoanEntity;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,6 +14,14 @@ import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
 // TODO: This file is just an example, you should delete or modify it
+/**
+ * Los filtros del listado de revisión manual reciben la búsqueda ya convertida en patrón LIKE
+ * (ver {@link LoanReactiveRepositoryAdapter}): {@code :contains} usa el índice trigram de email y
+ * {@code :prefix} el índice sobre lower(email) con text_pattern_ops (V7).
+ * loan está particionada por mes de created_at (V11): el orden created_at DESC con LIMIT recorre las
+ * particiones de la más nueva a la más vieja y se detiene al completar la página.
+ * El estado se filtra y se devuelve desde loan.state_code (V13), sin unir loan_state.
+ */
 public interface LoanReactiveRepository extends ReactiveCrudRepository<LoanEntity, UUID>, ReactiveQueryByExampleExecutor<LoanEntity> {
 
     @Query("""
@@ -23,35 +32,78 @@ public interface LoanReactiveRepository extends ReactiveCrudRepository<LoanEntit
                 NULL::varchar                                AS applicant_name,       -- sin users
                 tl.name                                      AS type_loan_name,
                 (tl.annual_interest_percent / 12.0 / 100.0)::numeric  AS interest_rate_monthly,
-                ls.name                                      AS status,
+                loan_status_name(l.state_code)               AS status,
                 NULL::numeric                                AS base_salary,          -- sin users
-                COALESCE((
-                    SELECT SUM(ROUND(
-                        l2.amount
-                        * (lt2.annual_interest_percent / 12.0 / 100.0)
-                        * POWER(1 + (lt2.annual_interest_percent / 12.0 / 100.0), l2.term_months)
-                        / (POWER(1 + (lt2.annual_interest_percent / 12.0 / 100.0), l2.term_months) - 1),
-                        2
-                    ))
-                    FROM loan l2
-                    JOIN loan_type  lt2 ON lt2.id = l2.id_type_loan
-                    JOIN loan_state ls2 ON ls2.id = l2.id_state_loan AND ls2.name = 'APPROVED'
-                    WHERE l2.email = l.email
-                ), 0) AS monthly_approved_debt
+                COALESCE(cd.monthly_debt, 0)                 AS monthly_approved_debt
         FROM loan l
         JOIN loan_type  tl ON tl.id = l.id_type_loan
-        JOIN loan_state ls ON ls.id = l.id_state_loan
-        WHERE ls.name = ANY(:statuses)
-          AND (:search    IS NULL OR l.email ILIKE '%'||:search||'%')
+        LEFT JOIN customer_debt cd ON cd.email = l.email
+        WHERE l.state_code = ANY(loan_status_codes(:statuses))
+          AND (:contains  IS NULL OR l.email ILIKE :contains)
+          AND (:prefix    IS NULL OR lower(l.email) LIKE :prefix)
           AND (:typeId    IS NULL OR l.id_type_loan = :typeId)
           AND (:minAmount IS NULL OR l.amount >= :minAmount)
           AND (:maxAmount IS NULL OR l.amount <= :maxAmount)
-        ORDER BY l.created_at DESC
+        ORDER BY l.created_at DESC, l.id DESC
         OFFSET :offset LIMIT :limit
     """)
     Flux<LoanSummary> findForManualReview(
             @Param("statuses") String[] statuses,
-            @Param("search") String search,
+            @Param("contains") String contains,
+            @Param("prefix") String prefix,
+            @Param("typeId") UUID typeLoanId,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("offset") long offset,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Página + total en un solo viaje: COUNT(*) OVER() se evalúa antes del OFFSET/LIMIT, y la
+     * deuda aprobada (customer_debt) solo se une a las filas de la página.
+     */
+    @Query("""
+        WITH page AS (
+            SELECT  l.id,
+                    l.amount,
+                    l.term_months,
+                    l.email,
+                    l.created_at,
+                    tl.name                                  AS type_loan_name,
+                    tl.annual_interest_percent,
+                    loan_status_name(l.state_code)           AS status,
+                    COUNT(*) OVER ()                         AS total_count
+            FROM loan l
+            JOIN loan_type  tl ON tl.id = l.id_type_loan
+            WHERE l.state_code = ANY(loan_status_codes(:statuses))
+              AND (:contains  IS NULL OR l.email ILIKE :contains)
+              AND (:prefix    IS NULL OR lower(l.email) LIKE :prefix)
+              AND (:typeId    IS NULL OR l.id_type_loan = :typeId)
+              AND (:minAmount IS NULL OR l.amount >= :minAmount)
+              AND (:maxAmount IS NULL OR l.amount <= :maxAmount)
+            ORDER BY l.created_at DESC, l.id DESC
+            OFFSET :offset LIMIT :limit
+        )
+        SELECT  p.id,
+                p.amount,
+                p.term_months                                AS term_months,
+                p.email                                      AS applicant_email,
+                NULL::varchar                                AS applicant_name,       -- sin users
+                p.type_loan_name,
+                (p.annual_interest_percent / 12.0 / 100.0)::numeric  AS interest_rate_monthly,
+                p.status,
+                NULL::numeric                                AS base_salary,          -- sin users
+                COALESCE(cd.monthly_debt, 0)                 AS monthly_approved_debt,
+                p.created_at,
+                p.total_count
+        FROM page p
+        LEFT JOIN customer_debt cd ON cd.email = p.email
+        ORDER BY p.created_at DESC, p.id DESC
+    """)
+    Flux<ManualReviewRow> findForManualReviewPage(
+            @Param("statuses") String[] statuses,
+            @Param("contains") String contains,
+            @Param("prefix") String prefix,
             @Param("typeId") UUID typeLoanId,
             @Param("minAmount") BigDecimal minAmount,
             @Param("maxAmount") BigDecimal maxAmount,
@@ -59,25 +111,66 @@ public interface LoanReactiveRepository extends ReactiveCrudRepository<LoanEntit
             @Param("limit") int limit
     );
 
+    @Query("""
+        SELECT  l.id,
+                l.amount,
+                l.term_months                               AS term_months,
+                l.email                                      AS applicant_email,
+                NULL::varchar                                AS applicant_name,       -- sin users
+                tl.name                                      AS type_loan_name,
+                (tl.annual_interest_percent / 12.0 / 100.0)::numeric  AS interest_rate_monthly,
+                loan_status_name(l.state_code)               AS status,
+                NULL::numeric                                AS base_salary,          -- sin users
+                COALESCE(cd.monthly_debt, 0)                 AS monthly_approved_debt,
+                l.created_at                                 AS created_at,
+                NULL::bigint                                 AS total_count
+        FROM loan l
+        JOIN loan_type  tl ON tl.id = l.id_type_loan
+        LEFT JOIN customer_debt cd ON cd.email = l.email
+        WHERE l.state_code = ANY(loan_status_codes(:statuses))
+          AND (:contains  IS NULL OR l.email ILIKE :contains)
+          AND (:prefix    IS NULL OR lower(l.email) LIKE :prefix)
+          AND (:typeId    IS NULL OR l.id_type_loan = :typeId)
+          AND (:minAmount IS NULL OR l.amount >= :minAmount)
+          AND (:maxAmount IS NULL OR l.amount <= :maxAmount)
+          AND (:afterCreatedAt IS NULL OR (l.created_at, l.id) < (:afterCreatedAt, :afterId))
+          AND (:afterCreatedAt IS NULL OR l.created_at <= :afterCreatedAt)   -- poda las particiones más nuevas
+        ORDER BY l.created_at DESC, l.id DESC
+        LIMIT :limit
+    """)
+    Flux<ManualReviewRow> findForManualReviewAfter(
+            @Param("statuses") String[] statuses,
+            @Param("contains") String contains,
+            @Param("prefix") String prefix,
+            @Param("typeId") UUID typeLoanId,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            @Param("limit") int limit
+    );
+
     @Query("""
         SELECT COUNT(1)
         FROM loan l
         JOIN loan_type  tl ON tl.id = l.id_type_loan
-        JOIN loan_state ls ON ls.id = l.id_state_loan
-        WHERE ls.name = ANY(:statuses)
-          AND (:search    IS NULL OR l.email ILIKE '%'||:search||'%')
+        WHERE l.state_code = ANY(loan_status_codes(:statuses))
+          AND (:contains  IS NULL OR l.email ILIKE :contains)
+          AND (:prefix    IS NULL OR lower(l.email) LIKE :prefix)
           AND (:typeId    IS NULL OR l.id_type_loan = :typeId)
           AND (:minAmount IS NULL OR l.amount >= :minAmount)
           AND (:maxAmount IS NULL OR l.amount <= :maxAmount)
     """)
     Mono<Long> countForManualReview(
             @Param("statuses") String[] statuses,
-            @Param("search") String search,
+            @Param("contains") String contains,
+            @Param("prefix") String prefix,
             @Param("typeId") UUID typeLoanId,
             @Param("minAmount") BigDecimal minAmount,
             @Param("maxAmount") BigDecimal maxAmount
     );
 
+    /** Los aprobados archivados (loan_archive) siguen contando como deuda del cliente. */
     @Query("""
         SELECT l.id,
                l.amount,
@@ -85,11 +178,17 @@ public interface LoanReactiveRepository extends ReactiveCrudRepository<LoanEntit
                l.email                                      AS applicant_email,
                tl.name                                      AS type_loan_name,
                tl.annual_interest_percent::numeric  AS annual_interest_rate
-        FROM loan l
+        FROM (
+            SELECT id, amount, term_months, email, id_type_loan, created_at
+            FROM loan
+            WHERE email = :email AND state_code = loan_status_code(:status)
+            UNION ALL
+            SELECT id, amount, term_months, email, id_type_loan, created_at
+            FROM loan_archive
+            WHERE email = :email AND state_code = loan_status_code(:status)
+        ) l
         JOIN loan_type  tl ON tl.id = l.id_type_loan
-        WHERE l.email = :email
-          AND l.id_state_loan = :stateLoanId
         ORDER BY l.created_at DESC
     """)
-    Flux<LoanApproved> findByEmailAndStateLoanId(String email, UUID statusId);
+    Flux<LoanApproved> findByEmailAndStatus(@Param("email") String email, @Param("status") String status);
 }
@@ -1,23 +1,51 @@
 package co.com.crediya.r2dbc.loan;
 
+import co.com.crediya.model.customer.UserData;
 import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import co.com.crediya.model.loan.BulkLoanItem;
+import co.com.crediya.model.loan.CreatedLoan;
 import co.com.crediya.model.loan.Loan;
 import co.com.crediya.model.loan.LoanApproved;
+import co.com.crediya.model.loan.LoanExportWriter;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.loan.LoanTransition;
+import co.com.crediya.model.loan.LoanTransitionResult;
 import co.com.crediya.model.loan.gateways.LoanRepository;
+import co.com.crediya.model.pageable.CountMode;
 import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
 import co.com.crediya.model.pageable.Pageable;
+import co.com.crediya.model.pageable.SearchMode;
 import co.com.crediya.r2dbc.helper.ReactiveAdapterOperations;
+import co.com.crediya.r2dbc.helper.UuidV7;
 import co.com.crediya.r2dbc.loan.entity.LoanEntity;
 import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import io.r2dbc.spi.Row;
+import org.reactivestreams.Publisher;
 import org.reactivecommons.utils.ObjectMapper;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
@@ -30,19 +58,195 @@ public class LoanReactiveRepositoryAdapter extends ReactiveAdapterOperations<
         LoanReactiveRepository
 > implements LoanRepository {
 
+    /**
+     * Tipo, estado e INSERT en una sola sentencia. Siempre devuelve una fila: si el INSERT no
+     * ocurrió, type_found / state_found y el rango permiten explicar por qué. El id es un UUIDv7
+     * generado en la aplicación ({@link UuidV7}).
+     */
+    private static final String CREATE_VALIDATED_SQL = """
+        WITH type AS (
+            SELECT lt.id, lt.minimum_amount, lt.maximum_amount, lt.automatic_validation
+            FROM loan_type lt
+            WHERE lt.id = :typeId
+        ), state AS (
+            SELECT ls.id
+            FROM loan_state ls
+            WHERE ls.name = :stateName
+        ), inserted AS (
+            INSERT INTO loan (id, amount, term_months, email, id_state_loan, id_type_loan)
+            SELECT :id, :amount, :termMonths, :email, s.id, t.id
+            FROM type t
+            CROSS JOIN state s
+            WHERE :amount BETWEEN t.minimum_amount AND t.maximum_amount
+            RETURNING id, amount, term_months, email, id_state_loan, id_type_loan
+        )
+        SELECT i.id, i.amount, i.term_months, i.email, i.id_state_loan, i.id_type_loan,
+               EXISTS (SELECT 1 FROM type)                              AS type_found,
+               EXISTS (SELECT 1 FROM state)                             AS state_found,
+               COALESCE((SELECT automatic_validation FROM type), FALSE) AS automatic_validation,
+               (SELECT minimum_amount FROM type)                        AS minimum_amount,
+               (SELECT maximum_amount FROM type)                        AS maximum_amount
+        FROM (SELECT 1) AS one
+        LEFT JOIN inserted i ON TRUE
+        """;
+
+    /**
+     * Versión multi-fila de {@link #CREATE_VALIDATED_SQL}: las líneas llegan como arrays paralelos, ids
+     * incluidos, para poder unir cada línea con su fila insertada.
+     */
+    private static final String CREATE_VALIDATED_BATCH_SQL = """
+        WITH input AS MATERIALIZED (
+            SELECT i.line, i.amount, i.term_months, i.email, i.id_type_loan, i.new_id
+            FROM unnest(CAST(:lines AS bigint[]), CAST(:amounts AS numeric[]), CAST(:terms AS integer[]),
+                        CAST(:emails AS text[]), CAST(:types AS uuid[]), CAST(:ids AS uuid[]))
+                 AS i(line, amount, term_months, email, id_type_loan, new_id)
+        ), state AS (
+            SELECT ls.id
+            FROM loan_state ls
+            WHERE ls.name = :stateName
+        ), checked AS MATERIALIZED (
+            SELECT i.line, i.new_id, i.amount, i.term_months, i.email,
+                   lt.id AS type_id, lt.minimum_amount, lt.maximum_amount, lt.automatic_validation
+            FROM input i
+            LEFT JOIN loan_type lt ON lt.id = i.id_type_loan
+        ), inserted AS (
+            INSERT INTO loan (id, amount, term_months, email, id_state_loan, id_type_loan)
+            SELECT c.new_id, c.amount, c.term_months, c.email, s.id, c.type_id
+            FROM checked c
+            CROSS JOIN state s
+            WHERE c.amount BETWEEN c.minimum_amount AND c.maximum_amount
+            ORDER BY c.line
+            RETURNING id, amount, term_months, email, id_state_loan, id_type_loan
+        )
+        SELECT c.line, i.id, i.amount, i.term_months, i.email, i.id_state_loan, i.id_type_loan,
+               c.type_id IS NOT NULL                   AS type_found,
+               EXISTS (SELECT 1 FROM state)            AS state_found,
+               COALESCE(c.automatic_validation, FALSE) AS automatic_validation,
+               c.minimum_amount, c.maximum_amount
+        FROM checked c
+        LEFT JOIN inserted i ON i.id = c.new_id
+        ORDER BY c.line
+        """;
+
+    /**
+     * El UPDATE exige que el estado siga siendo el leído en {@code prev}: si otra transacción lo cambió
+     * y confirmó antes, PostgreSQL re-evalúa el predicado sobre la versión nueva y no actualiza nada.
+     */
+    private static final String CHANGE_STATE_SQL = """
+        WITH prev AS (
+            SELECT l.id, l.id_state_loan, ps.name AS state_name
+            FROM loan l
+            JOIN loan_state ps ON ps.id = l.id_state_loan
+            WHERE l.id = :loanId
+        ), next_state AS (
+            SELECT ls.id, ls.name
+            FROM loan_state ls
+            WHERE ls.id = :stateId OR ls.name = :stateName
+        ), updated AS (
+            UPDATE loan l
+            SET id_state_loan = ns.id
+            FROM prev p, next_state ns, loan_type lt
+            WHERE l.id = p.id
+              AND l.id_state_loan = p.id_state_loan
+              AND lt.id = l.id_type_loan
+            RETURNING l.id, l.amount, l.term_months, l.email, l.id_state_loan, l.id_type_loan,
+                      p.id_state_loan AS previous_state_id, p.state_name AS previous_state_name,
+                      ns.name AS state_name, lt.name AS type_name
+        )
+        SELECT u.id, u.amount, u.term_months, u.email, u.id_state_loan, u.id_type_loan,
+               u.previous_state_id, u.previous_state_name, u.state_name, u.type_name,
+               EXISTS (SELECT 1 FROM prev)       AS loan_found,
+               EXISTS (SELECT 1 FROM next_state) AS state_found
+        FROM (SELECT 1) AS one
+        LEFT JOIN updated u ON TRUE
+        """;
+
+    /**
+     * {@link #CHANGE_STATE_SQL} para un lote hacia el mismo estado: una fila por id pedido, en orden,
+     * con los mismos flags para explicar los que no se actualizaron.
+     */
+    private static final String CHANGE_STATE_BATCH_SQL = """
+        WITH requested AS (
+            SELECT r.id, r.ord
+            FROM unnest(CAST(:loanIds AS uuid[])) WITH ORDINALITY AS r(id, ord)
+        ), prev AS (
+            SELECT l.id, l.id_state_loan, ps.name AS state_name
+            FROM loan l
+            JOIN loan_state ps ON ps.id = l.id_state_loan
+            WHERE l.id = ANY(CAST(:loanIds AS uuid[]))
+        ), next_state AS (
+            SELECT ls.id, ls.name
+            FROM loan_state ls
+            WHERE ls.id = :stateId OR ls.name = :stateName
+        ), updated AS (
+            UPDATE loan l
+            SET id_state_loan = ns.id
+            FROM prev p, next_state ns, loan_type lt
+            WHERE l.id = p.id
+              AND l.id_state_loan = p.id_state_loan
+              AND lt.id = l.id_type_loan
+            RETURNING l.id, l.amount, l.term_months, l.email, l.id_state_loan, l.id_type_loan,
+                      p.id_state_loan AS previous_state_id, p.state_name AS previous_state_name,
+                      ns.name AS state_name, lt.name AS type_name
+        )
+        SELECT r.id AS requested_id,
+               u.id, u.amount, u.term_months, u.email, u.id_state_loan, u.id_type_loan,
+               u.previous_state_id, u.previous_state_name, u.state_name, u.type_name,
+               p.id IS NOT NULL                  AS loan_found,
+               EXISTS (SELECT 1 FROM next_state) AS state_found
+        FROM requested r
+        LEFT JOIN prev p ON p.id = r.id
+        LEFT JOIN updated u ON u.id = r.id
+        ORDER BY r.ord
+        """;
+
+    /** Préstamos archivados (V11): de solo lectura, se devuelven cuando ya no están en loan. */
+    private static final String FIND_ARCHIVED_SQL = """
+        SELECT id, amount, term_months, email, id_state_loan, id_type_loan
+        FROM loan_archive
+        WHERE id = :id
+        """;
+
+    /** ORDER BY created_at DESC, id DESC. Postgres compara uuid byte a byte (sin signo); UUID.compareTo no. */
+    static final Comparator<ManualReviewRow> NEWEST_FIRST = Comparator
+            .comparing((ManualReviewRow row) -> row.createdAt().toInstant())
+            .thenComparing(row -> UUID.fromString(row.id()), LoanReactiveRepositoryAdapter::compareUnsigned)
+            .reversed();
+
+    private static final Comparator<StreamedRow<?>> STREAMED_NEWEST_FIRST = Comparator
+            .comparing((StreamedRow<?> row) -> row.createdAt())
+            .thenComparing(StreamedRow::id, LoanReactiveRepositoryAdapter::compareUnsigned)
+            .reversed();
+
     private final LoanEntityMapper entityMapper;
 
     private final DatabaseClient client;
 
     private final CustomerGateway customerGateway;
 
+    private final ManualReviewCountEstimator countEstimator;
+
+    private final LoanStreamProperties streamProperties;
+
+    private final LoanShardRouter shards;
+
+    /** Vacío sin shards configurados. */
+    private final Map<String, LoanReactiveRepository> shardRepositories;
+
     public LoanReactiveRepositoryAdapter(LoanReactiveRepository repository, ObjectMapper mapper, LoanEntityMapper entityMapper,
                                          DatabaseClient client,
-                                         CustomerGateway customerGateway) {
+                                         CustomerGateway customerGateway,
+                                         ManualReviewCountEstimator countEstimator,
+                                         LoanStreamProperties streamProperties,
+                                         LoanShardRouter shards) {
         super(repository, mapper, entityMapper::toDomain);
         this.entityMapper = entityMapper;
         this.client = client;
         this.customerGateway = customerGateway;
+        this.countEstimator = countEstimator;
+        this.streamProperties = streamProperties;
+        this.shards = shards;
+        this.shardRepositories = shards.isEnabled() ? shards.repositories(LoanReactiveRepository.class) : Map.of();
     }
 
     @Override
@@ -53,83 +257,455 @@ public class LoanReactiveRepositoryAdapter extends ReactiveAdapterOperations<
         return repository.save(entity).map(entityMapper::toDomain);
     }
 
-    @Override public Mono<Loan> findById(UUID id) { return repository.findById(id).map(entityMapper::toDomain); }
+    @Override
+    public Mono<CreatedLoan> createValidated(Loan loan, String stateName) {
+        return client.sql(CREATE_VALIDATED_SQL)
+                .bind("id", UuidV7.next())
+                .bind("typeId", UUID.fromString(loan.typeLoanId()))
+                .bind("stateName", stateName)
+                .bind("amount", loan.amount().value())
+                .bind("termMonths", loan.termMonths().value())
+                .bind("email", loan.email().value())
+                .map((row, meta) -> CreateLoanRow.from(row))
+                .one()
+                .map(row -> new CreatedLoan(entityMapper.toDomain(row.requireInserted(stateName)),
+                        row.automaticValidation()));
+    }
+
+    @Override
+    public Flux<BulkLoanItem> createValidatedBatch(List<BulkLoanItem> items, String stateName) {
+        if (items.isEmpty()) {
+            return Flux.empty();
+        }
+        int size = items.size();
+        Long[] lines = new Long[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        Integer[] terms = new Integer[size];
+        String[] emails = new String[size];
+        UUID[] types = new UUID[size];
+        UUID[] ids = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            Loan loan = items.get(i).loan();
+            lines[i] = items.get(i).line();
+            amounts[i] = loan.amount().value();
+            terms[i] = loan.termMonths().value();
+            emails[i] = loan.email().value();
+            types[i] = UUID.fromString(loan.typeLoanId());
+            ids[i] = UuidV7.next();
+        }
+        return client.sql(CREATE_VALIDATED_BATCH_SQL)
+                .bind("lines", lines)
+                .bind("amounts", amounts)
+                .bind("terms", terms)
+                .bind("emails", emails)
+                .bind("types", types)
+                .bind("ids", ids)
+                .bind("stateName", stateName)
+                .map((row, meta) -> Tuples.of(row.get("line", Long.class), CreateLoanRow.from(row)))
+                .all()
+                .map(t -> toBulkItem(t.getT1(), t.getT2(), stateName));
+    }
+
+    private BulkLoanItem toBulkItem(long line, CreateLoanRow row, String stateName) {
+        try {
+            return BulkLoanItem.created(line, new CreatedLoan(entityMapper.toDomain(row.requireInserted(stateName)),
+                    row.automaticValidation()));
+        } catch (DomainNotFoundException | DomainValidationException e) {
+            return BulkLoanItem.rejected(line, e);
+        }
+    }
 
     @Override
-    public Flux<LoanApproved> findByEmailAndStatusId(String email, UUID statusId) {
-        return repository.findByEmailAndStateLoanId(email, statusId);
+    public Mono<LoanTransition> changeState(UUID loanId, UUID newStateId, String newStateName) {
+        var spec = client.sql(CHANGE_STATE_SQL).bind("loanId", loanId);
+        spec = newStateId == null ? spec.bindNull("stateId", UUID.class) : spec.bind("stateId", newStateId);
+        spec = newStateName == null ? spec.bindNull("stateName", String.class) : spec.bind("stateName", newStateName);
+        return spec
+                .map((row, meta) -> ChangeStateRow.from(row))
+                .one()
+                .map(row -> toTransition(row, loanId));
+    }
+
+    @Override
+    public Flux<LoanTransitionResult> changeStateBatch(List<UUID> loanIds, UUID newStateId, String newStateName) {
+        if (loanIds.isEmpty()) {
+            return Flux.empty();
+        }
+        var spec = client.sql(CHANGE_STATE_BATCH_SQL).bind("loanIds", loanIds.toArray(UUID[]::new));
+        spec = newStateId == null ? spec.bindNull("stateId", UUID.class) : spec.bind("stateId", newStateId);
+        spec = newStateName == null ? spec.bindNull("stateName", String.class) : spec.bind("stateName", newStateName);
+        return spec
+                .map((row, meta) -> Tuples.of(row.get("requested_id", UUID.class), ChangeStateRow.from(row)))
+                .all()
+                .map(t -> {
+                    try {
+                        return LoanTransitionResult.applied(t.getT1(), toTransition(t.getT2(), t.getT1()));
+                    } catch (DomainNotFoundException | DomainConflictException e) {
+                        return LoanTransitionResult.failed(t.getT1(), e);
+                    }
+                });
+    }
+
+    private LoanTransition toTransition(ChangeStateRow row, UUID loanId) {
+        return new LoanTransition(entityMapper.toDomain(row.requireUpdated(loanId)),
+                row.previousStateId().toString(), row.previousStateName(),
+                row.stateName(), row.typeName());
+    }
+
+    @Override
+    public Mono<Loan> findById(UUID id) {
+        if (!shards.isEnabled()) {
+            return repository.findById(id)
+                    .switchIfEmpty(Mono.defer(() -> findArchived(client, id)))
+                    .map(entityMapper::toDomain);
+        }
+        // el id no dice en qué shard está: lectura por PK en todos, a la vez
+        return Flux.fromIterable(shardRepositories.values())
+                .flatMap(shard -> shard.findById(id))
+                .next()
+                .switchIfEmpty(Mono.defer(() -> Flux.fromIterable(shards.shards())
+                        .flatMap(shard -> findArchived(shards.client(shard), id))
+                        .next()))
+                .map(entityMapper::toDomain);
+    }
+
+    private static Mono<LoanEntity> findArchived(DatabaseClient target, UUID id) {
+        return target.sql(FIND_ARCHIVED_SQL)
+                .bind("id", id)
+                .map((row, meta) -> loanEntity(row))
+                .one();
+    }
+
+    private static LoanEntity loanEntity(Row row) {
+        return new LoanEntity(
+                row.get("id", UUID.class),
+                row.get("amount", BigDecimal.class),
+                row.get("term_months", Integer.class),
+                row.get("email", String.class),
+                row.get("id_state_loan", UUID.class),
+                row.get("id_type_loan", UUID.class));
+    }
+
+    @Override
+    public Flux<LoanApproved> findByEmailAndStatus(String email, LoanStatus status) {
+        return shards.isEnabled()
+                ? shardRepositories.get(shards.shardOf(email)).findByEmailAndStatus(email, status.name())
+                : repository.findByEmailAndStatus(email, status.name());
     }
 
     @Override public Flux<Loan> findAll() { return repository.findAll().map(entityMapper::toDomain); }
 
+    /**
+     * Solo entran al WHERE los filtros presentes, para que el plan sea el del filtro concreto (y no uno
+     * genérico con "IS NULL OR ..."): el orden sale de idx_loan_created_at_id o idx_loan_state_code_created
+     * sin sort. Con fetchSize el driver lee el portal por tandas; cancelar la suscripción (cliente
+     * desconectado) deja de pedir filas y la transacción de solo lectura hace rollback.
+     */
+    @Override
+    public Flux<Loan> stream(LoanStreamFilter filter) {
+        int fetchSize = streamProperties.fetchSize();
+        return streamAll("""
+                        SELECT l.id, l.amount, l.term_months, l.email, l.id_state_loan, l.id_type_loan, l.created_at
+                        FROM loan l""", filter, LoanReactiveRepositoryAdapter::loanEntity)
+                // la demanda aguas abajo nunca pide más de una tanda por adelantado
+                .limitRate(fetchSize)
+                .map(entityMapper::toDomain);
+    }
+
+    /**
+     * Cada fila se vuelca al writer dentro del map del driver; solo viajan bloques ya codificados. Con
+     * shards el writer (no es thread-safe) recibe las filas ya intercaladas, de a una.
+     */
     @Override
-    public Mono<Pageable<LoanSummary>> findForManualReview(ManualReviewFilter f, int page, int size) {
+    public <C> Flux<C> export(LoanStreamFilter filter, LoanExportWriter<C> writer) {
+        int fetchSize = streamProperties.fetchSize();
+        String select = """
+                SELECT l.id, l.amount, l.term_months, l.email, loan_status_name(l.state_code) AS state_name,
+                       lt.name AS type_name, l.created_at
+                FROM loan l
+                JOIN loan_type  lt ON lt.id = l.id_type_loan""";
+        Flux<Boolean> written = shards.isEnabled()
+                ? streamAll(select, filter, ExportRow::of).map(row -> row.writeTo(writer))
+                : streamSpec(client, select, filter).map((row, meta) -> ExportRow.of(row).writeTo(writer)).all();
+        Flux<C> chunks = written
+                .limitRate(fetchSize)
+                .<C>handle((row, sink) -> {
+                    if (writer.pendingRows() >= fetchSize) {
+                        sink.next(writer.drain());
+                    }
+                });
+        return Flux.concat(Mono.fromSupplier(writer::start), chunks, Mono.fromSupplier(writer::finish));
+    }
+
+    /**
+     * Con shards, la misma consulta en cada uno (por su pool, fuera de la transacción del caso de uso) y
+     * mergeComparing intercala las filas en el ORDER BY global sin juntar ningún shard en memoria.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> streamAll(String select, LoanStreamFilter filter, Function<Row, T> mapper) {
+        if (!shards.isEnabled()) {
+            return streamSpec(client, select, filter).map((row, meta) -> mapper.apply(row)).all();
+        }
+        Publisher<StreamedRow<T>>[] sources = shards.shards().stream()
+                .map(shard -> streamSpec(shards.client(shard), select, filter)
+                        .map((row, meta) -> new StreamedRow<>(row.get("created_at", Instant.class),
+                                row.get("id", UUID.class), mapper.apply(row)))
+                        .all())
+                .toArray(Publisher[]::new);
+        return Flux.mergeComparing(streamProperties.fetchSize(), STREAMED_NEWEST_FIRST, sources)
+                .map(StreamedRow::value);
+    }
+
+    private DatabaseClient.GenericExecuteSpec streamSpec(DatabaseClient target, String select, LoanStreamFilter filter) {
+        StringBuilder sql = new StringBuilder(select).append("\nWHERE TRUE");
+        Map<String, Object> binds = new LinkedHashMap<>();
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            sql.append("\n  AND l.state_code = ANY(loan_status_codes(:statuses))");
+            binds.put("statuses", filter.statuses().stream().map(Enum::name).toArray(String[]::new));
+        }
+        String typeLoanId = emptyToNull(filter.typeLoanId());
+        if (typeLoanId != null) {
+            sql.append("\n  AND l.id_type_loan = :typeId");
+            binds.put("typeId", UUID.fromString(typeLoanId));
+        }
+        if (filter.createdFrom() != null) {
+            sql.append("\n  AND l.created_at >= :createdFrom");
+            binds.put("createdFrom", OffsetDateTime.ofInstant(filter.createdFrom(), ZoneOffset.UTC));
+        }
+        if (filter.createdTo() != null) {
+            sql.append("\n  AND l.created_at < :createdTo");
+            binds.put("createdTo", OffsetDateTime.ofInstant(filter.createdTo(), ZoneOffset.UTC));
+        }
+        String email = emptyToNull(filter.email());
+        if (email != null) {
+            sql.append("\n  AND l.email = :email");
+            binds.put("email", email.trim());
+        }
+        sql.append("\nORDER BY l.created_at DESC, l.id DESC");
+
+        int fetchSize = streamProperties.fetchSize();
+        var spec = target.sql(sql.toString());
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.filter(statement -> statement.fetchSize(fetchSize));
+    }
+
+    @Override
+    public Mono<Pageable<LoanSummary>> findForManualReview(ManualReviewFilter f, int page, int size, CountMode countMode) {
         int safePage = Math.max(page, 0);
         int safeSize = Math.max(size, 1);
         long offset = (long) safePage * safeSize;
+        Criteria c = Criteria.of(f);
 
-        Set<LoanStatus> statuses = (f.statuses() == null || f.statuses().isEmpty())
-                ? Set.of(LoanStatus.PENDING_REVIEW, LoanStatus.REJECTED, LoanStatus.MANUAL_REVIEW)
-                : f.statuses();
-        String[] statusArray = statuses.stream().map(Enum::name).toArray(String[]::new);
+        if (shards.isEnabled()) {
+            return findForManualReviewSharded(c, safePage, safeSize, countMode);
+        }
+        if (countMode == CountMode.EXACT) {
+            // filas y total en una sola consulta (COUNT(*) OVER())
+            return repository.findForManualReviewPage(
+                            c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount(), offset, safeSize
+                    ).collectList()
+                    .flatMap(rows -> exactTotal(c, rows, offset)
+                            .flatMap(total -> withUserData(rows.stream().map(ManualReviewRow::toSummary).toList())
+                                    .map(content -> new Pageable<>(content, total, safePage, safeSize, null, true))));
+        }
 
-        String search = emptyToNull(f.search());
-        UUID typeId = (f.typeLoanId() == null || f.typeLoanId().isBlank())
-                ? null
-                : UUID.fromString(f.typeLoanId());
-        BigDecimal minAmount = f.minAmount();
-        BigDecimal maxAmount = f.maxAmount();
+        return repository.findForManualReview(
+                        c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount(), offset, safeSize
+                ).collectList()
+                .zipWith(inexactTotal(c, countMode))
+                // la estimación nunca puede quedar por debajo de lo que ya se leyó
+                .flatMap(tuple -> withUserData(tuple.getT1())
+                        .map(content -> new Pageable<>(content,
+                                countMode == CountMode.NONE ? tuple.getT2() : Math.max(tuple.getT2(), offset + content.size()),
+                                safePage, safeSize, null, false)));
+    }
 
-        Flux<LoanSummary> rows = repository.findForManualReview(
-                        statusArray, search, typeId, minAmount, maxAmount, offset, safeSize
-                );
+    @Override
+    public Mono<Pageable<LoanSummary>> findForManualReviewByCursor(ManualReviewFilter f, PageCursor after, int size,
+                                                                   CountMode countMode) {
+        int safeSize = Math.max(size, 1);
+        Criteria c = Criteria.of(f);
+        OffsetDateTime afterCreatedAt = after == null ? null : OffsetDateTime.ofInstant(after.createdAt(), ZoneOffset.UTC);
+        UUID afterId = after == null ? null : after.id();
 
-        Mono<Long> total = repository.countForManualReview(statusArray, search, typeId, minAmount, maxAmount);
+        // se pide una fila de más para saber si existe una página siguiente sin contar
+        Function<LoanReactiveRepository, Flux<ManualReviewRow>> query = repo -> repo.findForManualReviewAfter(
+                c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount(),
+                afterCreatedAt, afterId, safeSize + 1);
+        Mono<List<ManualReviewRow>> rows = (shards.isEnabled() ? mergeShards(query).take(safeSize + 1) : query.apply(repository))
+                .collectList();
 
-        return rows.collectList()
-                .zipWith(total.defaultIfEmpty(0L))
+        // en keyset no hay OFFSET sobre el que calcular la ventana; el conteo exacto sigue siendo aparte
+        Mono<Long> total = countMode == CountMode.EXACT ? count(c) : inexactTotal(c, countMode);
+
+        return rows.zipWith(total)
                 .flatMap(tuple -> {
-                    List<LoanSummary> content = tuple.getT1();
-                    long totalElements = tuple.getT2();
-
-                    Mono<List<LoanSummary>> contentWithUserData = Flux.fromIterable(content)
-                            .flatMap(loanSummary -> customerGateway.findByEmail(loanSummary.applicantEmail())
-                                    .map(userData -> {
-                                        return new LoanSummary(
-                                                loanSummary.id(),
-                                                loanSummary.amount(),
-                                                loanSummary.termMonths(),
-                                                loanSummary.applicantEmail(),
-                                                userData.name() + " " + userData.lastName(),
-                                                loanSummary.typeLoanName(),
-                                                loanSummary.interestRateMonthly(),
-                                                loanSummary.status(),
-                                                userData.salary(),
-                                                loanSummary.monthlyApprovedDebt()
-                                        );
-                                    })
-                                    .defaultIfEmpty(new LoanSummary(
-                                            loanSummary.id(),
-                                            loanSummary.amount(),
-                                            loanSummary.termMonths(),
-                                            loanSummary.applicantEmail(),
-                                            null, // applicant_name si no se encuentra el usuario
-                                            loanSummary.typeLoanName(),
-                                            loanSummary.interestRateMonthly(),
-                                            loanSummary.status(),
-                                            null, // base_salary si no se encuentra el usuario
-                                            loanSummary.monthlyApprovedDebt()
-                                    ))
-                            )
-                            .collectList();
-
-                    return contentWithUserData.map(contentWithUsers ->
-                            new Pageable<>(contentWithUsers, totalElements, safePage, safeSize));
+                    List<ManualReviewRow> fetched = tuple.getT1();
+                    boolean hasNext = fetched.size() > safeSize;
+                    List<ManualReviewRow> pageRows = hasNext ? fetched.subList(0, safeSize) : fetched;
+                    String nextCursor = hasNext ? pageRows.get(pageRows.size() - 1).cursor().encode() : null;
+
+                    return withUserData(pageRows.stream().map(ManualReviewRow::toSummary).toList())
+                            .map(content -> new Pageable<>(content, tuple.getT2(), 0, safeSize, nextCursor,
+                                    countMode == CountMode.EXACT));
                 });
     }
 
+    /**
+     * Scatter-gather: cada shard devuelve sus primeras offset + size filas ya ordenadas y el k-way merge
+     * descarta las de páginas anteriores. El costo por shard crece con la página; para recorrer a fondo
+     * conviene el cursor, que pide solo size + 1 por shard.
+     */
+    private Mono<Pageable<LoanSummary>> findForManualReviewSharded(Criteria c, int page, int size, CountMode countMode) {
+        long offset = (long) page * size;
+        int perShard = (int) Math.min(offset + size, Integer.MAX_VALUE);
+        Mono<List<LoanSummary>> rows = mergeShards(repo -> repo.findForManualReviewAfter(
+                        c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount(), null, null, perShard))
+                .skip(offset)
+                .take(size)
+                .map(ManualReviewRow::toSummary)
+                .collectList();
+        Mono<Long> total = countMode == CountMode.EXACT ? count(c) : inexactTotal(c, countMode);
+
+        return rows.zipWith(total)
+                .flatMap(tuple -> withUserData(tuple.getT1())
+                        .map(content -> new Pageable<>(content,
+                                countMode == CountMode.APPROX ? Math.max(tuple.getT2(), offset + content.size()) : tuple.getT2(),
+                                page, size, null, countMode == CountMode.EXACT)));
+    }
+
+    /** Las páginas de cada shard ya vienen ordenadas; mergeComparing las intercala sin juntar todo en memoria. */
+    @SuppressWarnings("unchecked")
+    private Flux<ManualReviewRow> mergeShards(Function<LoanReactiveRepository, Flux<ManualReviewRow>> query) {
+        Publisher<ManualReviewRow>[] sources = shardRepositories.values().stream().map(query).toArray(Publisher[]::new);
+        return Flux.mergeComparing(NEWEST_FIRST, sources);
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private Mono<Long> exactTotal(Criteria c, List<ManualReviewRow> rows, long offset) {
+        if (!rows.isEmpty()) {
+            return Mono.just(rows.get(0).totalCount());
+        }
+        // página vacía: la ventana no devolvió filas; solo más allá del final hace falta contar
+        return offset == 0 ? Mono.just(0L) : count(c);
+    }
+
+    /** Con shards, la suma de los conteos de cada uno. */
+    private Mono<Long> count(Criteria c) {
+        Function<LoanReactiveRepository, Mono<Long>> count = repo -> repo.countForManualReview(
+                c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount()).defaultIfEmpty(0L);
+        return shards.isEnabled()
+                ? Flux.fromIterable(shardRepositories.values()).flatMap(count).reduce(0L, Long::sum)
+                : count.apply(repository);
+    }
+
+    private Mono<Long> inexactTotal(Criteria c, CountMode countMode) {
+        if (countMode != CountMode.APPROX) {
+            return Mono.just(Pageable.UNKNOWN_TOTAL);
+        }
+        if (shards.isEnabled()) {
+            return Flux.fromIterable(shards.shards())
+                    .flatMap(shard -> countEstimator.estimate(shards.client(shard), c.statuses(), c.contains(), c.prefix(),
+                            c.typeId(), c.minAmount(), c.maxAmount()).defaultIfEmpty(0L))
+                    .reduce(0L, Long::sum);
+        }
+        return countEstimator.estimate(c.statuses(), c.contains(), c.prefix(), c.typeId(), c.minAmount(), c.maxAmount())
+                .defaultIfEmpty(0L);
+    }
+
+    private Mono<List<LoanSummary>> withUserData(List<LoanSummary> content) {
+        if (content.isEmpty()) {
+            return Mono.just(content);
+        }
+
+        // una sola consulta en bloque por página en lugar de una por fila
+        Set<String> emails = content.stream()
+                .map(LoanSummary::applicantEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return customerGateway.findByEmails(emails)
+                .defaultIfEmpty(Map.of())
+                .map(users -> content.stream()
+                        .map(loanSummary -> withUserData(loanSummary, users.get(loanSummary.applicantEmail())))
+                        .toList());
+    }
+
+    private static LoanSummary withUserData(LoanSummary loanSummary, UserData userData) {
+        return new LoanSummary(
+                loanSummary.id(),
+                loanSummary.amount(),
+                loanSummary.termMonths(),
+                loanSummary.applicantEmail(),
+                userData == null ? null : userData.name() + " " + userData.lastName(), // null si no se encuentra el usuario
+                loanSummary.typeLoanName(),
+                loanSummary.interestRateMonthly(),
+                loanSummary.status(),
+                userData == null ? null : userData.salary(),
+                loanSummary.monthlyApprovedDebt()
+        );
+    }
+
     private static String emptyToNull(String s) {
         return (s == null || s.isBlank()) ? null : s;
     }
 
+    /** Escapa los comodines de LIKE para que la búsqueda del usuario se compare literal. */
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record Criteria(String[] statuses, String contains, String prefix, UUID typeId,
+                            BigDecimal minAmount, BigDecimal maxAmount) {
+
+        static Criteria of(ManualReviewFilter f) {
+            Set<LoanStatus> statuses = (f.statuses() == null || f.statuses().isEmpty())
+                    ? Set.of(LoanStatus.PENDING_REVIEW, LoanStatus.REJECTED, LoanStatus.MANUAL_REVIEW)
+                    : f.statuses();
+            UUID typeId = (f.typeLoanId() == null || f.typeLoanId().isBlank())
+                    ? null
+                    : UUID.fromString(f.typeLoanId());
+            String search = emptyToNull(f.search());
+            String contains = null;
+            String prefix = null;
+            if (search != null && f.searchMode() == SearchMode.PREFIX) {
+                prefix = escapeLike(search.trim().toLowerCase(Locale.ROOT)) + "%";
+            } else if (search != null) {
+                contains = "%" + escapeLike(search.trim()) + "%";
+            }
+            return new Criteria(statuses.stream().map(Enum::name).toArray(String[]::new),
+                    contains, prefix, typeId, f.minAmount(), f.maxAmount());
+        }
+    }
+
+    /** Fila de un shard con la clave del ORDER BY, para el merge. */
+    private record StreamedRow<T>(Instant createdAt, UUID id, T value) {
+    }
+
+    private record ExportRow(UUID id, BigDecimal amount, int termMonths, String email, String state, String type,
+                             Instant createdAt) {
+
+        static ExportRow of(Row row) {
+            return new ExportRow(
+                    row.get("id", UUID.class),
+                    row.get("amount", BigDecimal.class),
+                    row.get("term_months", Integer.class),
+                    row.get("email", String.class),
+                    row.get("state_name", String.class),
+                    row.get("type_name", String.class),
+                    row.get("created_at", Instant.class));
+        }
+
+        Boolean writeTo(LoanExportWriter<?> writer) {
+            writer.row(id, amount, termMonths, email, state, type, createdAt);
+            return Boolean.TRUE;
+        }
+    }
+
 }
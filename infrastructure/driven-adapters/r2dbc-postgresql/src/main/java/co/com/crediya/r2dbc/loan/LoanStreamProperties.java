@@ -0,0 +1,15 @@
+package co.com.crediya.r2dbc.loan;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * fetchSize son las filas que el driver trae por viaje del cursor (portal) y también la demanda
+ * máxima que se pide aguas arriba: la memoria del stream queda acotada a ese tamaño.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.loan-stream")
+public record LoanStreamProperties(Integer fetchSize) {
+
+    public LoanStreamProperties {
+        if (fetchSize == null || fetchSize < 1) fetchSize = 500;
+    }
+}
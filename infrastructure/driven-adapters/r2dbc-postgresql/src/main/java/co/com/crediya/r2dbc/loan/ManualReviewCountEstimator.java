@@ -0,0 +1,62 @@
+package co.com.crediya.r2dbc.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Total aproximado del listado de revisión manual a partir de la estimación de filas del planner
+ * (EXPLAIN, sin ejecutar la consulta). Depende de que las estadísticas de loan estén al día.
+ */
+@Component
+@RequiredArgsConstructor
+public class ManualReviewCountEstimator {
+
+    private static final String EXPLAIN_SQL = """
+        EXPLAIN (FORMAT JSON)
+        SELECT 1
+        FROM loan l
+        JOIN loan_type  tl ON tl.id = l.id_type_loan
+        WHERE l.state_code = ANY(loan_status_codes(:statuses))
+          AND (:contains  IS NULL OR l.email ILIKE :contains)
+          AND (:prefix    IS NULL OR lower(l.email) LIKE :prefix)
+          AND (:typeId    IS NULL OR l.id_type_loan = :typeId)
+          AND (:minAmount IS NULL OR l.amount >= :minAmount)
+          AND (:maxAmount IS NULL OR l.amount <= :maxAmount)
+        """;
+
+    private final DatabaseClient client;
+    private final ObjectMapper objectMapper;
+
+    public Mono<Long> estimate(String[] statuses, String contains, String prefix, UUID typeId, BigDecimal minAmount, BigDecimal maxAmount) {
+        return estimate(client, statuses, contains, prefix, typeId, minAmount, maxAmount);
+    }
+
+    /** Misma estimación contra otra base (un shard). */
+    public Mono<Long> estimate(DatabaseClient client, String[] statuses, String contains, String prefix, UUID typeId,
+                               BigDecimal minAmount, BigDecimal maxAmount) {
+        DatabaseClient.GenericExecuteSpec spec = client.sql(EXPLAIN_SQL).bind("statuses", statuses);
+        spec = contains == null ? spec.bindNull("contains", String.class) : spec.bind("contains", contains);
+        spec = prefix == null ? spec.bindNull("prefix", String.class) : spec.bind("prefix", prefix);
+        spec = typeId == null ? spec.bindNull("typeId", UUID.class) : spec.bind("typeId", typeId);
+        spec = minAmount == null ? spec.bindNull("minAmount", BigDecimal.class) : spec.bind("minAmount", minAmount);
+        spec = maxAmount == null ? spec.bindNull("maxAmount", BigDecimal.class) : spec.bind("maxAmount", maxAmount);
+
+        return spec.map((row, meta) -> row.get(0, String.class))
+                .one()
+                .map(this::planRows);
+    }
+
+    long planRows(String explainJson) {
+        try {
+            return Math.max(objectMapper.readTree(explainJson).path(0).path("Plan").path("Plan Rows").asLong(), 0L);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable EXPLAIN output", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.pageable.LoanSummary;
+import co.com.crediya.model.pageable.PageCursor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Proyección del listado de revisión manual que además trae created_at para armar el cursor
+ * y, cuando la consulta lo calcula con COUNT(*) OVER(), el total filtrado.
+ */
+public record ManualReviewRow(
+        String id,
+        BigDecimal amount,
+        Integer termMonths,
+        String applicantEmail,
+        String applicantName,
+        String typeLoanName,
+        BigDecimal interestRateMonthly,
+        String status,
+        BigDecimal baseSalary,
+        BigDecimal monthlyApprovedDebt,
+        OffsetDateTime createdAt,
+        Long totalCount
+) {
+
+    public LoanSummary toSummary() {
+        return new LoanSummary(id, amount, termMonths, applicantEmail, applicantName, typeLoanName,
+                interestRateMonthly, status, baseSalary, monthlyApprovedDebt);
+    }
+
+    public PageCursor cursor() {
+        return new PageCursor(createdAt.toInstant(), UUID.fromString(id));
+    }
+}
@@ -0,0 +1,24 @@
+package co.com.crediya.r2dbc.loan.entity;
+
+import co.com.crediya.r2dbc.helper.UuidV7;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data decide INSERT vs UPDATE por id nulo antes de llamar a este callback: un LoanEntity nuevo
+ * llega sin id y sale con un UUIDv7 generado en la aplicación (ver {@link UuidV7}).
+ */
+@Component
+public class LoanEntityIdCallback implements BeforeConvertCallback<LoanEntity> {
+
+    @Override
+    public Publisher<LoanEntity> onBeforeConvert(LoanEntity entity, SqlIdentifier table) {
+        if (entity.getId() == null) {
+            entity.setId(UuidV7.next());
+        }
+        return Mono.just(entity);
+    }
+}
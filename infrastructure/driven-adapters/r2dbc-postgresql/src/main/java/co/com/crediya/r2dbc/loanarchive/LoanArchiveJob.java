@@ -0,0 +1,163 @@
+package co.com.crediya.r2dbc.loanarchive;
+
+import co.com.crediya.model.pageable.LoanStatus;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Mantenimiento de loan particionada (V11), al arrancar y cada {@code interval}: crea las particiones
+ * de los próximos meses, mueve a loan_archive los préstamos terminales viejos y borra las particiones
+ * viejas que quedaron vacías, así el conjunto caliente (y sus índices) no crece con la historia.
+ * Varias instancias pueden correrlo a la vez: el archivado usa SKIP LOCKED y las funciones DDL toman
+ * un advisory lock. Con shards se repite en cada uno, además del primario.
+ */
+@Slf4j
+@Component
+public class LoanArchiveJob implements DisposableBean {
+
+    private static final String ENSURE_PARTITIONS_SQL =
+            "SELECT ensure_loan_partitions(now(), now() + make_interval(months => :monthsAhead)) AS created";
+
+    /** Un lote, del más viejo al más nuevo; DELETE e INSERT en la misma sentencia, no hay ventana sin la fila. */
+    private static final String ARCHIVE_BATCH_SQL = """
+        WITH candidates AS (
+            SELECT l.id, l.created_at
+            FROM loan l
+            WHERE l.state_code = ANY(loan_status_codes(:states))
+              AND l.created_at < :cutoff
+            ORDER BY l.created_at
+            LIMIT :batchSize
+            FOR UPDATE OF l SKIP LOCKED
+        ), moved AS (
+            DELETE FROM loan l
+            USING candidates c
+            WHERE l.id = c.id AND l.created_at = c.created_at
+            RETURNING l.id, l.amount, l.term_months, l.email, l.id_state_loan, l.state_code, l.id_type_loan, l.created_at
+        )
+        INSERT INTO loan_archive (id, amount, term_months, email, id_state_loan, state_code, id_type_loan, created_at)
+        SELECT id, amount, term_months, email, id_state_loan, state_code, id_type_loan, created_at FROM moved
+        """;
+
+    private static final String DROP_EMPTY_PARTITIONS_SQL = "SELECT drop_empty_loan_partitions(:cutoff) AS dropped";
+
+    static final String[] TERMINAL_STATES = {LoanStatus.APPROVED.name(), LoanStatus.REJECTED.name()};
+
+    private final DatabaseClient client;
+    private final LoanArchiveProperties properties;
+    private final LoanShardRouter shards;
+    private final Counter archived;
+    private final Counter dropped;
+    private volatile Disposable loop;
+
+    public LoanArchiveJob(DatabaseClient client, LoanArchiveProperties properties, LoanShardRouter shards,
+                          MeterRegistry registry) {
+        this.client = client;
+        this.properties = properties;
+        this.shards = shards;
+        this.archived = Counter.builder("loan.archive.moved")
+                .description("Préstamos movidos de loan a loan_archive")
+                .register(registry);
+        this.dropped = Counter.builder("loan.archive.partitions.dropped")
+                .description("Particiones vacías de loan eliminadas")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loop = Flux.interval(Duration.ZERO, properties.interval())
+                .onBackpressureDrop()
+                .concatMap(tick -> run()
+                        .onErrorResume(e -> {
+                            log.warn("Loan archive iteration failed: {}", e.getMessage());
+                            return Mono.just(0L);
+                        }))
+                .subscribe();
+    }
+
+    /** Una pasada completa; devuelve los préstamos archivados. */
+    public Mono<Long> run() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(properties.retention());
+        if (!shards.isEnabled()) {
+            return runRoute(cutoff);
+        }
+        return Flux.concat(Flux.just(ReadReplicaRouter.PRIMARY), Flux.fromIterable(shards.shards()))
+                .concatMap(route -> runRoute(cutoff).contextWrite(ReadReplicaRouter.routeTo(route)))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> runRoute(OffsetDateTime cutoff) {
+        return ensurePartitions()
+                .then(properties.enabled() ? archive(cutoff) : Mono.just(0L))
+                .flatMap(moved -> dropEmptyPartitions(cutoff).thenReturn(moved));
+    }
+
+    public Mono<Integer> ensurePartitions() {
+        return client.sql(ENSURE_PARTITIONS_SQL)
+                .bind("monthsAhead", properties.partitionsAhead())
+                .map((row, meta) -> row.get("created", Integer.class))
+                .one()
+                .doOnNext(created -> {
+                    if (created > 0) {
+                        log.info("Created {} loan partitions", created);
+                    }
+                });
+    }
+
+    /** Lotes de {@code batchSize} mientras vengan llenos. */
+    public Mono<Long> archive(OffsetDateTime cutoff) {
+        return archiveBatch(cutoff)
+                .expand(moved -> moved >= properties.batchSize() ? archiveBatch(cutoff) : Mono.empty())
+                .reduce(0L, Long::sum)
+                .doOnNext(moved -> {
+                    archived.increment(moved);
+                    if (moved > 0) {
+                        log.info("Archived {} loans created before {}", moved, cutoff);
+                    }
+                });
+    }
+
+    private Mono<Long> archiveBatch(OffsetDateTime cutoff) {
+        return client.sql(ARCHIVE_BATCH_SQL)
+                .bind("states", TERMINAL_STATES)
+                .bind("cutoff", cutoff)
+                .bind("batchSize", properties.batchSize())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> dropEmptyPartitions(OffsetDateTime cutoff) {
+        return client.sql(DROP_EMPTY_PARTITIONS_SQL)
+                .bind("cutoff", cutoff)
+                .map((row, meta) -> row.get("dropped", Integer.class))
+                .one()
+                .doOnNext(count -> {
+                    dropped.increment(count);
+                    if (count > 0) {
+                        log.info("Dropped {} empty loan partitions older than {}", count, cutoff);
+                    }
+                });
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = loop;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+}
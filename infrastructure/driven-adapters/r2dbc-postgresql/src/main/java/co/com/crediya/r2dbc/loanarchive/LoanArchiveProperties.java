@@ -0,0 +1,26 @@
+package co.com.crediya.r2dbc.loanarchive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Las particiones futuras de loan se crean siempre; {@code enabled} solo controla el archivado de los
+ * préstamos en estado terminal con más de {@code retention}.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.loan-archive")
+public record LoanArchiveProperties(
+        Boolean enabled,
+        Duration retention,
+        Integer batchSize,
+        Duration interval,
+        Integer partitionsAhead) {
+
+    public LoanArchiveProperties {
+        if (enabled == null) enabled = false;
+        if (retention == null) retention = Duration.ofDays(180);
+        if (batchSize == null) batchSize = 1000;
+        if (interval == null) interval = Duration.ofHours(1);
+        if (partitionsAhead == null) partitionsAhead = 3;
+    }
+}
@@ -0,0 +1,139 @@
+package co.com.crediya.r2dbc.loanimport;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.model.loanimport.gateways.LoanImportWorker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cola acotada de las fases en segundo plano de las importaciones: como mucho maxConcurrentJobs a la
+ * vez y queueCapacity esperando; si no hay cupo la importación se rechaza antes de responder. Renueva
+ * el lease de los jobs en curso en esta instancia y, al arrancar y en cada renovación, da por fallidos
+ * (y borra su staging) los jobs cuyo lease venció: los de una instancia caída, esta incluida. Varias
+ * instancias pueden correrlo a la vez; el UPDATE que los reclama es atómico.
+ */
+@Slf4j
+@Component
+public class LoanImportJobRunner implements LoanImportWorker, DisposableBean {
+
+    static final String EXPIRED_ERROR = "Interrupted: the instance running the import stopped";
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final LoanImportRepositoryAdapter repository;
+    private final LoanImportProperties properties;
+    private final Sinks.Many<Task> queue;
+    // en la petición (COPY) o en la cola / corriendo: los que esta instancia mantiene vivos
+    private final Set<String> staging = ConcurrentHashMap.newKeySet();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Disposable.Composite loops = Disposables.composite();
+
+    public LoanImportJobRunner(LoanImportRepositoryAdapter repository, LoanImportProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(properties.queueCapacity()));
+    }
+
+    private record Task(String jobId, Mono<?> work) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loops.add(queue.asFlux()
+                .flatMap(task -> task.work()
+                        .then()
+                        .onErrorResume(e -> {
+                            log.warn("Loan import {} ended with error: {}", task.jobId(), e.getMessage());
+                            return Mono.empty();
+                        })
+                        .doFinally(signal -> running.remove(task.jobId())), properties.maxConcurrentJobs())
+                .subscribe());
+        loops.add(Flux.interval(Duration.ZERO, properties.heartbeatInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> heartbeat()
+                        .then(recoverExpired())
+                        .onErrorResume(e -> {
+                            log.warn("Loan import heartbeat failed: {}", e.getMessage());
+                            return Mono.just(0L);
+                        }))
+                .subscribe());
+    }
+
+    @Override
+    public <T> Mono<T> track(String jobId, Mono<T> phase) {
+        return Mono.defer(() -> {
+                    staging.add(jobId);
+                    return phase;
+                })
+                .doFinally(signal -> staging.remove(jobId));
+    }
+
+    @Override
+    public Mono<Void> submit(String jobId, Mono<?> work) {
+        return Mono.defer(() -> {
+            running.add(jobId);
+            Sinks.EmitResult result;
+            synchronized (queue) {
+                result = queue.tryEmitNext(new Task(jobId, work));
+            }
+            if (result.isFailure()) {
+                running.remove(jobId);
+                return Mono.error(new DomainConflictException("LOAN_IMPORT_BUSY",
+                        "Too many loan imports in progress, try again later"));
+            }
+            return Mono.empty();
+        });
+    }
+
+    private Mono<Void> heartbeat() {
+        Set<String> alive = new HashSet<>(staging);
+        alive.addAll(running);
+        return repository.heartbeat(alive);
+    }
+
+    /** Falla los jobs con el lease vencido y borra su staging; devuelve cuántos reclamó. */
+    public Mono<Long> recoverExpired() {
+        return repository.failExpired(properties.lease(), EXPIRED_ERROR)
+                .doOnNext(jobId -> log.warn("Loan import {} failed: lease expired", jobId))
+                .concatMap(jobId -> repository.dropStaging(jobId).thenReturn(jobId))
+                .count();
+    }
+
+    /**
+     * Cancela lo que está corriendo (cerrar las conexiones dedicadas revierte el merge) y deja FAILED
+     * esos jobs sin esperar a que venza el lease.
+     */
+    @Override
+    public void destroy() {
+        List<String> interrupted = List.copyOf(running);
+        loops.dispose();
+        if (interrupted.isEmpty()) {
+            return;
+        }
+        try {
+            Flux.fromIterable(interrupted)
+                    .concatMap(jobId -> repository.updateStatus(jobId, LoanImportStatus.FAILED,
+                                    "Interrupted by shutdown")
+                            .then(repository.dropStaging(jobId)))
+                    .then()
+                    .block(SHUTDOWN_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.warn("Could not fail interrupted loan imports {}: {}", interrupted, e.getMessage());
+        }
+    }
+}
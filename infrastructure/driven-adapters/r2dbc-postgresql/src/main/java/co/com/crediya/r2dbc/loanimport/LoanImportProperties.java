@@ -0,0 +1,24 @@
+package co.com.crediya.r2dbc.loanimport;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Un job sin terminar que nadie renovó en {@code lease} quedó huérfano (su instancia cayó); cada
+ * instancia renueva los suyos cada {@code heartbeatInterval}, que debe ser bastante menor.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.loan-import")
+public record LoanImportProperties(
+        Integer maxConcurrentJobs,
+        Integer queueCapacity,
+        Duration heartbeatInterval,
+        Duration lease) {
+
+    public LoanImportProperties {
+        if (maxConcurrentJobs == null || maxConcurrentJobs < 1) maxConcurrentJobs = 2;
+        if (queueCapacity == null || queueCapacity < 1) queueCapacity = 8;
+        if (heartbeatInterval == null) heartbeatInterval = Duration.ofSeconds(30);
+        if (lease == null) lease = Duration.ofMinutes(3);
+    }
+}
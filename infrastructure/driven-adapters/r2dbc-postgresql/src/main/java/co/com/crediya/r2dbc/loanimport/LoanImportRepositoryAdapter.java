@@ -0,0 +1,362 @@
+package co.com.crediya.r2dbc.loanimport;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.loanimport.LoanImportJob;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.model.loanimport.gateways.LoanImportRepository;
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Importación por COPY sobre PostgreSQL. Las fases pesadas (COPY, validación, merge) usan una
+ * conexión dedicada fuera del pool, como el LISTEN de la caché: una carga de millones de filas no
+ * debe retener durante minutos una de las conexiones del API. El staging es una tabla UNLOGGED por
+ * job con todas las columnas en texto, así un valor mal formado se reporta como rechazo en lugar de
+ * abortar el COPY; solo un CSV estructuralmente roto (columnas de más o de menos) hace fallar el job.
+ * Requiere PostgreSQL 16 (pg_input_is_valid). Con shards se rechaza: el merge es una sola sentencia
+ * sobre la base del staging y dejaría en el primario préstamos que viven en los shards.
+ */
+@Slf4j
+@Repository
+public class LoanImportRepositoryAdapter implements LoanImportRepository {
+
+    static final String STAGING_PREFIX = "loan_import_staging_";
+
+    private static final String CREATE_STAGING_SQL = """
+        CREATE UNLOGGED TABLE %s (
+            line         BIGINT GENERATED ALWAYS AS IDENTITY,
+            id           TEXT,
+            amount       TEXT,
+            term_months  TEXT,
+            email        TEXT,
+            state_name   TEXT,
+            type_name    TEXT,
+            created_at   TEXT
+        )""";
+
+    /** Mismo orden de columnas que GET /api/v1/loans/export?format=csv. */
+    private static final String COPY_SQL = """
+        COPY %s (id, amount, term_months, email, state_name, type_name, created_at)
+        FROM STDIN WITH (FORMAT csv, HEADER true, ENCODING 'UTF8')""";
+
+    /**
+     * Cada fila del staging con el primer motivo de rechazo (o NULL) y los ids de tipo y estado
+     * resueltos por nombre. Los casts solo se alcanzan en las ramas donde el valor ya es válido.
+     */
+    private static final String CHECKED_CTE = """
+        checked AS (
+            SELECT s.line, s.raw_id, s.raw_amount, s.raw_term, s.email, s.raw_created_at, s.raw_row,
+                   lt.id AS id_type_loan, ls.id AS id_state_loan,
+                   CASE
+                       WHEN s.raw_id IS NOT NULL AND NOT pg_input_is_valid(s.raw_id, 'uuid') THEN 'INVALID_ID'
+                       WHEN s.raw_amount IS NULL OR NOT pg_input_is_valid(s.raw_amount, 'numeric(12,2)')
+                           THEN 'INVALID_AMOUNT'
+                       WHEN s.raw_term IS NULL OR NOT pg_input_is_valid(s.raw_term, 'integer')
+                           OR s.raw_term::int < 1 THEN 'INVALID_TERM_MONTHS'
+                       WHEN s.email IS NULL OR length(s.email) > 254
+                           OR s.email !~ '^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$' THEN 'INVALID_EMAIL'
+                       WHEN s.raw_created_at IS NOT NULL AND NOT pg_input_is_valid(s.raw_created_at, 'timestamptz')
+                           THEN 'INVALID_CREATED_AT'
+                       WHEN lt.id IS NULL THEN 'UNKNOWN_LOAN_TYPE'
+                       WHEN ls.id IS NULL THEN 'UNKNOWN_LOAN_STATE'
+                       WHEN s.raw_amount::numeric(12,2) NOT BETWEEN lt.minimum_amount AND lt.maximum_amount
+                           THEN 'AMOUNT_OUT_OF_RANGE'
+                       WHEN s.raw_id IS NOT NULL
+                           AND row_number() OVER (PARTITION BY lower(s.raw_id) ORDER BY s.line) > 1
+                           THEN 'DUPLICATE_ID'
+                       WHEN s.raw_id IS NOT NULL AND (EXISTS (SELECT 1 FROM loan l WHERE l.id = s.raw_id::uuid)
+                                                      OR EXISTS (SELECT 1 FROM loan_archive a WHERE a.id = s.raw_id::uuid))
+                           THEN 'LOAN_ALREADY_EXISTS'
+                   END AS reason
+            FROM (
+                SELECT line,
+                       NULLIF(btrim(id), '')          AS raw_id,
+                       NULLIF(btrim(amount), '')      AS raw_amount,
+                       NULLIF(btrim(term_months), '') AS raw_term,
+                       NULLIF(btrim(email), '')       AS email,
+                       NULLIF(btrim(created_at), '')  AS raw_created_at,
+                       upper(btrim(state_name))       AS state_name,
+                       btrim(type_name)               AS type_name,
+                       concat_ws(',', coalesce(id, ''), coalesce(amount, ''), coalesce(term_months, ''),
+                                 coalesce(email, ''), coalesce(state_name, ''), coalesce(type_name, ''),
+                                 coalesce(created_at, '')) AS raw_row
+                FROM %s
+            ) s
+            LEFT JOIN loan_type  lt ON lt.name = s.type_name
+            LEFT JOIN loan_state ls ON ls.name = s.state_name
+        )""";
+
+    private static final String VALIDATE_SQL = "WITH " + CHECKED_CTE + """
+
+        INSERT INTO loan_import_rejection (job_id, line, reason, raw_row)
+        SELECT $1, line, reason, raw_row FROM checked WHERE reason IS NOT NULL
+        ON CONFLICT (job_id, line) DO NOTHING""";
+
+    /**
+     * Un único statement: las filas válidas entran a loan, la deuda de las APPROVED se suma a
+     * customer_debt (mismo UPSERT con delta que CustomerDebtRepositoryAdapter) y lo que se volvió
+     * inválido desde la validación, o chocó con un id insertado en paralelo, queda en el reporte.
+     * Con loan particionada (V11) la PK es (id, created_at): el choque en paralelo solo se detecta si
+     * además coincide created_at; la validación previa cubre el resto.
+     */
+    private static final String MERGE_SQL = "WITH " + CHECKED_CTE + """
+        ,
+        rejected AS (
+            INSERT INTO loan_import_rejection (job_id, line, reason, raw_row)
+            SELECT $1, line, reason, raw_row FROM checked WHERE reason IS NOT NULL
+            ON CONFLICT (job_id, line) DO NOTHING
+            RETURNING 1
+        ),
+        merged AS (
+            INSERT INTO loan (id, amount, term_months, email, id_state_loan, id_type_loan, created_at)
+            SELECT COALESCE(c.raw_id::uuid, uuid_v7()), c.raw_amount::numeric(12,2), c.raw_term::int,
+                   c.email, c.id_state_loan, c.id_type_loan, COALESCE(c.raw_created_at::timestamptz, now())
+            FROM checked c
+            WHERE c.reason IS NULL
+            ON CONFLICT DO NOTHING
+            RETURNING id, amount, term_months, email, id_state_loan, state_code, id_type_loan
+        ),
+        conflicts AS (
+            INSERT INTO loan_import_rejection (job_id, line, reason, raw_row)
+            SELECT $1, c.line, 'LOAN_ALREADY_EXISTS', c.raw_row
+            FROM checked c
+            WHERE c.reason IS NULL AND c.raw_id IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM merged m WHERE m.id = c.raw_id::uuid)
+            ON CONFLICT (job_id, line) DO NOTHING
+            RETURNING 1
+        ),
+        debt AS (
+            INSERT INTO customer_debt AS cd (email, monthly_debt, approved_loans)
+            SELECT m.email,
+                   SUM(loan_monthly_payment(m.amount, lt.annual_interest_percent, m.term_months)),
+                   COUNT(*)
+            FROM merged m
+            JOIN loan_type  lt ON lt.id = m.id_type_loan
+            WHERE m.state_code = loan_status_code('APPROVED')
+            GROUP BY m.email
+            ON CONFLICT (email) DO UPDATE
+               SET monthly_debt   = cd.monthly_debt + EXCLUDED.monthly_debt,
+                   approved_loans = cd.approved_loans + EXCLUDED.approved_loans,
+                   updated_at     = now()
+            RETURNING 1
+        )
+        SELECT (SELECT count(*) FROM merged)                                     AS imported,
+               (SELECT count(*) FROM rejected) + (SELECT count(*) FROM conflicts) AS rejected,
+               (SELECT count(*) FROM debt)                                       AS debtors""";
+
+    private static final String JOB_COLUMNS = """
+        id, status, requested_by, dry_run, staged_rows, rejected_rows, imported_rows, error,
+        created_at, updated_at, finished_at""";
+
+    private static final int REJECTIONS_FETCH_SIZE = 500;
+
+    private final DatabaseClient client;
+    private final PostgresqlConnectionFactory connectionFactory;
+    private final LoanShardRouter shards;
+
+    public LoanImportRepositoryAdapter(DatabaseClient client, PostgresqlConnectionProperties properties,
+                                       LoanShardRouter shards) {
+        this.client = client;
+        this.connectionFactory = new PostgresqlConnectionFactory(PostgreSQLConnectionPool.connectionConfiguration(properties));
+        this.shards = shards;
+    }
+
+    @Override
+    public Mono<LoanImportJob> create(String requestedBy, boolean dryRun) {
+        if (shards.isEnabled()) {
+            return Mono.error(new DomainConflictException("LOAN_IMPORT_UNAVAILABLE",
+                    "Bulk import is not supported while loans are sharded"));
+        }
+        var insert = client.sql("INSERT INTO loan_import_job (status, requested_by, dry_run) "
+                        + "VALUES (:status, :requestedBy, :dryRun) RETURNING " + JOB_COLUMNS)
+                .bind("status", LoanImportStatus.STAGING.name())
+                .bind("dryRun", dryRun);
+        insert = requestedBy == null ? insert.bindNull("requestedBy", String.class) : insert.bind("requestedBy", requestedBy);
+        return insert.map(LoanImportRepositoryAdapter::toJob)
+                .one()
+                .flatMap(job -> client.sql(CREATE_STAGING_SQL.formatted(stagingTable(job.id())))
+                        .then()
+                        .thenReturn(job));
+    }
+
+    @Override
+    public Mono<Long> stage(String jobId, Flux<ByteBuffer> csv) {
+        String table = stagingTable(jobId);
+        return Mono.usingWhen(connectionFactory.create(),
+                        connection -> connection.copyIn(COPY_SQL.formatted(table), csv.map(Unpooled::wrappedBuffer))
+                                // estadísticas reales del staging para los joins de validación y merge
+                                .flatMap(rows -> execute(connection, "ANALYZE " + table).thenReturn(rows)),
+                        PostgresqlConnection::close)
+                .flatMap(rows -> client.sql("UPDATE loan_import_job SET staged_rows = :rows, updated_at = now() "
+                                + "WHERE id = :id")
+                        .bind("rows", rows)
+                        .bind("id", UUID.fromString(jobId))
+                        .then()
+                        .thenReturn(rows));
+    }
+
+    @Override
+    public Mono<Long> validate(String jobId) {
+        UUID id = UUID.fromString(jobId);
+        return inTransaction(connection -> Flux.from(connection.createStatement(
+                                VALIDATE_SQL.formatted(stagingTable(jobId)))
+                        .bind("$1", id)
+                        .execute())
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Flux.from(connection.createStatement("""
+                                UPDATE loan_import_job
+                                SET rejected_rows = (SELECT count(*) FROM loan_import_rejection WHERE job_id = $1),
+                                    updated_at = now()
+                                WHERE id = $1
+                                RETURNING rejected_rows""")
+                        .bind("$1", id)
+                        .execute())
+                        .flatMap(result -> result.map(row -> row.get("rejected_rows", Long.class)))
+                        .single()));
+    }
+
+    @Override
+    public Mono<Long> merge(String jobId) {
+        UUID id = UUID.fromString(jobId);
+        return inTransaction(connection -> Flux.from(connection.createStatement(
+                                MERGE_SQL.formatted(stagingTable(jobId)))
+                        .bind("$1", id)
+                        .execute())
+                .flatMap(result -> result.map(row -> new MergeCounts(
+                        row.get("imported", Long.class), row.get("rejected", Long.class),
+                        row.get("debtors", Long.class))))
+                .single()
+                .doOnNext(counts -> log.info("Loan import {} merged {} rows, {} late rejections, {} debtors updated",
+                        jobId, counts.imported(), counts.rejected(), counts.debtors()))
+                .flatMap(counts -> Flux.from(connection.createStatement("""
+                                UPDATE loan_import_job
+                                SET imported_rows = $2, rejected_rows = rejected_rows + $3, updated_at = now()
+                                WHERE id = $1""")
+                        .bind("$1", id)
+                        .bind("$2", counts.imported())
+                        .bind("$3", counts.rejected())
+                        .execute())
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .then(Mono.just(counts.imported()))));
+    }
+
+    @Override
+    public Mono<Void> updateStatus(String jobId, LoanImportStatus status, String error) {
+        var update = client.sql("""
+                        UPDATE loan_import_job
+                        SET status = :status, error = :error, updated_at = now(),
+                            finished_at = CASE WHEN :finished THEN now() END
+                        WHERE id = :id""")
+                .bind("status", status.name())
+                .bind("finished", status.isFinished())
+                .bind("id", UUID.fromString(jobId));
+        update = error == null ? update.bindNull("error", String.class) : update.bind("error", error);
+        return update.then();
+    }
+
+    @Override
+    public Mono<Void> dropStaging(String jobId) {
+        return client.sql("DROP TABLE IF EXISTS " + stagingTable(jobId)).then();
+    }
+
+    @Override
+    public Mono<LoanImportJob> findById(String jobId) {
+        return client.sql("SELECT " + JOB_COLUMNS + " FROM loan_import_job WHERE id = :id")
+                .bind("id", UUID.fromString(jobId))
+                .map(LoanImportRepositoryAdapter::toJob)
+                .one();
+    }
+
+    @Override
+    public Flux<LoanImportRejection> findRejections(String jobId) {
+        return client.sql("SELECT line, reason, raw_row FROM loan_import_rejection WHERE job_id = :id ORDER BY line")
+                .bind("id", UUID.fromString(jobId))
+                .filter(statement -> statement.fetchSize(REJECTIONS_FETCH_SIZE))
+                .map(row -> new LoanImportRejection(row.get("line", Long.class), row.get("reason", String.class),
+                        row.get("raw_row", String.class)))
+                .all();
+    }
+
+    /** Renueva el lease de los jobs en curso en esta instancia. */
+    Mono<Void> heartbeat(Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return client.sql("""
+                        UPDATE loan_import_job SET updated_at = now()
+                        WHERE id = ANY(:ids) AND status IN ('STAGING', 'VALIDATING', 'MERGING')""")
+                .bind("ids", jobIds.stream().map(UUID::fromString).toArray(UUID[]::new))
+                .then();
+    }
+
+    /**
+     * Deja FAILED los jobs sin terminar cuyo lease venció y devuelve sus ids; el staging lo borra quien
+     * llama. El UPDATE es atómico: si dos instancias lo corren a la vez, cada job lo reclama una sola.
+     */
+    Flux<String> failExpired(Duration lease, String error) {
+        return client.sql("""
+                        UPDATE loan_import_job
+                        SET status = 'FAILED', error = :error, updated_at = now(), finished_at = now()
+                        WHERE status IN ('STAGING', 'VALIDATING', 'MERGING')
+                          AND updated_at < now() - make_interval(secs => :leaseSeconds)
+                        RETURNING id""")
+                .bind("error", error)
+                .bind("leaseSeconds", lease.toMillis() / 1000.0)
+                .map(row -> row.get("id", UUID.class).toString())
+                .all();
+    }
+
+    /** El nombre sale del UUID normalizado, nunca del texto recibido. */
+    static String stagingTable(String jobId) {
+        return STAGING_PREFIX + UUID.fromString(jobId).toString().replace("-", "");
+    }
+
+    private <T> Mono<T> inTransaction(Function<PostgresqlConnection, Mono<T>> work) {
+        // si algo falla, cerrar la conexión descarta la transacción abierta
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> connection.beginTransaction()
+                        .then(work.apply(connection))
+                        .flatMap(result -> connection.commitTransaction().thenReturn(result)),
+                PostgresqlConnection::close);
+    }
+
+    private static Mono<Void> execute(PostgresqlConnection connection, String sql) {
+        return connection.createStatement(sql).execute().flatMap(PostgresqlResult::getRowsUpdated).then();
+    }
+
+    private static LoanImportJob toJob(Readable row) {
+        return new LoanImportJob(
+                row.get("id", UUID.class).toString(),
+                LoanImportStatus.valueOf(row.get("status", String.class)),
+                row.get("requested_by", String.class),
+                Boolean.TRUE.equals(row.get("dry_run", Boolean.class)),
+                row.get("staged_rows", Long.class),
+                row.get("rejected_rows", Long.class),
+                row.get("imported_rows", Long.class),
+                row.get("error", String.class),
+                row.get("created_at", Instant.class),
+                row.get("updated_at", Instant.class),
+                row.get("finished_at", Instant.class));
+    }
+
+    private record MergeCounts(long imported, long rejected, long debtors) {
+    }
+}
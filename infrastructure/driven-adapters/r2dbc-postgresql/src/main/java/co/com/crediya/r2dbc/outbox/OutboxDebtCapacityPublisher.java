@@ -0,0 +1,23 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.loan.DebtCapacity;
+import co.com.crediya.model.loan.gateways.DebtCapacitySQS;
+import co.com.crediya.model.outbox.OutboxDestination;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxDebtCapacityPublisher implements DebtCapacitySQS {
+
+    private final OutboxStore store;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> sendMessage(DebtCapacity debtCapacity) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(debtCapacity))
+                .flatMap(json -> store.enqueue(OutboxDestination.DEBT_CAPACITY, json));
+    }
+}
@@ -0,0 +1,11 @@
+package co.com.crediya.r2dbc.outbox;
+
+import java.time.OffsetDateTime;
+
+public record OutboxMessage(
+        Long id,
+        String destination,
+        String payload,
+        int attempts,
+        OffsetDateTime createdAt
+) {}
@@ -0,0 +1,49 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.loan.LoanStatusChanged;
+import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.outbox.OutboxDestination;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxNotificationPublisher implements Notification {
+
+    private final OutboxStore store;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> sendMessage(LoanStatusChanged loanStatusChanged) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(toMessage(loanStatusChanged)))
+                .flatMap(json -> store.enqueue(OutboxDestination.NOTIFICATION, json));
+    }
+
+    @Override
+    public Mono<Void> sendMessages(List<LoanStatusChanged> changes) {
+        return Flux.fromIterable(changes)
+                .map(OutboxNotificationPublisher::toMessage)
+                .concatMap(message -> Mono.fromCallable(() -> objectMapper.writeValueAsString(message)))
+                .collectList()
+                .flatMap(payloads -> store.enqueueAll(OutboxDestination.NOTIFICATION, payloads));
+    }
+
+    private static Map<String, Object> toMessage(LoanStatusChanged changed) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("loanId", changed.loan().id());
+        message.put("email", changed.loan().email().value());
+        message.put("amount", changed.loan().amount().value());
+        message.put("state", changed.stateName());
+        message.put("type", changed.typeName());
+        message.put("reason", changed.reason());
+        message.put("name", changed.userData().name());
+        return message;
+    }
+}
@@ -0,0 +1,24 @@
+package co.com.crediya.r2dbc.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "adapters.r2dbc.outbox")
+public record OutboxProperties(
+        Duration pollInterval,
+        Integer batchSize,
+        Integer concurrency,
+        Duration lease,
+        Duration initialBackoff,
+        Duration maxBackoff) {
+
+    public OutboxProperties {
+        if (pollInterval == null) pollInterval = Duration.ofMillis(500);
+        if (batchSize == null) batchSize = 50;
+        if (concurrency == null) concurrency = 10;
+        if (lease == null) lease = Duration.ofSeconds(30);
+        if (initialBackoff == null) initialBackoff = Duration.ofSeconds(1);
+        if (maxBackoff == null) maxBackoff = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,155 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.outbox.gateways.MessageTransport;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drena outbox_message hacia los {@link MessageTransport} registrados (SQS). Varias instancias pueden
+ * correr a la vez: el claim usa SKIP LOCKED y la entrega es at-least-once. Con shards, cada uno tiene su
+ * outbox_message (se escribe en la transacción del préstamo) y se drena además del primario.
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxStore store;
+    private final Map<String, MessageTransport> transports;
+    private final OutboxProperties properties;
+    private final LoanShardRouter shards;
+    private final MeterRegistry registry;
+    private final Timer lag;
+    private final DistributionSummary batchSizes;
+    private volatile Disposable loop;
+
+    public OutboxRelay(OutboxStore store, List<MessageTransport> transports,
+                       OutboxProperties properties, LoanShardRouter shards, MeterRegistry registry) {
+        this.store = store;
+        this.transports = transports.stream()
+                .collect(Collectors.toUnmodifiableMap(t -> t.destination().name(), Function.identity()));
+        this.properties = properties;
+        this.shards = shards;
+        this.registry = registry;
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Tiempo entre el insert en el outbox y la entrega exitosa")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Mensajes reclamados por lote")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loop = Flux.interval(properties.pollInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> drain()
+                        .onErrorResume(e -> {
+                            log.warn("Outbox relay iteration failed: {}", e.getMessage());
+                            return Mono.just(0);
+                        }))
+                .subscribe();
+    }
+
+    /** Procesa lotes mientras vengan llenos; devuelve la cantidad de mensajes reclamados. */
+    public Mono<Integer> drain() {
+        if (!shards.isEnabled()) {
+            return drainRoute();
+        }
+        return Flux.concat(Flux.just(ReadReplicaRouter.PRIMARY), Flux.fromIterable(shards.shards()))
+                .concatMap(route -> drainRoute().contextWrite(ReadReplicaRouter.routeTo(route)))
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> drainRoute() {
+        return drainBatch()
+                .expand(claimed -> claimed >= properties.batchSize() ? drainBatch() : Mono.empty())
+                .reduce(0, Integer::sum);
+    }
+
+    Mono<Integer> drainBatch() {
+        return store.claim(properties.batchSize(), properties.lease())
+                .collectList()
+                .flatMap(batch -> batch.isEmpty() ? Mono.just(0) : relay(batch));
+    }
+
+    private Mono<Integer> relay(List<OutboxMessage> batch) {
+        batchSizes.record(batch.size());
+        return Flux.fromIterable(batch)
+                .flatMap(this::deliver, properties.concurrency())
+                .collectList()
+                .flatMap(store::markDelivered)
+                .thenReturn(batch.size());
+    }
+
+    private Mono<Long> deliver(OutboxMessage message) {
+        MessageTransport transport = transports.get(message.destination());
+        Mono<Void> sent = transport == null
+                ? Mono.error(new IllegalStateException("No transport for destination " + message.destination()))
+                : transport.deliver(message.payload());
+
+        return sent
+                .then(Mono.fromCallable(() -> {
+                    messages(message.destination(), "sent").increment();
+                    lag.record(Duration.between(message.createdAt(), OffsetDateTime.now()));
+                    return message.id();
+                }))
+                .onErrorResume(e -> {
+                    messages(message.destination(), "failed").increment();
+                    Duration delay = backoff(message.attempts());
+                    log.warn("Outbox message {} to {} failed (attempt {}), retrying in {}: {}",
+                            message.id(), message.destination(), message.attempts(), delay, e.getMessage());
+                    return store.reschedule(message.id(), delay, truncate(e.getMessage()))
+                            .then(Mono.empty());
+                });
+    }
+
+    Duration backoff(int attempts) {
+        long factor = 1L << Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = properties.initialBackoff().multipliedBy(factor);
+        return delay.compareTo(properties.maxBackoff()) > 0 ? properties.maxBackoff() : delay;
+    }
+
+    private Counter messages(String destination, String result) {
+        return Counter.builder("outbox.relay.messages")
+                .tag("destination", destination)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = loop;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+}
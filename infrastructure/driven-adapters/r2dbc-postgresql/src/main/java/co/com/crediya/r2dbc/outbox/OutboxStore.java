@@ -0,0 +1,101 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.outbox.OutboxDestination;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Acceso a outbox_message (V4). {@link #enqueue} participa de la transacción en curso,
+ * por lo que el mensaje solo queda visible para el relay si el cambio de negocio hace commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxStore {
+
+    private final DatabaseClient client;
+
+    public Mono<Void> enqueue(OutboxDestination destination, String payload) {
+        return client.sql("INSERT INTO outbox_message (destination, payload) VALUES (:destination, :payload)")
+                .bind("destination", destination.name())
+                .bind("payload", payload)
+                .then();
+    }
+
+    /** Varios mensajes con un solo INSERT multi-fila; los ids quedan en el orden de {@code payloads}. */
+    public Mono<Void> enqueueAll(OutboxDestination destination, List<String> payloads) {
+        if (payloads.isEmpty()) {
+            return Mono.empty();
+        }
+        return client.sql("""
+                INSERT INTO outbox_message (destination, payload)
+                SELECT :destination, p.payload
+                  FROM unnest(CAST(:payloads AS text[])) WITH ORDINALITY AS p(payload, ord)
+                 ORDER BY p.ord
+                """)
+                .bind("destination", destination.name())
+                .bind("payloads", payloads.toArray(String[]::new))
+                .then();
+    }
+
+    /**
+     * Reclama hasta {@code limit} mensajes vencidos. El lease corre next_attempt_at hacia adelante:
+     * si la instancia muere antes de confirmar, el mensaje vuelve a estar disponible al expirar.
+     */
+    public Flux<OutboxMessage> claim(int limit, Duration lease) {
+        return client.sql("""
+                UPDATE outbox_message o
+                   SET attempts = o.attempts + 1,
+                       next_attempt_at = now() + make_interval(secs => :leaseSeconds)
+                  FROM (SELECT id
+                          FROM outbox_message
+                         WHERE next_attempt_at <= now()
+                         ORDER BY id
+                         LIMIT :limit
+                           FOR UPDATE SKIP LOCKED) claimed
+                 WHERE o.id = claimed.id
+             RETURNING o.id, o.destination, o.payload, o.attempts, o.created_at
+                """)
+                .bind("leaseSeconds", seconds(lease))
+                .bind("limit", limit)
+                .map((row, meta) -> new OutboxMessage(
+                        row.get("id", Long.class),
+                        row.get("destination", String.class),
+                        row.get("payload", String.class),
+                        row.get("attempts", Integer.class),
+                        row.get("created_at", OffsetDateTime.class)))
+                .all();
+    }
+
+    public Mono<Void> markDelivered(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return client.sql("DELETE FROM outbox_message WHERE id = ANY(:ids)")
+                .bind("ids", ids.toArray(Long[]::new))
+                .then();
+    }
+
+    public Mono<Void> reschedule(Long id, Duration delay, String error) {
+        var spec = client.sql("""
+                UPDATE outbox_message
+                   SET next_attempt_at = now() + make_interval(secs => :delaySeconds),
+                       last_error = :error
+                 WHERE id = :id
+                """)
+                .bind("delaySeconds", seconds(delay))
+                .bind("id", id);
+        spec = error == null ? spec.bindNull("error", String.class) : spec.bind("error", error);
+        return spec.then();
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000d;
+    }
+}
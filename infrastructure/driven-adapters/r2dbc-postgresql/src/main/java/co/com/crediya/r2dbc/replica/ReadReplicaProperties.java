@@ -0,0 +1,37 @@
+package co.com.crediya.r2dbc.replica;
+
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Réplicas de lectura para {@code TxRunner.readOnly}. Usuario, base y esquema son los del primario;
+ * port nulo usa el del primario. Una réplica con más de maxLag de atraso, o que no responde al chequeo
+ * en checkTimeout, sale de la rotación hasta el siguiente chequeo bueno. También sale si su receptor de
+ * WAL no está en streaming, por eso el usuario necesita pg_read_all_stats (o pg_monitor) en la réplica.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.read-replica")
+public record ReadReplicaProperties(
+        Boolean enabled,
+        List<String> hosts,
+        Integer port,
+        Integer maxPoolSize,
+        Duration maxLag,
+        Duration checkInterval,
+        Duration checkTimeout,
+        Set<String> primaryOperations) {
+
+    public ReadReplicaProperties {
+        if (enabled == null) enabled = false;
+        if (hosts == null) hosts = List.of();
+        if (maxPoolSize == null || maxPoolSize < 1) maxPoolSize = PostgreSQLConnectionPool.MAX_SIZE;
+        if (maxLag == null) maxLag = Duration.ofSeconds(5);
+        if (checkInterval == null) checkInterval = Duration.ofSeconds(5);
+        if (checkTimeout == null) checkTimeout = Duration.ofSeconds(2);
+        // llena la caché de GET /loans/{id}: leída de una réplica atrasada dejaría cacheado el estado viejo
+        if (primaryOperations == null) primaryOperations = Set.of("LoanUseCase.getLoanById");
+    }
+}
@@ -0,0 +1,234 @@
+package co.com.crediya.r2dbc.replica;
+
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dueño de los pools de réplica y de su estado: cada checkInterval mide el atraso de cada una y decide
+ * si entra en la rotación. {@link #route} reparte las lecturas entre las sanas (round-robin) y cae al
+ * primario si no queda ninguna. Publica {@code db.replica.lag} y {@code db.replica.healthy} por réplica.
+ */
+@Slf4j
+@Component
+public class ReadReplicaRouter implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+    public static final String ROUTE_KEY = ReadReplicaRouter.class.getName() + ".route";
+    public static final String LAG_METRIC = "db.replica.lag";
+    public static final String HEALTHY_METRIC = "db.replica.healthy";
+
+    /**
+     * Sin WAL pendiente de aplicar el atraso es 0, aunque el primario lleve rato sin escribir; pero solo
+     * si el receptor de WAL sigue conectado: desconectado, recibido = aplicado no dice nada del primario.
+     * Leer {@code pg_stat_wal_receiver.status} requiere pg_read_all_stats (o pg_monitor) en la réplica.
+     */
+    static final String LAG_SQL = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END::float8 AS lag,
+                   NOT pg_is_in_recovery()
+                       OR EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') AS streaming
+            """;
+
+    private final ReadReplicaProperties properties;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile Disposable healthLoop;
+
+    public ReadReplicaRouter(ReadReplicaProperties properties, PostgresqlConnectionProperties connection,
+                             MeterRegistry registry) {
+        this(properties, replicaPools(properties, connection), registry);
+    }
+
+    ReadReplicaRouter(ReadReplicaProperties properties, Map<String, ConnectionFactory> pools, MeterRegistry registry) {
+        this.properties = properties;
+        this.replicas = pools.entrySet().stream().map(e -> new Replica(e.getKey(), e.getValue())).toList();
+        replicas.forEach(replica -> {
+            Gauge.builder(LAG_METRIC, replica, Replica::lagSeconds)
+                    .description("Atraso de la réplica medido en el último chequeo")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(registry);
+            Gauge.builder(HEALTHY_METRIC, replica, r -> r.healthy() ? 1 : 0)
+                    .description("1 si la réplica está en la rotación de lecturas")
+                    .tag("replica", replica.name())
+                    .register(registry);
+        });
+    }
+
+    /** Réplicas por nombre, para el {@link ReadReplicaRoutingConnectionFactory}. */
+    public Map<String, ConnectionFactory> targets() {
+        Map<String, ConnectionFactory> targets = new LinkedHashMap<>();
+        replicas.forEach(replica -> targets.put(replica.name(), replica.connectionFactory()));
+        return targets;
+    }
+
+    /** Ruta para una transacción de solo lectura de {@code operation}. */
+    public String route(String operation) {
+        if (replicas.isEmpty() || properties.primaryOperations().contains(operation)) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy()) {
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+
+    public static Function<Context, Context> routeTo(String route) {
+        return ctx -> ctx.put(ROUTE_KEY, route);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        healthLoop = Flux.interval(Duration.ZERO, properties.checkInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> checkAll())
+                .subscribe();
+    }
+
+    Mono<Void> checkAll() {
+        return Flux.fromIterable(replicas).flatMap(this::check).then();
+    }
+
+    private Mono<Void> check(Replica replica) {
+        return Mono.usingWhen(Mono.from(replica.connectionFactory().create()),
+                        connection -> Flux.from(connection.createStatement(LAG_SQL).execute())
+                                .flatMap(result -> result.map((row, meta) -> new ReplicaLag(
+                                        row.get("lag", Double.class), Boolean.TRUE.equals(row.get("streaming", Boolean.class)))))
+                                .next(),
+                        Connection::close)
+                .timeout(properties.checkTimeout())
+                // sin streaming el atraso crece sin que la réplica lo sepa: fuera de la rotación
+                .doOnNext(lag -> report(replica, lag.seconds(), lag.streaming()
+                        ? null
+                        : new IllegalStateException("WAL receiver is not streaming")))
+                .onErrorResume(e -> {
+                    report(replica, Double.NaN, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private record ReplicaLag(double seconds, boolean streaming) {}
+
+    void report(Replica replica, double lagSeconds, Throwable error) {
+        boolean healthy = error == null && lagSeconds <= properties.maxLag().toMillis() / 1000.0;
+        boolean was = replica.healthy();
+        replica.update(lagSeconds, healthy);
+        if (was != healthy) {
+            if (healthy) {
+                log.info("Read replica {} back in rotation, lag {}s", replica.name(), lagSeconds);
+            } else if (error != null) {
+                log.warn("Read replica {} out of rotation: {}", replica.name(), error.getMessage());
+            } else {
+                log.warn("Read replica {} out of rotation, lag {}s > {}", replica.name(), lagSeconds, properties.maxLag());
+            }
+        }
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = healthLoop;
+        if (current != null) {
+            current.dispose();
+        }
+        replicas.forEach(replica -> {
+            if (replica.connectionFactory() instanceof ConnectionPool pool) {
+                pool.dispose();
+            }
+        });
+    }
+
+    private static Map<String, ConnectionFactory> replicaPools(ReadReplicaProperties properties,
+                                                               PostgresqlConnectionProperties connection) {
+        Map<String, ConnectionFactory> pools = new LinkedHashMap<>();
+        if (!properties.enabled()) {
+            return pools;
+        }
+        int port = properties.port() != null ? properties.port() : connection.port();
+        IntStream.range(0, properties.hosts().size()).forEach(i -> {
+            String host = properties.hosts().get(i);
+            pools.put(host, new ConnectionPool(ConnectionPoolConfiguration.builder()
+                    .connectionFactory(new PostgresqlConnectionFactory(
+                            PostgreSQLConnectionPool.connectionConfiguration(connection, host, port)))
+                    .name("api-postgres-replica-pool-" + (i + 1))
+                    .initialSize(Math.min(PostgreSQLConnectionPool.INITIAL_SIZE, properties.maxPoolSize()))
+                    .maxSize(properties.maxPoolSize())
+                    .maxIdleTime(Duration.ofMinutes(PostgreSQLConnectionPool.MAX_IDLE_TIME))
+                    .validationQuery("SELECT 1")
+                    .build()));
+        });
+        return pools;
+    }
+
+    /** Arranca fuera de la rotación: entra con el primer chequeo bueno. */
+    static final class Replica {
+
+        private final String name;
+        private final ConnectionFactory connectionFactory;
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean healthy;
+
+        Replica(String name, ConnectionFactory connectionFactory) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+        }
+
+        String name() {
+            return name;
+        }
+
+        ConnectionFactory connectionFactory() {
+            return connectionFactory;
+        }
+
+        double lagSeconds() {
+            return lagSeconds;
+        }
+
+        boolean healthy() {
+            return healthy;
+        }
+
+        void update(double lagSeconds, boolean healthy) {
+            this.lagSeconds = lagSeconds;
+            this.healthy = healthy;
+        }
+    }
+}
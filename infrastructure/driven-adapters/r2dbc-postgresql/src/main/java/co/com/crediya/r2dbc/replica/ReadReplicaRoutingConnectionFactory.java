@@ -0,0 +1,17 @@
+package co.com.crediya.r2dbc.replica;
+
+import reactor.core.publisher.Mono;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+
+/**
+ * Elige el pool por la ruta que {@link co.com.crediya.r2dbc.tx.SpringTxRunner} deja en el contexto de
+ * Reactor. Solo decide al abrir una conexión: lo que corre dentro de una transacción ya abierta sigue en
+ * la conexión de esa transacción. Sin ruta (accesos fuera de TxRunner) va al primario.
+ */
+public class ReadReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(ctx -> Mono.justOrEmpty(ctx.<Object>getOrEmpty(ReadReplicaRouter.ROUTE_KEY)));
+    }
+}
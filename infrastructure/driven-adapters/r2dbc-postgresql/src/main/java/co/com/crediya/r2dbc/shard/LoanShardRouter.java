@@ -0,0 +1,208 @@
+package co.com.crediya.r2dbc.shard;
+
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dueño de los pools de cada shard y de la regla de reparto: un préstamo vive en el shard que sale del
+ * hash de su email (jump consistent hash, así agregar un shard mueve solo ~1/N de los clientes). Todo lo
+ * de un cliente (loan, customer_debt y el outbox de sus cambios) queda en el mismo shard. Deshabilitado,
+ * todas las rutas resuelven al primario.
+ */
+@Component
+public class LoanShardRouter implements DisposableBean {
+
+    static final String LOCATE_SQL = "SELECT 1 FROM loan WHERE id = :id";
+    static final String LOCATE_ALL_SQL = "SELECT id FROM loan WHERE id = ANY(CAST(:ids AS uuid[]))";
+
+    private final Map<String, ConnectionFactory> pools;
+    private final Map<String, DatabaseClient> clients = new LinkedHashMap<>();
+    private final List<String> shards;
+
+    public LoanShardRouter(ShardingProperties properties, PostgresqlConnectionProperties connection) {
+        this(shardPools(properties, connection));
+    }
+
+    LoanShardRouter(Map<String, ConnectionFactory> pools) {
+        this.pools = pools;
+        this.shards = List.copyOf(pools.keySet());
+        pools.forEach((shard, pool) -> clients.put(shard, DatabaseClient.create(pool)));
+    }
+
+    public boolean isEnabled() {
+        return !shards.isEmpty();
+    }
+
+    /** Nombres de shard en orden de configuración: el índice es el que devuelve el hash. */
+    public List<String> shards() {
+        return shards;
+    }
+
+    /** Shards por nombre, para el ConnectionFactory de ruteo. */
+    public Map<String, ConnectionFactory> targets() {
+        return pools;
+    }
+
+    /** Cliente directo al shard, fuera de la transacción en curso. */
+    public DatabaseClient client(String shard) {
+        return clients.get(shard);
+    }
+
+    /** Un repositorio de Spring Data por shard, con las mismas @Query que el del primario. */
+    public <R> Map<String, R> repositories(Class<R> repositoryType) {
+        Map<String, R> repositories = new LinkedHashMap<>();
+        pools.forEach((shard, pool) -> repositories.put(shard,
+                new R2dbcRepositoryFactory(new R2dbcEntityTemplate(pool)).getRepository(repositoryType)));
+        return repositories;
+    }
+
+    public String shardOf(String email) {
+        return shards.get(jumpHash(key(email), shards.size()));
+    }
+
+    /** Shard que tiene el préstamo; vacío si no está en ninguno. */
+    public Mono<String> locate(UUID loanId) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> clients.get(shard).sql(LOCATE_SQL)
+                        .bind("id", loanId)
+                        .map((row, meta) -> shard)
+                        .all())
+                .next();
+    }
+
+    /** Ruta de una transacción. Un préstamo que no existe cae en el primer shard, donde la sentencia lo reporta. */
+    public Mono<String> route(TxRoute route) {
+        if (!isEnabled()) {
+            return Mono.just(ReadReplicaRouter.PRIMARY);
+        }
+        if (route.partition() != null) {
+            return Mono.just(route.partition());
+        }
+        if (route.customerEmail() != null) {
+            return Mono.just(shardOf(route.customerEmail()));
+        }
+        return locate(route.loanId()).defaultIfEmpty(shards.get(0));
+    }
+
+    /** Como {@link #route} para un lote: los préstamos se buscan con una consulta por shard, no una por id. */
+    public Mono<Map<TxRoute, String>> routes(Collection<TxRoute> routes) {
+        if (!isEnabled()) {
+            return Mono.just(routes.stream().distinct()
+                    .collect(Collectors.toMap(Function.identity(), route -> ReadReplicaRouter.PRIMARY)));
+        }
+        UUID[] loanIds = routes.stream()
+                .filter(route -> route.partition() == null && route.customerEmail() == null)
+                .map(TxRoute::loanId)
+                .distinct()
+                .toArray(UUID[]::new);
+        Mono<Map<UUID, String>> located = loanIds.length == 0
+                ? Mono.just(Map.of())
+                : Flux.fromIterable(shards)
+                        .flatMap(shard -> clients.get(shard).sql(LOCATE_ALL_SQL)
+                                .bind("ids", loanIds)
+                                .map((row, meta) -> Map.entry(row.get("id", UUID.class), shard))
+                                .all())
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        return located.map(byLoan -> {
+            Map<TxRoute, String> resolved = new HashMap<>();
+            routes.forEach(route -> resolved.put(route, route.partition() != null ? route.partition()
+                    : route.customerEmail() != null ? shardOf(route.customerEmail())
+                    : byLoan.getOrDefault(route.loanId(), shards.get(0))));
+            return resolved;
+        });
+    }
+
+    /** Mismo cliente con otras mayúsculas o espacios va al mismo shard. */
+    static long key(String email) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Lamping &amp; Veach: bucket estable en [0, buckets) que solo cambia para ~1/buckets claves al crecer. */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(pool -> {
+            if (pool instanceof ConnectionPool connectionPool) {
+                connectionPool.dispose();
+            }
+        });
+    }
+
+    /** Conexión de cada shard, por nombre; host, port o database nulos toman el valor del primario. */
+    public static Map<String, PostgresqlConnectionConfiguration> connections(ShardingProperties properties,
+                                                                            PostgresqlConnectionProperties connection) {
+        Map<String, PostgresqlConnectionConfiguration> connections = new LinkedHashMap<>();
+        if (!properties.enabled()) {
+            return connections;
+        }
+        IntStream.range(0, properties.shards().size()).forEach(i -> {
+            ShardingProperties.Shard shard = properties.shards().get(i);
+            String host = shard.host() != null ? shard.host() : connection.host();
+            int port = shard.port() != null ? shard.port() : connection.port();
+            String database = shard.database() != null ? shard.database() : connection.database();
+            connections.put("shard-" + i,
+                    PostgreSQLConnectionPool.connectionConfiguration(connection, host, port, database));
+        });
+        return connections;
+    }
+
+    private static Map<String, ConnectionFactory> shardPools(ShardingProperties properties,
+                                                             PostgresqlConnectionProperties connection) {
+        Map<String, ConnectionFactory> pools = new LinkedHashMap<>();
+        connections(properties, connection).forEach((shard, configuration) ->
+                pools.put(shard, new ConnectionPool(ConnectionPoolConfiguration.builder()
+                        .connectionFactory(new PostgresqlConnectionFactory(configuration))
+                        .name("api-postgres-shard-pool-" + pools.size())
+                        .initialSize(Math.min(PostgreSQLConnectionPool.INITIAL_SIZE, properties.maxPoolSize()))
+                        .maxSize(properties.maxPoolSize())
+                        .maxIdleTime(Duration.ofMinutes(PostgreSQLConnectionPool.MAX_IDLE_TIME))
+                        .validationQuery("SELECT 1")
+                        .build())));
+        return pools;
+    }
+}
@@ -0,0 +1,165 @@
+package co.com.crediya.r2dbc.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copia loan_state y loan_type del primario (donde se administran) a cada shard, con los mismos ids:
+ * los préstamos de un shard referencian los ids que la API expone. Las semillas de las migraciones
+ * generan ids distintos en cada base; el upsert por nombre los alinea y ON UPDATE CASCADE arrastra los
+ * préstamos. Es idempotente y solo escribe las filas que difieren.
+ */
+@Slf4j
+@Component
+public class ReferenceDataReplicator implements DisposableBean {
+
+    private static final String RENAME_STATES_SQL = """
+            UPDATE loan_state s
+               SET name = p.name
+              FROM unnest(CAST(:ids AS uuid[]), CAST(:names AS text[])) AS p(id, name)
+             WHERE s.id = p.id AND s.name <> p.name
+            """;
+
+    private static final String UPSERT_STATES_SQL = """
+            INSERT INTO loan_state (id, name, description)
+            SELECT p.id, p.name, p.description
+              FROM unnest(CAST(:ids AS uuid[]), CAST(:names AS text[]), CAST(:descriptions AS text[]))
+                   AS p(id, name, description)
+            ON CONFLICT (name) DO UPDATE
+               SET id = EXCLUDED.id, description = EXCLUDED.description
+             WHERE (loan_state.id, loan_state.description) IS DISTINCT FROM (EXCLUDED.id, EXCLUDED.description)
+            """;
+
+    private static final String RENAME_TYPES_SQL = """
+            UPDATE loan_type t
+               SET name = p.name
+              FROM unnest(CAST(:ids AS uuid[]), CAST(:names AS text[])) AS p(id, name)
+             WHERE t.id = p.id AND t.name <> p.name
+            """;
+
+    private static final String UPSERT_TYPES_SQL = """
+            INSERT INTO loan_type (id, name, minimum_amount, maximum_amount, annual_interest_percent, automatic_validation)
+            SELECT p.id, p.name, p.minimum_amount, p.maximum_amount, p.annual_interest_percent, p.automatic_validation
+              FROM unnest(CAST(:ids AS uuid[]), CAST(:names AS text[]), CAST(:minimums AS numeric[]),
+                          CAST(:maximums AS numeric[]), CAST(:rates AS numeric[]), CAST(:automatic AS boolean[]))
+                   AS p(id, name, minimum_amount, maximum_amount, annual_interest_percent, automatic_validation)
+            ON CONFLICT (name) DO UPDATE
+               SET id = EXCLUDED.id,
+                   minimum_amount = EXCLUDED.minimum_amount,
+                   maximum_amount = EXCLUDED.maximum_amount,
+                   annual_interest_percent = EXCLUDED.annual_interest_percent,
+                   automatic_validation = EXCLUDED.automatic_validation
+             WHERE (loan_type.id, loan_type.minimum_amount, loan_type.maximum_amount,
+                    loan_type.annual_interest_percent, loan_type.automatic_validation)
+                   IS DISTINCT FROM
+                   (EXCLUDED.id, EXCLUDED.minimum_amount, EXCLUDED.maximum_amount,
+                    EXCLUDED.annual_interest_percent, EXCLUDED.automatic_validation)
+            """;
+
+    private final DatabaseClient primary;
+    private final LoanShardRouter shards;
+    private final ShardingProperties properties;
+    private volatile Disposable loop;
+
+    public ReferenceDataReplicator(DatabaseClient primary, LoanShardRouter shards, ShardingProperties properties) {
+        this.primary = primary;
+        this.shards = shards;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!shards.isEnabled()) {
+            return;
+        }
+        loop = Flux.interval(Duration.ZERO, properties.referenceSyncInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> sync()
+                        .onErrorResume(e -> {
+                            log.warn("Reference data sync to shards failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /** Lee una vez del primario y lo aplica a cada shard; un shard caído no frena a los demás. */
+    public Mono<Void> sync() {
+        Mono<List<StateRow>> states = primary.sql("SELECT id, name, description FROM loan_state")
+                .map((row, meta) -> new StateRow(row.get("id", UUID.class), row.get("name", String.class),
+                        row.get("description", String.class)))
+                .all()
+                .collectList();
+        Mono<List<TypeRow>> types = primary.sql("""
+                        SELECT id, name, minimum_amount, maximum_amount, annual_interest_percent, automatic_validation
+                        FROM loan_type""")
+                .map((row, meta) -> new TypeRow(row.get("id", UUID.class), row.get("name", String.class),
+                        row.get("minimum_amount", BigDecimal.class), row.get("maximum_amount", BigDecimal.class),
+                        row.get("annual_interest_percent", BigDecimal.class),
+                        row.get("automatic_validation", Boolean.class)))
+                .all()
+                .collectList();
+        return Mono.zip(states, types)
+                .flatMapMany(snapshot -> Flux.fromIterable(shards.shards())
+                        .flatMap(shard -> copyTo(shards.client(shard), snapshot.getT1(), snapshot.getT2())
+                                .onErrorResume(e -> {
+                                    log.warn("Reference data sync to {} failed: {}", shard, e.getMessage());
+                                    return Mono.empty();
+                                })))
+                .then();
+    }
+
+    /** Estados antes que tipos; renombres antes del upsert para que el nombre nuevo no choque. */
+    private Mono<Void> copyTo(DatabaseClient shard, List<StateRow> states, List<TypeRow> types) {
+        UUID[] stateIds = states.stream().map(StateRow::id).toArray(UUID[]::new);
+        String[] stateNames = states.stream().map(StateRow::name).toArray(String[]::new);
+        UUID[] typeIds = types.stream().map(TypeRow::id).toArray(UUID[]::new);
+        String[] typeNames = types.stream().map(TypeRow::name).toArray(String[]::new);
+        return shard.sql(RENAME_STATES_SQL)
+                .bind("ids", stateIds)
+                .bind("names", stateNames)
+                .then()
+                .then(shard.sql(UPSERT_STATES_SQL)
+                        .bind("ids", stateIds)
+                        .bind("names", stateNames)
+                        .bind("descriptions", states.stream().map(StateRow::description).toArray(String[]::new))
+                        .then())
+                .then(shard.sql(RENAME_TYPES_SQL)
+                        .bind("ids", typeIds)
+                        .bind("names", typeNames)
+                        .then())
+                .then(shard.sql(UPSERT_TYPES_SQL)
+                        .bind("ids", typeIds)
+                        .bind("names", typeNames)
+                        .bind("minimums", types.stream().map(TypeRow::minimumAmount).toArray(BigDecimal[]::new))
+                        .bind("maximums", types.stream().map(TypeRow::maximumAmount).toArray(BigDecimal[]::new))
+                        .bind("rates", types.stream().map(TypeRow::annualInterestPercent).toArray(BigDecimal[]::new))
+                        .bind("automatic", types.stream().map(TypeRow::automaticValidation).toArray(Boolean[]::new))
+                        .then());
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = loop;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    private record StateRow(UUID id, String name, String description) {
+    }
+
+    private record TypeRow(UUID id, String name, BigDecimal minimumAmount, BigDecimal maximumAmount,
+                           BigDecimal annualInterestPercent, Boolean automaticValidation) {
+    }
+}
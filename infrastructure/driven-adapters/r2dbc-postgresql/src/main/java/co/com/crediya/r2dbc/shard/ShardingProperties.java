@@ -0,0 +1,31 @@
+package co.com.crediya.r2dbc.shard;
+
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bases entre las que se reparten los préstamos por hash del email. Cada shard tiene el esquema completo
+ * (mismas migraciones que el primario); usuario, contraseña y esquema son los del primario, y host, port o
+ * database nulos toman el valor del primario. loan_type/loan_state se copian del primario cada
+ * referenceSyncInterval. No se combina con read-replica.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.sharding")
+public record ShardingProperties(
+        Boolean enabled,
+        List<Shard> shards,
+        Integer maxPoolSize,
+        Duration referenceSyncInterval) {
+
+    public ShardingProperties {
+        if (enabled == null) enabled = false;
+        if (shards == null) shards = List.of();
+        if (maxPoolSize == null || maxPoolSize < 1) maxPoolSize = PostgreSQLConnectionPool.MAX_SIZE;
+        if (referenceSyncInterval == null) referenceSyncInterval = Duration.ofMinutes(1);
+    }
+
+    public record Shard(String host, Integer port, String database) {
+    }
+}
@@ -0,0 +1,32 @@
+package co.com.crediya.r2dbc.stateloan;
+
+import co.com.crediya.model.stateloan.StateLoan;
+import co.com.crediya.model.stateloan.gateways.StateLoanRepository;
+import co.com.crediya.r2dbc.cache.ReferenceDataCache;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import java.util.UUID;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+@Primary
+@Repository
+@RequiredArgsConstructor
+public class CachedStateLoanRepository implements StateLoanRepository {
+
+    private final ReferenceDataCache cache;
+
+    private final StateLoanReactiveRepositoryAdapter delegate;
+
+    @Override
+    public Mono<StateLoan> findById(UUID id) {
+        return cache.findStateLoan(id)
+                .switchIfEmpty(Mono.defer(() -> delegate.findById(id)));
+    }
+
+    @Override
+    public Mono<StateLoan> findByName(String name) {
+        return cache.findStateLoanByName(name)
+                .switchIfEmpty(Mono.defer(() -> delegate.findByName(name)));
+    }
+}
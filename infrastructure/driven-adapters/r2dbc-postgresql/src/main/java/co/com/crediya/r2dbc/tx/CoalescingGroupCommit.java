@@ -0,0 +1,141 @@
+package co.com.crediya.r2dbc.tx;
+
+import co.com.crediya.model.tx.gateway.GroupCommit;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Un buffer por operación que se vacía al llegar a maxBatchSize o al cumplirse la ventana, lo que
+ * ocurra primero. Registra {@code group.commit.batch.size} (peticiones por commit) y
+ * {@code group.commit.wait} (lo que esperó la primera petición del lote).
+ */
+@Slf4j
+@Component
+public class CoalescingGroupCommit implements GroupCommit, DisposableBean {
+
+    public static final String BATCH_SIZE_METRIC = "group.commit.batch.size";
+    public static final String WAIT_METRIC = "group.commit.wait";
+
+    private final GroupCommitProperties properties;
+    private final MeterRegistry registry;
+    private final Map<String, Batcher> batchers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public CoalescingGroupCommit(GroupCommitProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <I, O> Mono<O> submit(String operation, I request, Function<List<I>, Mono<List<O>>> commit) {
+        if (!isEnabled()) {
+            return Mono.defer(() -> commit.apply(List.of(request))).map(results -> results.get(0));
+        }
+        return Mono.defer(() -> {
+            if (closed) {
+                return Mono.error(new IllegalStateException("Group commit is shutting down"));
+            }
+            Entry entry = new Entry(request, (Function<List<Object>, Mono<List<Object>>>) (Function<?, ?>) commit,
+                    System.nanoTime(), Sinks.one());
+            return batchers.computeIfAbsent(operation, Batcher::new)
+                    .offer(entry)
+                    .then(entry.result().asMono())
+                    .map(result -> (O) result);
+        });
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        // completar el sink vacía lo que quede en el buffer
+        batchers.values().forEach(Batcher::complete);
+    }
+
+    record Entry(Object request, Function<List<Object>, Mono<List<Object>>> commit, long enqueuedAt,
+                 Sinks.One<Object> result) {
+    }
+
+    private final class Batcher {
+
+        private final String operation;
+        private final Sinks.Many<Entry> sink;
+        private final DistributionSummary batchSize;
+        private final Timer wait;
+
+        Batcher(String operation) {
+            this.operation = operation;
+            this.sink = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<Entry>get(properties.bufferCapacity()).get());
+            this.batchSize = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                    .description("Peticiones aplicadas en cada commit agrupado")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.wait = Timer.builder(WAIT_METRIC)
+                    .description("Espera de la primera petición del lote antes del commit")
+                    .tag("operation", operation)
+                    .register(registry);
+            sink.asFlux()
+                    .bufferTimeout(properties.maxBatchSize(), properties.window(), true)
+                    .flatMap(this::flush, properties.maxInFlight())
+                    .subscribe(null, e -> log.error("Group commit pipeline for {} terminated", operation, e));
+        }
+
+        Mono<Void> offer(Entry entry) {
+            Sinks.EmitResult result;
+            synchronized (this) {
+                result = sink.tryEmitNext(entry);
+            }
+            return result.isSuccess()
+                    ? Mono.empty()
+                    : Mono.error(new IllegalStateException("Group commit buffer for " + operation
+                            + " rejected request: " + result));
+        }
+
+        private Mono<Void> flush(List<Entry> batch) {
+            batchSize.record(batch.size());
+            wait.record(System.nanoTime() - batch.get(0).enqueuedAt(), TimeUnit.NANOSECONDS);
+            // todas las entradas de una operación traen el mismo commit
+            List<Object> requests = batch.stream().map(Entry::request).toList();
+            return Mono.defer(() -> batch.get(0).commit().apply(requests))
+                    .doOnNext(results -> settle(batch, results))
+                    .doOnError(e -> batch.forEach(entry -> entry.result().tryEmitError(e)))
+                    // commit vacío (o cancelado): nadie queda esperando
+                    .doFinally(signal -> batch.forEach(entry -> entry.result().tryEmitEmpty()))
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+
+        private void settle(List<Entry> batch, List<Object> results) {
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Group commit for " + operation + " returned "
+                        + results.size() + " results for " + batch.size() + " requests");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().tryEmitValue(results.get(i));
+            }
+        }
+
+        synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+    }
+}
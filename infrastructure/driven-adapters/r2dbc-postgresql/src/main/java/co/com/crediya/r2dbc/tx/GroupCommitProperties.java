@@ -0,0 +1,26 @@
+package co.com.crediya.r2dbc.tx;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * window es lo máximo que espera la primera petición de un lote; maxBatchSize corta el lote antes.
+ * maxInFlight limita cuántos commits agrupados ocupan conexión a la vez por operación.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.group-commit")
+public record GroupCommitProperties(
+        Boolean enabled,
+        Duration window,
+        Integer maxBatchSize,
+        Integer maxInFlight,
+        Integer bufferCapacity) {
+
+    public GroupCommitProperties {
+        if (enabled == null) enabled = false;
+        if (window == null) window = Duration.ofMillis(5);
+        if (maxBatchSize == null) maxBatchSize = 100;
+        if (maxInFlight == null) maxInFlight = 2;
+        if (bufferCapacity == null) bufferCapacity = 1024;
+    }
+}
@@ -1,40 +1,154 @@
 package co.com.crediya.r2dbc.tx;
 
+import co.com.crediya.model.tx.TxRoute;
 import co.com.crediya.model.tx.gateway.TxRunner;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.reactive.TransactionalOperator;
 
+/**
+ * Además de demarcar la transacción registra {@code connection.hold.time}: desde la suscripción
+ * (begin, toma la conexión) hasta commit/rollback, etiquetado por operación y por ruta. Las de solo
+ * lectura van a la réplica que elija {@link ReadReplicaRouter} al suscribirse; las demás, al primario,
+ * salvo las que traen un {@link TxRoute} con shards configurados, que van al shard de ese cliente.
+ */
 @Component
 public class SpringTxRunner implements TxRunner {
 
+    public static final String HOLD_TIME_METRIC = "connection.hold.time";
+    static final String UNNAMED = "unnamed";
+
     private final TransactionalOperator tx;
     private final TransactionalOperator readOnlyTx;
+    private final ReadReplicaRouter router;
+    private final LoanShardRouter shards;
+    private final MeterRegistry registry;
 
     public SpringTxRunner(@Qualifier("txOperator") TransactionalOperator tx,
-                          @Qualifier("readOnlyTx") TransactionalOperator readOnlyTx) {
+                          @Qualifier("readOnlyTx") TransactionalOperator readOnlyTx,
+                          ReadReplicaRouter router, LoanShardRouter shards, MeterRegistry registry) {
         this.tx = tx;
         this.readOnlyTx = readOnlyTx;
+        this.router = router;
+        this.shards = shards;
+        this.registry = registry;
     }
 
     @Override
     public <T> Mono<T> required(Supplier<Mono<T>> action) {
-        return Mono.defer(action).as(tx::transactional);
+        return required(UNNAMED, action);
     }
     @Override
     public <T> Flux<T> requiredMany(Supplier<Flux<T>> action) {
-        return Flux.defer(action).as(tx::transactional);
+        return requiredMany(UNNAMED, action);
     }
 
     @Override
     public <T> Mono<T> readOnly(Supplier<Mono<T>> action) {
-        return Mono.defer(action).as(readOnlyTx::transactional);
+        return readOnly(UNNAMED, action);
     }
     @Override
     public <T> Flux<T> readOnlyMany(Supplier<Flux<T>> action) {
-        return Flux.defer(action).as(readOnlyTx::transactional);
+        return readOnlyMany(UNNAMED, action);
+    }
+
+    @Override
+    public <T> Mono<T> required(String operation, Supplier<Mono<T>> action) {
+        return timed(operation, false, Mono.defer(action).as(tx::transactional));
+    }
+    @Override
+    public <T> Flux<T> requiredMany(String operation, Supplier<Flux<T>> action) {
+        return timed(operation, false, Flux.defer(action).as(tx::transactional));
+    }
+
+    /** El shard se resuelve antes del begin: todo lo que escribe la transacción queda en esa base. */
+    @Override
+    public <T> Mono<T> required(String operation, TxRoute route, Supplier<Mono<T>> action) {
+        if (!shards.isEnabled()) {
+            return required(operation, action);
+        }
+        return shards.route(route)
+                .flatMap(shard -> timed(operation, false, shard, Mono.defer(action).as(tx::transactional)));
+    }
+    @Override
+    public <T> Flux<T> requiredMany(String operation, TxRoute route, Supplier<Flux<T>> action) {
+        if (!shards.isEnabled()) {
+            return requiredMany(operation, action);
+        }
+        return shards.route(route)
+                .flatMapMany(shard -> timed(operation, false, shard, Flux.defer(action).as(tx::transactional)));
+    }
+
+    /** Con shards, el nombre del shard de cada ruta; {@code TxRoute.partition} lo lleva a la transacción. */
+    @Override
+    public Mono<Map<TxRoute, String>> partitions(Collection<TxRoute> routes) {
+        return shards.isEnabled() ? shards.routes(routes) : TxRunner.super.partitions(routes);
+    }
+
+    /**
+     * Con shards las lecturas de préstamos las reparte el adapter entre los shards, cada una con su
+     * conexión: una transacción en el primario solo haría un BEGIN y retendría una conexión sin usarla.
+     */
+    @Override
+    public <T> Mono<T> readOnly(String operation, Supplier<Mono<T>> action) {
+        if (shards.isEnabled()) {
+            return Mono.defer(action);
+        }
+        return timed(operation, true, Mono.defer(action).as(readOnlyTx::transactional));
+    }
+    @Override
+    public <T> Flux<T> readOnlyMany(String operation, Supplier<Flux<T>> action) {
+        if (shards.isEnabled()) {
+            return Flux.defer(action);
+        }
+        return timed(operation, true, Flux.defer(action).as(readOnlyTx::transactional));
+    }
+
+    private <T> Mono<T> timed(String operation, boolean readOnly, Mono<T> transactional) {
+        // la ruta se decide al suscribirse, con el estado de las réplicas de ese momento
+        return Mono.defer(() -> timed(operation, readOnly, route(operation, readOnly), transactional));
+    }
+
+    private <T> Mono<T> timed(String operation, boolean readOnly, String route, Mono<T> transactional) {
+        Timer timer = holdTimer(operation, readOnly, route);
+        long start = System.nanoTime();
+        return transactional.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .contextWrite(ReadReplicaRouter.routeTo(route));
+    }
+
+    private <T> Flux<T> timed(String operation, boolean readOnly, Flux<T> transactional) {
+        return Flux.defer(() -> timed(operation, readOnly, route(operation, readOnly), transactional));
+    }
+
+    private <T> Flux<T> timed(String operation, boolean readOnly, String route, Flux<T> transactional) {
+        Timer timer = holdTimer(operation, readOnly, route);
+        long start = System.nanoTime();
+        return transactional.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .contextWrite(ReadReplicaRouter.routeTo(route));
+    }
+
+    /** Las escrituras fijan el primario explícitamente: no heredan la ruta de una lectura que las envuelva. */
+    private String route(String operation, boolean readOnly) {
+        return readOnly ? router.route(operation) : ReadReplicaRouter.PRIMARY;
+    }
+
+    private Timer holdTimer(String operation, boolean readOnly, String route) {
+        return Timer.builder(HOLD_TIME_METRIC)
+                .description("Tiempo que una transacción retiene la conexión del pool")
+                .tag("operation", operation)
+                .tag("read_only", Boolean.toString(readOnly))
+                .tag("route", route)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 }
@@ -0,0 +1,26 @@
+package co.com.crediya.r2dbc.typeloan;
+
+import co.com.crediya.model.typeloan.TypeLoan;
+import co.com.crediya.model.typeloan.gateways.TypeLoanRepository;
+import co.com.crediya.r2dbc.cache.ReferenceDataCache;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import java.util.UUID;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+@Primary
+@Repository
+@RequiredArgsConstructor
+public class CachedTypeLoanRepository implements TypeLoanRepository {
+
+    private final ReferenceDataCache cache;
+
+    private final TypeLoanReactiveRepositoryAdapter delegate;
+
+    @Override
+    public Mono<TypeLoan> findById(UUID id) {
+        return cache.findTypeLoan(id)
+                .switchIfEmpty(Mono.defer(() -> delegate.findById(id)));
+    }
+}
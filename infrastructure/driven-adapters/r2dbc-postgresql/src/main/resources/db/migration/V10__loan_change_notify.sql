@@ -0,0 +1,30 @@
+-- =========================
+-- Invalidación de la caché de GET /loans/{id} en todas las instancias.
+-- Un NOTIFY por sentencia con los ids afectados; si no caben en el payload (8000 bytes) se manda
+-- '*' y cada instancia vacía su caché. Se entrega al confirmar la transacción.
+-- =========================
+CREATE OR REPLACE FUNCTION notify_loan_changed() RETURNS trigger AS $$
+DECLARE
+    changed_ids TEXT;
+    changed     BIGINT;
+BEGIN
+    SELECT string_agg(id::text, ','), count(*) INTO changed_ids, changed FROM changed_loans;
+    IF changed = 0 THEN
+        RETURN NULL;
+    END IF;
+    PERFORM pg_notify('loan_changed', CASE WHEN changed <= 200 THEN changed_ids ELSE '*' END);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_updated ON loan;
+CREATE TRIGGER trg_loan_updated
+    AFTER UPDATE ON loan
+    REFERENCING NEW TABLE AS changed_loans
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_loan_changed();
+
+DROP TRIGGER IF EXISTS trg_loan_deleted ON loan;
+CREATE TRIGGER trg_loan_deleted
+    AFTER DELETE ON loan
+    REFERENCING OLD TABLE AS changed_loans
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_loan_changed();
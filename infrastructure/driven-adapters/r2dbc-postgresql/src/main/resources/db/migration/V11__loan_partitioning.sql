@@ -0,0 +1,201 @@
+-- =========================
+-- loan particionada por mes de created_at (conjunto caliente) + loan_archive (histórico frío).
+-- Las particiones se llaman loan_pYYYYMM (límites en UTC) y sus índices llevan el nombre del índice
+-- del padre con el sufijo de la partición. loan_default recibe lo que no tenga partición (imports con
+-- fechas viejas o si el job no creó las futuras a tiempo).
+-- La PK pasa a (id, created_at): en una tabla particionada toda restricción única incluye la clave de
+-- partición. Los ids siguen siendo gen_random_uuid(), pero la unicidad por id sola ya no la garantiza
+-- la base.
+-- Reescribe la tabla completa dentro de la transacción de la migración: hay que correrla en una
+-- ventana de mantenimiento.
+-- =========================
+
+-- La tabla actual queda solo como origen de la copia; se liberan los nombres de sus índices.
+ALTER TABLE loan RENAME TO loan_unpartitioned;
+ALTER TABLE loan_unpartitioned RENAME CONSTRAINT loan_pkey TO loan_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_loan_created_at_id;
+DROP INDEX IF EXISTS idx_loan_email_trgm;
+DROP INDEX IF EXISTS idx_loan_email_lower_prefix;
+DROP INDEX IF EXISTS idx_loan_email_state_created;
+DROP INDEX IF EXISTS idx_loan_state_created_id;
+DROP INDEX IF EXISTS idx_loan_type;
+
+CREATE TABLE loan (
+    id             UUID          NOT NULL DEFAULT gen_random_uuid(),
+    amount         NUMERIC(12,2) NOT NULL CHECK (amount >= 0),
+    term_months    INTEGER       NOT NULL CHECK (term_months >= 1),
+    email          VARCHAR(254)  NOT NULL,
+    id_state_loan  UUID          NOT NULL,
+    id_type_loan   UUID          NOT NULL,
+    created_at     TIMESTAMPTZ   NOT NULL DEFAULT now(),
+    CONSTRAINT loan_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_loan_state
+    FOREIGN KEY (id_state_loan) REFERENCES loan_state(id)
+    ON UPDATE CASCADE ON DELETE RESTRICT,
+    CONSTRAINT fk_loan_type
+    FOREIGN KEY (id_type_loan) REFERENCES loan_type(id)
+    ON UPDATE CASCADE ON DELETE RESTRICT
+    ) PARTITION BY RANGE (created_at);
+
+-- Mismos índices que V5, V7 y V8; sobre el padre sin particiones se crean al instante.
+CREATE INDEX idx_loan_created_at_id ON loan (created_at DESC, id DESC);
+CREATE INDEX idx_loan_email_trgm ON loan USING gin (email gin_trgm_ops);
+CREATE INDEX idx_loan_email_lower_prefix ON loan (lower(email) text_pattern_ops);
+CREATE INDEX idx_loan_email_state_created
+    ON loan (email, id_state_loan, created_at DESC)
+    INCLUDE (amount, term_months, id_type_loan);
+CREATE INDEX idx_loan_state_created_id
+    ON loan (id_state_loan, created_at DESC, id DESC)
+    INCLUDE (amount, term_months, email, id_type_loan);
+CREATE INDEX idx_loan_type ON loan (id_type_loan);
+
+-- =========================
+-- Crea la tabla con los índices del padre (nombre del padre + sufijo) y la adjunta: ATTACH adopta
+-- los índices equivalentes en vez de crear otros con nombres generados.
+-- =========================
+CREATE OR REPLACE FUNCTION attach_loan_partition(partition_name TEXT, bound TEXT) RETURNS VOID AS $$
+DECLARE
+    parent_index RECORD;
+BEGIN
+    EXECUTE format('CREATE TABLE %I (LIKE loan INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    FOR parent_index IN
+        SELECT c.relname, pg_get_indexdef(i.indexrelid) AS definition
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = 'loan'::regclass
+          AND NOT i.indisprimary
+    LOOP
+        EXECUTE regexp_replace(parent_index.definition, '^CREATE INDEX \S+ ON ONLY \S+',
+                format('CREATE INDEX %I ON %I',
+                       parent_index.relname || '_' || substr(partition_name, 6), partition_name));
+    END LOOP;
+    EXECUTE format('ALTER TABLE loan ATTACH PARTITION %I %s', partition_name, bound);
+END;
+$$ LANGUAGE plpgsql;
+
+-- =========================
+-- Una partición mensual por cada mes (UTC) entre from_ts y to_ts que todavía no exista. Las filas del
+-- rango que hayan caído en loan_default se mueven a la partición nueva antes de adjuntarla.
+-- Devuelve cuántas creó. Idempotente; el advisory lock serializa a las instancias que la llaman a la vez.
+-- =========================
+CREATE OR REPLACE FUNCTION ensure_loan_partitions(from_ts TIMESTAMPTZ, to_ts TIMESTAMPTZ) RETURNS INTEGER AS $$
+DECLARE
+    month_start    DATE := date_trunc('month', from_ts AT TIME ZONE 'UTC')::date;
+    month_end      DATE;
+    lower_bound    TIMESTAMPTZ;
+    upper_bound    TIMESTAMPTZ;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('loan_partitions'));
+    WHILE month_start <= (to_ts AT TIME ZONE 'UTC')::date LOOP
+        month_end := (month_start + INTERVAL '1 month')::date;
+        partition_name := 'loan_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            lower_bound := month_start::timestamp AT TIME ZONE 'UTC';
+            upper_bound := month_end::timestamp AT TIME ZONE 'UTC';
+            IF to_regclass('loan_default') IS NOT NULL THEN
+                -- el ATTACH igual toma este lock para validar que loan_default no tenga filas del rango
+                LOCK TABLE loan_default IN ACCESS EXCLUSIVE MODE;
+                CREATE TEMP TABLE loan_partition_move ON COMMIT DROP AS
+                    SELECT * FROM loan_default WHERE created_at >= lower_bound AND created_at < upper_bound;
+                DELETE FROM loan_default WHERE created_at >= lower_bound AND created_at < upper_bound;
+            END IF;
+            PERFORM attach_loan_partition(partition_name,
+                    format('FOR VALUES FROM (%L) TO (%L)', lower_bound, upper_bound));
+            IF to_regclass('pg_temp.loan_partition_move') IS NOT NULL THEN
+                EXECUTE format('INSERT INTO %I SELECT * FROM loan_partition_move', partition_name);
+                DROP TABLE loan_partition_move;
+            END IF;
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- =========================
+-- Borra las particiones mensuales que terminan antes de older_than y quedaron vacías (el archivado
+-- las vació). Así los índices del conjunto caliente no crecen con la historia. Cada DROP toma un lock
+-- exclusivo breve sobre loan; con lock_timeout se prefiere reintentar en la próxima pasada a encolar
+-- las consultas detrás.
+-- =========================
+CREATE OR REPLACE FUNCTION drop_empty_loan_partitions(older_than TIMESTAMPTZ) RETURNS INTEGER AS $$
+DECLARE
+    partition_name TEXT;
+    has_rows       BOOLEAN;
+    dropped        INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('loan_partitions'));
+    PERFORM set_config('lock_timeout', '2s', true);
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'loan'::regclass
+          AND c.relname ~ '^loan_p[0-9]{6}$'
+          AND (to_date(substr(c.relname, 7), 'YYYYMM') + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC' <= older_than
+        ORDER BY c.relname
+    LOOP
+        -- el lock primero: un import con fechas viejas no puede colarse entre el chequeo y el DROP
+        EXECUTE format('LOCK TABLE %I IN ACCESS EXCLUSIVE MODE', partition_name);
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', partition_name) INTO has_rows;
+        IF NOT has_rows THEN
+            EXECUTE format('DROP TABLE %I', partition_name);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT attach_loan_partition('loan_default', 'DEFAULT');
+SELECT ensure_loan_partitions(COALESCE((SELECT min(created_at) FROM loan_unpartitioned), now()),
+                              now() + INTERVAL '3 months');
+
+INSERT INTO loan (id, amount, term_months, email, id_state_loan, id_type_loan, created_at)
+SELECT id, amount, term_months, email, id_state_loan, id_type_loan, created_at
+FROM loan_unpartitioned;
+
+DROP TABLE loan_unpartitioned;
+
+-- Los triggers de V10 se fueron con la tabla vieja. En una tabla particionada el trigger por sentencia
+-- ve en la tabla de transición las filas de todas las particiones afectadas.
+CREATE TRIGGER trg_loan_updated
+    AFTER UPDATE ON loan
+    REFERENCING NEW TABLE AS changed_loans
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_loan_changed();
+
+CREATE TRIGGER trg_loan_deleted
+    AFTER DELETE ON loan
+    REFERENCING OLD TABLE AS changed_loans
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_loan_changed();
+
+-- =========================
+-- Préstamos en estado terminal (APPROVED / REJECTED) pasada la retención; los mueve LoanArchiveJob.
+-- Son de solo lectura: siguen contando para la deuda aprobada y se pueden consultar por id.
+-- =========================
+CREATE TABLE IF NOT EXISTS loan_archive (
+    id             UUID          PRIMARY KEY,
+    amount         NUMERIC(12,2) NOT NULL,
+    term_months    INTEGER       NOT NULL,
+    email          VARCHAR(254)  NOT NULL,
+    id_state_loan  UUID          NOT NULL,
+    id_type_loan   UUID          NOT NULL,
+    created_at     TIMESTAMPTZ   NOT NULL,
+    archived_at    TIMESTAMPTZ   NOT NULL DEFAULT now(),
+    CONSTRAINT fk_loan_archive_state
+    FOREIGN KEY (id_state_loan) REFERENCES loan_state(id)
+    ON UPDATE CASCADE ON DELETE RESTRICT,
+    CONSTRAINT fk_loan_archive_type
+    FOREIGN KEY (id_type_loan) REFERENCES loan_type(id)
+    ON UPDATE CASCADE ON DELETE RESTRICT
+    );
+
+-- findByEmailAndStateLoanId y el rebuild de customer_debt también leen los aprobados archivados.
+CREATE INDEX IF NOT EXISTS idx_loan_archive_email_state_created
+    ON loan_archive (email, id_state_loan, created_at DESC)
+    INCLUDE (amount, term_months, id_type_loan);
+
+ANALYZE loan;
@@ -0,0 +1,22 @@
+-- =========================
+-- UUIDv7 para loan.id. La aplicación genera los ids (co.com.crediya.r2dbc.helper.UuidV7); este
+-- default cubre lo que no los trae: el import por COPY, SQL manual e instancias con la versión
+-- anterior durante un despliegue rolling, que siguen insertando sin id. Los ids v4 existentes no se
+-- tocan (ya se expusieron por la API); v4 y v7 conviven en la PK sin conflicto.
+-- timestamp de 48 bits en ms sobre los primeros 6 bytes de un v4; set_bit numera los bits de cada
+-- byte desde el menos significativo, así 52 y 53 llevan el nibble de versión de 4 (0100) a 7 (0111).
+-- =========================
+CREATE OR REPLACE FUNCTION uuid_v7() RETURNS UUID AS $$
+    SELECT encode(
+               set_bit(
+                   set_bit(
+                       overlay(uuid_send(gen_random_uuid())
+                               PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                               FROM 1 FOR 6),
+                       52, 1),
+                   53, 1),
+               'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+-- Sin ONLY: también cambia el default de las particiones existentes (las nuevas lo copian del padre).
+ALTER TABLE loan ALTER COLUMN id SET DEFAULT uuid_v7();
@@ -0,0 +1,119 @@
+-- =========================
+-- loan.state_code: código fijo de LoanStatus copiado en cada préstamo, para que el listado de revisión
+-- manual y la deuda aprobada filtren sin unir loan_state. Lo mantiene un trigger a partir de
+-- id_state_loan (INSERT, cambio de estado, ON UPDATE CASCADE de loan_state) y otro cuando se renombra
+-- un estado. Un estado fuera de LoanStatus queda con state_code NULL y no entra en esos filtros.
+-- Toda la migración corre en una sola transacción de Flyway: el UPDATE que rellena state_code y los
+-- índices (CREATE INDEX CONCURRENTLY no aplica a tablas particionadas ni dentro de una transacción)
+-- toman locks sobre cada partición de loan y sobre loan_archive que se mantienen hasta el commit, así
+-- que las escrituras de loan quedan bloqueadas hasta que termina: hay que correrla en una ventana de
+-- mantenimiento.
+-- =========================
+
+-- Mismos nombres que co.com.crediya.model.pageable.LoanStatus; los códigos no se reutilizan.
+CREATE OR REPLACE FUNCTION loan_status_code(status_name TEXT) RETURNS SMALLINT AS $$
+    SELECT CASE status_name
+               WHEN 'PENDING_REVIEW' THEN 1
+               WHEN 'MANUAL_REVIEW'  THEN 2
+               WHEN 'REJECTED'       THEN 3
+               WHEN 'APPROVED'       THEN 4
+           END::smallint;
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+CREATE OR REPLACE FUNCTION loan_status_codes(status_names TEXT[]) RETURNS SMALLINT[] AS $$
+    SELECT array_agg(loan_status_code(n)) FROM unnest(status_names) AS n;
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+CREATE OR REPLACE FUNCTION loan_status_name(code SMALLINT) RETURNS TEXT AS $$
+    SELECT CASE code
+               WHEN 1 THEN 'PENDING_REVIEW'
+               WHEN 2 THEN 'MANUAL_REVIEW'
+               WHEN 3 THEN 'REJECTED'
+               WHEN 4 THEN 'APPROVED'
+           END;
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+ALTER TABLE loan ADD COLUMN IF NOT EXISTS state_code SMALLINT;
+ALTER TABLE loan_archive ADD COLUMN IF NOT EXISTS state_code SMALLINT;
+
+UPDATE loan l
+   SET state_code = loan_status_code(ls.name)
+  FROM loan_state ls
+ WHERE ls.id = l.id_state_loan;
+
+UPDATE loan_archive a
+   SET state_code = loan_status_code(ls.name)
+  FROM loan_state ls
+ WHERE ls.id = a.id_state_loan;
+
+CREATE OR REPLACE FUNCTION set_loan_state_code() RETURNS trigger AS $$
+BEGIN
+    NEW.state_code := (SELECT loan_status_code(ls.name) FROM loan_state ls WHERE ls.id = NEW.id_state_loan);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_state_code ON loan;
+CREATE TRIGGER trg_loan_state_code
+    BEFORE INSERT OR UPDATE OF id_state_loan ON loan
+    FOR EACH ROW EXECUTE FUNCTION set_loan_state_code();
+
+CREATE OR REPLACE FUNCTION propagate_loan_state_rename() RETURNS trigger AS $$
+BEGIN
+    UPDATE loan SET state_code = loan_status_code(NEW.name)
+     WHERE id_state_loan = NEW.id AND state_code IS DISTINCT FROM loan_status_code(NEW.name);
+    UPDATE loan_archive SET state_code = loan_status_code(NEW.name)
+     WHERE id_state_loan = NEW.id AND state_code IS DISTINCT FROM loan_status_code(NEW.name);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_state_renamed ON loan_state;
+CREATE TRIGGER trg_loan_state_renamed
+    AFTER UPDATE OF name ON loan_state
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name)
+    EXECUTE FUNCTION propagate_loan_state_rename();
+
+-- =========================
+-- Índice de loan con los nombres de V11 (nombre del padre + sufijo de la partición): se crea sobre el
+-- padre solo, después en cada partición y se adjunta. Las particiones nuevas lo copian en
+-- attach_loan_partition.
+-- =========================
+CREATE OR REPLACE FUNCTION create_loan_index(index_name TEXT, definition TEXT) RETURNS VOID AS $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    EXECUTE format('CREATE INDEX %I ON ONLY loan %s', index_name, definition);
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'loan'::regclass
+    LOOP
+        EXECUTE format('CREATE INDEX %I ON %I %s',
+                       index_name || '_' || substr(partition_name, 6), partition_name, definition);
+        EXECUTE format('ALTER INDEX %I ATTACH PARTITION %I',
+                       index_name, index_name || '_' || substr(partition_name, 6));
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- findForManualReview / findForManualReviewPage / findForManualReviewAfter / countForManualReview
+SELECT create_loan_index('idx_loan_state_code_created',
+        '(state_code, created_at DESC, id DESC) INCLUDE (amount, term_months, email, id_type_loan)');
+
+-- findByEmailAndStatus (deuda aprobada)
+SELECT create_loan_index('idx_loan_email_state_code_created',
+        '(email, state_code, created_at DESC) INCLUDE (amount, term_months, id_type_loan)');
+
+-- Las consultas que los usaban ahora filtran por state_code.
+DROP INDEX IF EXISTS idx_loan_state_created_id;
+DROP INDEX IF EXISTS idx_loan_email_state_created;
+
+CREATE INDEX IF NOT EXISTS idx_loan_archive_email_state_code_created
+    ON loan_archive (email, state_code, created_at DESC)
+    INCLUDE (amount, term_months, id_type_loan);
+DROP INDEX IF EXISTS idx_loan_archive_email_state_created;
+
+ANALYZE loan;
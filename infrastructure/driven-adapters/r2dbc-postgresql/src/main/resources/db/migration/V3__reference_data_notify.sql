@@ -0,0 +1,20 @@
+-- =========================
+-- Invalidación de la caché de datos de referencia (loan_type / loan_state)
+-- Cada instancia hace LISTEN reference_data_changed y descarta su snapshot en memoria.
+-- =========================
+CREATE OR REPLACE FUNCTION notify_reference_data_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('reference_data_changed', TG_TABLE_NAME);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_type_changed ON loan_type;
+CREATE TRIGGER trg_loan_type_changed
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON loan_type
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_data_changed();
+
+DROP TRIGGER IF EXISTS trg_loan_state_changed ON loan_state;
+CREATE TRIGGER trg_loan_state_changed
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON loan_state
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_data_changed();
@@ -0,0 +1,15 @@
+-- =========================
+-- outbox_message: mensajes hacia SQS escritos en la misma transacción que el cambio de negocio.
+-- El OutboxRelay los reclama con FOR UPDATE SKIP LOCKED y los elimina una vez entregados.
+-- =========================
+CREATE TABLE IF NOT EXISTS outbox_message (
+    id               BIGSERIAL    PRIMARY KEY,
+    destination      VARCHAR(40)  NOT NULL,
+    payload          TEXT         NOT NULL,
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_error       VARCHAR(500),
+    created_at       TIMESTAMPTZ  NOT NULL DEFAULT now()
+    );
+
+CREATE INDEX IF NOT EXISTS idx_outbox_next_attempt ON outbox_message(next_attempt_at);
@@ -0,0 +1,5 @@
+-- =========================
+-- Paginación keyset del listado de revisión manual:
+-- ORDER BY created_at DESC, id DESC y WHERE (created_at, id) < (:createdAt, :id)
+-- =========================
+CREATE INDEX IF NOT EXISTS idx_loan_created_at_id ON loan(created_at DESC, id DESC);
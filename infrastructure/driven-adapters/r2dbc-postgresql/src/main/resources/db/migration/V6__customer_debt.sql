@@ -0,0 +1,41 @@
+-- =========================
+-- Cuota mensual de un préstamo (sistema francés). Misma fórmula que usaba el listado de
+-- revisión manual, con tasa 0 tratada como amortización lineal en lugar de dividir por cero.
+-- =========================
+CREATE OR REPLACE FUNCTION loan_monthly_payment(amount NUMERIC, annual_interest_percent NUMERIC, term_months INTEGER)
+RETURNS NUMERIC
+LANGUAGE sql
+IMMUTABLE
+AS $$
+    SELECT ROUND(
+        CASE
+            WHEN annual_interest_percent = 0 THEN amount / term_months
+            ELSE amount
+                 * (annual_interest_percent / 12.0 / 100.0)
+                 * POWER(1 + (annual_interest_percent / 12.0 / 100.0), term_months)
+                 / (POWER(1 + (annual_interest_percent / 12.0 / 100.0), term_months) - 1)
+        END,
+        2)
+$$;
+
+-- =========================
+-- customer_debt: deuda mensual aprobada por email. La mantiene LoanUseCase.changeLoanStatus
+-- en la misma transacción del cambio de estado; CustomerDebtRebuildJob la recalcula desde loan.
+-- =========================
+CREATE TABLE IF NOT EXISTS customer_debt (
+    email           VARCHAR(254)  PRIMARY KEY,
+    monthly_debt    NUMERIC(14,2) NOT NULL DEFAULT 0,
+    approved_loans  INTEGER       NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMPTZ   NOT NULL DEFAULT now()
+    );
+
+-- Backfill inicial
+INSERT INTO customer_debt (email, monthly_debt, approved_loans)
+SELECT l.email,
+       SUM(loan_monthly_payment(l.amount, lt.annual_interest_percent, l.term_months)),
+       COUNT(*)
+FROM loan l
+JOIN loan_type  lt ON lt.id = l.id_type_loan
+JOIN loan_state ls ON ls.id = l.id_state_loan AND ls.name = 'APPROVED'
+GROUP BY l.email
+ON CONFLICT (email) DO NOTHING;
@@ -0,0 +1,9 @@
+-- =========================
+-- Búsqueda por email del listado de revisión manual.
+-- contains: l.email ILIKE '%texto%'        -> GIN trigram
+-- prefix:   lower(l.email) LIKE 'texto%'   -> B-tree text_pattern_ops (independiente de la collation)
+-- =========================
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_loan_email_trgm         ON loan USING gin (email gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_loan_email_lower_prefix ON loan (lower(email) text_pattern_ops);
@@ -0,0 +1,22 @@
+-- =========================
+-- Índices compuestos / covering para las consultas de LoanReactiveRepository.
+-- CONCURRENTLY no puede correr dentro de una transacción: ver V8__loan_query_indexes.sql.conf.
+-- Si un build concurrente falla deja el índice INVALID; IF NOT EXISTS no lo repara, hay que
+-- hacer DROP INDEX CONCURRENTLY y volver a correr la migración.
+-- =========================
+
+-- findByEmailAndStateLoanId: WHERE email = ? AND id_state_loan = ? ORDER BY created_at DESC.
+-- INCLUDE cubre las columnas leídas de loan (index-only scan + join por PK a loan_type).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_email_state_created
+    ON loan (email, id_state_loan, created_at DESC)
+    INCLUDE (amount, term_months, id_type_loan);
+
+-- findForManualReview / findForManualReviewPage / countForManualReview:
+-- filtro por estado (+ tipo / monto) y orden created_at DESC, id DESC.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_state_created_id
+    ON loan (id_state_loan, created_at DESC, id DESC)
+    INCLUDE (amount, term_months, email, id_type_loan);
+
+-- Los índices simples de V1 quedan como prefijo de los compuestos: solo suman costo de escritura.
+DROP INDEX CONCURRENTLY IF EXISTS idx_loan_email;
+DROP INDEX CONCURRENTLY IF EXISTS idx_loan_state;
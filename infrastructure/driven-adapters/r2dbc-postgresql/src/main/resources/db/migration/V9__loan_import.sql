@@ -0,0 +1,27 @@
+-- =========================
+-- Importación masiva por COPY. Cada job carga su CSV en una tabla UNLOGGED propia
+-- (loan_import_staging_<id>, la crea y la borra LoanImportRepositoryAdapter); aquí quedan el
+-- progreso del job y el reporte de filas rechazadas.
+-- =========================
+CREATE TABLE IF NOT EXISTS loan_import_job (
+    id             UUID         PRIMARY KEY DEFAULT gen_random_uuid(),
+    status         VARCHAR(20)  NOT NULL,
+    requested_by   VARCHAR(254),
+    dry_run        BOOLEAN      NOT NULL DEFAULT FALSE,
+    staged_rows    BIGINT       NOT NULL DEFAULT 0,
+    rejected_rows  BIGINT       NOT NULL DEFAULT 0,
+    imported_rows  BIGINT       NOT NULL DEFAULT 0,
+    error          TEXT,
+    created_at     TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    updated_at     TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    finished_at    TIMESTAMPTZ
+    );
+
+-- line: registro de datos del CSV (1 = el primero después de la cabecera)
+CREATE TABLE IF NOT EXISTS loan_import_rejection (
+    job_id   UUID         NOT NULL REFERENCES loan_import_job(id) ON DELETE CASCADE,
+    line     BIGINT       NOT NULL,
+    reason   VARCHAR(40)  NOT NULL,
+    raw_row  TEXT         NOT NULL,
+    PRIMARY KEY (job_id, line)
+    );
@@ -0,0 +1,114 @@
+package co.com.crediya.r2dbc.cache;
+
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineLoanCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CaffeineLoanCache cache = new CaffeineLoanCache(new LoanCacheProperties(Duration.ofMinutes(1), 100L), registry);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static Loan loan(UUID id, String stateId) {
+        return new Loan(id.toString(), new Money(new BigDecimal("1000")), new TermMonths(12),
+                new Email("a@example.com"), stateId, UUID.randomUUID().toString());
+    }
+
+    private Mono<Loan> counting(Loan value) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+
+    @Test
+    void get_loadsOnce_andServesHitsFromMemory() {
+        var id = UUID.randomUUID();
+        var stored = loan(id, "STATE-1");
+
+        StepVerifier.create(cache.get(id, key -> counting(stored))).expectNext(stored).verifyComplete();
+        StepVerifier.create(cache.get(id, key -> counting(stored))).expectNext(stored).verifyComplete();
+
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("cache.gets").tag("cache", CaffeineLoanCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void put_servesReadYourWrites_withoutLoading() {
+        var id = UUID.randomUUID();
+        var created = loan(id, "PENDING");
+        cache.put(created);
+
+        StepVerifier.create(cache.get(id, key -> counting(loan(id, "OTHER")))).expectNext(created).verifyComplete();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void missingLoan_isNotCached() {
+        var id = UUID.randomUUID();
+        var created = loan(id, "PENDING");
+
+        StepVerifier.create(cache.get(id, key -> Mono.empty())).verifyComplete();
+        // creado después (p. ej. en otra instancia): el siguiente GET lo encuentra
+        StepVerifier.create(cache.get(id, key -> counting(created))).expectNext(created).verifyComplete();
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        var id = UUID.randomUUID();
+        cache.put(loan(id, "PENDING"));
+        cache.invalidate(id);
+        var approved = loan(id, "APPROVED");
+
+        StepVerifier.create(cache.get(id, key -> counting(approved))).expectNext(approved).verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidate_duringInflightLoad_discardsTheStaleResult() {
+        var id = UUID.randomUUID();
+        Sinks.One<Loan> slowRead = Sinks.one();
+
+        var stale = cache.get(id, key -> slowRead.asMono());
+        StepVerifier.create(stale)
+                .then(() -> {
+                    // el cambio de estado se confirma mientras la lectura vieja sigue en vuelo
+                    cache.invalidate(id);
+                    slowRead.tryEmitValue(loan(id, "PENDING"));
+                })
+                .expectNextMatches(l -> l.stateLoanId().equals("PENDING"))
+                .verifyComplete();
+
+        var fresh = loan(id, "APPROVED");
+        StepVerifier.create(cache.get(id, key -> counting(fresh))).expectNext(fresh).verifyComplete();
+    }
+
+    @Test
+    void invalidateAll_dropsEveryEntry() {
+        var a = UUID.randomUUID();
+        var b = UUID.randomUUID();
+        cache.put(loan(a, "S"));
+        cache.put(loan(b, "S"));
+
+        cache.invalidateAll("test");
+
+        StepVerifier.create(cache.get(a, key -> counting(loan(a, "S")))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cache.get(b, key -> counting(loan(b, "S")))).expectNextCount(1).verifyComplete();
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,136 @@
+package co.com.crediya.r2dbc.cache;
+
+import co.com.crediya.model.stateloan.StateLoan;
+import co.com.crediya.model.typeloan.TypeLoan;
+import co.com.crediya.model.pageable.LoanStatus;
+import co.com.crediya.model.value.InterestRate;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.r2dbc.stateloan.StateLoanReactiveRepository;
+import co.com.crediya.r2dbc.stateloan.entity.StateLoanEntity;
+import co.com.crediya.r2dbc.stateloan.mapper.StateLoanEntityMapper;
+import co.com.crediya.r2dbc.typeloan.TypeLoanReactiveRepository;
+import co.com.crediya.r2dbc.typeloan.entity.TypeLoanEntity;
+import co.com.crediya.r2dbc.typeloan.mapper.TypeLoanEntityMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    @Mock TypeLoanReactiveRepository typeRepository;
+    @Mock TypeLoanEntityMapper typeMapper;
+    @Mock StateLoanReactiveRepository stateRepository;
+    @Mock StateLoanEntityMapper stateMapper;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final UUID typeId = UUID.randomUUID();
+    private final UUID pendingId = UUID.randomUUID();
+    private final TypeLoanEntity typeEntity = TypeLoanEntity.builder().id(typeId).build();
+    private final StateLoanEntity pendingEntity = StateLoanEntity.builder().id(pendingId).build();
+    private final TypeLoan type = new TypeLoan(typeId.toString(), "PERSONAL",
+            new Money(new BigDecimal("1000")), new Money(new BigDecimal("5000")),
+            new InterestRate(new BigDecimal("0.02")), false);
+    private final StateLoan pending = new StateLoan(pendingId.toString(), "PENDING_REVIEW", "");
+
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReferenceDataCache(typeRepository, typeMapper, stateRepository, stateMapper, registry);
+        when(typeMapper.toDomain(typeEntity)).thenReturn(type);
+        when(stateMapper.toDomain(pendingEntity)).thenReturn(pending);
+    }
+
+    @Test
+    void findTypeLoan_loadsSnapshotOnce_andServesHitsFromMemory() {
+        when(typeRepository.findAll()).thenReturn(Flux.just(typeEntity));
+        when(stateRepository.findAll()).thenReturn(Flux.just(pendingEntity));
+
+        StepVerifier.create(cache.findTypeLoan(typeId)).expectNext(type).verifyComplete();
+        StepVerifier.create(cache.findTypeLoan(typeId)).expectNext(type).verifyComplete();
+        StepVerifier.create(cache.findTypeLoan(UUID.randomUUID())).verifyComplete();
+
+        verify(typeRepository, times(1)).findAll();
+        verify(stateRepository, times(1)).findAll();
+        assertThat(registry.get("reference.data.cache").tag("cache", "type_loan").tag("result", "hit")
+                .counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("reference.data.cache").tag("cache", "type_loan").tag("result", "miss")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void findStateLoanByName_resolvesThroughStatusIndex() {
+        when(typeRepository.findAll()).thenReturn(Flux.just(typeEntity));
+        when(stateRepository.findAll()).thenReturn(Flux.just(pendingEntity));
+
+        StepVerifier.create(cache.findStateLoanByName("PENDING_REVIEW")).expectNext(pending).verifyComplete();
+        StepVerifier.create(cache.findStateLoan(LoanStatus.APPROVED)).verifyComplete();
+        StepVerifier.create(cache.findStateLoan(pendingId)).expectNext(pending).verifyComplete();
+    }
+
+    @Test
+    void concurrentMisses_shareASingleLoad() {
+        when(typeRepository.findAll()).thenReturn(Flux.just(typeEntity).delayElements(Duration.ofMillis(50)));
+        when(stateRepository.findAll()).thenReturn(Flux.just(pendingEntity));
+
+        var first = cache.findTypeLoan(typeId);
+        var second = cache.findStateLoanByName("PENDING_REVIEW");
+
+        StepVerifier.create(first).expectNext(type).verifyComplete();
+        StepVerifier.create(second).expectNext(pending).verifyComplete();
+
+        verify(typeRepository, times(1)).findAll();
+        verify(stateRepository, times(1)).findAll();
+    }
+
+    @Test
+    void invalidate_forcesReloadOnNextLookup() {
+        when(typeRepository.findAll()).thenReturn(Flux.just(typeEntity));
+        when(stateRepository.findAll()).thenReturn(Flux.just(pendingEntity));
+
+        StepVerifier.create(cache.findTypeLoan(typeId)).expectNext(type).verifyComplete();
+        cache.invalidate("test");
+        StepVerifier.create(cache.findTypeLoan(typeId)).expectNext(type).verifyComplete();
+
+        verify(typeRepository, times(2)).findAll();
+        assertThat(registry.get("reference.data.cache.reloads").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void loadFinishingAfterAnInvalidation_keepsTheNewerLoadInFlight() {
+        Sinks.Empty<Void> firstGate = Sinks.empty();
+        Sinks.Empty<Void> secondGate = Sinks.empty();
+        when(typeRepository.findAll()).thenReturn(
+                firstGate.asMono().thenMany(Flux.just(typeEntity)),
+                secondGate.asMono().thenMany(Flux.just(typeEntity)));
+        when(stateRepository.findAll()).thenReturn(Flux.just(pendingEntity));
+
+        var stale = cache.findTypeLoan(typeId).toFuture();
+        cache.invalidate("test");
+        var fresh = cache.findTypeLoan(typeId).toFuture();
+        firstGate.tryEmitEmpty();
+        // la carga vieja ya terminó: este miss se une a la que sigue en vuelo
+        var joined = cache.findTypeLoan(typeId).toFuture();
+        secondGate.tryEmitEmpty();
+
+        assertThat(stale.join()).isEqualTo(type);
+        assertThat(fresh.join()).isEqualTo(type);
+        assertThat(joined.join()).isEqualTo(type);
+        verify(typeRepository, times(2)).findAll();
+    }
+}
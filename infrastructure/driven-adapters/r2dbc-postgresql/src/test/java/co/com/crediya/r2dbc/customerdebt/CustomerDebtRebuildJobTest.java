@@ -0,0 +1,98 @@
+package co.com.crediya.r2dbc.customerdebt;
+
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.model.tx.gateway.TxRunner;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerDebtRebuildJobTest {
+
+    @Mock CustomerDebtRepositoryAdapter repository;
+    @Mock TxRunner txRunner;
+    @Mock LoanShardRouter shards;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(txRunner.required(anyString(), any())).thenAnswer(inv -> ((Supplier<Mono<?>>) inv.getArgument(1)).get());
+    }
+
+    @Test
+    void rebuild_runsInsideTransaction_andCountsCorrections() {
+        var job = new CustomerDebtRebuildJob(repository, txRunner, new CustomerDebtProperties(null, null), shards, registry);
+        when(repository.rebuild()).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(job.rebuild()).expectNext(3L).verifyComplete();
+
+        verify(txRunner).required(eq("CustomerDebtRebuildJob.rebuild"), any());
+        assertThat(registry.get("customer.debt.rebuild.corrected").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void rebuild_withShards_runsOnThePrimaryAndEveryShard() {
+        var job = new CustomerDebtRebuildJob(repository, txRunner, new CustomerDebtProperties(null, null), shards, registry);
+        when(shards.isEnabled()).thenReturn(true);
+        when(shards.shards()).thenReturn(List.of("shard-0", "shard-1"));
+        when(txRunner.required(anyString(), any(TxRoute.class), any()))
+                .thenAnswer(inv -> ((Supplier<Mono<?>>) inv.getArgument(2)).get());
+        when(repository.rebuild()).thenReturn(Mono.just(1L), Mono.just(2L), Mono.just(3L));
+
+        StepVerifier.create(job.rebuild()).expectNext(6L).verifyComplete();
+
+        for (String route : List.of("primary", "shard-0", "shard-1")) {
+            verify(txRunner).required(eq("CustomerDebtRebuildJob.rebuild"), eq(TxRoute.partition(route)), any());
+        }
+        assertThat(registry.get("customer.debt.rebuild.corrected").counter().count()).isEqualTo(6.0);
+    }
+
+    @Test
+    void start_withDefaults_doesNotRebuild() {
+        var job = new CustomerDebtRebuildJob(repository, txRunner, new CustomerDebtProperties(null, null), shards, registry);
+
+        job.start();
+        job.destroy();
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void start_onStartup_rebuildsOnce_andSurvivesFailures() {
+        var job = new CustomerDebtRebuildJob(repository, txRunner,
+                new CustomerDebtProperties(true, null), shards, registry);
+        when(repository.rebuild()).thenReturn(Mono.error(new RuntimeException("db down")));
+
+        job.start();
+
+        verify(repository, timeout(1000)).rebuild();
+        job.destroy();
+    }
+
+    @Test
+    void start_withInterval_rebuildsPeriodically() {
+        var job = new CustomerDebtRebuildJob(repository, txRunner,
+                new CustomerDebtProperties(true, Duration.ofMillis(20)), shards, registry);
+        when(repository.rebuild()).thenReturn(Mono.just(0L));
+
+        job.start();
+
+        verify(repository, timeout(1000).atLeast(2)).rebuild();
+        job.destroy();
+    }
+}
@@ -0,0 +1,81 @@
+package co.com.crediya.r2dbc.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    @Test
+    void next_setsVersionVariantAndTimestamp() {
+        // por delante de todo lo emitido antes en el proceso, el estado es estático
+        long millis = UuidV7.epochMillis(UuidV7.next()) + 60_000;
+
+        UUID id = UuidV7.next(millis);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(UuidV7.epochMillis(id)).isEqualTo(millis);
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_evenWhenTheCounterOverflowsWithinAMillisecond() {
+        long millis = UuidV7.epochMillis(UuidV7.next()) + 60_000;
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7.next(millis));
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+        // 4096 por milisegundo: el resto toma prestados los siguientes
+        assertThat(UuidV7.epochMillis(ids.get(ids.size() - 1))).isEqualTo(millis + 2);
+    }
+
+    @Test
+    void next_fromManyThreads_isUniqueAndIncreasingPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> increasing = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                increasing.add(pool.submit(() -> {
+                    start.await();
+                    UUID previous = null;
+                    boolean ordered = true;
+                    for (int i = 0; i < perThread; i++) {
+                        UUID id = UuidV7.next();
+                        ordered &= previous == null || id.compareTo(previous) > 0;
+                        all.add(id);
+                        previous = id;
+                    }
+                    return ordered;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : increasing) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(all).hasSize(threads * perThread);
+        assertThat(Collections.max(all, UUID::compareTo).version()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,54 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeStateRowTest {
+
+    private final UUID loanId = UUID.randomUUID();
+
+    private static ChangeStateRow notUpdated(boolean loanFound, boolean stateFound) {
+        return new ChangeStateRow(null, null, null, null, null, null, null, null, null, null,
+                loanFound, stateFound);
+    }
+
+    @Test
+    void requireUpdated_whenUpdated_returnsEntityWithNewState() {
+        var newState = UUID.randomUUID();
+        var row = new ChangeStateRow(loanId, new BigDecimal("2500.00"), 18, "u@e.com", newState, UUID.randomUUID(),
+                UUID.randomUUID(), "PENDING_REVIEW", "APPROVED", "Libre Inversión", true, true);
+
+        var entity = row.requireUpdated(loanId);
+
+        assertThat(entity.getId()).isEqualTo(loanId);
+        assertThat(entity.getStateLoanId()).isEqualTo(newState);
+    }
+
+    @Test
+    void requireUpdated_whenLoanMissing_throwsLoanNotFound() {
+        assertThatThrownBy(() -> notUpdated(false, true).requireUpdated(loanId))
+                .isInstanceOf(DomainNotFoundException.class)
+                .hasMessage("LOAN_NOT_FOUND");
+    }
+
+    @Test
+    void requireUpdated_whenStateMissing_throwsStateNotFound() {
+        assertThatThrownBy(() -> notUpdated(true, false).requireUpdated(loanId))
+                .isInstanceOf(DomainNotFoundException.class)
+                .hasMessage("STATE_LOAN_NOT_FOUND");
+    }
+
+    @Test
+    void requireUpdated_whenStateChangedConcurrently_throwsConflict() {
+        assertThatThrownBy(() -> notUpdated(true, true).requireUpdated(loanId))
+                .isInstanceOf(DomainConflictException.class)
+                .hasMessageStartingWith("LOAN_STATUS_CONFLICT:");
+    }
+}
@@ -0,0 +1,58 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CreateLoanRowTest {
+
+    private static final BigDecimal MIN = new BigDecimal("1000.00");
+    private static final BigDecimal MAX = new BigDecimal("5000.00");
+
+    private static CreateLoanRow notInserted(boolean typeFound, boolean stateFound) {
+        return new CreateLoanRow(null, null, null, null, null, null,
+                typeFound, stateFound, false, typeFound ? MIN : null, typeFound ? MAX : null);
+    }
+
+    @Test
+    void requireInserted_whenInserted_returnsEntity() {
+        var id = UUID.randomUUID();
+        var stateId = UUID.randomUUID();
+        var typeId = UUID.randomUUID();
+        var row = new CreateLoanRow(id, new BigDecimal("3000.00"), 12, "ok@example.com", stateId, typeId,
+                true, true, true, MIN, MAX);
+
+        var entity = row.requireInserted("PENDING_REVIEW");
+
+        assertThat(entity.getId()).isEqualTo(id);
+        assertThat(entity.getStateLoanId()).isEqualTo(stateId);
+        assertThat(entity.getTypeLoanId()).isEqualTo(typeId);
+    }
+
+    @Test
+    void requireInserted_whenTypeMissing_throwsTypeNotFound() {
+        assertThatThrownBy(() -> notInserted(false, true).requireInserted("PENDING_REVIEW"))
+                .isInstanceOf(DomainNotFoundException.class)
+                .hasMessage("TYPE_LOAN_NOT_FOUND");
+    }
+
+    @Test
+    void requireInserted_whenStateMissing_throwsStateNotFound() {
+        assertThatThrownBy(() -> notInserted(true, false).requireInserted("PENDING_REVIEW"))
+                .isInstanceOf(DomainNotFoundException.class)
+                .hasMessage("STATE_PENDING_REVIEW_NOT_FOUND");
+    }
+
+    @Test
+    void requireInserted_whenAmountOutOfRange_throwsValidation() {
+        assertThatThrownBy(() -> notInserted(true, true).requireInserted("PENDING_REVIEW"))
+                .isInstanceOf(DomainValidationException.class)
+                .hasMessage("AMOUNT_OUT_OF_RANGE:Amount must be between 1000.00 and 5000.00");
+    }
+}
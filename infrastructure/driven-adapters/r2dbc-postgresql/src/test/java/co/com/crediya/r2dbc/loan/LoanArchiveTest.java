@@ -0,0 +1,144 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.r2dbc.customerdebt.CustomerDebtRepositoryAdapter;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.loanarchive.LoanArchiveJob;
+import co.com.crediya.r2dbc.loanarchive.LoanArchiveProperties;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Una pasada de {@link LoanArchiveJob} sobre los datos sintéticos: los terminales viejos pasan a
+ * loan_archive sin cambiar lo que se ve de ellos (deuda aprobada, GET por id) y las particiones que
+ * quedan vacías se borran.
+ */
+class LoanArchiveTest extends LoanQueryPlanTestSupport {
+
+    private static final Duration RETENTION = Duration.ofDays(90);
+    private static final String CUSTOMER = "user42@mail42.com";
+
+    private static LoanArchiveJob job;
+    private static LoanReactiveRepository repository;
+    private static UUID approvedState;
+    private static UUID archivedId;
+    private static long approvedBefore;
+    private static long reviewBefore;
+    private static long archived;
+
+    @BeforeAll
+    static void archiveOnce() {
+        job = new LoanArchiveJob(client, new LoanArchiveProperties(true, RETENTION, 5_000, null, null),
+                mock(LoanShardRouter.class), new SimpleMeterRegistry());
+        repository = new R2dbcRepositoryFactory(new R2dbcEntityTemplate(factory)).getRepository(LoanReactiveRepository.class);
+        approvedState = client.sql("SELECT id FROM loan_state WHERE name = 'APPROVED'")
+                .map((row, meta) -> row.get("id", UUID.class)).one().block();
+
+        // un mes viejo con un único préstamo terminal: tiene que quedar vacío y desaparecer
+        run("""
+                SELECT ensure_loan_partitions('2020-01-01T00:00:00Z', '2020-01-31T00:00:00Z');
+                INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan, created_at)
+                SELECT 1000, 12, 'ancient@mail.com', ls.id, lt.id, '2020-01-15T00:00:00Z'
+                FROM loan_state ls, loan_type lt
+                WHERE ls.name = 'REJECTED' AND lt.name = 'SYNTHETIC-1'""");
+
+        archivedId = client.sql("""
+                        SELECT id FROM loan
+                        WHERE id_state_loan = :approved AND created_at < now() - interval '100 days'
+                        LIMIT 1""")
+                .bind("approved", approvedState)
+                .map((row, meta) -> row.get("id", UUID.class)).one().block();
+        approvedBefore = repository.findByEmailAndStatus(CUSTOMER, "APPROVED").count().block();
+        reviewBefore = countLoans("ls.name IN ('PENDING_REVIEW', 'MANUAL_REVIEW')");
+
+        archived = job.run().block();
+    }
+
+    private static long countLoans(String condition) {
+        return client.sql("SELECT count(*) FROM loan l JOIN loan_state ls ON ls.id = l.id_state_loan WHERE " + condition)
+                .map((row, meta) -> row.get(0, Long.class)).one().block();
+    }
+
+    private static boolean tableExists(String name) {
+        return client.sql("SELECT to_regclass(:name) IS NOT NULL AS present")
+                .bind("name", name)
+                .map((row, meta) -> row.get("present", Boolean.class)).one().block();
+    }
+
+    private static String partitionOf(OffsetDateTime createdAt) {
+        return "loan_p" + createdAt.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+
+    @Test
+    void terminalLoansPastRetention_moveToTheArchive() {
+        long inArchive = client.sql("SELECT count(*) FROM loan_archive")
+                .map((row, meta) -> row.get(0, Long.class)).one().block();
+
+        assertThat(archived).isPositive().isEqualTo(inArchive);
+        // state_code viaja con la fila: la deuda aprobada filtra por él también en el archivo
+        assertThat(client.sql("SELECT count(*) FROM loan_archive WHERE state_code IS NULL")
+                .map((row, meta) -> row.get(0, Long.class)).one().block()).isZero();
+        assertThat(countLoans("ls.name IN ('APPROVED', 'REJECTED') AND l.created_at < now() - interval '90 days'"))
+                .isZero();
+        assertThat(countLoans("ls.name IN ('APPROVED', 'REJECTED') AND l.created_at > now() - interval '89 days'"))
+                .isPositive();
+        assertThat(countLoans("ls.name IN ('PENDING_REVIEW', 'MANUAL_REVIEW')")).isEqualTo(reviewBefore);
+    }
+
+    @Test
+    void emptiedPartitions_areDropped_andFutureOnesExist() {
+        assertThat(tableExists("loan_p202001")).isFalse();
+        assertThat(tableExists(partitionOf(OffsetDateTime.now(ZoneOffset.UTC).plusMonths(3)))).isTrue();
+        // las viejas con préstamos en revisión siguen ahí
+        assertThat(tableExists(partitionOf(OffsetDateTime.now(ZoneOffset.UTC).minusDays(120)))).isTrue();
+    }
+
+    @Test
+    void approvedDebtLookup_includesArchivedLoans() {
+        assertThat(repository.findByEmailAndStatus(CUSTOMER, "APPROVED").count().block())
+                .isEqualTo(approvedBefore);
+    }
+
+    @Test
+    void customerDebtRebuild_findsNothingToCorrect() {
+        var rebuild = new CustomerDebtRepositoryAdapter(client, mock(LoanShardRouter.class)).rebuild();
+
+        assertThat(TransactionalOperator.create(new R2dbcTransactionManager(factory)).transactional(rebuild).block())
+                .isZero();
+    }
+
+    @Test
+    void findById_fallsBackToTheArchive() {
+        var entityMapper = mock(LoanEntityMapper.class);
+        when(entityMapper.toDomain(argThat((LoanEntity e) -> e != null && archivedId.equals(e.getId()))))
+                .thenReturn(mock(Loan.class));
+        var adapter = new LoanReactiveRepositoryAdapter(repository, mock(ObjectMapper.class), entityMapper, client,
+                mock(CustomerGateway.class), mock(ManualReviewCountEstimator.class), new LoanStreamProperties(null),
+                mock(LoanShardRouter.class));
+
+        assertThat(adapter.findById(archivedId).block()).isNotNull();
+        verify(entityMapper).toDomain(argThat((LoanEntity e) -> archivedId.equals(e.getId())
+                && approvedState.equals(e.getStateLoanId())));
+    }
+}
@@ -0,0 +1,82 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.loan.BulkLoanItem;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Ejecuta el INSERT multi-fila de la carga masiva contra Postgres real. */
+class LoanBatchInsertTest extends LoanQueryPlanTestSupport {
+
+    private LoanReactiveRepositoryAdapter adapter;
+    private String typeId;
+
+    @BeforeEach
+    void setUp() {
+        var entityMapper = mock(LoanEntityMapper.class);
+        when(entityMapper.toDomain(any())).thenAnswer(inv -> {
+            LoanEntity e = inv.getArgument(0);
+            return new Loan(e.getId().toString(), new Money(e.getAmount()), new TermMonths(e.getTermMonths()),
+                    new Email(e.getEmail()), e.getStateLoanId().toString(), e.getTypeLoanId().toString());
+        });
+        adapter = new LoanReactiveRepositoryAdapter(mock(LoanReactiveRepository.class), mock(ObjectMapper.class),
+                entityMapper, client, mock(CustomerGateway.class), mock(ManualReviewCountEstimator.class),
+                new LoanStreamProperties(null), mock(LoanShardRouter.class));
+        // tipo sintético del seed: rango 0..100000
+        typeId = client.sql("SELECT id FROM loan_type WHERE name = 'SYNTHETIC-1'")
+                .map((row, meta) -> row.get("id", UUID.class).toString())
+                .one()
+                .block();
+    }
+
+    private static BulkLoanItem item(long line, String amount, String typeId) {
+        return BulkLoanItem.requested(line, new Loan(null, new Money(new BigDecimal(amount)), new TermMonths(12),
+                new Email("bulk" + line + "@mail.com"), null, typeId));
+    }
+
+    @Test
+    void createValidatedBatch_insertsValidLines_andExplainsEachRejection() {
+        var items = List.of(
+                item(1, "3000", typeId),
+                item(2, "500000", typeId),
+                item(3, "3000", UUID.randomUUID().toString()),
+                item(4, "1500", typeId));
+
+        StepVerifier.create(adapter.createValidatedBatch(items, "PENDING_REVIEW"))
+                .assertNext(r -> assertThat(r.loan().email().value()).isEqualTo("bulk1@mail.com"))
+                .assertNext(r -> assertThat(r.error()).hasMessageStartingWith("AMOUNT_OUT_OF_RANGE"))
+                .assertNext(r -> assertThat(r.error()).hasMessage("TYPE_LOAN_NOT_FOUND"))
+                .assertNext(r -> assertThat(r).returns(4L, BulkLoanItem::line).returns(false, BulkLoanItem::isRejected))
+                .verifyComplete();
+
+        assertThat(client.sql("SELECT count(*) FROM loan WHERE email LIKE 'bulk%@mail.com'")
+                .map((row, meta) -> row.get(0, Long.class))
+                .one()
+                .block()).isEqualTo(2L);
+    }
+
+    @Test
+    void createValidatedBatch_whenStateMissing_rejectsEveryLine() {
+        StepVerifier.create(adapter.createValidatedBatch(List.of(item(10, "3000", typeId)), "NOT_A_STATE"))
+                .assertNext(r -> assertThat(r.error()).hasMessage("STATE_NOT_A_STATE_NOT_FOUND"))
+                .verifyComplete();
+    }
+}
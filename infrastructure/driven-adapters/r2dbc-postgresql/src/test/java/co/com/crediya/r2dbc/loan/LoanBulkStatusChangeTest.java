@@ -0,0 +1,91 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.LoanTransitionResult;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Ejecuta el UPDATE en lote del cambio de estado masivo contra Postgres real. */
+class LoanBulkStatusChangeTest extends LoanQueryPlanTestSupport {
+
+    private LoanReactiveRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        var entityMapper = mock(LoanEntityMapper.class);
+        when(entityMapper.toDomain(any())).thenAnswer(inv -> {
+            LoanEntity e = inv.getArgument(0);
+            return new Loan(e.getId().toString(), new Money(e.getAmount()), new TermMonths(e.getTermMonths()),
+                    new Email(e.getEmail()), e.getStateLoanId().toString(), e.getTypeLoanId().toString());
+        });
+        adapter = new LoanReactiveRepositoryAdapter(mock(LoanReactiveRepository.class), mock(ObjectMapper.class),
+                entityMapper, client, mock(CustomerGateway.class), mock(ManualReviewCountEstimator.class),
+                new LoanStreamProperties(null), mock(LoanShardRouter.class));
+    }
+
+    private static UUID pendingLoan(String email) {
+        return client.sql("""
+                        INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan)
+                        SELECT 3000, 12, :email,
+                               (SELECT id FROM loan_state WHERE name = 'PENDING_REVIEW'),
+                               (SELECT id FROM loan_type WHERE name = 'SYNTHETIC-1')
+                        RETURNING id
+                        """)
+                .bind("email", email)
+                .map((row, meta) -> row.get("id", UUID.class))
+                .one()
+                .block();
+    }
+
+    @Test
+    void changeStateBatch_updatesFoundLoans_andKeepsRequestOrder() {
+        var first = pendingLoan("status1@mail.com");
+        var second = pendingLoan("status2@mail.com");
+        var missing = UUID.randomUUID();
+
+        StepVerifier.create(adapter.changeStateBatch(List.of(second, missing, first), null, "MANUAL_REVIEW"))
+                .assertNext(r -> assertThat(r).returns(second, LoanTransitionResult::loanId)
+                        .returns("PENDING_REVIEW", t -> t.transition().previousStateName())
+                        .returns("MANUAL_REVIEW", t -> t.transition().stateName()))
+                .assertNext(r -> assertThat(r).returns(missing, LoanTransitionResult::loanId)
+                        .extracting(LoanTransitionResult::error).isInstanceOf(DomainNotFoundException.class))
+                .assertNext(r -> assertThat(r).returns(first, LoanTransitionResult::loanId)
+                        .returns(false, LoanTransitionResult::isFailed))
+                .verifyComplete();
+
+        assertThat(client.sql("""
+                        SELECT count(*) FROM loan l JOIN loan_state ls ON ls.id = l.id_state_loan
+                        WHERE l.email LIKE 'status%@mail.com' AND ls.name = 'MANUAL_REVIEW'
+                        """)
+                .map((row, meta) -> row.get(0, Long.class))
+                .one()
+                .block()).isEqualTo(2L);
+    }
+
+    @Test
+    void changeStateBatch_whenStateMissing_failsEveryItem() {
+        var loanId = pendingLoan("status3@mail.com");
+
+        StepVerifier.create(adapter.changeStateBatch(List.of(loanId), null, "NOT_A_STATE"))
+                .assertNext(r -> assertThat(r.error()).hasMessage("STATE_LOAN_NOT_FOUND"))
+                .verifyComplete();
+    }
+}
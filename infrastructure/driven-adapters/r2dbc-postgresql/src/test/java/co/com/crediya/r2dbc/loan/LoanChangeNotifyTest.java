@@ -0,0 +1,73 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.r2dbc.cache.CacheInvalidationListener;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Payloads del trigger V10 que consume {@link CacheInvalidationListener}. */
+class LoanChangeNotifyTest extends LoanQueryPlanTestSupport {
+
+    /** Escucha el canal y ejecuta {@code change} ya suscrito, para no perder el NOTIFY. */
+    private static Flux<Notification> notificationsDuring(String change) {
+        return Flux.usingWhen(
+                ((PostgresqlConnectionFactory) factory).create(),
+                connection -> connection.createStatement("LISTEN " + CacheInvalidationListener.LOAN_CHANNEL)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        // primero la suscripción a las notificaciones, después el cambio
+                        .thenMany(Flux.merge(connection.getNotifications(),
+                                Mono.<Notification>fromRunnable(() -> run(change))
+                                        .subscribeOn(Schedulers.boundedElastic()))),
+                PostgresqlConnection::close);
+    }
+
+    private static List<UUID> loanIds(int limit) {
+        return client.sql("SELECT id FROM loan ORDER BY created_at DESC, id LIMIT " + limit)
+                .map((row, meta) -> row.get("id", UUID.class))
+                .all()
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void statusUpdate_notifiesChangedIds_onCommit() {
+        var ids = loanIds(2);
+        var update = "UPDATE loan SET id_state_loan = id_state_loan WHERE id IN ('%s', '%s')"
+                .formatted(ids.get(0), ids.get(1));
+
+        StepVerifier.create(notificationsDuring(update).take(1))
+                .assertNext(notification -> assertThat(notification.getParameter().split(","))
+                        .containsExactlyInAnyOrder(ids.get(0).toString(), ids.get(1).toString()))
+                .verifyComplete();
+    }
+
+    @Test
+    void largeUpdate_notifiesInvalidateAll() {
+        var update = "UPDATE loan SET id_state_loan = id_state_loan WHERE id IN (SELECT id FROM loan LIMIT 500)";
+
+        StepVerifier.create(notificationsDuring(update).take(1))
+                .assertNext(notification -> assertThat(notification.getParameter()).isEqualTo("*"))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateMatchingNoRows_doesNotNotify() {
+        var update = "UPDATE loan SET amount = amount WHERE id = '" + UUID.randomUUID() + "'";
+
+        StepVerifier.create(notificationsDuring(update).take(Duration.ofMillis(500)))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,93 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.r2dbc.helper.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mismo volumen de inserts con ids v4 (UUID.randomUUID) y v7 ({@link UuidV7}) en dos tablas con PK
+ * uuid: tiempo, WAL generado y tamaño / densidad de hojas del índice de la PK (pgstatindex). El tiempo
+ * y el WAL solo se registran; el índice, que no depende de la máquina, se compara.
+ */
+@Slf4j
+class LoanIdIndexBenchmarkTest extends LoanQueryPlanTestSupport {
+
+    private static final int ROWS = 200_000;
+    private static final int CHUNK = 5_000;
+
+    private static Result v4;
+    private static Result v7;
+
+    @BeforeAll
+    static void insertBoth() {
+        run("""
+                CREATE EXTENSION IF NOT EXISTS pgstattuple;
+                CREATE TABLE id_bench_v4 (id UUID PRIMARY KEY, payload INTEGER NOT NULL);
+                CREATE TABLE id_bench_v7 (id UUID PRIMARY KEY, payload INTEGER NOT NULL);""");
+        v4 = insert("id_bench_v4", UUID::randomUUID);
+        v7 = insert("id_bench_v7", UuidV7::next);
+        log.info("v4: {}", v4);
+        log.info("v7: {}", v7);
+    }
+
+    private static Result insert(String table, Supplier<UUID> ids) {
+        // tras el CHECKPOINT la primera escritura de cada página va completa al WAL: ahí pesa la dispersión
+        run("CHECKPOINT");
+        String before = scalar("SELECT pg_current_wal_insert_lsn()::text", String.class);
+        long start = System.nanoTime();
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            UUID[] chunk = IntStream.range(0, CHUNK).mapToObj(i -> ids.get()).toArray(UUID[]::new);
+            Integer[] payloads = IntStream.range(offset, offset + CHUNK).boxed().toArray(Integer[]::new);
+            client.sql("INSERT INTO " + table + " (id, payload) "
+                            + "SELECT * FROM unnest(CAST(:ids AS uuid[]), CAST(:payloads AS integer[]))")
+                    .bind("ids", chunk)
+                    .bind("payloads", payloads)
+                    .then()
+                    .block();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long wal = client.sql("SELECT pg_wal_lsn_diff(pg_current_wal_insert_lsn(), CAST(:before AS pg_lsn))::bigint")
+                .bind("before", before)
+                .map((row, meta) -> row.get(0, Long.class))
+                .one()
+                .block();
+        String index = table + "_pkey";
+        return new Result(millis, ROWS * 1000L / Math.max(millis, 1), wal,
+                scalar("SELECT pg_relation_size('" + index + "')", Long.class),
+                scalar("SELECT avg_leaf_density FROM pgstatindex('" + index + "')", Double.class));
+    }
+
+    private static <T> T scalar(String sql, Class<T> type) {
+        return client.sql(sql).map((row, meta) -> row.get(0, type)).one().block();
+    }
+
+    @Test
+    void v7_keepsThePrimaryKeyIndexSmallerAndDenser() {
+        assertThat(v7.indexBytes()).isLessThan(v4.indexBytes());
+        assertThat(v7.leafDensity()).isGreaterThan(v4.leafDensity());
+    }
+
+    @Test
+    void loanWithoutId_getsAUuidV7FromTheDefault() {
+        run("""
+                INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan)
+                SELECT 1000, 12, 'default-id@mail.com', ls.id, lt.id
+                FROM loan_state ls, loan_type lt
+                WHERE ls.name = 'PENDING_REVIEW' AND lt.name = 'SYNTHETIC-1'""");
+
+        UUID id = scalar("SELECT id FROM loan WHERE email = 'default-id@mail.com'", UUID.class);
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(Math.abs(UuidV7.epochMillis(id) - System.currentTimeMillis())).isLessThan(60_000);
+    }
+
+    private record Result(long millis, long rowsPerSecond, long walBytes, long indexBytes, double leafDensity) {
+    }
+}
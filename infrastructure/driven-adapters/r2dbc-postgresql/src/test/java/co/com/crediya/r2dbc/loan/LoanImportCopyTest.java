@@ -0,0 +1,169 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.loanimport.LoanImportJobRunner;
+import co.com.crediya.r2dbc.loanimport.LoanImportProperties;
+import co.com.crediya.r2dbc.loanimport.LoanImportRepositoryAdapter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** COPY a staging, validación y merge contra Postgres real. */
+class LoanImportCopyTest extends LoanQueryPlanTestSupport {
+
+    private static final String HEADER = "id,amount,term_months,email,state,type,created_at\n";
+
+    private LoanImportRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new LoanImportRepositoryAdapter(client, new PostgresqlConnectionProperties(POSTGRES.getHost(),
+                POSTGRES.getFirstMappedPort(), POSTGRES.getDatabaseName(), "public", POSTGRES.getUsername(),
+                POSTGRES.getPassword()), mock(LoanShardRouter.class));
+    }
+
+    /** El CSV partido en trozos de pocos bytes, cortando líneas a la mitad como llega por HTTP. */
+    private static Flux<ByteBuffer> chunked(String csv) {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + 16) / 17)
+                .map(i -> ByteBuffer.wrap(bytes, i * 17, Math.min(17, bytes.length - i * 17)));
+    }
+
+    private static Long scalar(String sql) {
+        return client.sql(sql).map(row -> row.get(0, Long.class)).one().block();
+    }
+
+    @Test
+    void importsValidRows_reportsTheRest_andUpdatesTheDebtLedger() {
+        String email = "import-" + UUID.randomUUID() + "@mail.com";
+        String id = UUID.randomUUID().toString();
+        String csv = HEADER
+                + id + ",1500.50,12," + email + ",APPROVED,SYNTHETIC-1,2024-01-15T10:00:00Z\n"
+                + ",800,6," + email + ",pending_review,SYNTHETIC-2,\n"
+                + ",abc,6," + email + ",APPROVED,SYNTHETIC-1,\n"
+                + ",800,6," + email + ",APPROVED,NOPE,\n"
+                + id + ",900,6," + email + ",APPROVED,SYNTHETIC-1,\n"
+                + ",200000,6," + email + ",APPROVED,SYNTHETIC-1,\n"
+                + ",800,6," + email + ",APPROVED,SYNTHETIC-1,yesterday\n"
+                + ",800,6,\"not an email\",APPROVED,SYNTHETIC-1,\n";
+
+        var job = adapter.create("admin@mail.com", false).block();
+        assertThat(job.status()).isEqualTo(LoanImportStatus.STAGING);
+
+        StepVerifier.create(adapter.stage(job.id(), chunked(csv))).expectNext(8L).verifyComplete();
+        StepVerifier.create(adapter.validate(job.id())).expectNext(6L).verifyComplete();
+        StepVerifier.create(adapter.merge(job.id())).expectNext(2L).verifyComplete();
+
+        StepVerifier.create(adapter.findRejections(job.id()).map(LoanImportRejection::reason))
+                .expectNext("INVALID_AMOUNT", "UNKNOWN_LOAN_TYPE", "DUPLICATE_ID", "AMOUNT_OUT_OF_RANGE",
+                        "INVALID_CREATED_AT", "INVALID_EMAIL")
+                .verifyComplete();
+        StepVerifier.create(adapter.findById(job.id()))
+                .assertNext(progress -> {
+                    assertThat(progress.stagedRows()).isEqualTo(8);
+                    assertThat(progress.rejectedRows()).isEqualTo(6);
+                    assertThat(progress.importedRows()).isEqualTo(2);
+                })
+                .verifyComplete();
+
+        assertThat(scalar("SELECT count(*) FROM loan WHERE email = '" + email + "'")).isEqualTo(2);
+        assertThat(scalar("SELECT extract(epoch FROM created_at)::bigint FROM loan WHERE id = '" + id + "'"))
+                .isEqualTo(1705312800L);
+        assertThat(scalar("SELECT approved_loans::bigint FROM customer_debt WHERE email = '" + email + "'"))
+                .isEqualTo(1);
+
+        StepVerifier.create(adapter.dropStaging(job.id())).verifyComplete();
+        assertThat(client.sql("SELECT to_regclass('loan_import_staging_" + job.id().replace("-", "") + "')::text")
+                .map(row -> Optional.ofNullable(row.get(0, String.class)))
+                .one()
+                .block()).isEmpty();
+    }
+
+    @Test
+    void reimportingTheSameFile_rejectsRowsWhoseIdAlreadyExists() {
+        String id = UUID.randomUUID().toString();
+        String csv = HEADER + id + ",1000,12,again@mail.com,REJECTED,SYNTHETIC-3,\n";
+
+        var first = adapter.create(null, false).block();
+        adapter.stage(first.id(), chunked(csv)).block();
+        adapter.validate(first.id()).block();
+        assertThat(adapter.merge(first.id()).block()).isEqualTo(1);
+
+        var second = adapter.create(null, false).block();
+        adapter.stage(second.id(), chunked(csv)).block();
+        StepVerifier.create(adapter.validate(second.id())).expectNext(1L).verifyComplete();
+        StepVerifier.create(adapter.merge(second.id())).expectNext(0L).verifyComplete();
+        StepVerifier.create(adapter.findRejections(second.id()))
+                .expectNextMatches(r -> r.line() == 1 && r.reason().equals("LOAN_ALREADY_EXISTS")
+                        && r.row().startsWith(id + ",1000,12,again@mail.com"))
+                .verifyComplete();
+    }
+
+    @Test
+    void structurallyBrokenCsv_failsTheCopy() {
+        var job = adapter.create(null, false).block();
+
+        StepVerifier.create(adapter.stage(job.id(), chunked(HEADER + ",1000,12,a@mail.com,APPROVED,SYNTHETIC-1,,extra\n")))
+                .expectErrorSatisfies(e -> assertThat(e).hasMessageContaining("extra data after last expected column"))
+                .verify();
+    }
+
+    @Test
+    void withShards_refusesTheImport_beforeCreatingTheJob() {
+        var shards = mock(LoanShardRouter.class);
+        when(shards.isEnabled()).thenReturn(true);
+        var sharded = new LoanImportRepositoryAdapter(client, new PostgresqlConnectionProperties(POSTGRES.getHost(),
+                POSTGRES.getFirstMappedPort(), POSTGRES.getDatabaseName(), "public", POSTGRES.getUsername(),
+                POSTGRES.getPassword()), shards);
+        long jobs = scalar("SELECT count(*) FROM loan_import_job");
+
+        StepVerifier.create(sharded.create(null, false))
+                .expectErrorSatisfies(e -> assertThat(e).isInstanceOf(DomainConflictException.class)
+                        .hasMessageStartingWith("LOAN_IMPORT_UNAVAILABLE:"))
+                .verify();
+
+        assertThat(scalar("SELECT count(*) FROM loan_import_job")).isEqualTo(jobs);
+    }
+
+    @Test
+    void expiredJobs_areFailed_andTheirStagingDropped_freshOnesAreLeftAlone() {
+        var orphan = adapter.create(null, false).block();
+        var alive = adapter.create(null, false).block();
+        // la instancia del huérfano dejó de renovar su lease hace una hora
+        client.sql("UPDATE loan_import_job SET updated_at = now() - interval '1 hour' WHERE id = :id")
+                .bind("id", UUID.fromString(orphan.id()))
+                .then()
+                .block();
+        var runner = new LoanImportJobRunner(adapter, new LoanImportProperties(null, null, null, Duration.ofMinutes(3)));
+
+        StepVerifier.create(runner.recoverExpired()).expectNextMatches(reclaimed -> reclaimed >= 1).verifyComplete();
+
+        assertThat(adapter.findById(orphan.id()).block().status()).isEqualTo(LoanImportStatus.FAILED);
+        assertThat(adapter.findById(alive.id()).block().status()).isEqualTo(LoanImportStatus.STAGING);
+        assertThat(stagingExists(orphan.id())).isFalse();
+        assertThat(stagingExists(alive.id())).isTrue();
+    }
+
+    private static boolean stagingExists(String jobId) {
+        return client.sql("SELECT to_regclass(:name) IS NOT NULL AS present")
+                .bind("name", "loan_import_staging_" + jobId.replace("-", ""))
+                .map(row -> row.get("present", Boolean.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,113 @@
+package co.com.crediya.r2dbc.loan;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un EXPLAIN por cada @Query de {@link LoanReactiveRepository} sobre datos sintéticos: falla si el plan
+ * vuelve a recorrer completa alguna partición de loan con datos. Si se agrega una @Query nueva hay que
+ * sumarla aquí.
+ */
+class LoanQueryPlanTest extends LoanQueryPlanTestSupport {
+
+    private static final String[] REVIEW_STATUSES = {"PENDING_REVIEW", "REJECTED", "MANUAL_REVIEW"};
+    private static final String[] MANUAL_ONLY = {"MANUAL_REVIEW"};
+
+    @Test
+    void everyQueryHasAPlanCheck() {
+        Set<String> queries = Arrays.stream(LoanReactiveRepository.class.getDeclaredMethods())
+                .filter(m -> m.isAnnotationPresent(Query.class))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        assertThat(queries).containsExactlyInAnyOrder(
+                "findForManualReview", "findForManualReviewPage", "findForManualReviewAfter",
+                "countForManualReview", "findByEmailAndStatus");
+    }
+
+    @Test
+    void findForManualReview_firstPage_walksCreatedAtIndex() {
+        String plan = explain(queryOf("findForManualReview"), spec -> filters(spec, REVIEW_STATUSES)
+                .bind("offset", 0L)
+                .bind("limit", 20));
+
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    @Test
+    void findForManualReviewPage_usesStateIndex() {
+        String plan = explain(queryOf("findForManualReviewPage"), spec -> filters(spec, MANUAL_ONLY)
+                .bind("offset", 0L)
+                .bind("limit", 20));
+
+        assertThat(plan).contains("idx_loan_state_code_created").doesNotContain("on loan_state ");
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    @Test
+    void findForManualReviewAfter_seeksFromCursor() {
+        String plan = explain(queryOf("findForManualReviewAfter"), spec -> filters(spec, REVIEW_STATUSES)
+                .bind("afterCreatedAt", OffsetDateTime.now().minusDays(1))
+                .bind("afterId", UUID.randomUUID())
+                .bind("limit", 21));
+
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    @Test
+    void findForManualReviewAfter_prunesPartitionsNewerThanTheCursor() {
+        OffsetDateTime cursor = OffsetDateTime.now(ZoneOffset.UTC).minusDays(60);
+        String plan = explain(queryOf("findForManualReviewAfter"), spec -> filters(spec, REVIEW_STATUSES)
+                .bind("afterCreatedAt", cursor)
+                .bind("afterId", UUID.randomUUID())
+                .bind("limit", 21));
+
+        assertThat(plan).contains(partitionOf(cursor))
+                .doesNotContain(partitionOf(OffsetDateTime.now(ZoneOffset.UTC)));
+    }
+
+    @Test
+    void countForManualReview_usesStateIndex() {
+        String plan = explain(queryOf("countForManualReview"), spec -> filters(spec, MANUAL_ONLY));
+
+        assertThat(plan).contains("idx_loan_state_code_created").doesNotContain("on loan_state ");
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    @Test
+    void findByEmailAndStatus_usesCompositeEmailStateCodeIndex() {
+        String plan = explain(queryOf("findByEmailAndStatus"), spec -> spec
+                .bind("email", "user42@mail42.com")
+                .bind("status", "APPROVED"));
+
+        assertThat(plan).contains("idx_loan_email_state_code_created").doesNotContain("on loan_state ");
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    private static String partitionOf(OffsetDateTime createdAt) {
+        return "loan_p" + createdAt.withOffsetSameInstant(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec filters(
+            DatabaseClient.GenericExecuteSpec spec, String[] statuses) {
+        return spec.bind("statuses", statuses)
+                .bindNull("contains", String.class)
+                .bindNull("prefix", String.class)
+                .bindNull("typeId", UUID.class)
+                .bindNull("minAmount", BigDecimal.class)
+                .bindNull("maxAmount", BigDecimal.class);
+    }
+}
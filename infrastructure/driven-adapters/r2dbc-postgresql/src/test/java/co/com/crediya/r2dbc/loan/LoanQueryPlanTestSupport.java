@@ -0,0 +1,173 @@
+package co.com.crediya.r2dbc.loan;
+
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Postgres real (Testcontainers) con todas las migraciones y un volumen de préstamos parecido al
+ * de producción, para revisar planes con EXPLAIN. Se omite si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+abstract class LoanQueryPlanTestSupport {
+
+    static final int LOANS = 200_000;
+    static final int CUSTOMERS = 20_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static ConnectionFactory factory;
+    static DatabaseClient client;
+
+    @BeforeAll
+    static void migrateAndSeed() throws IOException {
+        factory = new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+                .host(POSTGRES.getHost())
+                .port(POSTGRES.getFirstMappedPort())
+                .database(POSTGRES.getDatabaseName())
+                .username(POSTGRES.getUsername())
+                .password(POSTGRES.getPassword())
+                .build());
+        client = DatabaseClient.create(factory);
+        migrate(factory);
+
+        // ~70% aprobados, el resto repartido entre los estados del listado de revisión manual
+        run("""
+                INSERT INTO loan_type (name, minimum_amount, maximum_amount, annual_interest_percent)
+                SELECT 'SYNTHETIC-' || t, 0, 100000, 6 + t FROM generate_series(1, 5) t;
+
+                -- loan está particionada por mes (V11): la historia sintética necesita sus particiones
+                SELECT ensure_loan_partitions(now() - %1$d * interval '1 minute', now());
+
+                INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan, created_at)
+                SELECT 1000 + (g %% 5000),
+                       6 + (g %% 48),
+                       'user' || (g %% %2$d) || '@mail' || (g %% 100) || '.com',
+                       CASE WHEN g %% 20 < 14 THEN s.approved
+                            WHEN g %% 20 < 17 THEN s.rejected
+                            WHEN g %% 20 < 19 THEN s.pending
+                            ELSE s.manual END,
+                       s.types[1 + g %% 5],
+                       now() - g * interval '1 minute'
+                FROM generate_series(1, %1$d) g
+                CROSS JOIN (
+                    SELECT (SELECT id FROM loan_state WHERE name = 'APPROVED')       AS approved,
+                           (SELECT id FROM loan_state WHERE name = 'REJECTED')       AS rejected,
+                           (SELECT id FROM loan_state WHERE name = 'PENDING_REVIEW') AS pending,
+                           (SELECT id FROM loan_state WHERE name = 'MANUAL_REVIEW')  AS manual,
+                           (SELECT array_agg(id ORDER BY name) FROM loan_type WHERE name LIKE 'SYNTHETIC-%%') AS types
+                ) s;
+
+                INSERT INTO customer_debt (email, monthly_debt, approved_loans)
+                SELECT l.email, SUM(loan_monthly_payment(l.amount, lt.annual_interest_percent, l.term_months)), COUNT(*)
+                FROM loan l
+                JOIN loan_type  lt ON lt.id = l.id_type_loan
+                JOIN loan_state ls ON ls.id = l.id_state_loan AND ls.name = 'APPROVED'
+                GROUP BY l.email;
+                """.formatted(LOANS, CUSTOMERS));
+        // VACUUM no puede ir en un bloque de varias sentencias; deja el visibility map listo para index-only scans
+        run("VACUUM ANALYZE loan");
+        run("VACUUM ANALYZE customer_debt");
+    }
+
+    /** Texto de la @Query del método de {@link LoanReactiveRepository}. */
+    static String queryOf(String method) {
+        return Arrays.stream(LoanReactiveRepository.class.getMethods())
+                .filter(m -> m.getName().equals(method))
+                .findFirst()
+                .map(m -> m.getAnnotation(Query.class).value())
+                .orElseThrow(() -> new IllegalArgumentException("No @Query for " + method));
+    }
+
+    /**
+     * Particiones de loan con filas que el plan recorre completas. Las vacías no cuentan: el planner
+     * las lee con Seq Scan porque cuestan cero.
+     */
+    static List<String> seqScannedLoanPartitions(String plan) {
+        return client.sql("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'loan'::regclass AND c.reltuples > 0""")
+                .map((row, meta) -> row.get("relname", String.class))
+                .all()
+                .filter(partition -> plan.contains("Seq Scan on " + partition + " "))
+                .collectList()
+                .block();
+    }
+
+    static String explain(String sql, UnaryOperator<DatabaseClient.GenericExecuteSpec> binder) {
+        return binder.apply(client.sql("EXPLAIN (COSTS OFF) " + sql))
+                .map((row, meta) -> row.get(0, String.class))
+                .all()
+                .collect(Collectors.joining("\n"))
+                .block();
+    }
+
+    /** Todas las migraciones, en orden, contra {@code target} (el primario o una base extra del contenedor). */
+    static void migrate(ConnectionFactory target) throws IOException {
+        Resource[] migrations = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*.sql");
+        Arrays.sort(migrations, Comparator.comparingInt(LoanQueryPlanTestSupport::version));
+        for (Resource migration : migrations) {
+            String script = migration.getContentAsString(StandardCharsets.UTF_8);
+            if (script.contains("CONCURRENTLY")) {
+                // igual que Flyway con executeInTransaction=false: una sentencia a la vez
+                for (String statement : statements(script)) {
+                    run(target, statement);
+                }
+            } else {
+                run(target, script);
+            }
+        }
+    }
+
+    static void run(String sql) {
+        run(factory, sql);
+    }
+
+    static void run(ConnectionFactory target, String sql) {
+        // sin binds r2dbc-postgresql usa el protocolo simple, que admite varias sentencias y bloques $$
+        Mono.usingWhen(Mono.from(target.create()),
+                        connection -> Flux.from(connection.createStatement(sql).execute())
+                                .flatMap(Result::getRowsUpdated)
+                                .then(),
+                        Connection::close)
+                .block();
+    }
+
+    private static String[] statements(String script) {
+        String withoutComments = script.lines()
+                .filter(line -> !line.trim().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+        return Arrays.stream(withoutComments.split(";"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static int version(Resource migration) {
+        String name = migration.getFilename();
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+}
@@ -0,0 +1,70 @@
+package co.com.crediya.r2dbc.loan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** loan.state_code (V13) sigue a id_state_loan y al nombre del estado. */
+class LoanStateCodeTest extends LoanQueryPlanTestSupport {
+
+    private static Integer stateCodeOf(UUID loanId) {
+        return client.sql("SELECT state_code::int AS code FROM loan WHERE id = :id")
+                .bind("id", loanId)
+                .map((row, meta) -> row.get("code", Integer.class))
+                .one()
+                .block();
+    }
+
+    private static UUID insertLoan(String email, String state) {
+        run("""
+                INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan)
+                SELECT 1000, 12, '%s', ls.id, lt.id
+                FROM loan_state ls, loan_type lt
+                WHERE ls.name = '%s' AND lt.name = 'SYNTHETIC-1'""".formatted(email, state));
+        return client.sql("SELECT id FROM loan WHERE email = :email")
+                .bind("email", email)
+                .map((row, meta) -> row.get("id", UUID.class))
+                .one()
+                .block();
+    }
+
+    @Test
+    void everyLoan_hasTheCodeOfItsState() {
+        long mismatched = client.sql("""
+                        SELECT count(*) FROM loan l JOIN loan_state ls ON ls.id = l.id_state_loan
+                        WHERE l.state_code IS DISTINCT FROM loan_status_code(ls.name)""")
+                .map((row, meta) -> row.get(0, Long.class))
+                .one()
+                .block();
+
+        assertThat(mismatched).isZero();
+    }
+
+    @Test
+    void insertAndStatusChange_keepTheCodeInSync() {
+        UUID id = insertLoan("state-code@mail.com", "PENDING_REVIEW");
+        assertThat(stateCodeOf(id)).isEqualTo(1);
+
+        run("""
+                UPDATE loan SET id_state_loan = (SELECT id FROM loan_state WHERE name = 'APPROVED')
+                WHERE id = '%s'""".formatted(id));
+
+        assertThat(stateCodeOf(id)).isEqualTo(4);
+    }
+
+    @Test
+    void renamingAState_recomputesTheCode() {
+        UUID id = insertLoan("state-rename@mail.com", "MANUAL_REVIEW");
+        try {
+            run("UPDATE loan_state SET name = 'MANUAL_REVIEW_OLD' WHERE name = 'MANUAL_REVIEW'");
+            // fuera de LoanStatus: sin código, no entra en los filtros por estado
+            assertThat(stateCodeOf(id)).isNull();
+        } finally {
+            run("UPDATE loan_state SET name = 'MANUAL_REVIEW' WHERE name = 'MANUAL_REVIEW_OLD'");
+        }
+
+        assertThat(stateCodeOf(id)).isEqualTo(2);
+    }
+}
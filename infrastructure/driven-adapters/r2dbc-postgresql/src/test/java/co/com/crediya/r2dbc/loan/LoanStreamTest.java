@@ -0,0 +1,138 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.LoanExportWriter;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.pageable.LoanStatus;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import co.com.crediya.r2dbc.loan.entity.LoanEntity;
+import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Streaming con fetchSize y filtros en SQL contra Postgres real. */
+class LoanStreamTest extends LoanQueryPlanTestSupport {
+
+    private LoanReactiveRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        var entityMapper = mock(LoanEntityMapper.class);
+        when(entityMapper.toDomain(any())).thenAnswer(inv -> {
+            LoanEntity e = inv.getArgument(0);
+            return new Loan(e.getId().toString(), new Money(e.getAmount()), new TermMonths(e.getTermMonths()),
+                    new Email(e.getEmail()), e.getStateLoanId().toString(), e.getTypeLoanId().toString());
+        });
+        adapter = new LoanReactiveRepositoryAdapter(mock(LoanReactiveRepository.class), mock(ObjectMapper.class),
+                entityMapper, client, mock(CustomerGateway.class), mock(ManualReviewCountEstimator.class),
+                new LoanStreamProperties(50), mock(LoanShardRouter.class));
+    }
+
+    @Test
+    void stream_appliesStatusAndEmailFilters() {
+        // el seed reparte user1@mail1.com en 10 préstamos, todos aprobados
+        var approved = new LoanStreamFilter(Set.of(LoanStatus.APPROVED), null, null, null, "user1@mail1.com");
+        var rejected = new LoanStreamFilter(Set.of(LoanStatus.REJECTED), null, null, null, "user1@mail1.com");
+
+        StepVerifier.create(adapter.stream(approved))
+                .recordWith(ArrayList::new)
+                .expectNextCount(10)
+                .consumeRecordedWith(loans -> assertThat(loans)
+                        .allSatisfy(loan -> assertThat(loan.email().value()).isEqualTo("user1@mail1.com")))
+                .verifyComplete();
+        StepVerifier.create(adapter.stream(rejected)).verifyComplete();
+    }
+
+    @Test
+    void stream_readsPastSeveralFetches_andStopsWhenCancelled() {
+        StepVerifier.create(adapter.stream(LoanStreamFilter.none()).take(1_000))
+                .expectNextCount(1_000)
+                .verifyComplete();
+
+        // la cancelación no deja la conexión ocupada con el resto del resultado
+        assertThat(client.sql("SELECT count(*) FROM loan")
+                .map((row, meta) -> row.get(0, Long.class))
+                .one()
+                .block()).isGreaterThanOrEqualTo(LOANS);
+    }
+
+    @Test
+    void export_writesEveryFilteredRow_andFinishesWithTheRemainder() {
+        var writer = new CountingWriter();
+        var filter = new LoanStreamFilter(Set.of(LoanStatus.APPROVED), null, null, null, "user1@mail1.com");
+
+        StepVerifier.create(adapter.export(filter, writer))
+                .expectNext("start", "end:10")
+                .verifyComplete();
+
+        assertThat(writer.emails).hasSize(10).containsOnly("user1@mail1.com");
+    }
+
+    @Test
+    void export_emitsOneChunkPerFetch() {
+        StepVerifier.create(adapter.export(LoanStreamFilter.none(), new CountingWriter()).take(3))
+                .expectNext("start", "rows:50", "rows:50")
+                .verifyComplete();
+    }
+
+    /** Writer de prueba: cada bloque dice cuántas filas trae. */
+    private static final class CountingWriter implements LoanExportWriter<String> {
+        private final List<String> emails = new ArrayList<>();
+        private int pending;
+
+        @Override
+        public String start() {
+            return "start";
+        }
+
+        @Override
+        public void row(UUID id, BigDecimal amount, int termMonths, String email, String state, String type,
+                        Instant createdAt) {
+            assertThat(state).isNotBlank();
+            assertThat(type).startsWith("SYNTHETIC-");
+            assertThat(createdAt).isNotNull();
+            emails.add(email);
+            pending++;
+        }
+
+        @Override
+        public int pendingRows() {
+            return pending;
+        }
+
+        @Override
+        public String drain() {
+            String chunk = "rows:" + pending;
+            pending = 0;
+            return chunk;
+        }
+
+        @Override
+        public String finish() {
+            return "end:" + pending;
+        }
+
+        @Override
+        public void close() {
+            // nada que liberar
+        }
+    }
+}
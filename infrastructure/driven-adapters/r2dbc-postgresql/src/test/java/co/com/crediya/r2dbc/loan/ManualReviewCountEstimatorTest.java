@@ -0,0 +1,34 @@
+package co.com.crediya.r2dbc.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ManualReviewCountEstimatorTest {
+
+    private final ManualReviewCountEstimator estimator =
+            new ManualReviewCountEstimator(mock(DatabaseClient.class), new ObjectMapper());
+
+    @Test
+    void planRows_readsTopLevelEstimate() {
+        String explain = """
+                [{"Plan": {"Node Type": "Hash Join", "Plan Rows": 1234, "Plans": [{"Plan Rows": 99}]}}]
+                """;
+
+        assertThat(estimator.planRows(explain)).isEqualTo(1234L);
+    }
+
+    @Test
+    void planRows_missingEstimate_isZero() {
+        assertThat(estimator.planRows("[{}]")).isZero();
+    }
+
+    @Test
+    void planRows_invalidJson_fails() {
+        assertThatThrownBy(() -> estimator.planRows("not json")).isInstanceOf(IllegalStateException.class);
+    }
+}
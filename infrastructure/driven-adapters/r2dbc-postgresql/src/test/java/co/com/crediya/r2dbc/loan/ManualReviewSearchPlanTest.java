@@ -0,0 +1,44 @@
+package co.com.crediya.r2dbc.loan;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revisa con EXPLAIN que la consulta de conteo del listado (la misma @Query del repositorio)
+ * usa los índices de búsqueda por email de V7.
+ */
+class ManualReviewSearchPlanTest extends LoanQueryPlanTestSupport {
+
+    private static final String[] STATUSES = {"PENDING_REVIEW", "REJECTED", "MANUAL_REVIEW"};
+
+    @Test
+    void containsSearch_usesTrigramIndex() {
+        String plan = explainCount("%user12345@%", null);
+
+        assertThat(plan).contains("idx_loan_email_trgm");
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    @Test
+    void prefixSearch_usesTextPatternOpsIndex() {
+        String plan = explainCount(null, "user12345@%");
+
+        assertThat(plan).contains("idx_loan_email_lower_prefix");
+        assertThat(seqScannedLoanPartitions(plan)).isEmpty();
+    }
+
+    private static String explainCount(String contains, String prefix) {
+        return explain(queryOf("countForManualReview"), spec -> {
+            spec = spec.bind("statuses", STATUSES)
+                    .bindNull("typeId", UUID.class)
+                    .bindNull("minAmount", BigDecimal.class)
+                    .bindNull("maxAmount", BigDecimal.class);
+            spec = contains == null ? spec.bindNull("contains", String.class) : spec.bind("contains", contains);
+            return prefix == null ? spec.bindNull("prefix", String.class) : spec.bind("prefix", prefix);
+        });
+    }
+}
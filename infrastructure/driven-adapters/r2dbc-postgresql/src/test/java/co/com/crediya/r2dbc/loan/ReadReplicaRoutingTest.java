@@ -0,0 +1,91 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.replica.ReadReplicaProperties;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import co.com.crediya.r2dbc.shard.ShardingProperties;
+import co.com.crediya.r2dbc.tx.SpringTxRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cableado completo contra Postgres real: el contenedor hace de primario y también de "réplica" (no está
+ * en recovery, así que el chequeo de atraso da 0 y entra en la rotación).
+ */
+class ReadReplicaRoutingTest extends LoanQueryPlanTestSupport {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReadReplicaRouter router;
+    private ConnectionPool primary;
+    private SpringTxRunner txRunner;
+    private DatabaseClient routedClient;
+
+    @BeforeEach
+    void setUp() {
+        var connection = new PostgresqlConnectionProperties(POSTGRES.getHost(), POSTGRES.getFirstMappedPort(),
+                POSTGRES.getDatabaseName(), "public", POSTGRES.getUsername(), POSTGRES.getPassword());
+        router = new ReadReplicaRouter(new ReadReplicaProperties(true, List.of(POSTGRES.getHost()), null, 2,
+                Duration.ofSeconds(5), Duration.ofMillis(200), Duration.ofSeconds(2), Set.of()), connection, registry);
+        var shards = new LoanShardRouter(new ShardingProperties(null, null, null, null), connection);
+        primary = new ConnectionPool(ConnectionPoolConfiguration.builder(factory).maxSize(2).build());
+        var routing = new PostgreSQLConnectionPool().routingConnectionFactory(primary, router, shards);
+        ((InitializingBean) routing).afterPropertiesSet();
+
+        var tm = new R2dbcTransactionManager(routing);
+        var readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+        txRunner = new SpringTxRunner(TransactionalOperator.create(tm), TransactionalOperator.create(tm, readOnly),
+                router, shards, registry);
+        routedClient = DatabaseClient.create(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.destroy();
+        primary.dispose();
+    }
+
+    private Mono<Integer> selectOne() {
+        return routedClient.sql("SELECT 1 AS one").map((row, meta) -> row.get("one", Integer.class)).one();
+    }
+
+    @Test
+    void readOnly_goesToTheReplicaOnceTheLagCheckPasses_andWritesStayOnPrimary() {
+        assertThat(router.route("LoanUseCase.execute")).isEqualTo(ReadReplicaRouter.PRIMARY);
+
+        router.start();
+        String route = Mono.fromSupplier(() -> router.route("LoanUseCase.execute"))
+                .filter(r -> !ReadReplicaRouter.PRIMARY.equals(r))
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(100)))
+                .block(Duration.ofSeconds(10));
+        assertThat(route).isEqualTo(POSTGRES.getHost());
+        assertThat(registry.get(ReadReplicaRouter.LAG_METRIC).gauge().value()).isZero();
+
+        StepVerifier.create(txRunner.readOnly("LoanUseCase.execute", this::selectOne)).expectNext(1).verifyComplete();
+        StepVerifier.create(txRunner.required("LoanUseCase.create", this::selectOne)).expectNext(1).verifyComplete();
+
+        assertThat(registry.get(SpringTxRunner.HOLD_TIME_METRIC).tag("operation", "LoanUseCase.execute")
+                .tag("route", POSTGRES.getHost()).timer().count()).isEqualTo(1);
+        assertThat(registry.get(SpringTxRunner.HOLD_TIME_METRIC).tag("operation", "LoanUseCase.create")
+                .tag("route", ReadReplicaRouter.PRIMARY).timer().count()).isEqualTo(1);
+    }
+}
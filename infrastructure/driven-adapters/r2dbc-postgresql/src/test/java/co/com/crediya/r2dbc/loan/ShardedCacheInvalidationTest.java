@@ -0,0 +1,70 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.r2dbc.cache.CacheInvalidationListener;
+import co.com.crediya.r2dbc.cache.CaffeineLoanCache;
+import co.com.crediya.r2dbc.cache.ReferenceDataCache;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import co.com.crediya.r2dbc.shard.ShardingProperties;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/** Con shards, el NOTIFY del trigger V10 sale del shard donde cambió el préstamo, no del primario. */
+class ShardedCacheInvalidationTest extends LoanQueryPlanTestSupport {
+
+    private static final int SHARDS = 2;
+
+    @Test
+    void loanChangeOnAShard_invalidatesTheLoanCache() throws IOException {
+        var connection = new PostgresqlConnectionProperties(POSTGRES.getHost(), POSTGRES.getFirstMappedPort(),
+                POSTGRES.getDatabaseName(), "public", POSTGRES.getUsername(), POSTGRES.getPassword());
+        List<ShardingProperties.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            run("CREATE DATABASE listen_shard_" + i);
+            shards.add(new ShardingProperties.Shard(null, null, "listen_shard_" + i));
+        }
+        var sharding = new ShardingProperties(true, shards, 2, null);
+        var lastShard = new PostgresqlConnectionFactory(LoanShardRouter.connections(sharding, connection)
+                .get("shard-" + (SHARDS - 1)));
+        migrate(lastShard);
+        run(lastShard, """
+                INSERT INTO loan_type (name, minimum_amount, maximum_amount, annual_interest_percent)
+                VALUES ('LISTEN', 0, 100000, 12);
+                INSERT INTO loan (amount, term_months, email, id_state_loan, id_type_loan)
+                SELECT 1000, 12, 'listen@shard.test', ls.id, lt.id
+                FROM loan_state ls, loan_type lt
+                WHERE ls.name = 'PENDING_REVIEW' AND lt.name = 'LISTEN'""");
+        var shardClient = DatabaseClient.create(lastShard);
+        UUID loanId = shardClient.sql("SELECT id FROM loan WHERE email = 'listen@shard.test'")
+                .map((row, meta) -> row.get("id", UUID.class))
+                .one()
+                .block();
+
+        var loanCache = mock(CaffeineLoanCache.class);
+        var listener = new CacheInvalidationListener(connection, sharding, mock(ReferenceDataCache.class), loanCache);
+        listener.start();
+        try {
+            // una por conexión al quedar escuchando: el primario y cada shard
+            verify(loanCache, timeout(10_000).times(SHARDS + 1)).invalidateAll("listener connected");
+
+            shardClient.sql("UPDATE loan SET amount = amount + 1 WHERE id = :id")
+                    .bind("id", loanId)
+                    .then()
+                    .block();
+
+            verify(loanCache, timeout(10_000)).invalidate(loanId);
+        } finally {
+            listener.destroy();
+        }
+    }
+}
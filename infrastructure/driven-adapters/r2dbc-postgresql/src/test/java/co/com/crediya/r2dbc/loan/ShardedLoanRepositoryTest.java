@@ -0,0 +1,302 @@
+package co.com.crediya.r2dbc.loan;
+
+import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.model.loan.LoanExportWriter;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.pageable.CountMode;
+import co.com.crediya.model.pageable.LoanStatus;
+import co.com.crediya.model.pageable.LoanSummary;
+import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
+import co.com.crediya.model.pageable.Pageable;
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.customerdebt.CustomerDebtRepositoryAdapter;
+import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import co.com.crediya.r2dbc.shard.ReferenceDataReplicator;
+import co.com.crediya.r2dbc.shard.ShardingProperties;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tres shards y una base sin particionar en el mismo contenedor, con los mismos préstamos: el listado
+ * de revisión manual y el export sobre los shards (scatter-gather + k-way merge) tienen que devolver
+ * exactamente las mismas filas, en el mismo orden, que la consulta sobre una sola base.
+ */
+class ShardedLoanRepositoryTest extends LoanQueryPlanTestSupport {
+
+    private static final int SHARDS = 3;
+    private static final int SHARDED_LOANS = 420;
+    private static final String[] STATES = {"PENDING_REVIEW", "MANUAL_REVIEW", "REJECTED", "APPROVED"};
+    private static final ManualReviewFilter ALL = new ManualReviewFilter(null, null, null, null, null);
+
+    private static LoanShardRouter router;
+    private static ConnectionFactory unshardedFactory;
+    private static LoanReactiveRepositoryAdapter sharded;
+    private static LoanReactiveRepositoryAdapter unsharded;
+
+    @BeforeAll
+    static void createShards() throws IOException {
+        var connection = new PostgresqlConnectionProperties(POSTGRES.getHost(), POSTGRES.getFirstMappedPort(),
+                POSTGRES.getDatabaseName(), "public", POSTGRES.getUsername(), POSTGRES.getPassword());
+        List<ShardingProperties.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            run("CREATE DATABASE shard_" + i);
+            migrate(new PostgresqlConnectionFactory(PostgreSQLConnectionPool.connectionConfiguration(connection,
+                    POSTGRES.getHost(), POSTGRES.getFirstMappedPort(), "shard_" + i)));
+            shards.add(new ShardingProperties.Shard(null, null, "shard_" + i));
+        }
+        run("CREATE DATABASE unsharded");
+        unshardedFactory = new PostgresqlConnectionFactory(PostgreSQLConnectionPool.connectionConfiguration(connection,
+                POSTGRES.getHost(), POSTGRES.getFirstMappedPort(), "unsharded"));
+        migrate(unshardedFactory);
+
+        var properties = new ShardingProperties(true, shards, 2, null);
+        router = new LoanShardRouter(properties, connection);
+
+        // el tipo se crea en el primario y llega a los shards con el mismo id
+        run("INSERT INTO loan_type (name, minimum_amount, maximum_amount, annual_interest_percent) "
+                + "VALUES ('SHARDED', 0, 100000, 12)");
+        run(unshardedFactory, "INSERT INTO loan_type (name, minimum_amount, maximum_amount, annual_interest_percent) "
+                + "VALUES ('SHARDED', 0, 100000, 12)");
+        new ReferenceDataReplicator(client, router, properties).sync().block();
+
+        // de a tres préstamos con el mismo created_at: el desempate por id también tiene que coincidir
+        OffsetDateTime base = OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        Flux.range(0, SHARDED_LOANS)
+                .concatMap(i -> {
+                    UUID id = UUID.randomUUID();
+                    String email = "client" + (i % 60) + "@shard.test";
+                    OffsetDateTime createdAt = base.minusMinutes(i / 3);
+                    String state = STATES[i % STATES.length];
+                    BigDecimal amount = BigDecimal.valueOf(1_000 + i);
+                    return insert(router.client(router.shardOf(email)), id, email, createdAt, state, amount)
+                            .then(insert(DatabaseClient.create(unshardedFactory), id, email, createdAt, state, amount));
+                })
+                .blockLast();
+
+        var entityMapper = mock(LoanEntityMapper.class);
+        var customerGateway = mock(CustomerGateway.class);
+        when(customerGateway.findByEmails(any())).thenReturn(Mono.just(Map.of()));
+        sharded = new LoanReactiveRepositoryAdapter(mock(LoanReactiveRepository.class), mock(ObjectMapper.class),
+                entityMapper, client, customerGateway, mock(ManualReviewCountEstimator.class),
+                new LoanStreamProperties(null), router);
+        unsharded = new LoanReactiveRepositoryAdapter(
+                new R2dbcRepositoryFactory(new R2dbcEntityTemplate(unshardedFactory)).getRepository(LoanReactiveRepository.class),
+                mock(ObjectMapper.class), entityMapper, DatabaseClient.create(unshardedFactory), customerGateway,
+                mock(ManualReviewCountEstimator.class), new LoanStreamProperties(null), mock(LoanShardRouter.class));
+    }
+
+    @AfterAll
+    static void closeShards() {
+        router.destroy();
+    }
+
+    private static Mono<Void> insert(DatabaseClient target, UUID id, String email, OffsetDateTime createdAt,
+                                     String state, BigDecimal amount) {
+        return target.sql("""
+                        INSERT INTO loan (id, amount, term_months, email, id_state_loan, id_type_loan, created_at)
+                        SELECT :id, :amount, 12, :email, ls.id, lt.id, :createdAt
+                        FROM loan_state ls, loan_type lt
+                        WHERE ls.name = :state AND lt.name = 'SHARDED'""")
+                .bind("id", id)
+                .bind("amount", amount)
+                .bind("email", email)
+                .bind("createdAt", createdAt)
+                .bind("state", state)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(rows -> assertThat(rows).isEqualTo(1))
+                .then();
+    }
+
+    private static List<String> ids(Pageable<LoanSummary> page) {
+        return page.content().stream().map(LoanSummary::id).toList();
+    }
+
+    @Test
+    void referenceData_isReplicatedWithThePrimaryIds() {
+        List<String> primary = client.sql("SELECT id || ':' || name AS row FROM loan_state ORDER BY name")
+                .map((row, meta) -> row.get("row", String.class)).all().collectList().block();
+
+        for (String shard : router.shards()) {
+            assertThat(router.client(shard).sql("SELECT id || ':' || name AS row FROM loan_state ORDER BY name")
+                    .map((row, meta) -> row.get("row", String.class)).all().collectList().block())
+                    .as(shard).isEqualTo(primary);
+            assertThat(router.client(shard).sql("SELECT count(*) FROM loan_type lt JOIN loan l ON l.id_type_loan = lt.id")
+                    .map((row, meta) -> row.get(0, Long.class)).one().block())
+                    .as(shard).isPositive();
+        }
+    }
+
+    @Test
+    void everyShardHoldsPartOfTheLoans_andEachCustomerLivesInOne() {
+        long total = 0;
+        for (String shard : router.shards()) {
+            long count = router.client(shard).sql("SELECT count(*) FROM loan")
+                    .map((row, meta) -> row.get(0, Long.class)).one().block();
+            assertThat(count).as(shard).isPositive();
+            total += count;
+
+            List<String> emails = router.client(shard).sql("SELECT DISTINCT email FROM loan")
+                    .map((row, meta) -> row.get("email", String.class)).all().collectList().block();
+            assertThat(emails).allSatisfy(email -> assertThat(router.shardOf(email)).isEqualTo(shard));
+        }
+        assertThat(total).isEqualTo(SHARDED_LOANS);
+    }
+
+    @Test
+    void offsetPages_matchTheUnshardedOrder_includingTotals() {
+        int size = 7;
+        long expectedTotal = SHARDED_LOANS * 3L / 4;
+        for (int page = 0; page * size < expectedTotal + size; page++) {
+            var expected = unsharded.findForManualReview(ALL, page, size, CountMode.EXACT).block();
+            var actual = sharded.findForManualReview(ALL, page, size, CountMode.EXACT).block();
+
+            assertThat(ids(actual)).as("page %d", page).isEqualTo(ids(expected));
+            assertThat(actual.totalElements()).isEqualTo(expected.totalElements()).isEqualTo(expectedTotal);
+            assertThat(actual.totalExact()).isTrue();
+        }
+    }
+
+    @Test
+    void cursorWalk_visitsEveryLoanOnce_inTheUnshardedOrder() {
+        var filter = new ManualReviewFilter(null, Set.of(LoanStatus.PENDING_REVIEW, LoanStatus.REJECTED), null,
+                null, null);
+        List<String> expected = ids(unsharded.findForManualReview(filter, 0, SHARDED_LOANS, CountMode.NONE).block());
+
+        List<String> walked = new ArrayList<>();
+        PageCursor after = null;
+        do {
+            var page = sharded.findForManualReviewByCursor(filter, after, 11, CountMode.NONE).block();
+            walked.addAll(ids(page));
+            after = page.nextCursor() == null ? null : PageCursor.decode(page.nextCursor());
+        } while (after != null);
+
+        assertThat(expected).hasSize(SHARDED_LOANS / 2);
+        assertThat(walked).isEqualTo(expected);
+    }
+
+    @Test
+    void findByEmailAndStatus_readsOnlyTheCustomersShard() {
+        String email = "client7@shard.test";
+        long expected = IntStream.range(0, SHARDED_LOANS)
+                .filter(i -> i % 60 == 7 && STATES[i % STATES.length].equals("APPROVED"))
+                .count();
+
+        assertThat(sharded.findByEmailAndStatus(email, LoanStatus.APPROVED).collectList().block()).hasSize((int) expected);
+    }
+
+    @Test
+    void monthlyApprovedDebt_isReadFromTheCustomersShard() {
+        String email = "client11@shard.test";
+        // fuera de la transacción de create: no hay ruta en el contexto y el cliente por defecto es el primario
+        run("INSERT INTO customer_debt (email, monthly_debt, approved_loans) VALUES ('" + email + "', 1, 1)");
+        router.client(router.shardOf(email))
+                .sql("INSERT INTO customer_debt (email, monthly_debt, approved_loans) VALUES (:email, 250.50, 2)")
+                .bind("email", email)
+                .then()
+                .block();
+
+        assertThat(new CustomerDebtRepositoryAdapter(client, router).findMonthlyApprovedDebt(email).block())
+                .isEqualByComparingTo("250.50");
+    }
+
+    @Test
+    void routes_locateEveryLoanOfABatch_inItsShard() {
+        Map<TxRoute, String> expected = new HashMap<>();
+        for (String shard : router.shards()) {
+            router.client(shard).sql("SELECT id FROM loan LIMIT 5")
+                    .map((row, meta) -> row.get("id", UUID.class)).all()
+                    .toStream()
+                    .forEach(id -> expected.put(TxRoute.loan(id), shard));
+        }
+        TxRoute missing = TxRoute.loan(UUID.randomUUID());
+        List<TxRoute> batch = new ArrayList<>(expected.keySet());
+        batch.add(missing);
+
+        Map<TxRoute, String> resolved = router.routes(batch).block();
+
+        assertThat(resolved).containsAllEntriesOf(expected);
+        // como route(): el que no existe va al primer shard, donde la sentencia lo reporta
+        assertThat(resolved.get(missing)).isEqualTo(router.shards().get(0));
+    }
+
+    @Test
+    void export_mergesEveryShard_inTheUnshardedOrder() {
+        var filter = new LoanStreamFilter(Set.of(LoanStatus.APPROVED, LoanStatus.MANUAL_REVIEW), null, null, null, null);
+        var expected = new IdWriter();
+        var actual = new IdWriter();
+
+        unsharded.export(filter, expected).blockLast();
+        sharded.export(filter, actual).blockLast();
+
+        assertThat(expected.ids).hasSize(SHARDED_LOANS / 2);
+        assertThat(actual.ids).isEqualTo(expected.ids);
+    }
+
+    /** Solo anota el orden en que llegan las filas. */
+    private static final class IdWriter implements LoanExportWriter<String> {
+        private final List<UUID> ids = new ArrayList<>();
+
+        @Override
+        public String start() {
+            return "start";
+        }
+
+        @Override
+        public void row(UUID id, BigDecimal amount, int termMonths, String email, String state, String type,
+                        Instant createdAt) {
+            ids.add(id);
+        }
+
+        @Override
+        public int pendingRows() {
+            return 0;
+        }
+
+        @Override
+        public String drain() {
+            return "rows";
+        }
+
+        @Override
+        public String finish() {
+            return "end";
+        }
+
+        @Override
+        public void close() {
+            // nada que liberar
+        }
+    }
+}
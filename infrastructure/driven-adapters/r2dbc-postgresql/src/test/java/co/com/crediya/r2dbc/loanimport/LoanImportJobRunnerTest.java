@@ -0,0 +1,93 @@
+package co.com.crediya.r2dbc.loanimport;
+
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanImportJobRunnerTest {
+
+    @Mock LoanImportRepositoryAdapter repository;
+
+    private LoanImportJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(repository.heartbeat(any())).thenReturn(Mono.empty());
+        lenient().when(repository.failExpired(any(), anyString())).thenReturn(Flux.empty());
+        lenient().when(repository.updateStatus(anyString(), any(), any())).thenReturn(Mono.empty());
+        lenient().when(repository.dropStaging(anyString())).thenReturn(Mono.empty());
+        runner = new LoanImportJobRunner(repository, new LoanImportProperties(1, 1, Duration.ofHours(1), null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.destroy();
+    }
+
+    @Test
+    void submit_runsAtMostMaxConcurrentJobs_andRejectsWhenTheQueueIsFull() {
+        runner.start();
+        var first = Sinks.<Void>empty();
+        var started = new AtomicInteger();
+        Mono<Void> firstWork = Mono.defer(() -> {
+            started.incrementAndGet();
+            return first.asMono();
+        });
+        Mono<Void> secondWork = Mono.fromRunnable(started::incrementAndGet);
+
+        StepVerifier.create(runner.submit(UUID.randomUUID().toString(), firstWork)).verifyComplete();
+        StepVerifier.create(runner.submit(UUID.randomUUID().toString(), secondWork)).verifyComplete();
+        // uno corriendo y uno en cola: no hay cupo para un tercero
+        StepVerifier.create(runner.submit(UUID.randomUUID().toString(), Mono.empty()))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(DomainConflictException.class)
+                        .hasMessageStartingWith("LOAN_IMPORT_BUSY"))
+                .verify();
+        assertThat(started).hasValue(1);
+
+        first.tryEmitEmpty();
+        assertThat(started).hasValue(2);
+    }
+
+    @Test
+    void destroy_failsTheJobsItWasRunning_andDropsTheirStaging() {
+        runner.start();
+        String jobId = UUID.randomUUID().toString();
+        runner.submit(jobId, Mono.never()).block();
+
+        runner.destroy();
+
+        verify(repository).updateStatus(jobId, LoanImportStatus.FAILED, "Interrupted by shutdown");
+        verify(repository).dropStaging(jobId);
+    }
+
+    @Test
+    void recoverExpired_dropsTheStagingOfEveryReclaimedJob() {
+        var orphans = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        when(repository.failExpired(Duration.ofMinutes(3), LoanImportJobRunner.EXPIRED_ERROR))
+                .thenReturn(Flux.fromIterable(orphans));
+
+        StepVerifier.create(runner.recoverExpired()).expectNext(2L).verifyComplete();
+
+        orphans.forEach(jobId -> verify(repository).dropStaging(jobId));
+    }
+}
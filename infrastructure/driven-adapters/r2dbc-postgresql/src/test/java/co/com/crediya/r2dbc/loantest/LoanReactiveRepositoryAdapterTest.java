@@ -3,13 +3,21 @@ package co.com.crediya.r2dbc.loantest;
 import co.com.crediya.model.customer.UserData;
 import co.com.crediya.model.customer.gateways.CustomerGateway;
 import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.pageable.CountMode;
 import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.PageCursor;
+import co.com.crediya.model.pageable.Pageable;
+import co.com.crediya.model.pageable.SearchMode;
 import co.com.crediya.r2dbc.loan.LoanReactiveRepository;
 import co.com.crediya.r2dbc.loan.LoanReactiveRepositoryAdapter;
+import co.com.crediya.r2dbc.loan.LoanStreamProperties;
+import co.com.crediya.r2dbc.loan.ManualReviewCountEstimator;
+import co.com.crediya.r2dbc.loan.ManualReviewRow;
 import co.com.crediya.r2dbc.loan.entity.LoanEntity;
 import co.com.crediya.r2dbc.loan.mapper.LoanEntityMapper;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,7 +31,11 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -42,13 +54,16 @@ class LoanReactiveRepositoryAdapterTest {
     @Mock LoanEntityMapper entityMapper;
     @Mock DatabaseClient client;
     @Mock CustomerGateway customerGateway;
+    @Mock ManualReviewCountEstimator countEstimator;
+    @Mock LoanShardRouter shards;
 
     private LoanReactiveRepositoryAdapter adapter;
 
     @BeforeEach
     void init() {
         adapter = new LoanReactiveRepositoryAdapter(
-                repository, mapper, entityMapper, client, customerGateway
+                repository, mapper, entityMapper, client, customerGateway, countEstimator, new LoanStreamProperties(null),
+                shards
         );
     }
 
@@ -141,10 +156,8 @@ class LoanReactiveRepositoryAdapterTest {
                 new BigDecimal("2222"), new BigDecimal("600")
         );
 
-        when(repository.findForManualReview(any(String[].class), any(), any(), any(), any(), anyLong(), anyInt()))
-                .thenReturn(Flux.just(base1, base2));
-        when(repository.countForManualReview(any(String[].class), any(), any(), any(), any()))
-                .thenReturn(Mono.just(20L));
+        when(repository.findForManualReviewPage(any(String[].class), any(), any(), any(), any(), any(), anyLong(), anyInt()))
+                .thenReturn(Flux.just(rowOf(base1, 20L), rowOf(base2, 20L)));
 
         // Stubs de cliente
         // ⚠ Cambia el tipo Customer por el de tu proyecto si tiene otro nombre/paquete
@@ -158,16 +171,17 @@ class LoanReactiveRepositoryAdapterTest {
         when(cust2.lastName()).thenReturn("Johnson");
         when(cust2.salary()).thenReturn(new BigDecimal("3000"));
 
-        when(customerGateway.findByEmail("a@b.com")).thenReturn(Mono.just(cust1));
-        when(customerGateway.findByEmail("c@d.com")).thenReturn(Mono.just(cust2));
+        when(customerGateway.findByEmails(Set.of("a@b.com", "c@d.com")))
+                .thenReturn(Mono.just(Map.of("a@b.com", cust1, "c@d.com", cust2)));
 
         // Act
-        var mono = adapter.findForManualReview(filter, page, size);
+        var mono = adapter.findForManualReview(filter, page, size, CountMode.EXACT);
 
         // Assert contenido enriquecido y meta
         StepVerifier.create(mono)
                 .assertNext(p -> {
                     assertThat(p.totalElements()).isEqualTo(20L);
+                    assertThat(p.totalExact()).isTrue();
                     assertThat(p.page()).isEqualTo(page);
                     assertThat(p.size()).isEqualTo(size);
                     assertThat(p.content()).hasSize(2);
@@ -194,26 +208,30 @@ class LoanReactiveRepositoryAdapterTest {
         // Verificación de parámetros al repo
         var stCap = ArgumentCaptor.forClass(String[].class);
         var searchCap = ArgumentCaptor.forClass(String.class);
+        var prefixCap = ArgumentCaptor.forClass(String.class);
         var typeCap = ArgumentCaptor.forClass(UUID.class);
         var minCap = ArgumentCaptor.forClass(BigDecimal.class);
         var maxCap = ArgumentCaptor.forClass(BigDecimal.class);
         var offsetCap = ArgumentCaptor.forClass(Long.class);
         var sizeCap = ArgumentCaptor.forClass(Integer.class);
 
-        verify(repository).findForManualReview(
-                stCap.capture(), searchCap.capture(), typeCap.capture(),
+        verify(repository).findForManualReviewPage(
+                stCap.capture(), searchCap.capture(), prefixCap.capture(), typeCap.capture(),
                 minCap.capture(), maxCap.capture(), offsetCap.capture(), sizeCap.capture()
         );
         assertThat(List.of(stCap.getValue())).containsExactlyInAnyOrder("PENDING_REVIEW", "REJECTED");
-        assertThat(searchCap.getValue()).isEqualTo("john");
+        assertThat(searchCap.getValue()).isEqualTo("%john%");
+        assertThat(prefixCap.getValue()).isNull();
         assertThat(typeCap.getValue()).isEqualTo(UUID.fromString(typeId));
         assertThat(minCap.getValue()).isEqualByComparingTo("1000.00");
         assertThat(maxCap.getValue()).isEqualByComparingTo("5000.00");
         assertThat(offsetCap.getValue()).isEqualTo(expectedOffset);
         assertThat(sizeCap.getValue()).isEqualTo(size);
+        // el total viene en la misma consulta
+        verify(repository, never()).countForManualReview(any(), any(), any(), any(), any(), any());
 
-        verify(customerGateway).findByEmail("a@b.com");
-        verify(customerGateway).findByEmail("c@d.com");
+        // una sola llamada en bloque para toda la página
+        verify(customerGateway).findByEmails(Set.of("a@b.com", "c@d.com"));
         verifyNoMoreInteractions(customerGateway);
     }
 
@@ -230,15 +248,13 @@ class LoanReactiveRepositoryAdapterTest {
                 new BigDecimal("9999"), new BigDecimal("250")
         );
 
-        when(repository.findForManualReview(any(String[].class), any(), any(), any(), any(), anyLong(), anyInt()))
-                .thenReturn(Flux.just(base));
-        when(repository.countForManualReview(any(String[].class), any(), any(), any(), any()))
-                .thenReturn(Mono.just(1L));
+        when(repository.findForManualReviewPage(any(String[].class), any(), any(), any(), any(), any(), anyLong(), anyInt()))
+                .thenReturn(Flux.just(rowOf(base, 1L)));
 
-        // Cliente NO encontrado ⇒ Mono.empty()
-        when(customerGateway.findByEmail("missing@e.com")).thenReturn(Mono.empty());
+        // Cliente NO encontrado ⇒ no aparece en el mapa
+        when(customerGateway.findByEmails(Set.of("missing@e.com"))).thenReturn(Mono.just(Map.of()));
 
-        StepVerifier.create(adapter.findForManualReview(filter, page, size))
+        StepVerifier.create(adapter.findForManualReview(filter, page, size, CountMode.EXACT))
                 .assertNext(p -> {
                     assertThat(p.totalElements()).isEqualTo(1L);
                     assertThat(p.page()).isEqualTo(0);
@@ -255,6 +271,162 @@ class LoanReactiveRepositoryAdapterTest {
                 })
                 .verifyComplete();
 
-        verify(customerGateway).findByEmail("missing@e.com");
+        verify(customerGateway).findByEmails(Set.of("missing@e.com"));
+    }
+
+    @Test
+    void findForManualReview_whenPageIsEmpty_doesNotCallCustomerGateway() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+
+        when(repository.findForManualReviewPage(any(String[].class), any(), any(), any(), any(), any(), anyLong(), anyInt()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findForManualReview(filter, 0, 10, CountMode.EXACT))
+                .assertNext(p -> {
+                    assertThat(p.content()).isEmpty();
+                    assertThat(p.totalElements()).isZero();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(customerGateway);
+        verify(repository, never()).countForManualReview(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void findForManualReview_pastTheLastPage_fallsBackToCountQuery() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+
+        when(repository.findForManualReviewPage(any(String[].class), any(), any(), any(), any(), any(), eq(500L), eq(10)))
+                .thenReturn(Flux.empty());
+        when(repository.countForManualReview(any(String[].class), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(42L));
+
+        StepVerifier.create(adapter.findForManualReview(filter, 50, 10, CountMode.EXACT))
+                .assertNext(p -> assertThat(p.totalElements()).isEqualTo(42L))
+                .verifyComplete();
+    }
+
+    @Test
+    void findForManualReview_approx_usesPlannerEstimate_neverBelowRowsAlreadyRead() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+        var base = new LoanSummary(UUID.randomUUID().toString(), new BigDecimal("3000"), 6, "a@b.com", null, "Libre",
+                new BigDecimal("0.02"), "MANUAL_REVIEW", null, BigDecimal.ZERO);
+
+        when(repository.findForManualReview(any(String[].class), any(), any(), any(), any(), any(), eq(20L), eq(10)))
+                .thenReturn(Flux.just(base));
+        when(countEstimator.estimate(any(String[].class), any(), any(), any(), any(), any())).thenReturn(Mono.just(5L));
+        when(customerGateway.findByEmails(Set.of("a@b.com"))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(adapter.findForManualReview(filter, 2, 10, CountMode.APPROX))
+                .assertNext(p -> {
+                    assertThat(p.totalElements()).isEqualTo(21L);
+                    assertThat(p.totalExact()).isFalse();
+                })
+                .verifyComplete();
+
+        verify(repository, never()).countForManualReview(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void findForManualReview_none_skipsCounting() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+
+        when(repository.findForManualReview(any(String[].class), any(), any(), any(), any(), any(), anyLong(), anyInt()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findForManualReview(filter, 0, 10, CountMode.NONE))
+                .assertNext(p -> {
+                    assertThat(p.totalElements()).isEqualTo(Pageable.UNKNOWN_TOTAL);
+                    assertThat(p.totalExact()).isFalse();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(countEstimator);
+        verify(repository, never()).countForManualReview(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void findForManualReview_prefixMode_lowercasesAndEscapesLikeWildcards() {
+        var filter = new ManualReviewFilter("Ana_100%", null, null, null, null, SearchMode.PREFIX);
+
+        when(repository.findForManualReviewPage(any(String[].class), isNull(), eq("ana\\_100\\%%"), any(), any(), any(),
+                anyLong(), anyInt()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findForManualReview(filter, 0, 10, CountMode.EXACT))
+                .assertNext(p -> assertThat(p.content()).isEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    void findForManualReview_containsMode_escapesLikeWildcards() {
+        var filter = new ManualReviewFilter("a_b", null, null, null, null);
+
+        when(repository.findForManualReviewPage(any(String[].class), eq("%a\\_b%"), isNull(), any(), any(), any(),
+                anyLong(), anyInt()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findForManualReview(filter, 0, 10, CountMode.EXACT))
+                .assertNext(p -> assertThat(p.content()).isEmpty())
+                .verifyComplete();
+    }
+
+    // ---------- findForManualReviewByCursor: keyset ----------
+
+    private static ManualReviewRow row(String email, OffsetDateTime createdAt) {
+        return new ManualReviewRow(UUID.randomUUID().toString(), new BigDecimal("1000"), 12, email, null, "Libre",
+                new BigDecimal("0.01"), "PENDING_REVIEW", null, BigDecimal.ZERO, createdAt, null);
+    }
+
+    private static ManualReviewRow rowOf(LoanSummary s, long total) {
+        return new ManualReviewRow(s.id(), s.amount(), s.termMonths(), s.applicantEmail(), s.applicantName(),
+                s.typeLoanName(), s.interestRateMonthly(), s.status(), s.baseSalary(), s.monthlyApprovedDebt(),
+                OffsetDateTime.now(), total);
+    }
+
+    @Test
+    void findForManualReviewByCursor_fetchesOneExtraRow_andBuildsNextCursorFromLastReturned() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+        var after = new PageCursor(Instant.parse("2025-05-01T00:00:00Z"), UUID.randomUUID());
+        var now = OffsetDateTime.parse("2025-04-30T12:00:00Z");
+        var r1 = row("a@b.com", now);
+        var r2 = row("a@b.com", now.minusMinutes(1));
+        var r3 = row("c@d.com", now.minusMinutes(2));
+
+        when(repository.findForManualReviewAfter(any(String[].class), any(), any(), any(), any(), any(),
+                eq(OffsetDateTime.ofInstant(after.createdAt(), ZoneOffset.UTC)), eq(after.id()), eq(3)))
+                .thenReturn(Flux.just(r1, r2, r3));
+        when(repository.countForManualReview(any(String[].class), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(40L));
+        when(customerGateway.findByEmails(Set.of("a@b.com"))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(adapter.findForManualReviewByCursor(filter, after, 2, CountMode.EXACT))
+                .assertNext(p -> {
+                    assertThat(p.content()).extracting(LoanSummary::id).containsExactly(r1.id(), r2.id());
+                    assertThat(p.totalElements()).isEqualTo(40L);
+                    assertThat(PageCursor.decode(p.nextCursor())).isEqualTo(r2.cursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findForManualReviewByCursor_onLastPage_returnsNullNextCursor() {
+        var filter = new ManualReviewFilter(null, null, null, null, null);
+        var r1 = row("a@b.com", OffsetDateTime.parse("2025-04-30T12:00:00Z"));
+
+        when(repository.findForManualReviewAfter(any(String[].class), any(), any(), any(), any(), any(),
+                isNull(), isNull(), eq(11)))
+                .thenReturn(Flux.just(r1));
+        when(customerGateway.findByEmails(Set.of("a@b.com"))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(adapter.findForManualReviewByCursor(filter, null, 10, CountMode.NONE))
+                .assertNext(p -> {
+                    assertThat(p.content()).hasSize(1);
+                    assertThat(p.nextCursor()).isNull();
+                    assertThat(p.totalElements()).isEqualTo(Pageable.UNKNOWN_TOTAL);
+                })
+                .verifyComplete();
+
+        verify(repository, never()).countForManualReview(any(), any(), any(), any(), any(), any());
     }
 }
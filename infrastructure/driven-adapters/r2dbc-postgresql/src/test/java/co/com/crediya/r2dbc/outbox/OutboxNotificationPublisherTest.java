@@ -0,0 +1,63 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.customer.UserData;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.LoanStatusChanged;
+import co.com.crediya.model.outbox.OutboxDestination;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxNotificationPublisherTest {
+
+    @Mock
+    OutboxStore store;
+
+    @Test
+    void sendMessage_enqueuesSameJsonContractAsBefore() {
+        var publisher = new OutboxNotificationPublisher(store, new ObjectMapper());
+        var loan = new Loan("loan-123", new Money(new BigDecimal("1000")), new TermMonths(12),
+                new Email("a@b.com"), "state-id", "type-id");
+        var changed = new LoanStatusChanged(loan, "APPROVED", "PERSONAL", "approved-after-review",
+                new UserData("u-1", "Ana", "Diaz", new BigDecimal("5000")));
+        when(store.enqueue(any(), anyString())).thenReturn(Mono.empty());
+
+        StepVerifier.create(publisher.sendMessage(changed)).verifyComplete();
+
+        verify(store).enqueue(OutboxDestination.NOTIFICATION,
+                "{\"loanId\":\"loan-123\",\"email\":\"a@b.com\",\"amount\":1000.00," +
+                        "\"state\":\"APPROVED\",\"type\":\"PERSONAL\",\"reason\":\"approved-after-review\",\"name\":\"Ana\"}");
+    }
+
+    @Test
+    void sendMessages_enqueuesAllPayloadsInOneWrite() {
+        var publisher = new OutboxNotificationPublisher(store, new ObjectMapper());
+        var user = new UserData("u-1", "Ana", "Diaz", new BigDecimal("5000"));
+        var first = new LoanStatusChanged(new Loan("loan-1", new Money(new BigDecimal("1000")), new TermMonths(12),
+                new Email("a@b.com"), "state-id", "type-id"), "APPROVED", "PERSONAL", "ok", user);
+        var second = new LoanStatusChanged(new Loan("loan-2", new Money(new BigDecimal("2000")), new TermMonths(6),
+                new Email("a@b.com"), "state-id", "type-id"), "REJECTED", "PERSONAL", "no", user);
+        when(store.enqueueAll(any(), anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(publisher.sendMessages(List.of(first, second))).verifyComplete();
+
+        verify(store).enqueueAll(eq(OutboxDestination.NOTIFICATION), argThat(payloads -> payloads.size() == 2
+                && payloads.get(0).contains("\"loanId\":\"loan-1\"")
+                && payloads.get(1).contains("\"loanId\":\"loan-2\"")));
+        verify(store, never()).enqueue(any(), anyString());
+    }
+}
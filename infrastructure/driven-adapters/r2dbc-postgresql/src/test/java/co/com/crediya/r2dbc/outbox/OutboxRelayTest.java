@@ -0,0 +1,106 @@
+package co.com.crediya.r2dbc.outbox;
+
+import co.com.crediya.model.outbox.OutboxDestination;
+import co.com.crediya.model.outbox.gateways.MessageTransport;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock OutboxStore store;
+    @Mock MessageTransport notificationTransport;
+    @Mock LoanShardRouter shards;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OutboxProperties properties = new OutboxProperties(null, null, null, null, null, null);
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(notificationTransport.destination()).thenReturn(OutboxDestination.NOTIFICATION);
+        relay = new OutboxRelay(store, List.of(notificationTransport), properties, shards, registry);
+    }
+
+    static OutboxMessage message(long id, String destination, int attempts) {
+        return new OutboxMessage(id, destination, "{\"id\":" + id + "}", attempts, OffsetDateTime.now());
+    }
+
+    @Test
+    void drain_deliversClaimedMessages_andDeletesThem() {
+        when(store.claim(50, Duration.ofSeconds(30))).thenReturn(Flux.just(
+                message(1L, "NOTIFICATION", 1), message(2L, "NOTIFICATION", 1)));
+        when(notificationTransport.deliver(anyString())).thenReturn(Mono.empty());
+        when(store.markDelivered(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.drain()).expectNext(2).verifyComplete();
+
+        verify(store).markDelivered(argThat(ids -> ids.containsAll(List.of(1L, 2L)) && ids.size() == 2));
+        verify(store, never()).reschedule(any(), any(), any());
+        assertThat(registry.get("outbox.relay.messages").tag("destination", "NOTIFICATION").tag("result", "sent")
+                .counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("outbox.relay.lag").timer().count()).isEqualTo(2);
+        assertThat(registry.get("outbox.relay.batch.size").summary().totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void drain_whenTransportFails_reschedulesWithBackoff_andKeepsMessage() {
+        when(store.claim(50, Duration.ofSeconds(30))).thenReturn(Flux.just(message(7L, "NOTIFICATION", 3)));
+        when(notificationTransport.deliver(anyString())).thenReturn(Mono.error(new RuntimeException("sqs down")));
+        when(store.reschedule(7L, Duration.ofSeconds(4), "sqs down")).thenReturn(Mono.empty());
+        when(store.markDelivered(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.drain()).expectNext(1).verifyComplete();
+
+        verify(store).reschedule(7L, Duration.ofSeconds(4), "sqs down");
+        verify(store).markDelivered(List.of());
+        assertThat(registry.get("outbox.relay.messages").tag("result", "failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void drain_whenDestinationHasNoTransport_reschedulesInsteadOfDropping() {
+        when(store.claim(50, Duration.ofSeconds(30))).thenReturn(Flux.just(message(9L, "DEBT_CAPACITY", 1)));
+        when(store.reschedule(eq(9L), eq(Duration.ofSeconds(1)), anyString())).thenReturn(Mono.empty());
+        when(store.markDelivered(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(relay.drain()).expectNext(1).verifyComplete();
+
+        verify(notificationTransport, never()).deliver(anyString());
+        verify(store).reschedule(eq(9L), eq(Duration.ofSeconds(1)), contains("DEBT_CAPACITY"));
+    }
+
+    @Test
+    void drain_whenNothingPending_doesNotTouchStoreAgain() {
+        when(store.claim(50, Duration.ofSeconds(30))).thenReturn(Flux.empty());
+
+        StepVerifier.create(relay.drain()).expectNext(0).verifyComplete();
+
+        verify(store).claim(50, Duration.ofSeconds(30));
+        verifyNoMoreInteractions(store);
+    }
+
+    @Test
+    void backoff_isExponential_andCapped() {
+        assertThat(relay.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(relay.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(relay.backoff(5)).isEqualTo(Duration.ofSeconds(16));
+        assertThat(relay.backoff(30)).isEqualTo(Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,145 @@
+package co.com.crediya.r2dbc.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadReplicaRouterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ReadReplicaRouter router(String... names) {
+        var properties = new ReadReplicaProperties(true, List.of(names), null, null, Duration.ofSeconds(5),
+                null, null, Set.of("LoanUseCase.getLoanById"));
+        Map<String, ConnectionFactory> pools = new LinkedHashMap<>();
+        for (String name : names) {
+            pools.put(name, mock(ConnectionFactory.class));
+        }
+        return new ReadReplicaRouter(properties, pools, registry);
+    }
+
+    private static ReadReplicaRouter.Replica replica(ReadReplicaRouter router, String name) {
+        return router.replicas().stream().filter(r -> r.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static List<String> routes(ReadReplicaRouter router, int count) {
+        return IntStream.range(0, count).mapToObj(i -> router.route("LoanUseCase.execute")).toList();
+    }
+
+    @Test
+    void withoutReplicas_everythingGoesToPrimary() {
+        var router = new ReadReplicaRouter(new ReadReplicaProperties(null, null, null, null, null, null, null, null),
+                Map.of(), registry);
+
+        assertThat(router.route("LoanUseCase.execute")).isEqualTo(ReadReplicaRouter.PRIMARY);
+        assertThat(router.targets()).isEmpty();
+    }
+
+    @Test
+    void replicas_startOutOfRotation_untilTheFirstGoodCheck() {
+        var router = router("r1");
+
+        assertThat(router.route("LoanUseCase.execute")).isEqualTo(ReadReplicaRouter.PRIMARY);
+
+        router.report(replica(router, "r1"), 0.2, null);
+        assertThat(router.route("LoanUseCase.execute")).isEqualTo("r1");
+        assertThat(registry.get(ReadReplicaRouter.HEALTHY_METRIC).tag("replica", "r1").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get(ReadReplicaRouter.LAG_METRIC).tag("replica", "r1").gauge().value()).isEqualTo(0.2);
+    }
+
+    @Test
+    void healthyReplicas_shareTheLoad_roundRobin() {
+        var router = router("r1", "r2");
+        router.report(replica(router, "r1"), 0, null);
+        router.report(replica(router, "r2"), 0, null);
+
+        assertThat(routes(router, 4)).containsExactly("r1", "r2", "r1", "r2");
+    }
+
+    @Test
+    void laggingReplica_leavesRotation_andComesBackWhenCaughtUp() {
+        var router = router("r1", "r2");
+        router.report(replica(router, "r1"), 0, null);
+        router.report(replica(router, "r2"), 30, null);
+
+        assertThat(routes(router, 3)).containsOnly("r1");
+
+        router.report(replica(router, "r2"), 1, null);
+        assertThat(routes(router, 4)).contains("r1", "r2");
+    }
+
+    @Test
+    void failedCheckOnEveryReplica_fallsBackToPrimary() {
+        var router = router("r1", "r2");
+        router.report(replica(router, "r1"), 0, null);
+        router.report(replica(router, "r2"), 0, null);
+
+        router.report(replica(router, "r1"), Double.NaN, new IllegalStateException("connection refused"));
+        router.report(replica(router, "r2"), Double.NaN, new IllegalStateException("timeout"));
+
+        assertThat(routes(router, 3)).containsOnly(ReadReplicaRouter.PRIMARY);
+        assertThat(registry.get(ReadReplicaRouter.HEALTHY_METRIC).tag("replica", "r2").gauge().value()).isZero();
+    }
+
+    @Test
+    void primaryOperations_neverGoToAReplica() {
+        var router = router("r1");
+        router.report(replica(router, "r1"), 0, null);
+
+        assertThat(router.route("LoanUseCase.getLoanById")).isEqualTo(ReadReplicaRouter.PRIMARY);
+    }
+
+    @Test
+    void replicaWhoseWalReceiverIsNotStreaming_leavesRotation_evenWithoutPendingWal() {
+        var properties = new ReadReplicaProperties(true, List.of("r1"), null, null, Duration.ofSeconds(5),
+                null, null, null);
+        var router = new ReadReplicaRouter(properties, Map.of("r1", answering(0.0, false)), registry);
+        router.report(replica(router, "r1"), 0, null);
+
+        // recibido = aplicado da atraso 0, pero sin receptor la réplica ya no sigue al primario
+        router.checkAll().block();
+
+        assertThat(replica(router, "r1").healthy()).isFalse();
+        assertThat(router.route("LoanUseCase.execute")).isEqualTo(ReadReplicaRouter.PRIMARY);
+    }
+
+    /** Réplica cuyo chequeo responde LAG_SQL con {@code lag} y {@code streaming}. */
+    @SuppressWarnings("unchecked")
+    private static ConnectionFactory answering(double lag, boolean streaming) {
+        var factory = mock(ConnectionFactory.class);
+        var connection = mock(Connection.class);
+        var statement = mock(Statement.class);
+        var result = mock(Result.class);
+        var row = mock(Row.class);
+        doReturn(Mono.just(connection)).when(factory).create();
+        when(connection.createStatement(ReadReplicaRouter.LAG_SQL)).thenReturn(statement);
+        doReturn(Mono.empty()).when(connection).close();
+        doReturn(Mono.just(result)).when(statement).execute();
+        when(row.get("lag", Double.class)).thenReturn(lag);
+        when(row.get("streaming", Boolean.class)).thenReturn(streaming);
+        when(result.map(any(BiFunction.class))).thenAnswer(inv -> Flux.just(
+                inv.<BiFunction<Row, RowMetadata, Object>>getArgument(0).apply(row, mock(RowMetadata.class))));
+        return factory;
+    }
+}
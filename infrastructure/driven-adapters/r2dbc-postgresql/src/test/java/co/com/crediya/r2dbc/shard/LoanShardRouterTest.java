@@ -0,0 +1,97 @@
+package co.com.crediya.r2dbc.shard;
+
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.r2dbc.config.PostgresqlConnectionProperties;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LoanShardRouterTest {
+
+    private static LoanShardRouter router(int shards) {
+        Map<String, ConnectionFactory> pools = new LinkedHashMap<>();
+        IntStream.range(0, shards).forEach(i -> pools.put("shard-" + i, mock(ConnectionFactory.class)));
+        return new LoanShardRouter(pools);
+    }
+
+    @Test
+    void shardOf_isStable_andIgnoresCaseAndSurroundingSpaces() {
+        var router = router(4);
+
+        assertThat(router.shardOf("Ana@Mail.com ")).isEqualTo(router.shardOf("ana@mail.com"));
+        assertThat(router(4).shardOf("ana@mail.com")).isEqualTo(router.shardOf("ana@mail.com"));
+    }
+
+    @Test
+    void shardOf_spreadsCustomersAcrossEveryShard() {
+        var router = router(4);
+        Map<String, Integer> counts = new HashMap<>();
+        IntStream.range(0, 4_000).forEach(i -> counts.merge(router.shardOf("user" + i + "@mail.com"), 1, Integer::sum));
+
+        assertThat(counts).containsOnlyKeys("shard-0", "shard-1", "shard-2", "shard-3");
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(800, 1_200));
+    }
+
+    @Test
+    void jumpHash_addingAShard_onlyMovesKeysToTheNewShard() {
+        long moved = IntStream.range(0, 10_000).filter(i -> {
+            long key = LoanShardRouter.key("user" + i + "@mail.com");
+            int before = LoanShardRouter.jumpHash(key, 4);
+            int after = LoanShardRouter.jumpHash(key, 5);
+            assertThat(after).isIn(before, 4);
+            return after != before;
+        }).count();
+
+        // ~1/5 de las claves pasan al shard nuevo; ninguna se mueve entre los existentes
+        assertThat(moved).isBetween(1_600L, 2_400L);
+    }
+
+    @Test
+    void disabled_routesEverythingToPrimary() {
+        var connection = new PostgresqlConnectionProperties("localhost", 5432, "loans", "public", "u", "p");
+        var router = new LoanShardRouter(new ShardingProperties(null, null, null, null), connection);
+
+        assertThat(router.isEnabled()).isFalse();
+        assertThat(router.targets()).isEmpty();
+        StepVerifier.create(router.route(TxRoute.loan(UUID.randomUUID())))
+                .expectNext(ReadReplicaRouter.PRIMARY)
+                .verifyComplete();
+    }
+
+    @Test
+    void route_byCustomer_doesNotTouchTheDatabase() {
+        var router = router(3);
+
+        StepVerifier.create(router.route(TxRoute.customer("ana@mail.com")))
+                .expectNext(router.shardOf("ana@mail.com"))
+                .verifyComplete();
+    }
+
+    @Test
+    void route_byResolvedPartition_isTakenAsIs() {
+        StepVerifier.create(router(3).route(TxRoute.partition("shard-2")))
+                .expectNext("shard-2")
+                .verifyComplete();
+    }
+
+    @Test
+    void routes_byCustomer_groupTheBatchWithoutTouchingTheDatabase() {
+        var router = router(3);
+        var routes = IntStream.range(0, 30).mapToObj(i -> TxRoute.customer("user" + i + "@mail.com")).toList();
+
+        StepVerifier.create(router.routes(routes))
+                .assertNext(resolved -> routes.forEach(route ->
+                        assertThat(resolved.get(route)).isEqualTo(router.shardOf(route.customerEmail()))))
+                .verifyComplete();
+    }
+}
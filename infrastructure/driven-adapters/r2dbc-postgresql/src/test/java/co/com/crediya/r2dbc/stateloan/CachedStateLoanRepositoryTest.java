@@ -0,0 +1,54 @@
+package co.com.crediya.r2dbc.stateloan;
+
+import co.com.crediya.model.stateloan.StateLoan;
+import co.com.crediya.r2dbc.cache.ReferenceDataCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachedStateLoanRepositoryTest {
+
+    @Mock
+    ReferenceDataCache cache;
+
+    @Mock
+    StateLoanReactiveRepositoryAdapter delegate;
+
+    @InjectMocks
+    CachedStateLoanRepository repository;
+
+    @Test
+    void findByName_whenCached_doesNotHitDatabase() {
+        var state = new StateLoan(UUID.randomUUID().toString(), "APPROVED", "");
+        when(cache.findStateLoanByName("APPROVED")).thenReturn(Mono.just(state));
+
+        StepVerifier.create(repository.findByName("APPROVED"))
+                .expectNext(state)
+                .verifyComplete();
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void findById_onMiss_fallsBackToDelegate() {
+        var id = UUID.randomUUID();
+        var state = new StateLoan(id.toString(), "NEW_STATE", "");
+        when(cache.findStateLoan(id)).thenReturn(Mono.empty());
+        when(delegate.findById(id)).thenReturn(Mono.just(state));
+
+        StepVerifier.create(repository.findById(id))
+                .expectNext(state)
+                .verifyComplete();
+
+        verify(delegate).findById(id);
+    }
+}
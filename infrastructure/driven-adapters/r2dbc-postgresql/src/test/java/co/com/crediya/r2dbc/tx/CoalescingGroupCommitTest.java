@@ -0,0 +1,113 @@
+package co.com.crediya.r2dbc.tx;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingGroupCommitTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<String>> commits = new CopyOnWriteArrayList<>();
+    private CoalescingGroupCommit groupCommit;
+
+    @AfterEach
+    void tearDown() {
+        if (groupCommit != null) {
+            groupCommit.destroy();
+        }
+    }
+
+    private CoalescingGroupCommit create(boolean enabled, Duration window, int maxBatchSize) {
+        groupCommit = new CoalescingGroupCommit(
+                new GroupCommitProperties(enabled, window, maxBatchSize, 2, 64), registry);
+        return groupCommit;
+    }
+
+    private final Function<List<String>, Mono<List<String>>> upperCase = batch -> {
+        commits.add(batch);
+        return Mono.just(batch.stream().map(String::toUpperCase).toList());
+    };
+
+    @Test
+    void concurrentRequests_withinWindow_shareOneCommit_andEachGetsItsOwnResult() {
+        var commit = create(true, Duration.ofMillis(100), 10);
+
+        var results = Flux.just("a", "b", "c")
+                .flatMap(request -> commit.submit("op", request, upperCase))
+                .collectList();
+
+        StepVerifier.create(results)
+                .assertNext(values -> assertThat(values).containsExactlyInAnyOrder("A", "B", "C"))
+                .verifyComplete();
+
+        assertThat(commits).hasSize(1);
+        assertThat(commits.get(0)).containsExactlyInAnyOrder("a", "b", "c");
+        var batchSize = registry.get(CoalescingGroupCommit.BATCH_SIZE_METRIC).tag("operation", "op").summary();
+        assertThat(batchSize.count()).isEqualTo(1);
+        assertThat(batchSize.totalAmount()).isEqualTo(3.0);
+    }
+
+    @Test
+    void maxBatchSize_cutsTheBatchBeforeTheWindow() {
+        var commit = create(true, Duration.ofSeconds(5), 2);
+
+        var results = Flux.just("a", "b", "c", "d")
+                .flatMap(request -> commit.submit("op", request, upperCase))
+                .collectList();
+
+        StepVerifier.create(results)
+                .assertNext(values -> assertThat(values).hasSize(4))
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(commits).hasSize(2).allSatisfy(batch -> assertThat(batch).hasSize(2));
+    }
+
+    @Test
+    void failedCommit_propagatesTheErrorToEveryCaller() {
+        var commit = create(true, Duration.ofMillis(50), 10);
+        Function<List<String>, Mono<List<String>>> failing =
+                batch -> Mono.error(new IllegalStateException("tx rolled back"));
+
+        var errors = Flux.just("a", "b")
+                .flatMap(request -> commit.submit("op", request, failing)
+                        .map(value -> "unexpected " + value)
+                        .onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectList();
+
+        StepVerifier.create(errors)
+                .assertNext(messages -> assertThat(messages).containsExactly("tx rolled back", "tx rolled back"))
+                .verifyComplete();
+    }
+
+    @Test
+    void commitReturningWrongCount_failsTheBatch() {
+        var commit = create(true, Duration.ofMillis(20), 10);
+
+        StepVerifier.create(commit.submit("op", "a", batch -> Mono.just(List.<String>of())))
+                .expectErrorSatisfies(e -> assertThat(e).hasMessageContaining("returned 0 results for 1"))
+                .verify();
+    }
+
+    @Test
+    void disabled_commitsEachRequestOnItsOwn() {
+        var commit = create(false, Duration.ofMillis(100), 10);
+
+        StepVerifier.create(Flux.just("a", "b").concatMap(request -> commit.submit("op", request, upperCase)))
+                .expectNext("A", "B")
+                .verifyComplete();
+
+        assertThat(commit.isEnabled()).isFalse();
+        assertThat(commits).containsExactly(List.of("a"), List.of("b"));
+        assertThat(registry.find(CoalescingGroupCommit.BATCH_SIZE_METRIC).summary()).isNull();
+    }
+}
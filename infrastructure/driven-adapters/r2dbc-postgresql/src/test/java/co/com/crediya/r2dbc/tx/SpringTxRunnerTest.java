@@ -1,10 +1,18 @@
 package co.com.crediya.r2dbc.tx;
 
+import co.com.crediya.model.tx.TxRoute;
+import co.com.crediya.r2dbc.replica.ReadReplicaRouter;
+import co.com.crediya.r2dbc.shard.LoanShardRouter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,11 +28,18 @@ class SpringTxRunnerTest {
     private TransactionalOperator readOnlyTx =
             mock(TransactionalOperator.class);
 
+    private final ReadReplicaRouter router = mock(ReadReplicaRouter.class);
+
+    private final LoanShardRouter shards = mock(LoanShardRouter.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
     private SpringTxRunner runner;
 
     @BeforeEach
     void setUp() {
-        runner = new SpringTxRunner(tx, readOnlyTx);
+        runner = new SpringTxRunner(tx, readOnlyTx, router, shards, registry);
+        lenient().when(router.route(any())).thenReturn(ReadReplicaRouter.PRIMARY);
         when(tx.transactional(any(Mono.class))).thenAnswer(
                 inv -> inv.getArgument(0));
         when(tx.transactional(any(Flux.class))).thenAnswer(
@@ -121,4 +136,118 @@ class SpringTxRunnerTest {
         org.junit.jupiter.api.Assertions.assertEquals(3, calls.get());
         verifyNoMoreInteractions(tx, readOnlyTx);
     }
+
+    @Test
+    void required_withOperation_recordsHoldTimeOnlyAfterSubscription() {
+        Mono<String> mono = runner.required("LoanUseCase.create",
+                () -> Mono.just("ok").delayElement(Duration.ofMillis(20)));
+
+        var timer = registry.get(SpringTxRunner.HOLD_TIME_METRIC)
+                .tag("operation", "LoanUseCase.create")
+                .tag("read_only", "false")
+                .timer();
+        assertEquals(0, timer.count());
+
+        StepVerifier.create(mono)
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 20);
+    }
+
+    @Test
+    void readOnlyMany_withoutOperation_isTaggedUnnamed_andRecordsOnError() {
+        Flux<Integer> flux = runner.readOnlyMany(() -> Flux.<Integer>error(new IllegalStateException("boom")));
+
+        StepVerifier.create(flux)
+                .expectErrorMessage("boom")
+                .verify();
+
+        assertEquals(1, registry.get(SpringTxRunner.HOLD_TIME_METRIC)
+                .tag("operation", SpringTxRunner.UNNAMED)
+                .tag("read_only", "true")
+                .timer().count());
+    }
+
+    @Test
+    void readOnly_routesToTheReplicaChosenAtSubscription_andTagsHoldTimeWithIt() {
+        when(router.route("LoanUseCase.execute")).thenReturn("replica-a", "replica-b");
+        Mono<Object> mono = runner.readOnly("LoanUseCase.execute",
+                () -> Mono.deferContextual(ctx -> Mono.just(ctx.get(ReadReplicaRouter.ROUTE_KEY))));
+
+        verify(router, never()).route(any());
+        StepVerifier.create(mono).expectNext("replica-a").verifyComplete();
+        StepVerifier.create(mono).expectNext("replica-b").verifyComplete();
+
+        assertEquals(1, registry.get(SpringTxRunner.HOLD_TIME_METRIC)
+                .tag("operation", "LoanUseCase.execute")
+                .tag("route", "replica-a")
+                .timer().count());
+    }
+
+    @Test
+    void required_alwaysUsesPrimary_evenInsideAReadOnlyRoute() {
+        Flux<Object> flux = runner.requiredMany("LoanUseCase.createBulk",
+                        () -> Flux.deferContextual(ctx -> Flux.just(ctx.get(ReadReplicaRouter.ROUTE_KEY))))
+                .contextWrite(ReadReplicaRouter.routeTo("replica-a"));
+
+        StepVerifier.create(flux).expectNext(ReadReplicaRouter.PRIMARY).verifyComplete();
+
+        verify(router, never()).route(any());
+        assertEquals(1, registry.get(SpringTxRunner.HOLD_TIME_METRIC)
+                .tag("operation", "LoanUseCase.createBulk")
+                .tag("route", ReadReplicaRouter.PRIMARY)
+                .timer().count());
+    }
+
+    @Test
+    void requiredWithRoute_withoutShards_isAPlainPrimaryTransaction() {
+        Mono<Object> mono = runner.required("LoanUseCase.create", TxRoute.customer("a@b.com"),
+                () -> Mono.deferContextual(ctx -> Mono.just(ctx.get(ReadReplicaRouter.ROUTE_KEY))));
+
+        StepVerifier.create(mono).expectNext(ReadReplicaRouter.PRIMARY).verifyComplete();
+
+        verify(shards, never()).route(any());
+        verify(tx).transactional(any(Mono.class));
+    }
+
+    @Test
+    void requiredWithRoute_opensTheTransactionOnTheCustomersShard() {
+        var route = TxRoute.customer("a@b.com");
+        when(shards.isEnabled()).thenReturn(true);
+        when(shards.route(route)).thenReturn(Mono.just("shard-1"));
+
+        Mono<Object> mono = runner.required("LoanUseCase.create", route,
+                () -> Mono.deferContextual(ctx -> Mono.just(ctx.get(ReadReplicaRouter.ROUTE_KEY))));
+
+        StepVerifier.create(mono).expectNext("shard-1").verifyComplete();
+
+        verify(router, never()).route(any());
+        assertEquals(1, registry.get(SpringTxRunner.HOLD_TIME_METRIC)
+                .tag("operation", "LoanUseCase.create")
+                .tag("read_only", "false")
+                .tag("route", "shard-1")
+                .timer().count());
+    }
+
+    @Test
+    void readOnly_withShards_runsWithoutATransactionOnThePrimary() {
+        when(shards.isEnabled()).thenReturn(true);
+        var calls = new AtomicInteger(0);
+
+        Mono<Integer> mono = runner.readOnly("LoanUseCase.getLoanById",
+                () -> Mono.fromCallable(calls::incrementAndGet));
+        Flux<Integer> flux = runner.readOnlyMany("LoanUseCase.getAllLoans",
+                () -> Flux.defer(() -> Flux.just(calls.incrementAndGet())));
+
+        assertEquals(0, calls.get());
+        StepVerifier.create(mono).expectNext(1).verifyComplete();
+        StepVerifier.create(flux).expectNext(2).verifyComplete();
+
+        verify(readOnlyTx, never()).transactional(any(Mono.class));
+        verify(readOnlyTx, never()).transactional(any(Flux.class));
+        verify(router, never()).route(any());
+        assertTrue(registry.find(SpringTxRunner.HOLD_TIME_METRIC).timers().isEmpty());
+    }
 }
@@ -1,46 +1,33 @@
 package co.com.crediya.sqs.sender;
 
-import co.com.crediya.model.loan.DebtCapacity;
-import co.com.crediya.model.loan.gateways.DebtCapacitySQS;
+import co.com.crediya.model.outbox.OutboxDestination;
+import co.com.crediya.model.outbox.gateways.MessageTransport;
 import co.com.crediya.sqs.sender.config.SQSSenderProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import reactor.core.publisher.Mono;
-import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 @Log4j2
 @RequiredArgsConstructor
-public class SQSSenderDebtCapacity implements DebtCapacitySQS {
+public class SQSSenderDebtCapacity implements MessageTransport {
     private final SQSSenderProperties properties;
-    private final SqsAsyncClient client;
-    private final ObjectMapper objectMapper;
+    private final SqsBatchSender batchSender;
 
     public Mono<String> send(String message) {
-        return Mono.fromCallable(() -> buildRequest(message))
-                .flatMap(request -> Mono.fromFuture(client.sendMessage(request)))
-                .doOnNext(response -> log.debug("Message sent {}", response.messageId()))
-                .doOnError(e -> log.error("Error sending to SQS", e))
-                .map(SendMessageResponse::messageId);
+        return batchSender.send(properties.queueUrlDebtCapacity(), message)
+                .doOnNext(messageId -> log.debug("Message sent {}", messageId))
+                .doOnError(e -> log.error("Error sending to SQS", e));
     }
 
-    private SendMessageRequest buildRequest(String message) {
-        return SendMessageRequest.builder()
-                .queueUrl(properties.queueUrlDebtCapacity())
-                .messageBody(message)
-                .build();
+    @Override
+    public OutboxDestination destination() {
+        return OutboxDestination.DEBT_CAPACITY;
     }
 
-
     @Override
-    public Mono<Void> sendMessage(DebtCapacity debtCapacity) {
-        return Mono.fromCallable(() -> objectMapper.writeValueAsString(debtCapacity))
-                .doOnNext(jsonMessage -> log.info("Sending message to SQS: {}", jsonMessage))
-                .flatMap(this::send)
-                .then();
+    public Mono<Void> deliver(String payload) {
+        return send(payload).then();
     }
 }
@@ -1,47 +1,35 @@
 package co.com.crediya.sqs.sender;
 
-import co.com.crediya.model.loan.LoanStatusChanged;
-import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.outbox.OutboxDestination;
+import co.com.crediya.model.outbox.gateways.MessageTransport;
 import co.com.crediya.sqs.sender.config.SQSSenderProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
 @Service
 @Log4j2
 @RequiredArgsConstructor
-public class SQSSenderNotification implements Notification {
+public class SQSSenderNotification implements MessageTransport {
     private final SQSSenderProperties properties;
-    private final SqsAsyncClient client;
+    private final SqsBatchSender batchSender;
 
     public Mono<String> send(String message) {
-        return Mono.fromCallable(() -> buildRequest(message))
-                .flatMap(request -> Mono.fromFuture(client.sendMessage(request)))
-                .doOnNext(response -> log.debug("Message sent {}", response.messageId()))
-                .doOnError(e -> log.error("Error sending to SQS", e))
-                .map(SendMessageResponse::messageId);
+        return batchSender.send(properties.queueUrlNotification(), message)
+                .doOnNext(messageId -> log.debug("Message sent {}", messageId))
+                .doOnError(e -> log.error("Error sending to SQS", e));
     }
 
-    private SendMessageRequest buildRequest(String message) {
-        return SendMessageRequest.builder()
-                .queueUrl(properties.queueUrlNotification())
-                .messageBody(message)
-                .build();
+    @Override
+    public OutboxDestination destination() {
+        return OutboxDestination.NOTIFICATION;
     }
 
     @Override
-    public Mono<Void> sendMessage(LoanStatusChanged loanStatusChanged) {
-        String message = String.format(
-                "{\"loanId\":\"%s\",\"email\":\"%s\",\"amount\":%s,\"state\":\"%s\",\"type\":\"%s\",\"reason\":\"%s\",\"name\":\"%s\"}",
-                loanStatusChanged.loan().id(), loanStatusChanged.loan().email().value(), loanStatusChanged.loan().amount().value(), loanStatusChanged.stateName(), loanStatusChanged.typeName(), loanStatusChanged.reason(), loanStatusChanged.userData().name());
-        log.info("Sending message to SQS: {}", message);
-        return send(message)
+    public Mono<Void> deliver(String payload) {
+        return send(payload)
                 .doOnSuccess(id -> log.info("SQS send OK id={}", id))
-                .doOnError(e -> log.error("SQS send FAILED", e))
                 .then();
     }
 }
@@ -0,0 +1,247 @@
+package co.com.crediya.sqs.sender;
+
+import co.com.crediya.sqs.sender.config.SQSBatchProperties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import software.amazon.awssdk.metrics.MetricCategory;
+import software.amazon.awssdk.metrics.MetricCollector;
+import software.amazon.awssdk.metrics.MetricLevel;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Agrupa los envíos por queue URL y los despacha con SendMessageBatch: a las 10 entradas o al cumplirse
+ * el linger, lo que ocurra primero. Las entradas rechazadas por SQS sin culpa del emisor se reintentan
+ * individualmente; el buffer es acotado y, si se llena, {@link #send} espera hasta enqueueTimeout.
+ */
+@Log4j2
+@Component
+public class SqsBatchSender implements DisposableBean {
+
+    static final int MAX_BATCH_ENTRIES = 10;
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+    private static final Duration OFFER_PAUSE = Duration.ofMillis(5);
+
+    static final SdkMetric<String> QUEUE =
+            SdkMetric.create("SqsBatchQueue", String.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+    static final SdkMetric<Integer> BATCH_REQUESTS =
+            SdkMetric.create("SqsBatchRequests", Integer.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+    static final SdkMetric<Integer> BATCH_ENTRIES =
+            SdkMetric.create("SqsBatchEntries", Integer.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+    static final SdkMetric<Integer> FAILED_ENTRIES =
+            SdkMetric.create("SqsBatchFailedEntries", Integer.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+    static final SdkMetric<Integer> RETRIED_ENTRIES =
+            SdkMetric.create("SqsBatchRetriedEntries", Integer.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+    static final SdkMetric<Duration> LINGER =
+            SdkMetric.create("SqsBatchLinger", Duration.class, MetricLevel.INFO, MetricCategory.CUSTOM);
+
+    private final SqsAsyncClient client;
+    private final SQSBatchProperties properties;
+    private final MetricPublisher metricPublisher;
+    private final Map<String, QueueBatcher> batchers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public SqsBatchSender(SqsAsyncClient client, SQSBatchProperties properties, MetricPublisher metricPublisher) {
+        this.client = client;
+        this.properties = properties;
+        this.metricPublisher = metricPublisher;
+    }
+
+    public Mono<String> send(String queueUrl, String body) {
+        return Mono.defer(() -> {
+            if (closed) {
+                return Mono.error(new IllegalStateException("SQS batch sender is shutting down"));
+            }
+            Entry entry = new Entry(body, 1, System.nanoTime(), Sinks.one());
+            return batchers.computeIfAbsent(queueUrl, QueueBatcher::new)
+                    .offer(entry)
+                    .then(entry.result().asMono());
+        });
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        batchers.values().forEach(QueueBatcher::complete);
+        long deadline = System.nanoTime() + properties.drainTimeout().toNanos();
+        for (QueueBatcher batcher : batchers.values()) {
+            if (!batcher.awaitTermination(deadline - System.nanoTime())) {
+                log.warn("SQS batch queue {} not drained within {}", batcher.queueName, properties.drainTimeout());
+            }
+        }
+    }
+
+    static List<List<Entry>> splitBySize(List<Entry> batch) {
+        List<List<Entry>> chunks = new ArrayList<>();
+        List<Entry> current = new ArrayList<>();
+        int bytes = 0;
+        for (Entry entry : batch) {
+            int size = entry.body().getBytes(StandardCharsets.UTF_8).length;
+            if (!current.isEmpty() && bytes + size > MAX_BATCH_BYTES) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                bytes = 0;
+            }
+            current.add(entry);
+            bytes += size;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    record Entry(String body, int attempts, long enqueuedAt, Sinks.One<String> result) {
+        Entry retry() {
+            return new Entry(body, attempts + 1, System.nanoTime(), result);
+        }
+    }
+
+    private final class QueueBatcher {
+
+        private final String queueUrl;
+        private final String queueName;
+        private final Sinks.Many<Entry> sink;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        QueueBatcher(String queueUrl) {
+            this.queueUrl = queueUrl;
+            this.queueName = queueUrl.substring(queueUrl.lastIndexOf('/') + 1);
+            this.sink = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<Entry>get(properties.bufferCapacity()).get());
+            sink.asFlux()
+                    .bufferTimeout(MAX_BATCH_ENTRIES, properties.linger(), true)
+                    .flatMapIterable(SqsBatchSender::splitBySize)
+                    .flatMap(this::flush, properties.maxInFlight())
+                    .doFinally(signal -> terminated.countDown())
+                    .subscribe(null, e -> log.error("SQS batch pipeline for {} terminated", queueName, e));
+        }
+
+        Mono<Void> offer(Entry entry) {
+            long deadline = System.nanoTime() + properties.enqueueTimeout().toNanos();
+            return Mono.defer(() -> tryOffer(entry, deadline));
+        }
+
+        private Mono<Void> tryOffer(Entry entry, long deadline) {
+            Sinks.EmitResult result;
+            synchronized (this) {
+                result = sink.tryEmitNext(entry);
+            }
+            if (result.isSuccess()) {
+                return Mono.empty();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW && System.nanoTime() < deadline) {
+                return Mono.delay(OFFER_PAUSE).then(Mono.defer(() -> tryOffer(entry, deadline)));
+            }
+            return Mono.error(new IllegalStateException(
+                    "SQS batch buffer for " + queueName + " rejected message: " + result));
+        }
+
+        private Mono<Void> flush(List<Entry> batch) {
+            Duration linger = Duration.ofNanos(System.nanoTime() - batch.get(0).enqueuedAt());
+            return Mono.fromFuture(() -> client.sendMessageBatch(request(batch)))
+                    .map(response -> settle(batch, response, linger))
+                    .onErrorResume(e -> Mono.just(retryOrFail(batch, e, linger)))
+                    .flatMapMany(Flux::fromIterable)
+                    .flatMap(this::resubmit)
+                    .then();
+        }
+
+        private SendMessageBatchRequest request(List<Entry> batch) {
+            return SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(IntStream.range(0, batch.size())
+                            .mapToObj(i -> SendMessageBatchRequestEntry.builder()
+                                    .id(Integer.toString(i))
+                                    .messageBody(batch.get(i).body())
+                                    .build())
+                            .toList())
+                    .build();
+        }
+
+        private List<Entry> settle(List<Entry> batch, SendMessageBatchResponse response, Duration linger) {
+            response.successful().forEach(ok ->
+                    batch.get(Integer.parseInt(ok.id())).result().tryEmitValue(ok.messageId()));
+
+            List<Entry> retries = new ArrayList<>();
+            for (BatchResultErrorEntry failed : response.failed()) {
+                Entry entry = batch.get(Integer.parseInt(failed.id()));
+                if (!Boolean.TRUE.equals(failed.senderFault()) && entry.attempts() < properties.maxAttempts()) {
+                    retries.add(entry.retry());
+                } else {
+                    entry.result().tryEmitError(new IllegalStateException(
+                            "SQS rejected message: " + failed.code() + " - " + failed.message()));
+                }
+            }
+            publish(batch.size(), linger, response.failed().size(), retries.size());
+            return retries;
+        }
+
+        private List<Entry> retryOrFail(List<Entry> batch, Throwable error, Duration linger) {
+            log.warn("SendMessageBatch to {} failed: {}", queueName, error.getMessage());
+            List<Entry> retries = new ArrayList<>();
+            for (Entry entry : batch) {
+                if (entry.attempts() < properties.maxAttempts()) {
+                    retries.add(entry.retry());
+                } else {
+                    entry.result().tryEmitError(error);
+                }
+            }
+            publish(batch.size(), linger, batch.size(), retries.size());
+            return retries;
+        }
+
+        private Mono<Void> resubmit(Entry entry) {
+            return Mono.delay(properties.retryBackoff().multipliedBy(entry.attempts() - 1L))
+                    .then(offer(entry))
+                    .onErrorResume(e -> {
+                        entry.result().tryEmitError(e);
+                        return Mono.empty();
+                    });
+        }
+
+        private void publish(int entries, Duration linger, int failed, int retried) {
+            MetricCollector collector = MetricCollector.create("SqsBatchSend");
+            collector.reportMetric(QUEUE, queueName);
+            collector.reportMetric(BATCH_REQUESTS, 1);
+            collector.reportMetric(BATCH_ENTRIES, entries);
+            collector.reportMetric(FAILED_ENTRIES, failed);
+            collector.reportMetric(RETRIED_ENTRIES, retried);
+            collector.reportMetric(LINGER, linger);
+            metricPublisher.publish(collector.collect());
+        }
+
+        synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+
+        boolean awaitTermination(long nanos) {
+            try {
+                return terminated.await(Math.max(nanos, 0), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package co.com.crediya.sqs.sender.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "adapter.sqs.batch")
+public record SQSBatchProperties(
+        Duration linger,
+        Integer bufferCapacity,
+        Integer maxInFlight,
+        Integer maxAttempts,
+        Duration retryBackoff,
+        Duration enqueueTimeout,
+        Duration drainTimeout) {
+
+    public SQSBatchProperties {
+        if (linger == null) linger = Duration.ofMillis(20);
+        if (bufferCapacity == null) bufferCapacity = 1024;
+        if (maxInFlight == null) maxInFlight = 4;
+        if (maxAttempts == null) maxAttempts = 3;
+        if (retryBackoff == null) retryBackoff = Duration.ofMillis(100);
+        if (enqueueTimeout == null) enqueueTimeout = Duration.ofSeconds(1);
+        if (drainTimeout == null) drainTimeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,147 @@
+package co.com.crediya.sqs.sender;
+
+import co.com.crediya.sqs.sender.config.SQSBatchProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SqsBatchSenderTest {
+
+    private static final String QUEUE_URL = "https://sqs.aws/123/queue-debt";
+
+    private final SqsAsyncClient client = mock(SqsAsyncClient.class);
+    private final MetricPublisher metricPublisher = mock(MetricPublisher.class);
+
+    private SqsBatchSender sender(Duration linger) {
+        return new SqsBatchSender(client,
+                new SQSBatchProperties(linger, null, null, null, Duration.ofMillis(1), null, null),
+                metricPublisher);
+    }
+
+    private static SendMessageBatchResponse allOk(SendMessageBatchRequest request) {
+        return SendMessageBatchResponse.builder()
+                .successful(request.entries().stream()
+                        .map(e -> SendMessageBatchResultEntry.builder()
+                                .id(e.id()).messageId("mid-" + e.messageBody()).build())
+                        .toList())
+                .build();
+    }
+
+    @Test
+    void send_groupsTenMessagesIntoSingleBatchRequest() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(allOk(inv.getArgument(0))));
+        var sender = sender(Duration.ofSeconds(5));
+
+        StepVerifier.create(Flux.range(0, 10).flatMap(i -> sender.send(QUEUE_URL, "m" + i)).collectList())
+                .assertNext(ids -> assertThat(ids).hasSize(10).contains("mid-m0", "mid-m9"))
+                .verifyComplete();
+
+        var captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(client, times(1)).sendMessageBatch(captor.capture());
+        assertThat(captor.getValue().queueUrl()).isEqualTo(QUEUE_URL);
+        assertThat(captor.getValue().entries()).hasSize(10);
+    }
+
+    @Test
+    void send_flushesPartialBatchAfterLinger() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(allOk(inv.getArgument(0))));
+        var sender = sender(Duration.ofMillis(30));
+
+        StepVerifier.create(sender.send(QUEUE_URL, "solo"))
+                .expectNext("mid-solo")
+                .verifyComplete();
+
+        var captor = ArgumentCaptor.forClass(MetricCollection.class);
+        verify(metricPublisher).publish(captor.capture());
+        assertThat(captor.getValue().metricValues(SqsBatchSender.BATCH_ENTRIES)).containsExactly(1);
+        assertThat(captor.getValue().metricValues(SqsBatchSender.QUEUE)).containsExactly("queue-debt");
+        assertThat(captor.getValue().metricValues(SqsBatchSender.LINGER).get(0))
+                .isGreaterThanOrEqualTo(Duration.ofMillis(30));
+    }
+
+    @Test
+    void send_retriesOnlyServerSideFailedEntries() {
+        var calls = new AtomicInteger();
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(inv -> {
+            SendMessageBatchRequest request = inv.getArgument(0);
+            if (calls.getAndIncrement() > 0) {
+                return CompletableFuture.completedFuture(allOk(request));
+            }
+            // primer intento: "a" ok, "b" throttled (reintenta), "c" inválido (no reintenta)
+            var byBody = request.entries();
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                    .successful(SendMessageBatchResultEntry.builder().id(byBody.get(0).id()).messageId("mid-a").build())
+                    .failed(BatchResultErrorEntry.builder().id(byBody.get(1).id())
+                                    .code("ThrottlingException").senderFault(false).message("slow down").build(),
+                            BatchResultErrorEntry.builder().id(byBody.get(2).id())
+                                    .code("InvalidMessageContents").senderFault(true).message("bad").build())
+                    .build());
+        });
+        var sender = sender(Duration.ofMillis(20));
+
+        var a = sender.send(QUEUE_URL, "a").toFuture();
+        var b = sender.send(QUEUE_URL, "b").toFuture();
+        var c = sender.send(QUEUE_URL, "c").toFuture();
+
+        StepVerifier.create(Mono.fromFuture(a)).expectNext("mid-a").verifyComplete();
+        StepVerifier.create(Mono.fromFuture(b)).expectNext("mid-b").verifyComplete();
+        StepVerifier.create(Mono.fromFuture(c))
+                .expectErrorSatisfies(e -> assertThat(e).hasMessageContaining("InvalidMessageContents"))
+                .verify();
+
+        var captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(client, times(2)).sendMessageBatch(captor.capture());
+        assertThat(captor.getAllValues().get(1).entries()).extracting("messageBody").containsExactly("b");
+    }
+
+    @Test
+    void destroy_flushesBufferedMessagesBeforeLinger_andRejectsNewOnes() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(allOk(inv.getArgument(0))));
+        var sender = sender(Duration.ofMinutes(1));
+
+        var pending = sender.send(QUEUE_URL, "late").toFuture();
+        sender.destroy();
+
+        assertThat(pending).isCompletedWithValue("mid-late");
+        StepVerifier.create(sender.send(QUEUE_URL, "after"))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void splitBySize_keepsEachRequestUnderSqsPayloadLimit() {
+        String big = "x".repeat(200 * 1024);
+        var batch = List.of(
+                new SqsBatchSender.Entry(big, 1, 0, null),
+                new SqsBatchSender.Entry(big, 1, 0, null),
+                new SqsBatchSender.Entry("small", 1, 0, null));
+
+        var chunks = SqsBatchSender.splitBySize(batch);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(1)).hasSize(2);
+    }
+}
@@ -0,0 +1,95 @@
+package co.com.crediya.webclient.cache;
+
+import co.com.crediya.model.customer.UserData;
+import co.com.crediya.webclient.config.AuthProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Caché asíncrona de {@link UserData} con TTL y tamaño máximo. Los misses concurrentes para la misma
+ * clave comparten un único future (single-flight). La clave incluye el token con el que se consultó,
+ * así en modo CALLER un usuario nunca recibe datos obtenidos con el JWT de otro.
+ */
+@Component
+public class UserDataCache {
+
+    public static final String CACHE_NAME = "customer.userdata";
+
+    private final AsyncCache<Key, Optional<UserData>> cache;
+    private final Timer loadTimer;
+    private final boolean negativeCaching;
+
+    public UserDataCache(AuthProperties props, MeterRegistry registry) {
+        Duration ttl = props.getCacheTtl();
+        Duration negativeTtl = props.getNegativeCacheTtl();
+        this.negativeCaching = negativeTtl != null && !negativeTtl.isZero() && !negativeTtl.isNegative();
+        long negativeNanos = negativeCaching ? negativeTtl.toNanos() : 0L;
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(props.getCacheMaxSize())
+                .expireAfter(new Expiry<Key, Optional<UserData>>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Optional<UserData> value, long currentTime) {
+                        return value.isPresent() ? ttl.toNanos() : negativeNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Optional<UserData> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Optional<UserData> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        this.loadTimer = Timer.builder(CACHE_NAME + ".load")
+                .description("Latencia de la consulta al servicio de auth en un miss")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Mono<UserData> get(String email, String token, Function<String, Mono<UserData>> loader) {
+        Key key = new Key(email, token);
+        // suppressCancel: cancelar a un suscriptor no debe abortar la carga compartida con los demás
+        return Mono.fromFuture(() -> cache.get(key, (k, executor) -> load(k, loader)), true)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private CompletableFuture<Optional<UserData>> load(Key key, Function<String, Mono<UserData>> loader) {
+        Timer.Sample sample = Timer.start();
+        return loader.apply(key.email())
+                .map(Optional::of)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                        e -> negativeCaching ? Mono.just(Optional.empty()) : Mono.error(e))
+                .defaultIfEmpty(Optional.empty())
+                .doFinally(signal -> sample.stop(loadTimer))
+                .toFuture();
+    }
+
+    record Key(String email, String token) {
+        @Override
+        public String toString() {
+            return "Key[" + email + "]";
+        }
+    }
+}
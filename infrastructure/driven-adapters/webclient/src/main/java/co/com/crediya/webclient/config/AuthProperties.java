@@ -2,10 +2,26 @@ package co.com.crediya.webclient.config;
 
 import lombok.Getter; import lombok.Setter;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 public class AuthProperties {
     private String baseUrl;
     private String existsPath;
     private String emailInfoPath;
+    /** Consultas simultáneas hacia emailInfoPath al resolver emails en bloque. */
+    private int lookupConcurrency = 8;
+    /** Ventana en la que se agrupan lookups de peticiones concurrentes. */
+    private Duration lookupWindow = Duration.ofMillis(5);
+    private int lookupMaxBatch = 100;
+    /** CALLER reenvía el JWT del usuario; SERVICE usa serviceToken y permite compartir la caché entre usuarios. */
+    private CredentialMode credentialMode = CredentialMode.CALLER;
+    private String serviceToken;
+    private Duration cacheTtl = Duration.ofMinutes(5);
+    private long cacheMaxSize = 10_000;
+    /** TTL para 404 cacheados; nulo o cero desactiva el caché negativo. */
+    private Duration negativeCacheTtl;
+
+    public enum CredentialMode { CALLER, SERVICE }
 }
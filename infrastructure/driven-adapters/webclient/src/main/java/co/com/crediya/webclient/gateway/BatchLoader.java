@@ -0,0 +1,95 @@
+package co.com.crediya.webclient.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalescedor estilo DataLoader: las claves pedidas dentro de la misma ventana se despachan juntas
+ * en una sola invocación de la función batch, y una clave que ya está pendiente no se vuelve a pedir,
+ * aunque venga de otra petición concurrente.
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Mono<Map<K, V>>> batchFunction;
+    private final Map<K, Sinks.One<V>> pending = new ConcurrentHashMap<>();
+    private final Sinks.Many<K> queue = Sinks.many().unicast().onBackpressureBuffer();
+
+    public BatchLoader(Function<Set<K>, Mono<Map<K, V>>> batchFunction, int maxBatchSize, Duration window) {
+        this.batchFunction = batchFunction;
+        queue.asFlux()
+                .bufferTimeout(maxBatchSize, window, true)
+                .flatMap(this::dispatch)
+                .subscribe(null, e -> log.error("BatchLoader pipeline terminated", e));
+    }
+
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> created = Sinks.one();
+            Sinks.One<V> existing = pending.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing.asMono();
+            }
+            enqueue(key);
+            return created.asMono();
+        });
+    }
+
+    public Mono<Map<K, V>> loadMany(Collection<K> keys) {
+        return Flux.fromIterable(new LinkedHashSet<>(keys))
+                .flatMap(key -> load(key).map(value -> Map.entry(key, value)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private void enqueue(K key) {
+        Sinks.EmitResult result;
+        synchronized (queue) {
+            result = queue.tryEmitNext(key);
+        }
+        if (result.isFailure()) {
+            fail(key, new IllegalStateException("BatchLoader rejected key: " + result));
+        }
+    }
+
+    private Mono<Void> dispatch(List<K> keys) {
+        Set<K> batch = new LinkedHashSet<>(keys);
+        return batchFunction.apply(batch)
+                .defaultIfEmpty(Map.of())
+                .doOnNext(result -> batch.forEach(key -> complete(key, result.get(key))))
+                .onErrorResume(e -> {
+                    batch.forEach(key -> fail(key, e));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void complete(K key, V value) {
+        Sinks.One<V> sink = pending.remove(key);
+        if (sink == null) {
+            return;
+        }
+        if (value == null) {
+            sink.tryEmitEmpty();
+        } else {
+            sink.tryEmitValue(value);
+        }
+    }
+
+    private void fail(K key, Throwable error) {
+        Sinks.One<V> sink = pending.remove(key);
+        if (sink != null) {
+            sink.tryEmitError(error);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package co.com.crediya.webclient.gateway;
 
 import co.com.crediya.model.customer.UserData;
 import co.com.crediya.model.customer.gateways.CustomerGateway;
+import co.com.crediya.webclient.cache.UserDataCache;
 import co.com.crediya.webclient.config.AuthProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -9,8 +10,13 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -18,6 +24,8 @@ public class CustomerGatewayAdapter implements CustomerGateway {
 
     private final WebClient authWebClient;
     private final AuthProperties props;
+    private final UserDataCache cache;
+    private volatile BatchLoader<LookupKey, UserData> loader;
 
     @Override
     public Mono<Boolean> existsByEmail(String email) {
@@ -31,21 +39,90 @@ public class CustomerGatewayAdapter implements CustomerGateway {
 
     @Override
     public Mono<UserData> findByEmail(String email) {
+        return bearerToken()
+                .flatMap(jwtToken -> cachedFetch(email, jwtToken))
+                .doOnError(e -> log.error("Error in findByEmail: {}", e.getMessage()));
+    }
+
+    /**
+     * El servicio de auth no expone un endpoint batch: los emails se consultan en paralelo acotado
+     * (lookupConcurrency) y pasan por el {@link BatchLoader}, que deduplica entre peticiones concurrentes.
+     */
+    @Override
+    public Mono<Map<String, UserData>> findByEmails(Set<String> emails) {
+        if (emails == null || emails.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return bearerToken()
+                .flatMap(jwtToken -> loader().loadMany(emails.stream()
+                        .map(email -> new LookupKey(email, jwtToken))
+                        .toList()))
+                .map(found -> found.entrySet().stream()
+                        .collect(Collectors.toMap(entry -> entry.getKey().email(), Map.Entry::getValue)))
+                .defaultIfEmpty(Map.of())
+                .doOnError(e -> log.error("Error in findByEmails: {}", e.getMessage()));
+    }
 
+    private Mono<String> bearerToken() {
+        if (props.getCredentialMode() == AuthProperties.CredentialMode.SERVICE) {
+            String serviceToken = props.getServiceToken();
+            return serviceToken == null || serviceToken.isBlank()
+                    ? Mono.error(new IllegalStateException("Service token not configured"))
+                    : Mono.just(serviceToken);
+        }
         return ReactiveSecurityContextHolder.getContext()
                 .flatMap(securityContext -> {
                     if (securityContext.getAuthentication() instanceof JwtAuthenticationToken) {
-                        String jwtToken = ((JwtAuthenticationToken) securityContext.getAuthentication()).getToken().getTokenValue();
-
-                        return authWebClient.get()
-                                .uri(props.getEmailInfoPath(), email)
-                                .headers(headers -> headers.setBearerAuth(jwtToken))
-                                .retrieve()
-                                .bodyToMono(UserData.class);
+                        return Mono.just(((JwtAuthenticationToken) securityContext.getAuthentication()).getToken().getTokenValue());
                     } else {
                         return Mono.error(new IllegalStateException("JWT Token not found in security context"));
                     }
-                })
-                .doOnError(e -> log.error("Error in findByEmail: {}", e.getMessage()));
+                });
+    }
+
+    private Mono<UserData> cachedFetch(String email, String jwtToken) {
+        return cache.get(email, jwtToken, key -> fetch(key, jwtToken));
+    }
+
+    private Mono<UserData> fetch(String email, String jwtToken) {
+        return authWebClient.get()
+                .uri(props.getEmailInfoPath(), email)
+                .headers(headers -> headers.setBearerAuth(jwtToken))
+                .retrieve()
+                .bodyToMono(UserData.class);
+    }
+
+    private Mono<Map<LookupKey, UserData>> fetchBatch(Set<LookupKey> keys) {
+        return Flux.fromIterable(keys)
+                .flatMap(key -> cachedFetch(key.email(), key.jwtToken())
+                                .map(user -> Map.entry(key, user))
+                                .onErrorResume(e -> {
+                                    log.warn("Customer lookup failed for {}: {}", key.email(), e.getMessage());
+                                    return Mono.empty();
+                                }),
+                        props.getLookupConcurrency())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private BatchLoader<LookupKey, UserData> loader() {
+        BatchLoader<LookupKey, UserData> current = loader;
+        if (current == null) {
+            synchronized (this) {
+                current = loader;
+                if (current == null) {
+                    current = new BatchLoader<>(this::fetchBatch, props.getLookupMaxBatch(), props.getLookupWindow());
+                    loader = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** El token forma parte de la clave: un lookup solo se comparte entre peticiones del mismo llamador. */
+    record LookupKey(String email, String jwtToken) {
+        @Override
+        public String toString() {
+            return "LookupKey[" + email + "]";
+        }
     }
 }
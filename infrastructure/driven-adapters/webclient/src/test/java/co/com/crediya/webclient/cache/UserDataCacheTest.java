@@ -0,0 +1,98 @@
+package co.com.crediya.webclient.cache;
+
+import co.com.crediya.model.customer.UserData;
+import co.com.crediya.webclient.config.AuthProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDataCacheTest {
+
+    private final AuthProperties props = new AuthProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserData ana = new UserData("1", "Ana", "Gómez", new BigDecimal("4000000"));
+
+    private static WebClientResponseException notFound() {
+        return WebClientResponseException.create(404, "Not Found", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void concurrentMisses_forSameKey_triggerSingleLoad() {
+        var cache = new UserDataCache(props, registry);
+        var loads = new AtomicInteger();
+
+        var first = cache.get("a@b.com", "t", e -> Mono.just(ana).doOnSubscribe(s -> loads.incrementAndGet())
+                .delayElement(Duration.ofMillis(50)));
+        var second = cache.get("a@b.com", "t", e -> Mono.just(ana).doOnSubscribe(s -> loads.incrementAndGet()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(t -> assertThat(t.getT1()).isSameAs(t.getT2()))
+                .verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", UserDataCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("customer.userdata.load").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void notFound_withoutNegativeCaching_propagates_andIsRetriedNextTime() {
+        var cache = new UserDataCache(props, registry);
+        var loads = new AtomicInteger();
+
+        StepVerifier.create(cache.get("x@y.com", "t", e -> {
+                    loads.incrementAndGet();
+                    return Mono.error(notFound());
+                }))
+                .expectError(WebClientResponseException.NotFound.class)
+                .verify();
+        StepVerifier.create(cache.get("x@y.com", "t", e -> {
+                    loads.incrementAndGet();
+                    return Mono.just(ana);
+                }))
+                .expectNext(ana)
+                .verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void notFound_withNegativeCaching_isCachedAsEmpty() {
+        props.setNegativeCacheTtl(Duration.ofMinutes(1));
+        var cache = new UserDataCache(props, registry);
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(cache.get("x@y.com", "t", e -> {
+                        loads.incrementAndGet();
+                        return Mono.error(notFound());
+                    }))
+                    .verifyComplete();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesAreScopedByToken() {
+        var cache = new UserDataCache(props, registry);
+        var loads = new AtomicInteger();
+
+        StepVerifier.create(cache.get("a@b.com", "t1", e -> Mono.just(ana).doOnSubscribe(s -> loads.incrementAndGet())))
+                .expectNext(ana).verifyComplete();
+        StepVerifier.create(cache.get("a@b.com", "t2", e -> Mono.just(ana).doOnSubscribe(s -> loads.incrementAndGet())))
+                .expectNext(ana).verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
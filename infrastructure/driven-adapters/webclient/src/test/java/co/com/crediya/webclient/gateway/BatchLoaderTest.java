@@ -0,0 +1,65 @@
+package co.com.crediya.webclient.gateway;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchLoaderTest {
+
+    private final List<Set<String>> batches = new CopyOnWriteArrayList<>();
+
+    private final Function<Set<String>, Mono<Map<String, Integer>>> lengths = keys -> {
+        batches.add(Set.copyOf(keys));
+        return Mono.just(keys.stream()
+                .filter(k -> !k.startsWith("missing"))
+                .collect(Collectors.toMap(Function.identity(), String::length)));
+    };
+
+    @Test
+    void loadsWithinWindow_areDispatchedAsSingleBatch() {
+        var loader = new BatchLoader<>(lengths, 100, Duration.ofMillis(30));
+
+        StepVerifier.create(Mono.zip(loader.load("a"), loader.load("bb"), loader.load("ccc")))
+                .assertNext(t -> assertThat(List.of(t.getT1(), t.getT2(), t.getT3())).containsExactly(1, 2, 3))
+                .verifyComplete();
+
+        assertThat(batches).containsExactly(Set.of("a", "bb", "ccc"));
+    }
+
+    @Test
+    void duplicateKeys_fromConcurrentCallers_areFetchedOnce() {
+        var loader = new BatchLoader<>(lengths, 100, Duration.ofMillis(30));
+
+        StepVerifier.create(Mono.zip(loader.loadMany(List.of("a", "bb")), loader.loadMany(List.of("bb", "missing"))))
+                .assertNext(t -> {
+                    assertThat(t.getT1()).containsEntry("a", 1).containsEntry("bb", 2);
+                    assertThat(t.getT2()).containsOnlyKeys("bb");
+                })
+                .verifyComplete();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder("a", "bb", "missing");
+    }
+
+    @Test
+    void batchFailure_isPropagatedToEveryWaiter_andKeysCanBeRetried() {
+        var fail = new AtomicBoolean(true);
+        var loader = new BatchLoader<String, Integer>(keys -> fail.getAndSet(false)
+                ? Mono.error(new IllegalStateException("down"))
+                : lengths.apply(keys), 10, Duration.ofMillis(10));
+
+        StepVerifier.create(loader.load("a")).expectErrorMessage("down").verify();
+        StepVerifier.create(loader.load("a")).expectNext(1).verifyComplete();
+    }
+}
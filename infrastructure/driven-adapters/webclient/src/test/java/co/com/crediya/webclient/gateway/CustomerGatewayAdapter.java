@@ -1,6 +1,8 @@
 package co.com.crediya.webclient.gateway;
 
+import co.com.crediya.webclient.cache.UserDataCache;
 import co.com.crediya.webclient.config.AuthProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,7 +17,11 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,13 +32,14 @@ import static org.mockito.Mockito.*;
 class CustomerGatewayAdapterFindByEmailTest {
 
     private final AuthProperties props = mock(AuthProperties.class);
+    private final AuthProperties cacheProps = new AuthProperties();
 
     private CustomerGatewayAdapter newAdapter(ExchangeFunction ef) {
         WebClient wc = WebClient.builder()
                 .baseUrl("http://host")
                 .exchangeFunction(ef)
                 .build();
-        return new CustomerGatewayAdapter(wc, props);
+        return new CustomerGatewayAdapter(wc, props, new UserDataCache(cacheProps, new SimpleMeterRegistry()));
     }
 
     private static ClientResponse json(HttpStatus status, String body) {
@@ -158,7 +165,7 @@ class CustomerGatewayAdapterFindByEmailTest {
                 .verify();
 
         // No hay request si falla por auth
-        verifyNoInteractions(props);
+        verify(props, never()).getEmailInfoPath();
     }
 
     @Test
@@ -205,6 +212,144 @@ class CustomerGatewayAdapterFindByEmailTest {
                 .verifyComplete();
 
         // No hubo request
+        verify(props, never()).getEmailInfoPath();
+    }
+
+    // ---------- findByEmails: bulk + coalescing ----------
+
+    private void stubBulkLookup() {
+        when(props.getEmailInfoPath()).thenReturn("/customers/email/{email}");
+        when(props.getLookupConcurrency()).thenReturn(4);
+        when(props.getLookupMaxBatch()).thenReturn(100);
+        when(props.getLookupWindow()).thenReturn(Duration.ofMillis(20));
+    }
+
+    private static String emailOf(ClientRequest req) {
+        String path = req.url().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Test
+    void findByEmails_returnsFoundUsersKeyedByEmail_andSkipsFailures() {
+        stubBulkLookup();
+        var adapter = newAdapter(req -> {
+            String email = emailOf(req);
+            if (email.startsWith("missing")) {
+                return Mono.just(json(HttpStatus.NOT_FOUND, ""));
+            }
+            return Mono.just(json(HttpStatus.OK, "{\"name\":\"" + email + "\",\"lastName\":\"X\",\"salary\":1}"));
+        });
+
+        StepVerifier.create(
+                        adapter.findByEmails(Set.of("a@b.com", "c@d.com", "missing@x.com"))
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(jwtAuth("tkn-123")))
+                )
+                .assertNext(users -> {
+                    assertThat(users).containsOnlyKeys("a@b.com", "c@d.com");
+                    assertThat(users.get("a@b.com").name()).isEqualTo("a@b.com");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findByEmails_concurrentRequestsForSameEmails_shareHttpCalls() {
+        stubBulkLookup();
+        var calls = new ConcurrentHashMap<String, AtomicInteger>();
+        var adapter = newAdapter(req -> {
+            calls.computeIfAbsent(emailOf(req), k -> new AtomicInteger()).incrementAndGet();
+            return Mono.just(json(HttpStatus.OK, "{\"name\":\"N\",\"lastName\":\"L\",\"salary\":1}"))
+                    .delayElement(Duration.ofMillis(30));
+        });
+        var auth = ReactiveSecurityContextHolder.withAuthentication(jwtAuth("tkn-123"));
+
+        var first = adapter.findByEmails(Set.of("a@b.com", "c@d.com")).contextWrite(auth);
+        var second = adapter.findByEmails(Set.of("c@d.com", "e@f.com")).contextWrite(auth);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(t -> {
+                    assertThat(t.getT1()).containsOnlyKeys("a@b.com", "c@d.com");
+                    assertThat(t.getT2()).containsOnlyKeys("c@d.com", "e@f.com");
+                })
+                .verifyComplete();
+
+        assertThat(calls).containsOnlyKeys("a@b.com", "c@d.com", "e@f.com");
+        assertThat(calls.get("c@d.com").get()).isEqualTo(1);
+    }
+
+    @Test
+    void findByEmails_withEmptySet_doesNotCallAuthService() {
+        var adapter = newAdapter(req -> Mono.error(new AssertionError("no debería invocar WebClient")));
+
+        StepVerifier.create(adapter.findByEmails(Set.of()))
+                .expectNext(Map.of())
+                .verifyComplete();
+
         verifyNoInteractions(props);
     }
+
+    @Test
+    void findByEmails_withoutSecurityContext_emitsEmptyMap() {
+        var adapter = newAdapter(req -> Mono.error(new AssertionError("no debería invocar WebClient")));
+
+        StepVerifier.create(adapter.findByEmails(Set.of("a@b.com")))
+                .expectNext(Map.of())
+                .verifyComplete();
+    }
+
+    // ---------- caché y modo de credenciales ----------
+
+    @Test
+    void findByEmail_secondCallWithSameToken_isServedFromCache() {
+        when(props.getEmailInfoPath()).thenReturn("/customers/email/{email}");
+        var calls = new AtomicInteger();
+        var adapter = newAdapter(req -> {
+            calls.incrementAndGet();
+            return Mono.just(json(HttpStatus.OK, "{\"name\":\"Ana\",\"lastName\":\"G\",\"salary\":1}"));
+        });
+        var auth = ReactiveSecurityContextHolder.withAuthentication(jwtAuth("tkn-123"));
+
+        StepVerifier.create(adapter.findByEmail("a@b.com").contextWrite(auth)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(adapter.findByEmail("a@b.com").contextWrite(auth)).expectNextCount(1).verifyComplete();
+        // otro llamador no reutiliza la entrada obtenida con un JWT ajeno
+        StepVerifier.create(adapter.findByEmail("a@b.com")
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(jwtAuth("tkn-other"))))
+                .expectNextCount(1).verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void findByEmail_inServiceMode_usesServiceToken_withoutSecurityContext() {
+        when(props.getCredentialMode()).thenReturn(AuthProperties.CredentialMode.SERVICE);
+        when(props.getServiceToken()).thenReturn("svc-token");
+        when(props.getEmailInfoPath()).thenReturn("/customers/email/{email}");
+        var seen = new AtomicReference<ClientRequest>();
+        var adapter = newAdapter(req -> {
+            seen.set(req);
+            return Mono.just(json(HttpStatus.OK, "{\"name\":\"Ana\",\"lastName\":\"G\",\"salary\":1}"));
+        });
+
+        StepVerifier.create(adapter.findByEmail("a@b.com"))
+                .assertNext(user -> assertThat(user.name()).isEqualTo("Ana"))
+                .verifyComplete();
+
+        assertThat(seen.get().headers().getFirst("Authorization")).isEqualTo("Bearer svc-token");
+    }
+
+    @Test
+    void findByEmail_withNegativeCaching_404CompletesEmpty_andIsNotRequestedAgain() {
+        cacheProps.setNegativeCacheTtl(Duration.ofMinutes(1));
+        when(props.getEmailInfoPath()).thenReturn("/customers/email/{email}");
+        var calls = new AtomicInteger();
+        var adapter = newAdapter(req -> {
+            calls.incrementAndGet();
+            return Mono.just(json(HttpStatus.NOT_FOUND, ""));
+        });
+        var auth = ReactiveSecurityContextHolder.withAuthentication(jwtAuth("tkn-123"));
+
+        StepVerifier.create(adapter.findByEmail("missing@x.com").contextWrite(auth)).verifyComplete();
+        StepVerifier.create(adapter.findByEmail("missing@x.com").contextWrite(auth)).verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
 }
@@ -1,27 +1,56 @@
 package co.com.crediya.api;
 
+import co.com.crediya.api.dto.loan.BulkLoanResultResponse;
+import co.com.crediya.api.dto.loan.BulkStatusChangeResponse;
 import co.com.crediya.api.dto.loan.ChangeStatusLoanRequest;
 import co.com.crediya.api.dto.loan.CreateLoanRequest;
 import co.com.crediya.api.dto.loan.LoanResponse;
 import co.com.crediya.api.dto.pageable.PageResponse;
+import co.com.crediya.api.export.ExportFormat;
 import co.com.crediya.api.mapper.loan.LoanDTOMapper;
 import co.com.crediya.api.validation.DtoValidator;
-import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.exceptions.DomainValidationException;
+import co.com.crediya.model.loan.BulkLoanItem;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.LoanExportWriter;
+import co.com.crediya.model.loan.LoanStatusChanged;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.loan.StatusChangeOutcome;
+import co.com.crediya.model.pageable.CountMode;
 import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.ManualReviewFilter;
+import co.com.crediya.model.pageable.SearchMode;
 import co.com.crediya.usecase.loan.LoanUseCase;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,10 +58,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class Handler {
 
+    private static final int EXPORT_CHUNK_ROWS = 500;
+
     private final LoanUseCase loanUseCase;
     private final LoanDTOMapper mapper;
     private final DtoValidator validator;
-    private final Notification notification;
+    private final ObjectMapper objectMapper;
 
     public Mono<ServerResponse> createLoan(ServerRequest req) {
         Mono<CreateLoanRequest> body = req.bodyToMono(CreateLoanRequest.class);
@@ -64,10 +95,119 @@ public class Handler {
                         .bodyValue(resp));
     }
 
-    public Mono<ServerResponse> getAllLoans(ServerRequest req) {
+    /**
+     * NDJSON de CreateLoanRequest (el email va en cada línea) a NDJSON de resultados, uno por línea y en
+     * el mismo orden, emitidos mientras la carga sigue llegando. Cada línea se decodifica por separado:
+     * una línea mal formada o inválida queda rechazada sin cortar el resto. Las líneas en blanco se saltan
+     * pero cuentan para el número de línea.
+     */
+    public Mono<ServerResponse> createLoansBulk(ServerRequest req) {
+        Flux<BulkLoanItem> items = req.bodyToFlux(String.class)
+                .doOnSubscribe(s -> log.info("POST bulk create loans"))
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .concatMap(line -> decode(line.getT2())
+                        .flatMap(validator::validate)
+                        .map(mapper::toDomain)
+                        .map(loan -> BulkLoanItem.requested(line.getT1() + 1, loan))
+                        .onErrorResume(RuntimeException.class,
+                                e -> Mono.just(BulkLoanItem.rejected(line.getT1() + 1, e))));
+
         return ServerResponse.ok()
                 .contentType(MediaType.APPLICATION_NDJSON)
-                .body(loanUseCase.getAllLoans().map(mapper::toResponse), LoanResponse.class);
+                .body(loanUseCase.createBulk(items).map(this::toBulkResponse), BulkLoanResultResponse.class);
+    }
+
+    private Mono<CreateLoanRequest> decode(String line) {
+        try {
+            return Mono.just(objectMapper.readValue(line, CreateLoanRequest.class));
+        } catch (JsonProcessingException e) {
+            return Mono.error(new DomainValidationException("MALFORMED_JSON", e.getOriginalMessage()));
+        }
+    }
+
+    private BulkLoanResultResponse toBulkResponse(BulkLoanItem item) {
+        return item.isRejected()
+                ? new BulkLoanResultResponse(item.line(), BulkLoanResultResponse.REJECTED, null,
+                        item.error().getMessage())
+                : new BulkLoanResultResponse(item.line(), BulkLoanResultResponse.CREATED,
+                        mapper.toResponse(item.loan()), null);
+    }
+
+    /**
+     * Stream NDJSON con los filtros status (CSV), typeLoanId, createdFrom/createdTo (ISO-8601) y email.
+     * Quien no es ADVISOR ni ADMIN solo ve sus préstamos: el email sale del token.
+     */
+    public Mono<ServerResponse> getAllLoans(ServerRequest req) {
+        LoanStreamFilter filter;
+        try {
+            filter = streamFilter(req);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Mono.error(new ServerWebInputException("Invalid loan filter: " + e.getMessage()));
+        }
+        return req.principal()
+                .cast(JwtAuthenticationToken.class)
+                .map(auth -> canSeeAllLoans(auth)
+                        ? filter
+                        : filter.withEmail(auth.getToken().getClaims().get("email").toString()))
+                .flatMap(scoped -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(loanUseCase.getAllLoans(scoped)
+                                .doOnCancel(() -> log.info("GET loans stream cancelled by client"))
+                                .map(mapper::toResponse), LoanResponse.class));
+    }
+
+    /**
+     * Export masivo con los mismos filtros de {@link #getAllLoans}: format=csv|arrow (CSV por defecto) y
+     * gzip=true. Las filas se escriben directo a los DataBuffers de la respuesta, por bloques.
+     */
+    public Mono<ServerResponse> exportLoans(ServerRequest req) {
+        LoanStreamFilter filter;
+        ExportFormat format;
+        try {
+            filter = streamFilter(req);
+            format = ExportFormat.from(req.queryParam("format").orElse(null));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Mono.error(new ServerWebInputException("Invalid export request: " + e.getMessage()));
+        }
+        boolean gzip = req.queryParam("gzip").map(Boolean::parseBoolean).orElse(false);
+        DataBufferFactory bufferFactory = req.exchange().getResponse().bufferFactory();
+        Flux<DataBuffer> body = Flux.using(
+                        () -> format.writer(bufferFactory, gzip, EXPORT_CHUNK_ROWS),
+                        writer -> loanUseCase.exportLoans(filter, writer),
+                        LoanExportWriter::close)
+                .doOnSubscribe(s -> log.info("GET loans export format={} gzip={}", format, gzip))
+                .doOnCancel(() -> log.info("GET loans export cancelled by client"))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        var response = ServerResponse.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(format.fileName(gzip)).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(BodyInserters.fromDataBuffers(body));
+    }
+
+    private static LoanStreamFilter streamFilter(ServerRequest req) {
+        Set<LoanStatus> statuses = req.queryParam("status")
+                .map(csv -> Arrays.stream(csv.split(","))
+                        .map(String::trim).filter(s -> !s.isBlank())
+                        .map(LoanStatus::valueOf).collect(Collectors.toSet()))
+                .orElse(Set.of());
+        String typeId = req.queryParam("typeLoanId").filter(s -> !s.isBlank()).orElse(null);
+        if (typeId != null) {
+            UUID.fromString(typeId);
+        }
+        return new LoanStreamFilter(statuses, typeId,
+                req.queryParam("createdFrom").map(Instant::parse).orElse(null),
+                req.queryParam("createdTo").map(Instant::parse).orElse(null),
+                req.queryParam("email").filter(s -> !s.isBlank()).orElse(null));
+    }
+
+    private static boolean canSeeAllLoans(JwtAuthenticationToken auth) {
+        return auth.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADVISOR".equals(a.getAuthority()) || "ROLE_ADMIN".equals(a.getAuthority()));
     }
 
     public Mono<ServerResponse> changeLoanStatus(ServerRequest req) {
@@ -76,18 +216,73 @@ public class Handler {
                 .flatMap(validator::validate)
                 .map(mapper::toDomain)
                 .flatMap(loanUseCase::changeLoanStatus)
-                .flatMap(changed ->
-                        notification.sendMessage(changed).thenReturn(changed.loan())            // seguimos con el Loan para la respuesta
-                )
+                // la notificación queda en el outbox dentro de la misma transacción del cambio
+                .map(LoanStatusChanged::loan)
                 .map(mapper::toResponse)
                 .flatMap(resp -> ServerResponse.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .bodyValue(resp));
     }
 
+    /** Arreglo JSON de ChangeStatusLoanRequest; responde un resultado por item, en el mismo orden. */
+    public Mono<ServerResponse> changeLoanStatusBulk(ServerRequest req) {
+        return req.bodyToFlux(ChangeStatusLoanRequest.class)
+                .doOnSubscribe(s -> log.info("POST bulk change loan status"))
+                .concatMap(validator::validate)
+                .map(mapper::toDomain)
+                .collectList()
+                .flatMap(loanUseCase::changeLoanStatusBulk)
+                .map(outcomes -> outcomes.stream().map(this::toBulkStatusResponse).toList())
+                .flatMap(resp -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(resp));
+    }
+
+    private BulkStatusChangeResponse toBulkStatusResponse(StatusChangeOutcome outcome) {
+        return outcome.isFailed()
+                ? new BulkStatusChangeResponse(outcome.request().loanId(), BulkStatusChangeResponse.FAILED, null,
+                        outcome.error().getMessage())
+                : new BulkStatusChangeResponse(outcome.request().loanId(), BulkStatusChangeResponse.CHANGED,
+                        mapper.toResponse(outcome.changed().loan()), null);
+    }
+
+    /**
+     * Préstamo por id con ETag; con If-None-Match vigente responde 304, y si el préstamo está en la
+     * caché ni siquiera va a la base. Quien no es ADVISOR ni ADMIN solo ve los suyos (404 si no).
+     */
     public Mono<ServerResponse> getLoanById(ServerRequest req) {
-        // Implementa cuando lo necesites
-        return ServerResponse.noContent().build();
+        UUID id;
+        try {
+            id = UUID.fromString(req.pathVariable("id"));
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ServerWebInputException("Invalid loan id: " + req.pathVariable("id")));
+        }
+        return req.principal()
+                .cast(JwtAuthenticationToken.class)
+                .flatMap(auth -> loanUseCase.getLoanById(id)
+                        .filter(loan -> canSeeAllLoans(auth)
+                                || loan.email().value().equalsIgnoreCase(auth.getToken().getClaims().get("email").toString())))
+                .switchIfEmpty(Mono.error(() -> new DomainNotFoundException("LOAN_NOT_FOUND")))
+                .onErrorMap(DomainNotFoundException.class,
+                        e -> new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e))
+                .flatMap(loan -> {
+                    String etag = etag(loan);
+                    return req.checkNotModified(etag)
+                            .orElseGet(() -> ServerResponse.ok()
+                                    .eTag(etag)
+                                    // el cliente puede guardarla, pero revalida cada vez
+                                    .cacheControl(CacheControl.noCache().cachePrivate())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .bodyValue(mapper.toResponse(loan)));
+                });
+    }
+
+    /** Depende solo del contenido, así todas las instancias dan el mismo ETag sin columna de versión. */
+    static String etag(Loan loan) {
+        String content = String.join("|", loan.id(), loan.amount().value().stripTrailingZeros().toPlainString(),
+                String.valueOf(loan.termMonths().value()), loan.email().value(),
+                String.valueOf(loan.stateLoanId()), loan.typeLoanId());
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
     public Mono<ServerResponse> list(ServerRequest req) {
@@ -106,13 +301,22 @@ public class Handler {
                 .map(String::trim).filter(s -> !s.isBlank())
                 .map(LoanStatus::valueOf).collect(Collectors.toSet());
 
-        var filter = new ManualReviewFilter(search, statuses, typeId, minAmount, maxAmount);
+        var searchMode = SearchMode.from(req.queryParam("searchMode").orElse(null));
+        var filter = new ManualReviewFilter(search, statuses, typeId, minAmount, maxAmount, searchMode);
+        var countMode = CountMode.from(req.queryParam("count").orElse(null));
+
+        // con ?cursor= (vacío para la primera página) se usa paginación keyset en lugar de page/size
+        var cursor = req.queryParam("cursor");
+        var result = cursor.isPresent()
+                ? loanUseCase.executeByCursor(filter, cursor.get(), size, countMode)
+                : loanUseCase.execute(filter, page, size, countMode);
 
-        return loanUseCase.execute(filter, page, size)
+        return result
                 .flatMap(p -> ServerResponse.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .bodyValue(new PageResponse<>(
-                                p.content(), p.totalElements(), p.page(), p.size(), p.totalPages()
+                                p.content(), p.totalElements(), p.page(), p.size(), p.totalPages(), p.nextCursor(),
+                                p.totalExact()
                         )));
     }
 }
@@ -0,0 +1,86 @@
+package co.com.crediya.api;
+
+import co.com.crediya.api.config.LoanPath;
+import co.com.crediya.api.dto.loanimport.LoanImportJobResponse;
+import co.com.crediya.api.dto.loanimport.LoanImportRejectionResponse;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.usecase.loanimport.LoanImportUseCase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/** Importación masiva de préstamos (solo ADMIN): carga por COPY, progreso y reporte de rechazos. */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanImportHandler {
+
+    private final LoanImportUseCase loanImportUseCase;
+    private final LoanPath paths;
+
+    /**
+     * Cuerpo text/csv con la cabecera del export. Responde 202 cuando el archivo quedó en staging; la
+     * validación y el merge siguen en segundo plano (ver Location). dryRun=true solo valida.
+     */
+    public Mono<ServerResponse> startImport(ServerRequest req) {
+        boolean dryRun = req.queryParam("dryRun").map(Boolean::parseBoolean).orElse(false);
+        Flux<ByteBuffer> csv = req.bodyToFlux(DataBuffer.class).map(LoanImportHandler::copyAndRelease);
+
+        return req.principal()
+                .cast(JwtAuthenticationToken.class)
+                .map(auth -> auth.getToken().getClaims().get("email").toString())
+                .doOnNext(email -> log.info("POST loan import by {} dryRun={}", email, dryRun))
+                .flatMap(email -> loanImportUseCase.start(email, dryRun, csv))
+                .flatMap(job -> ServerResponse.accepted()
+                        .location(URI.create(paths.getLoansImportById().replace("{jobId}", job.id())))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(LoanImportJobResponse.from(job)));
+    }
+
+    public Mono<ServerResponse> getImport(ServerRequest req) {
+        return loanImportUseCase.findJob(req.pathVariable("jobId"))
+                .map(LoanImportJobResponse::from)
+                .onErrorMap(DomainNotFoundException.class, LoanImportHandler::notFound)
+                .flatMap(resp -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(resp));
+    }
+
+    /** NDJSON ordenado por línea; puede ser tan grande como el archivo, por eso no se arma en memoria. */
+    public Mono<ServerResponse> getImportRejections(ServerRequest req) {
+        String jobId = req.pathVariable("jobId");
+        // el 404 debe salir antes de comprometer el status 200 del stream
+        return loanImportUseCase.findJob(jobId)
+                .onErrorMap(DomainNotFoundException.class, LoanImportHandler::notFound)
+                .flatMap(job -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(loanImportUseCase.findRejections(jobId).map(LoanImportRejectionResponse::from),
+                                LoanImportRejectionResponse.class));
+    }
+
+    private static ByteBuffer copyAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static ResponseStatusException notFound(DomainNotFoundException e) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+    }
+}
@@ -1,9 +1,13 @@
 package co.com.crediya.api;
 
 import co.com.crediya.api.config.LoanPath;
+import co.com.crediya.api.dto.loan.BulkLoanResultResponse;
+import co.com.crediya.api.dto.loan.BulkStatusChangeResponse;
 import co.com.crediya.api.dto.loan.ChangeStatusLoanRequest;
 import co.com.crediya.api.dto.loan.CreateLoanRequest;
 import co.com.crediya.api.dto.loan.LoanResponse;
+import co.com.crediya.api.dto.loanimport.LoanImportJobResponse;
+import co.com.crediya.api.dto.loanimport.LoanImportRejectionResponse;
 import co.com.crediya.api.dto.pageable.PageResponse;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.RouterOperation;
@@ -68,6 +72,40 @@ public class RouterRest {
                 )
         ),
 
+        // POST /api/v1/loans/bulk  (NDJSON -> NDJSON)
+        @RouterOperation(
+                path = "/api/v1/loans/bulk",
+                produces = MediaType.APPLICATION_NDJSON_VALUE,
+                consumes = MediaType.APPLICATION_NDJSON_VALUE,
+                method = RequestMethod.POST,
+                beanClass = Handler.class,
+                beanMethod = "createLoansBulk",
+                operation = @Operation(
+                        operationId = "createLoansBulk",
+                        summary = "Carga masiva de préstamos",
+                        description = "Un CreateLoanRequest por línea (el email se toma de cada línea). Responde una línea " +
+                                "BulkLoanResultResponse por entrada, en el mismo orden, mientras la carga sigue llegando.",
+                        tags = {"Loans"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        requestBody = @RequestBody(required = true,
+                                content = @Content(
+                                        mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                        schema = @Schema(implementation = CreateLoanRequest.class)
+                                )
+                        ),
+                        responses = {
+                                @ApiResponse(
+                                        responseCode = "200",
+                                        description = "Resultado por línea",
+                                        content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                                schema = @Schema(implementation = BulkLoanResultResponse.class))
+                                ),
+                                @ApiResponse(responseCode = "401", description = "Unauthorized"),
+                                @ApiResponse(responseCode = "403", description = "Forbidden")
+                        }
+                )
+        ),
+
         // GET /api/v1/loans  (NDJSON)
         @RouterOperation(
                 path = "/api/v1/loans",
@@ -78,7 +116,17 @@ public class RouterRest {
                 operation = @Operation(
                         operationId = "getAllLoans",
                         summary = "Listar préstamos (stream NDJSON)",
+                        description = "Stream con cursor del lado del servidor, del más reciente al más antiguo. " +
+                                "Sin rol ADVISOR o ADMIN solo se devuelven los préstamos del email del token.",
                         tags = {"Loans"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        parameters = {
+                                @Parameter(name="status", description="CSV de estados; sin valor no filtra"),
+                                @Parameter(name="typeLoanId", description="Filtro por tipo préstamo"),
+                                @Parameter(name="createdFrom", description="ISO-8601, inclusivo"),
+                                @Parameter(name="createdTo", description="ISO-8601, exclusivo"),
+                                @Parameter(name="email", description="Email exacto del solicitante")
+                        },
                         responses = {
                                 @ApiResponse(
                                         responseCode = "200",
@@ -88,11 +136,50 @@ public class RouterRest {
                                                 array = @ArraySchema(schema = @Schema(implementation = LoanResponse.class))
                                         )
                                 ),
+                                @ApiResponse(responseCode = "400", description = "Filtro inválido", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "500", description = "Error del servidor", content = @Content(mediaType = "application/problem+json"))
                         }
                 )
         ),
 
+        // GET /api/v1/loans/export  (CSV | Arrow)
+        @RouterOperation(
+                path = "/api/v1/loans/export",
+                method = RequestMethod.GET,
+                beanClass = Handler.class,
+                beanMethod = "exportLoans",
+                operation = @Operation(
+                        operationId = "exportLoans",
+                        summary = "Exportar préstamos (CSV o Arrow IPC stream)",
+                        description = "Mismos filtros del listado NDJSON. Pensado para exports masivos: " +
+                                "se escribe por bloques directo a la respuesta, opcionalmente con gzip.",
+                        tags = {"Loans"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        parameters = {
+                                @Parameter(name="format", description="csv (por defecto) o arrow"),
+                                @Parameter(name="gzip", description="true para comprimir (Content-Encoding: gzip)"),
+                                @Parameter(name="status", description="CSV de estados; sin valor no filtra"),
+                                @Parameter(name="typeLoanId", description="Filtro por tipo préstamo"),
+                                @Parameter(name="createdFrom", description="ISO-8601, inclusivo"),
+                                @Parameter(name="createdTo", description="ISO-8601, exclusivo"),
+                                @Parameter(name="email", description="Email exacto del solicitante")
+                        },
+                        responses = {
+                                @ApiResponse(
+                                        responseCode = "200",
+                                        description = "OK",
+                                        content = {
+                                                @Content(mediaType = "text/csv"),
+                                                @Content(mediaType = "application/vnd.apache.arrow.stream")
+                                        }
+                                ),
+                                @ApiResponse(responseCode = "400", description = "Formato o filtro inválido", content = @Content(mediaType = "application/problem+json")),
+                                @ApiResponse(responseCode = "401", description = "Unauthorized"),
+                                @ApiResponse(responseCode = "403", description = "Forbidden")
+                        }
+                )
+        ),
+
         // GET /api/loans/{id}
         @RouterOperation(
                 path = "/api/v1/loans/{id}",
@@ -103,13 +190,17 @@ public class RouterRest {
                 operation = @Operation(
                         operationId = "getLoanById",
                         summary = "Obtener préstamo por ID",
+                        description = "Pensado para polling: devuelve ETag y con If-None-Match vigente responde 304.",
                         tags = {"Loans"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
                         parameters = {
-                                @Parameter(name = "id", in = ParameterIn.PATH, required = true, description = "ID del préstamo", schema = @Schema(format = "uuid"))
+                                @Parameter(name = "id", in = ParameterIn.PATH, required = true, description = "ID del préstamo", schema = @Schema(format = "uuid")),
+                                @Parameter(name = "If-None-Match", in = ParameterIn.HEADER, description = "ETag de la respuesta anterior")
                         },
                         responses = {
                                 @ApiResponse(responseCode = "200", description = "Encontrado", content = @Content(schema = @Schema(implementation = LoanResponse.class))),
-                                @ApiResponse(responseCode = "204", description = "Sin contenido"), // si por ahora devuelves 204
+                                @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag enviado"),
+                                @ApiResponse(responseCode = "400", description = "ID inválido", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "404", description = "No encontrado", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "500", description = "Error del servidor", content = @Content(mediaType = "application/problem+json"))
                         }
@@ -143,11 +234,46 @@ public class RouterRest {
                                 ),
                                 @ApiResponse(responseCode = "400", description = "Petición inválida", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "404", description = "No encontrado", content = @Content(mediaType = "application/problem+json")),
+                                @ApiResponse(responseCode = "409", description = "El estado cambió de forma concurrente", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "422", description = "Validación de negocio", content = @Content(mediaType = "application/problem+json")),
                                 @ApiResponse(responseCode = "500", description = "Error del servidor", content = @Content(mediaType = "application/problem+json"))
                         }
                 )
         ),
+        // POST /api/v1/loans/change-status/bulk
+        @RouterOperation(
+                path = "/api/v1/loans/change-status/bulk",
+                produces = MediaType.APPLICATION_JSON_VALUE,
+                consumes = MediaType.APPLICATION_JSON_VALUE,
+                method = RequestMethod.POST,
+                beanClass = Handler.class,
+                beanMethod = "changeLoanStatusBulk",
+                operation = @Operation(
+                        operationId = "changeLoanStatusBulk",
+                        summary = "Cambiar el estado de varios préstamos",
+                        description = "Aplica todos los cambios en una transacción (máximo 500 items). Un item no " +
+                                "encontrado, duplicado o en conflicto se reporta como FAILED sin afectar al resto.",
+                        tags = {"Loans"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        requestBody = @RequestBody(
+                                required = true,
+                                content = @Content(
+                                        mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                        array = @ArraySchema(schema = @Schema(implementation = ChangeStatusLoanRequest.class))
+                                )
+                        ),
+                        responses = {
+                                @ApiResponse(
+                                        responseCode = "200",
+                                        description = "Un resultado por item, en el orden de la petición",
+                                        content = @Content(array = @ArraySchema(
+                                                schema = @Schema(implementation = BulkStatusChangeResponse.class)))
+                                ),
+                                @ApiResponse(responseCode = "400", description = "Petición inválida", content = @Content(mediaType = "application/problem+json")),
+                                @ApiResponse(responseCode = "500", description = "Error del servidor", content = @Content(mediaType = "application/problem+json"))
+                        }
+                )
+        ),
         @RouterOperation(
                 path = "/api/v1/loans/pageable",
                 method = RequestMethod.GET,
@@ -160,12 +286,15 @@ public class RouterRest {
                         security = { @SecurityRequirement(name = "bearerAuth") },
                         parameters = {
                                 @Parameter(name="search", description="Filtra por email/nombre (contiene)"),
+                                @Parameter(name="searchMode", description="contains (default) | prefix: el email empieza por search"),
                                 @Parameter(name="status", description="CSV de estados. Default: PENDING_REVIEW,REJECTED,MANUAL_REVIEW,APPROVED"),
                                 @Parameter(name="typeLoanId", description="Filtro por tipo préstamo"),
                                 @Parameter(name="minAmount"),
                                 @Parameter(name="maxAmount"),
                                 @Parameter(name="page", schema=@Schema(type="integer", defaultValue="0")),
-                                @Parameter(name="size", schema=@Schema(type="integer", defaultValue="20"))
+                                @Parameter(name="size", schema=@Schema(type="integer", defaultValue="20")),
+                                @Parameter(name="cursor", description="Cursor opaco (nextCursor de la respuesta anterior). Si viene, aunque sea vacío, se ignora page y se pagina por keyset"),
+                                @Parameter(name="count", description="exact (default) | approx (estimación del planner) | none (sin total, totalElements = -1)")
                         },
                         responses = {
                                 @ApiResponse(
@@ -181,9 +310,88 @@ public class RouterRest {
     })
     public RouterFunction<ServerResponse> routerFunction(Handler handler) {
         return route(POST(paths.getLoans()), handler::createLoan)
+                .andRoute(POST(paths.getLoansBulk()), handler::createLoansBulk)
                 .andRoute(GET(paths.getLoans()), handler::getAllLoans)
                 .andRoute(GET(paths.getLoansPageable()), handler::list)
+                .andRoute(GET(paths.getLoansExport()), handler::exportLoans)
                 .andRoute(POST(paths.getLoansChangeStatus()), handler::changeLoanStatus)
+                .andRoute(POST(paths.getLoansChangeStatusBulk()), handler::changeLoanStatusBulk)
                 .andRoute(GET(paths.getLoansById()), handler::getLoanById);
     }
+
+    @Bean
+    @RouterOperations({
+        // POST /api/v1/loans/import  (text/csv, COPY a staging)
+        @RouterOperation(
+                path = "/api/v1/loans/import",
+                method = RequestMethod.POST,
+                consumes = "text/csv",
+                produces = MediaType.APPLICATION_JSON_VALUE,
+                beanClass = LoanImportHandler.class,
+                beanMethod = "startImport",
+                operation = @Operation(
+                        operationId = "startLoanImport",
+                        summary = "Importación masiva de préstamos por COPY (backfills y migraciones)",
+                        description = "CSV con cabecera id,amount,term_months,email,state,type,created_at (la del export). " +
+                                "Responde cuando el archivo quedó en staging; validación y merge siguen en segundo plano.",
+                        tags = {"Loan import"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        parameters = {
+                                @Parameter(name = "dryRun", description = "true: solo valida y genera el reporte de rechazos")
+                        },
+                        responses = {
+                                @ApiResponse(responseCode = "202", description = "Job creado; Location apunta al progreso",
+                                        content = @Content(schema = @Schema(implementation = LoanImportJobResponse.class))),
+                                @ApiResponse(responseCode = "401", description = "Unauthorized"),
+                                @ApiResponse(responseCode = "403", description = "Forbidden"),
+                                @ApiResponse(responseCode = "500", description = "CSV mal formado o error de COPY", content = @Content(mediaType = "application/problem+json"))
+                        }
+                )
+        ),
+        @RouterOperation(
+                path = "/api/v1/loans/import/{jobId}",
+                method = RequestMethod.GET,
+                produces = MediaType.APPLICATION_JSON_VALUE,
+                beanClass = LoanImportHandler.class,
+                beanMethod = "getImport",
+                operation = @Operation(
+                        operationId = "getLoanImport",
+                        summary = "Progreso de una importación",
+                        tags = {"Loan import"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        parameters = { @Parameter(in = ParameterIn.PATH, name = "jobId", required = true) },
+                        responses = {
+                                @ApiResponse(responseCode = "200", description = "OK",
+                                        content = @Content(schema = @Schema(implementation = LoanImportJobResponse.class))),
+                                @ApiResponse(responseCode = "404", description = "Job no encontrado", content = @Content(mediaType = "application/problem+json")),
+                                @ApiResponse(responseCode = "422", description = "jobId inválido", content = @Content(mediaType = "application/problem+json"))
+                        }
+                )
+        ),
+        @RouterOperation(
+                path = "/api/v1/loans/import/{jobId}/rejections",
+                method = RequestMethod.GET,
+                produces = MediaType.APPLICATION_NDJSON_VALUE,
+                beanClass = LoanImportHandler.class,
+                beanMethod = "getImportRejections",
+                operation = @Operation(
+                        operationId = "getLoanImportRejections",
+                        summary = "Reporte de filas rechazadas (NDJSON, ordenado por línea)",
+                        tags = {"Loan import"},
+                        security = { @SecurityRequirement(name = "bearerAuth") },
+                        parameters = { @Parameter(in = ParameterIn.PATH, name = "jobId", required = true) },
+                        responses = {
+                                @ApiResponse(responseCode = "200", description = "OK",
+                                        content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                                schema = @Schema(implementation = LoanImportRejectionResponse.class))),
+                                @ApiResponse(responseCode = "404", description = "Job no encontrado", content = @Content(mediaType = "application/problem+json"))
+                        }
+                )
+        )
+    })
+    public RouterFunction<ServerResponse> loanImportRouterFunction(LoanImportHandler handler) {
+        return route(POST(paths.getLoansImport()), handler::startImport)
+                .andRoute(GET(paths.getLoansImportById()), handler::getImport)
+                .andRoute(GET(paths.getLoansImportRejections()), handler::getImportRejections);
+    }
 }
@@ -8,7 +8,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "routes.paths")
 public class LoanPath {
     private String loans;
+    private String loansBulk;
     private String loansPageable;
     private String loansChangeStatus;
+    private String loansChangeStatusBulk;
+    private String loansExport;
+    private String loansImport;
+    private String loansImportById;
+    private String loansImportRejections;
     private String loansById;
 }
@@ -24,8 +24,12 @@ class SecurityConfig {
                         .pathMatchers("/webjars/swagger-ui/**", "/v3/api-docs/**",
                                 "/actuator/health").permitAll()
                         .pathMatchers(HttpMethod.POST, "/api/v1/loans").hasRole("CUSTOMER")
+                        .pathMatchers(HttpMethod.POST, "/api/v1/loans/bulk").hasAnyRole("ADVISOR", "ADMIN")
                         .pathMatchers(HttpMethod.POST, "/api/v1/loans/change-status").hasRole("ADVISOR")
+                        .pathMatchers(HttpMethod.POST, "/api/v1/loans/change-status/bulk").hasRole("ADVISOR")
                         .pathMatchers(HttpMethod.GET, "/api/v1/loans/pageable").hasAnyRole("ADVISOR", "ADMIN")
+                        .pathMatchers(HttpMethod.GET, "/api/v1/loans/export").hasAnyRole("ADVISOR", "ADMIN")
+                        .pathMatchers("/api/v1/loans/import", "/api/v1/loans/import/**").hasRole("ADMIN")
                         .anyExchange().authenticated())
                 .oauth2ResourceServer(oauth -> oauth.jwt(j -> j.jwtAuthenticationConverter(jwtConverter)))
                 .build();
@@ -0,0 +1,18 @@
+package co.com.crediya.api.dto.loan;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkLoanResultResponse", description = "Resultado de una línea de la carga masiva")
+public record BulkLoanResultResponse(
+        @Schema(description = "Número de línea (1-based) en el NDJSON de entrada", example = "1")
+        long line,
+        @Schema(description = "CREATED | REJECTED", example = "CREATED")
+        String status,
+        @Schema(description = "Préstamo creado; nulo si la línea fue rechazada")
+        LoanResponse loan,
+        @Schema(description = "Motivo del rechazo; nulo si la línea se creó", example = "AMOUNT_OUT_OF_RANGE:Amount must be between 1000.00 and 5000.00")
+        String error
+) {
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+}
@@ -0,0 +1,18 @@
+package co.com.crediya.api.dto.loan;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkStatusChangeResponse", description = "Resultado de un item del cambio de estado masivo")
+public record BulkStatusChangeResponse(
+        @Schema(description = "Id del préstamo tal como vino en la petición")
+        String loanId,
+        @Schema(description = "CHANGED | FAILED", example = "CHANGED")
+        String status,
+        @Schema(description = "Préstamo con el nuevo estado; nulo si el item falló")
+        LoanResponse loan,
+        @Schema(description = "Motivo del fallo; nulo si el cambio se aplicó", example = "LOAN_STATUS_CONFLICT:Loan status changed concurrently")
+        String error
+) {
+    public static final String CHANGED = "CHANGED";
+    public static final String FAILED = "FAILED";
+}
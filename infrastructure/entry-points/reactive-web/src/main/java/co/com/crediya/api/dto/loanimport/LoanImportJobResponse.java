@@ -0,0 +1,33 @@
+package co.com.crediya.api.dto.loanimport;
+
+import co.com.crediya.model.loanimport.LoanImportJob;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(name = "LoanImportJobResponse", description = "Progreso de una importación masiva")
+public record LoanImportJobResponse(
+        @Schema(description = "ID del job", format = "uuid")
+        String id,
+        @Schema(description = "STAGING | VALIDATING | MERGING | COMPLETED | FAILED", example = "MERGING")
+        String status,
+        @Schema(description = "Solo validar, sin insertar en loan")
+        boolean dryRun,
+        @Schema(description = "Filas cargadas por COPY")
+        long stagedRows,
+        @Schema(description = "Filas en el reporte de rechazos")
+        long rejectedRows,
+        @Schema(description = "Préstamos insertados")
+        long importedRows,
+        @Schema(description = "Motivo si el job falló")
+        String error,
+        Instant createdAt,
+        Instant updatedAt,
+        Instant finishedAt
+) {
+    public static LoanImportJobResponse from(LoanImportJob job) {
+        return new LoanImportJobResponse(job.id(), job.status().name(), job.dryRun(), job.stagedRows(),
+                job.rejectedRows(), job.importedRows(), job.error(), job.createdAt(), job.updatedAt(),
+                job.finishedAt());
+    }
+}
@@ -0,0 +1,18 @@
+package co.com.crediya.api.dto.loanimport;
+
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "LoanImportRejectionResponse", description = "Fila del CSV que no se importó")
+public record LoanImportRejectionResponse(
+        @Schema(description = "Registro de datos del CSV; 1 es el primero después de la cabecera", example = "42")
+        long line,
+        @Schema(description = "Primer motivo de rechazo", example = "UNKNOWN_LOAN_TYPE")
+        String reason,
+        @Schema(description = "Valores recibidos, separados por coma")
+        String row
+) {
+    public static LoanImportRejectionResponse from(LoanImportRejection rejection) {
+        return new LoanImportRejectionResponse(rejection.line(), rejection.reason(), rejection.row());
+    }
+}
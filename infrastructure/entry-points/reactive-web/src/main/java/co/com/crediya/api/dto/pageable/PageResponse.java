@@ -3,6 +3,14 @@ package co.com.crediya.api.dto.pageable;
 import java.util.List;
 
 public record PageResponse<T>(
-        List<T> content, long totalElements, int page, int size, int totalPages
-) {}
+        List<T> content, long totalElements, int page, int size, int totalPages, String nextCursor,
+        boolean totalExact
+) {
+    public PageResponse(List<T> content, long totalElements, int page, int size, int totalPages, String nextCursor) {
+        this(content, totalElements, page, size, totalPages, nextCursor, true);
+    }
 
+    public PageResponse(List<T> content, long totalElements, int page, int size, int totalPages) {
+        this(content, totalElements, page, size, totalPages, null);
+    }
+}
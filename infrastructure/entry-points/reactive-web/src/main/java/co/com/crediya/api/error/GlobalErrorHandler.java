@@ -1,5 +1,6 @@
 package co.com.crediya.api.error;
 
+import co.com.crediya.model.exceptions.DomainConflictException;
 import co.com.crediya.model.exceptions.DomainValidationException;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -70,6 +71,8 @@ public class GlobalErrorHandler implements ErrorWebExceptionHandler {
             return rse.getStatusCode();
         if (ex instanceof ErrorResponseException ere)
             return ere.getStatusCode();
+        if (ex instanceof DomainConflictException)
+            return HttpStatus.CONFLICT; // transición concurrente
         if (ex instanceof DomainValidationException)
             return HttpStatus.UNPROCESSABLE_ENTITY; // 422 negocio
         return HttpStatus.INTERNAL_SERVER_ERROR;
@@ -0,0 +1,120 @@
+package co.com.crediya.api.export;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Arrow IPC stream: un record batch por bloque de filas. Los vectores se reutilizan entre batches, así
+ * que la memoria fuera del heap queda acotada por el tamaño del bloque.
+ */
+final class ArrowLoanExportWriter extends LoanExportDataBufferWriter {
+
+    static final int AMOUNT_PRECISION = 12;
+    static final int AMOUNT_SCALE = 2;
+    static final Schema SCHEMA = new Schema(List.of(
+            Field.notNullable("id", new ArrowType.Utf8()),
+            Field.notNullable("amount", new ArrowType.Decimal(AMOUNT_PRECISION, AMOUNT_SCALE, 128)),
+            Field.notNullable("term_months", new ArrowType.Int(32, true)),
+            Field.nullable("email", new ArrowType.Utf8()),
+            Field.nullable("state", new ArrowType.Utf8()),
+            Field.nullable("type", new ArrowType.Utf8()),
+            Field.notNullable("created_at", new ArrowType.Timestamp(TimeUnit.MICROSECOND, "UTC"))));
+    private static final int BYTES_PER_ROW = 120;
+
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private final VarCharVector id;
+    private final DecimalVector amount;
+    private final IntVector termMonths;
+    private final VarCharVector email;
+    private final VarCharVector state;
+    private final VarCharVector type;
+    private final TimeStampMicroTZVector createdAt;
+
+    ArrowLoanExportWriter(DataBufferFactory factory, boolean gzip, int chunkRows) {
+        super(factory, gzip, chunkRows * BYTES_PER_ROW);
+        this.allocator = new RootAllocator();
+        this.root = VectorSchemaRoot.create(SCHEMA, allocator);
+        this.writer = new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), Channels.newChannel(out));
+        this.id = (VarCharVector) root.getVector("id");
+        this.amount = (DecimalVector) root.getVector("amount");
+        this.termMonths = (IntVector) root.getVector("term_months");
+        this.email = (VarCharVector) root.getVector("email");
+        this.state = (VarCharVector) root.getVector("state");
+        this.type = (VarCharVector) root.getVector("type");
+        this.createdAt = (TimeStampMicroTZVector) root.getVector("created_at");
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        root.allocateNew();
+        writer.start();
+    }
+
+    @Override
+    protected void writeRow(UUID loanId, BigDecimal loanAmount, int term, String loanEmail, String loanState,
+                            String loanType, Instant created) {
+        int index = pendingRows();
+        id.setSafe(index, loanId.toString().getBytes(StandardCharsets.US_ASCII));
+        amount.setSafe(index, loanAmount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+        termMonths.setSafe(index, term);
+        setText(email, index, loanEmail);
+        setText(state, index, loanState);
+        setText(type, index, loanType);
+        createdAt.setSafe(index, created.getEpochSecond() * 1_000_000L + created.getNano() / 1_000);
+    }
+
+    @Override
+    protected void writeBatch(int rows) throws IOException {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        // mismos buffers para el siguiente batch
+        root.getFieldVectors().forEach(FieldVector::reset);
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        writer.end();
+    }
+
+    @Override
+    protected void closeFormat() {
+        try {
+            writer.close();
+        } finally {
+            root.close();
+            allocator.close();
+        }
+    }
+
+    private static void setText(VarCharVector vector, int index, String value) {
+        if (value == null) {
+            vector.setNull(index);
+        } else {
+            vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package co.com.crediya.api.export;
+
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * CSV (RFC 4180) en UTF-8. Cada fila se arma en un arreglo de bytes reutilizado y se escribe de una
+ * vez: ni String por línea ni por UUID/entero.
+ */
+final class CsvLoanExportWriter extends LoanExportDataBufferWriter {
+
+    static final String HEADER = "id,amount,term_months,email,state,type,created_at\n";
+    private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int BYTES_PER_ROW = 160;
+
+    private byte[] line = new byte[256];
+    private int length;
+
+    CsvLoanExportWriter(DataBufferFactory factory, boolean gzip, int chunkRows) {
+        super(factory, gzip, chunkRows * BYTES_PER_ROW);
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        out.write(HEADER_BYTES);
+    }
+
+    @Override
+    protected void writeRow(UUID id, BigDecimal amount, int termMonths, String email, String state, String type,
+                            Instant createdAt) throws IOException {
+        length = 0;
+        appendUuid(id);
+        append(',');
+        appendText(amount.toPlainString());
+        append(',');
+        appendInt(termMonths);
+        append(',');
+        appendText(email);
+        append(',');
+        appendText(state);
+        append(',');
+        appendText(type);
+        append(',');
+        appendText(createdAt.toString());
+        append('\n');
+        out.write(line, 0, length);
+    }
+
+    @Override
+    protected void writeEnd() {
+        // CSV no tiene cierre
+    }
+
+    private void appendUuid(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        appendHex(msb >>> 32, 8);
+        append('-');
+        appendHex(msb >>> 16, 4);
+        append('-');
+        appendHex(msb, 4);
+        append('-');
+        appendHex(lsb >>> 48, 4);
+        append('-');
+        appendHex(lsb, 12);
+    }
+
+    private void appendHex(long value, int digits) {
+        ensure(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            line[length + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        length += digits;
+    }
+
+    private void appendInt(int value) {
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            line[length + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /** Entre comillas solo si hace falta; las comillas internas se duplican. */
+    private void appendText(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = needsQuotes(value);
+        if (quote) {
+            append('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                append('"');
+                append('"');
+            } else if (c < 0x80) {
+                append(c);
+            } else if (c < 0x800) {
+                append((char) (0xC0 | (c >> 6)));
+                append((char) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                append((char) (0xF0 | (cp >> 18)));
+                append((char) (0x80 | ((cp >> 12) & 0x3F)));
+                append((char) (0x80 | ((cp >> 6) & 0x3F)));
+                append((char) (0x80 | (cp & 0x3F)));
+            } else {
+                append((char) (0xE0 | (c >> 12)));
+                append((char) (0x80 | ((c >> 6) & 0x3F)));
+                append((char) (0x80 | (c & 0x3F)));
+            }
+        }
+        if (quote) {
+            append('"');
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Un byte; los llamadores ya codificaron a UTF-8. */
+    private void append(char b) {
+        ensure(1);
+        line[length++] = (byte) b;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + extra));
+        }
+    }
+}
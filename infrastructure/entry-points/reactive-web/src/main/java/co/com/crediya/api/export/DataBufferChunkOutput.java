@@ -0,0 +1,61 @@
+package co.com.crediya.api.export;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.OutputStream;
+
+/**
+ * OutputStream que escribe en un DataBuffer del factory de la respuesta (pooled en Netty) y lo entrega
+ * entero con {@link #take()}. Lo escrito después de {@link #release()} se descarta: un export cancelado
+ * puede seguir recibiendo alguna fila mientras el driver se detiene.
+ */
+final class DataBufferChunkOutput extends OutputStream {
+
+    private final DataBufferFactory factory;
+    private final int initialCapacity;
+    private DataBuffer current;
+    private boolean released;
+
+    DataBufferChunkOutput(DataBufferFactory factory, int initialCapacity) {
+        this.factory = factory;
+        this.initialCapacity = initialCapacity;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (!released) {
+            buffer().write((byte) b);
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (!released && length > 0) {
+            buffer().write(bytes, offset, length);
+        }
+    }
+
+    /** El bloque acumulado; vacío (sin asignar memoria) si no hubo escrituras. */
+    synchronized DataBuffer take() {
+        DataBuffer chunk = current == null ? factory.allocateBuffer(0) : current;
+        current = null;
+        return chunk;
+    }
+
+    synchronized void release() {
+        released = true;
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+
+    private DataBuffer buffer() {
+        if (current == null) {
+            current = factory.allocateBuffer(initialCapacity);
+        }
+        return current;
+    }
+}
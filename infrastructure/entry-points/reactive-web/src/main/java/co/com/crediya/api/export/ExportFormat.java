@@ -0,0 +1,41 @@
+package co.com.crediya.api.export;
+
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    ARROW(new MediaType("application", "vnd.apache.arrow.stream"), "arrows");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String fileName(boolean gzip) {
+        return "loans." + extension + (gzip ? ".gz" : "");
+    }
+
+    public LoanExportDataBufferWriter writer(DataBufferFactory factory, boolean gzip, int chunkRows) {
+        return this == CSV
+                ? new CsvLoanExportWriter(factory, gzip, chunkRows)
+                : new ArrowLoanExportWriter(factory, gzip, chunkRows);
+    }
+
+    /** Nulo o vacío es CSV. */
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        return ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
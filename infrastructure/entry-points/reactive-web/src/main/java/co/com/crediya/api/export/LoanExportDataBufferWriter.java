@@ -0,0 +1,131 @@
+package co.com.crediya.api.export;
+
+import co.com.crediya.model.loan.LoanExportWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base de los formatos del export: los bytes van directo a DataBuffers de la respuesta. Con gzip cada
+ * bloque se cierra con un sync flush, así el cliente puede descomprimir a medida que llega.
+ */
+public abstract class LoanExportDataBufferWriter implements LoanExportWriter<DataBuffer> {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final DataBufferChunkOutput chunks;
+    private final GZIPOutputStream gzip;
+    protected final OutputStream out;
+    private int pending;
+
+    protected LoanExportDataBufferWriter(DataBufferFactory factory, boolean gzip, int initialCapacity) {
+        this.chunks = new DataBufferChunkOutput(factory, initialCapacity);
+        try {
+            this.gzip = gzip ? new GZIPOutputStream(chunks, GZIP_BUFFER_SIZE, true) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.out = this.gzip == null ? chunks : this.gzip;
+    }
+
+    protected abstract void writeStart() throws IOException;
+
+    protected abstract void writeRow(UUID id, BigDecimal amount, int termMonths, String email, String state,
+                                     String type, Instant createdAt) throws IOException;
+
+    /** Cierra la tanda de filas pendientes (p. ej. un record batch); por defecto no hace nada. */
+    protected void writeBatch(int rows) throws IOException {
+    }
+
+    protected abstract void writeEnd() throws IOException;
+
+    /** Recursos propios del formato; se llama una sola vez desde {@link #close()}. */
+    protected void closeFormat() {
+    }
+
+    @Override
+    public final DataBuffer start() {
+        try {
+            writeStart();
+            return flushChunk();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public final void row(UUID id, BigDecimal amount, int termMonths, String email, String state, String type,
+                          Instant createdAt) {
+        try {
+            writeRow(id, amount, termMonths, email, state, type, createdAt);
+            pending++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public final int pendingRows() {
+        return pending;
+    }
+
+    @Override
+    public final DataBuffer drain() {
+        try {
+            writePending();
+            return flushChunk();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public final DataBuffer finish() {
+        try {
+            writePending();
+            writeEnd();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            return chunks.take();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public final void close() {
+        chunks.release();
+        try {
+            closeFormat();
+        } finally {
+            if (gzip != null) {
+                try {
+                    // libera el Deflater nativo; lo que escriba va a un output ya liberado
+                    gzip.close();
+                } catch (IOException ignored) {
+                    // nada que entregar a esta altura
+                }
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (pending > 0) {
+            writeBatch(pending);
+            pending = 0;
+        }
+    }
+
+    private DataBuffer flushChunk() throws IOException {
+        out.flush();
+        return chunks.take();
+    }
+}
@@ -1,25 +1,43 @@
 package co.com.crediya.api;
 
+import co.com.crediya.api.dto.loan.BulkLoanResultResponse;
+import co.com.crediya.api.dto.loan.BulkStatusChangeResponse;
 import co.com.crediya.api.dto.loan.ChangeStatusLoanRequest;
 import co.com.crediya.api.dto.loan.CreateLoanRequest;
 import co.com.crediya.api.dto.loan.LoanResponse;
 import co.com.crediya.api.dto.pageable.PageResponse;
+import co.com.crediya.api.export.ExportFormat;
 import co.com.crediya.api.mapper.loan.LoanDTOMapper;
 import co.com.crediya.api.validation.DtoValidator;
+import co.com.crediya.model.exceptions.DomainConflictException;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.loan.BulkLoanItem;
 import co.com.crediya.model.loan.ChangeLoanStatus;
+import co.com.crediya.model.loan.CreatedLoan;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.loan.LoanExportWriter;
 import co.com.crediya.model.loan.LoanStatusChanged;
-import co.com.crediya.model.loan.gateways.Notification;
+import co.com.crediya.model.loan.LoanStreamFilter;
+import co.com.crediya.model.loan.StatusChangeOutcome;
+import co.com.crediya.model.pageable.CountMode;
 import co.com.crediya.model.pageable.LoanStatus;
 import co.com.crediya.model.pageable.LoanSummary;
 import co.com.crediya.model.pageable.ManualReviewFilter;
 import co.com.crediya.model.pageable.Pageable;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
 import co.com.crediya.usecase.loan.LoanUseCase;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
@@ -33,7 +51,9 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,7 +67,6 @@ class HandlerTest {
 
     // Mocks
     private final LoanUseCase loanUseCase = mock(LoanUseCase.class);
-    private final Notification notification = mock(Notification.class);
     private final LoanDTOMapper mapper    = mock(LoanDTOMapper.class);
     private final DtoValidator validator  = mock(DtoValidator.class);
 
@@ -55,15 +74,18 @@ class HandlerTest {
 
     @BeforeEach
     void setUp() {
-        var handler = new Handler(loanUseCase, mapper, validator, notification);
+        var handler = new Handler(loanUseCase, mapper, validator, new ObjectMapper());
 
         // 1) Router base
         RouterFunction<ServerResponse> base =
                 route(POST("/loans"), handler::createLoan)
+                        .andRoute(POST("/loans/bulk"), handler::createLoansBulk)
                         .andRoute(GET("/loans"), handler::getAllLoans)
                         .andRoute(GET("/loans/list"), handler::list)
+                        .andRoute(GET("/loans/export"), handler::exportLoans)
                         .andRoute(GET("/loans/{id}"), handler::getLoanById)
-                        .andRoute(PATCH("/loans/status"), handler::changeLoanStatus);
+                        .andRoute(PATCH("/loans/status"), handler::changeLoanStatus)
+                        .andRoute(POST("/loans/status/bulk"), handler::changeLoanStatusBulk);
 
         // 2) Inyectamos un JwtAuthenticationToken como principal en el EXCHANGE
         Jwt jwt = Jwt.withTokenValue("test-token")
@@ -175,7 +197,7 @@ class HandlerTest {
         when(pageDomain.size()).thenReturn(5);
         when(pageDomain.totalPages()).thenReturn(10);
 
-        when(loanUseCase.execute(any(ManualReviewFilter.class), eq(2), eq(5)))
+        when(loanUseCase.execute(any(ManualReviewFilter.class), eq(2), eq(5), eq(CountMode.EXACT)))
                 .thenReturn(Mono.just(pageDomain));
 
         // Act + Assert con tipo genérico correcto
@@ -204,7 +226,7 @@ class HandlerTest {
 
         // Capturamos y validamos el filtro construido
         var captor = ArgumentCaptor.forClass(ManualReviewFilter.class);
-        verify(loanUseCase).execute(captor.capture(), eq(2), eq(5));
+        verify(loanUseCase).execute(captor.capture(), eq(2), eq(5), eq(CountMode.EXACT));
         var filter = captor.getValue();
         assertThat(filter.search()).isEqualTo("john");
         assertThat(filter.typeLoanId()).isEqualTo("TYPE-123");
@@ -218,16 +240,136 @@ class HandlerTest {
     }
 
     @Test
-    void getLoanById_returns204NoContent_forNow() {
+    void list_withCursorParam_usesKeysetPagination_andReturnsNextCursor() {
+        var page = new Pageable<LoanSummary>(List.of(), 7L, 0, 5, "next-abc");
+        when(loanUseCase.executeByCursor(any(ManualReviewFilter.class), eq("cur-123"), eq(5), eq(CountMode.EXACT)))
+                .thenReturn(Mono.just(page));
+
+        var type = new ParameterizedTypeReference<PageResponse<LoanSummary>>() {};
+        client.get().uri(uriBuilder ->
+                        uriBuilder.path("/loans/list")
+                                .queryParam("cursor", "cur-123")
+                                .queryParam("page", "9")
+                                .queryParam("size", "5")
+                                .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(type)
+                .value(pr -> {
+                    assertThat(pr.nextCursor()).isEqualTo("next-abc");
+                    assertThat(pr.totalElements()).isEqualTo(7L);
+                });
+
+        verify(loanUseCase).executeByCursor(any(ManualReviewFilter.class), eq("cur-123"), eq(5), eq(CountMode.EXACT));
+        verifyNoMoreInteractions(loanUseCase, mapper, validator);
+    }
+
+    @Test
+    void list_withCountNone_passesModeThrough_andFlagsTotalAsInexact() {
+        var page = new Pageable<LoanSummary>(List.of(), Pageable.UNKNOWN_TOTAL, 0, 5, null, false);
+        when(loanUseCase.execute(any(ManualReviewFilter.class), eq(0), eq(5), eq(CountMode.NONE)))
+                .thenReturn(Mono.just(page));
+
+        var type = new ParameterizedTypeReference<PageResponse<LoanSummary>>() {};
+        client.get().uri(uriBuilder ->
+                        uriBuilder.path("/loans/list")
+                                .queryParam("count", "none")
+                                .queryParam("size", "5")
+                                .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(type)
+                .value(pr -> {
+                    assertThat(pr.totalExact()).isFalse();
+                    assertThat(pr.totalElements()).isEqualTo(-1L);
+                    assertThat(pr.totalPages()).isEqualTo(-1);
+                });
+    }
+
+    private static Loan loanOf(UUID id, String email, String stateId) {
+        return new Loan(id.toString(), new Money(new BigDecimal("3000.00")), new TermMonths(12),
+                new Email(email), stateId, UUID.randomUUID().toString());
+    }
+
+    @Test
+    void getLoanById_ownLoan_returns200WithETag() {
+        var id = UUID.randomUUID();
+        var loan = loanOf(id, "user@example.com", "STATE-1");
+        var response = new LoanResponse(id.toString(), new BigDecimal("3000.00"), 12, "user@example.com",
+                "STATE-1", loan.typeLoanId());
+        when(loanUseCase.getLoanById(id)).thenReturn(Mono.just(loan));
+        when(mapper.toResponse(loan)).thenReturn(response);
+
+        client.get().uri("/loans/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, Handler.etag(loan))
+                .expectHeader().cacheControl(CacheControl.noCache().cachePrivate())
+                .expectBody(LoanResponse.class).isEqualTo(response);
+    }
+
+    @Test
+    void getLoanById_withCurrentETag_returns304WithoutBody() {
+        var id = UUID.randomUUID();
+        var loan = loanOf(id, "user@example.com", "STATE-1");
+        when(loanUseCase.getLoanById(id)).thenReturn(Mono.just(loan));
+
+        client.get().uri("/loans/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, Handler.etag(loan))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, Handler.etag(loan))
+                .expectBody().isEmpty();
+
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void getLoanById_afterStatusChange_etagChanges() {
+        var id = UUID.randomUUID();
+        var pending = loanOf(id, "user@example.com", "PENDING");
+        var approved = new Loan(pending.id(), new Money(new BigDecimal("3000")), pending.termMonths(),
+                pending.email(), "APPROVED", pending.typeLoanId());
+
+        assertThat(Handler.etag(approved)).isNotEqualTo(Handler.etag(pending));
+        // misma cantidad con otra escala (insert vs. lectura de NUMERIC) no cambia el ETag
+        assertThat(Handler.etag(new Loan(pending.id(), new Money(new BigDecimal("3000")), pending.termMonths(),
+                pending.email(), pending.stateLoanId(), pending.typeLoanId()))).isEqualTo(Handler.etag(pending));
+    }
+
+    @Test
+    void getLoanById_otherCustomersLoan_returns404() {
+        var id = UUID.randomUUID();
+        when(loanUseCase.getLoanById(id)).thenReturn(Mono.just(loanOf(id, "someone@else.com", "STATE-1")));
+
+        client.get().uri("/loans/{id}", id)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void getLoanById_missing_returns404() {
+        var id = UUID.randomUUID();
+        when(loanUseCase.getLoanById(id)).thenReturn(Mono.error(new DomainNotFoundException("LOAN_NOT_FOUND")));
+
+        client.get().uri("/loans/{id}", id)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getLoanById_malformedId_returns400() {
         client.get().uri("/loans/{id}", "whatever")
                 .exchange()
-                .expectStatus().isNoContent();
+                .expectStatus().isBadRequest();
 
         verifyNoInteractions(loanUseCase, mapper, validator);
     }
 
     @Test
-    void changeLoanStatus_happyPath_sendsNotification_andReturns200WithBody() {
+    void changeLoanStatus_happyPath_returns200WithBody() {
         // Arrange
         var dto = new ChangeStatusLoanRequest(
                 UUID.randomUUID().toString(),           // loanId
@@ -251,7 +393,6 @@ class HandlerTest {
         when(mapper.toDomain(any(ChangeStatusLoanRequest.class))).thenReturn(cmd);
         when(loanUseCase.changeLoanStatus(cmd)).thenReturn(Mono.just(changed));
         when(changed.loan()).thenReturn(savedLoan);
-        when(notification.sendMessage(changed)).thenReturn(Mono.empty());
         when(mapper.toResponse(savedLoan)).thenReturn(response);
 
         // Act + Assert
@@ -268,13 +409,12 @@ class HandlerTest {
         verify(validator).validate(any());
         verify(mapper).toDomain(any(ChangeStatusLoanRequest.class));
         verify(loanUseCase).changeLoanStatus(cmd);
-        verify(notification).sendMessage(changed);
         verify(mapper).toResponse(savedLoan);
-        verifyNoMoreInteractions(loanUseCase, mapper, validator, notification);
+        verifyNoMoreInteractions(loanUseCase, mapper, validator);
     }
 
     @Test
-    void changeLoanStatus_whenNotificationFails_propagates5xx_andDoesNotMapResponse() {
+    void changeLoanStatus_whenUseCaseFails_propagates5xx_andDoesNotMapResponse() {
         var dto = new ChangeStatusLoanRequest(
                 UUID.randomUUID().toString(),
                 UUID.randomUUID().toString(),
@@ -282,14 +422,10 @@ class HandlerTest {
         );
 
         var cmd = mock(ChangeLoanStatus.class);
-        var changed = mock(LoanStatusChanged.class);
-        var savedLoan = mock(co.com.crediya.model.loan.Loan.class);
 
         when(validator.validate(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
         when(mapper.toDomain(any(ChangeStatusLoanRequest.class))).thenReturn(cmd);
-        when(loanUseCase.changeLoanStatus(cmd)).thenReturn(Mono.just(changed));
-        when(changed.loan()).thenReturn(savedLoan);
-        when(notification.sendMessage(changed)).thenReturn(Mono.error(new RuntimeException("sqs down")));
+        when(loanUseCase.changeLoanStatus(cmd)).thenReturn(Mono.error(new RuntimeException("db down")));
 
         client.patch().uri("/loans/status")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -297,13 +433,11 @@ class HandlerTest {
                 .exchange()
                 .expectStatus().is5xxServerError();
 
-        // Se validó y se llamó a use case, pero NO se mapeó respuesta porque falló notificación
         verify(validator).validate(any());
         verify(mapper).toDomain(any(ChangeStatusLoanRequest.class));
         verify(loanUseCase).changeLoanStatus(cmd);
-        verify(notification).sendMessage(changed);
         verify(mapper, never()).toResponse(any());
-        verifyNoMoreInteractions(loanUseCase, mapper, validator, notification);
+        verifyNoMoreInteractions(loanUseCase, mapper, validator);
     }
 
     @Test
@@ -320,7 +454,7 @@ class HandlerTest {
                 12, "c@d.com", "REJECTED", UUID.randomUUID().toString()
         );
 
-        when(loanUseCase.getAllLoans()).thenReturn(Flux.just(d1, d2));
+        when(loanUseCase.getAllLoans(any())).thenReturn(Flux.just(d1, d2));
         when(mapper.toResponse(d1)).thenReturn(r1);
         when(mapper.toResponse(d2)).thenReturn(r2);
 
@@ -333,9 +467,221 @@ class HandlerTest {
                 .hasSize(2)
                 .contains(r1, r2);
 
-        verify(loanUseCase).getAllLoans();
+        // sin rol ADVISOR/ADMIN el stream queda acotado al email del token
+        verify(loanUseCase).getAllLoans(new LoanStreamFilter(Set.of(), null, null, null, "user@example.com"));
         verify(mapper).toResponse(d1);
         verify(mapper).toResponse(d2);
-        verifyNoMoreInteractions(loanUseCase, mapper, validator, notification);
+        verifyNoMoreInteractions(loanUseCase, mapper, validator);
+    }
+
+    @Test
+    void getAllLoans_parsesFiltersFromQuery() {
+        var typeId = UUID.randomUUID().toString();
+        when(loanUseCase.getAllLoans(any())).thenReturn(Flux.empty());
+
+        client.get().uri(uri -> uri.path("/loans")
+                        .queryParam("status", "APPROVED, MANUAL_REVIEW")
+                        .queryParam("typeLoanId", typeId)
+                        .queryParam("createdFrom", "2025-01-01T00:00:00Z")
+                        .queryParam("createdTo", "2025-02-01T00:00:00Z")
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(loanUseCase).getAllLoans(new LoanStreamFilter(
+                Set.of(LoanStatus.APPROVED, LoanStatus.MANUAL_REVIEW), typeId,
+                Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-02-01T00:00:00Z"),
+                "user@example.com"));
+    }
+
+    @Test
+    void getAllLoans_withInvalidFilter_returns400_withoutQuerying() {
+        client.get().uri("/loans?createdFrom=yesterday")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(loanUseCase);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportLoans_csv_writesHeaderAndRows_withAttachmentHeaders() {
+        var id = UUID.fromString("0191e7a4-5b7c-7d3e-9f10-123456789abc");
+        when(loanUseCase.exportLoans(any(), any())).thenAnswer(inv -> {
+            LoanExportWriter<DataBuffer> writer = inv.getArgument(1);
+            return Flux.concat(
+                    Mono.fromSupplier(writer::start),
+                    Mono.fromSupplier(() -> {
+                        writer.row(id, new BigDecimal("1500.50"), 12, "a@mail.com", "APPROVED", "PERSONAL",
+                                Instant.parse("2025-01-01T10:00:00Z"));
+                        return writer.drain();
+                    }),
+                    Mono.fromSupplier(writer::finish));
+        });
+
+        var body = client.get().uri("/loans/export?format=csv&status=APPROVED")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(ExportFormat.CSV.mediaType())
+                .expectHeader().valueMatches(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"?loans\\.csv\"?")
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertThat(body).isEqualTo("id,amount,term_months,email,state,type,created_at\n"
+                + id + ",1500.50,12,a@mail.com,APPROVED,PERSONAL,2025-01-01T10:00:00Z\n");
+        verify(loanUseCase).exportLoans(eq(new LoanStreamFilter(Set.of(LoanStatus.APPROVED), null, null, null,
+                null)), any(LoanExportWriter.class));
+    }
+
+    @Test
+    void exportLoans_withGzip_setsContentEncoding_andArrowFileName() {
+        when(loanUseCase.exportLoans(any(), any())).thenReturn(Flux.empty());
+
+        client.get().uri("/loans/export?format=arrow&gzip=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(ExportFormat.ARROW.mediaType())
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueMatches(HttpHeaders.CONTENT_DISPOSITION, ".*loans\\.arrows\\.gz.*");
+    }
+
+    @Test
+    void exportLoans_withUnknownFormat_returns400_withoutQuerying() {
+        client.get().uri("/loans/export?format=xlsx")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(loanUseCase);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createLoansBulk_streamsOneResultPerLine_andKeepsInvalidLinesAsRejected() {
+        var typeId = UUID.randomUUID().toString();
+        var valid = new CreateLoanRequest(new BigDecimal("3000.00"), 12, "a@b.com", typeId, null);
+        var invalid = new CreateLoanRequest(new BigDecimal("3000.00"), 0, "c@d.com", typeId, null);
+        var domainIn = mock(co.com.crediya.model.loan.Loan.class);
+        var saved = mock(co.com.crediya.model.loan.Loan.class);
+        var response = new LoanResponse(UUID.randomUUID().toString(), new BigDecimal("3000.00"),
+                12, "a@b.com", "PENDING_REVIEW", typeId);
+
+        when(validator.validate(valid)).thenReturn(Mono.just(valid));
+        when(validator.validate(invalid)).thenReturn(Mono.error(
+                new jakarta.validation.ConstraintViolationException("termMonths: must be >= 1", null)));
+        when(mapper.toDomain(valid)).thenReturn(domainIn);
+        when(mapper.toResponse(saved)).thenReturn(response);
+        when(loanUseCase.createBulk(any())).thenAnswer(inv -> ((Flux<BulkLoanItem>) inv.getArgument(0))
+                .map(item -> item.isRejected()
+                        ? item
+                        : BulkLoanItem.created(item.line(), new CreatedLoan(saved, false))));
+
+        var ndjson = """
+                {"amount":3000.00,"termMonths":12,"email":"a@b.com","typeLoanId":"%s"}
+                {"amount":3000.00,"termMonths":0,"email":"c@d.com","typeLoanId":"%s"}
+                """.formatted(typeId, typeId);
+
+        client.post().uri("/loans/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(BulkLoanResultResponse.class)
+                .isEqualTo(List.of(
+                        new BulkLoanResultResponse(1, BulkLoanResultResponse.CREATED, response, null),
+                        new BulkLoanResultResponse(2, BulkLoanResultResponse.REJECTED, null,
+                                "termMonths: must be >= 1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createLoansBulk_rejectsAMalformedLine_andKeepsTheLinesAroundIt() {
+        var typeId = UUID.randomUUID().toString();
+        var first = new CreateLoanRequest(new BigDecimal("3000.00"), 12, "a@b.com", typeId, null);
+        var third = new CreateLoanRequest(new BigDecimal("4000.00"), 24, "c@d.com", typeId, null);
+        var firstIn = mock(co.com.crediya.model.loan.Loan.class);
+        var thirdIn = mock(co.com.crediya.model.loan.Loan.class);
+        var firstResponse = new LoanResponse(UUID.randomUUID().toString(), new BigDecimal("3000.00"),
+                12, "a@b.com", "PENDING_REVIEW", typeId);
+        var thirdResponse = new LoanResponse(UUID.randomUUID().toString(), new BigDecimal("4000.00"),
+                24, "c@d.com", "PENDING_REVIEW", typeId);
+
+        when(validator.validate(any(CreateLoanRequest.class)))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(mapper.toDomain(first)).thenReturn(firstIn);
+        when(mapper.toDomain(third)).thenReturn(thirdIn);
+        when(mapper.toResponse(firstIn)).thenReturn(firstResponse);
+        when(mapper.toResponse(thirdIn)).thenReturn(thirdResponse);
+        when(loanUseCase.createBulk(any())).thenAnswer(inv -> ((Flux<BulkLoanItem>) inv.getArgument(0))
+                .map(item -> item.isRejected()
+                        ? item
+                        : BulkLoanItem.created(item.line(), new CreatedLoan(item.loan(), false))));
+
+        var ndjson = """
+                {"amount":3000.00,"termMonths":12,"email":"a@b.com","typeLoanId":"%s"}
+                {"amount":3000.00,"termMonths":
+                {"amount":4000.00,"termMonths":24,"email":"c@d.com","typeLoanId":"%s"}
+                """.formatted(typeId, typeId);
+
+        var results = client.post().uri("/loans/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BulkLoanResultResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).isEqualTo(
+                new BulkLoanResultResponse(1, BulkLoanResultResponse.CREATED, firstResponse, null));
+        assertThat(results.get(1).line()).isEqualTo(2);
+        assertThat(results.get(1).status()).isEqualTo(BulkLoanResultResponse.REJECTED);
+        assertThat(results.get(1).error()).startsWith("MALFORMED_JSON:");
+        assertThat(results.get(2)).isEqualTo(
+                new BulkLoanResultResponse(3, BulkLoanResultResponse.CREATED, thirdResponse, null));
+    }
+
+    @Test
+    void changeLoanStatusBulk_returnsOneResultPerItem_inRequestOrder() {
+        var firstId = UUID.randomUUID().toString();
+        var secondId = UUID.randomUUID().toString();
+        var stateId = UUID.randomUUID().toString();
+        var first = new ChangeStatusLoanRequest(firstId, stateId, "ok");
+        var second = new ChangeStatusLoanRequest(secondId, stateId, "late");
+        var firstCmd = new ChangeLoanStatus(firstId, stateId, "ok");
+        var secondCmd = new ChangeLoanStatus(secondId, stateId, "late");
+        var savedLoan = mock(co.com.crediya.model.loan.Loan.class);
+        var response = new LoanResponse(firstId, new BigDecimal("4500.00"), 18,
+                "someone@example.com", "APPROVED", UUID.randomUUID().toString());
+
+        when(validator.validate(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(mapper.toDomain(first)).thenReturn(firstCmd);
+        when(mapper.toDomain(second)).thenReturn(secondCmd);
+        when(mapper.toResponse(savedLoan)).thenReturn(response);
+        when(loanUseCase.changeLoanStatusBulk(List.of(firstCmd, secondCmd))).thenReturn(Mono.just(List.of(
+                StatusChangeOutcome.changed(firstCmd,
+                        new LoanStatusChanged(savedLoan, "APPROVED", "PERSONAL", "ok", null)),
+                StatusChangeOutcome.failed(secondCmd,
+                        new DomainConflictException("LOAN_STATUS_CONFLICT", secondId)))));
+
+        client.post().uri("/loans/status/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(first, second))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(BulkStatusChangeResponse.class)
+                .isEqualTo(List.of(
+                        new BulkStatusChangeResponse(firstId, BulkStatusChangeResponse.CHANGED, response, null),
+                        new BulkStatusChangeResponse(secondId, BulkStatusChangeResponse.FAILED, null,
+                                "LOAN_STATUS_CONFLICT:" + secondId)));
+
+        verify(loanUseCase).changeLoanStatusBulk(List.of(firstCmd, secondCmd));
     }
 }
@@ -0,0 +1,160 @@
+package co.com.crediya.api;
+
+import co.com.crediya.api.config.LoanPath;
+import co.com.crediya.api.dto.loanimport.LoanImportJobResponse;
+import co.com.crediya.api.dto.loanimport.LoanImportRejectionResponse;
+import co.com.crediya.model.exceptions.DomainNotFoundException;
+import co.com.crediya.model.loanimport.LoanImportJob;
+import co.com.crediya.model.loanimport.LoanImportRejection;
+import co.com.crediya.model.loanimport.LoanImportStatus;
+import co.com.crediya.usecase.loanimport.LoanImportUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+class LoanImportHandlerTest {
+
+    private static final String CSV = "id,amount,term_months,email,state,type,created_at\n"
+            + "11111111-1111-1111-1111-111111111111,1000.00,12,a@example.com,APPROVED,PERSONAL,2024-01-01T00:00:00Z\n";
+
+    private final LoanImportUseCase loanImportUseCase = mock(LoanImportUseCase.class);
+    private final String jobId = UUID.randomUUID().toString();
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        var paths = new LoanPath();
+        paths.setLoansImportById("/loans/import/{jobId}");
+        var handler = new LoanImportHandler(loanImportUseCase, paths);
+
+        RouterFunction<ServerResponse> base =
+                route(POST("/loans/import"), handler::startImport)
+                        .andRoute(GET("/loans/import/{jobId}"), handler::getImport)
+                        .andRoute(GET("/loans/import/{jobId}/rejections"), handler::getImportRejections);
+
+        Jwt jwt = Jwt.withTokenValue("test-token")
+                .header("alg", "none")
+                .claim("email", "admin@example.com")
+                .build();
+        JwtAuthenticationToken auth = new JwtAuthenticationToken(jwt);
+
+        RouterFunction<ServerResponse> router = base.filter((request, next) -> next.handle(ServerRequest.create(
+                request.exchange().mutate().principal(Mono.just(auth)).build(),
+                HandlerStrategies.withDefaults().messageReaders())));
+
+        client = WebTestClient.bindToRouterFunction(router)
+                .configureClient()
+                .responseTimeout(Duration.ofSeconds(3))
+                .build();
+    }
+
+    private LoanImportJob job(LoanImportStatus status, boolean dryRun) {
+        var now = Instant.parse("2025-01-01T00:00:00Z");
+        return new LoanImportJob(jobId, status, "admin@example.com", dryRun, 1, 0, 0, null, now, now, null);
+    }
+
+    @Test
+    void startImport_streamsCsvToUseCase_andReturns202WithLocation() {
+        var received = new AtomicReference<String>();
+        when(loanImportUseCase.start(eq("admin@example.com"), eq(true), any())).thenAnswer(inv -> {
+            Flux<ByteBuffer> csv = inv.getArgument(2);
+            return csv.reduce(new StringBuilder(),
+                            (sb, buffer) -> sb.append(StandardCharsets.UTF_8.decode(buffer)))
+                    .doOnNext(sb -> received.set(sb.toString()))
+                    .thenReturn(job(LoanImportStatus.VALIDATING, true));
+        });
+
+        client.post().uri("/loans/import?dryRun=true")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue(CSV)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().location("/loans/import/" + jobId)
+                .expectBody(LoanImportJobResponse.class)
+                .value(resp -> {
+                    assertThat(resp.id()).isEqualTo(jobId);
+                    assertThat(resp.status()).isEqualTo("VALIDATING");
+                    assertThat(resp.dryRun()).isTrue();
+                    assertThat(resp.stagedRows()).isEqualTo(1);
+                });
+
+        assertThat(received.get()).isEqualTo(CSV);
+    }
+
+    @Test
+    void getImport_returnsProgress() {
+        when(loanImportUseCase.findJob(jobId)).thenReturn(Mono.just(job(LoanImportStatus.MERGING, false)));
+
+        client.get().uri("/loans/import/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanImportJobResponse.class)
+                .value(resp -> assertThat(resp.status()).isEqualTo("MERGING"));
+    }
+
+    @Test
+    void getImport_unknownJob_returns404() {
+        when(loanImportUseCase.findJob(jobId))
+                .thenReturn(Mono.error(new DomainNotFoundException("Loan import job not found: " + jobId)));
+
+        client.get().uri("/loans/import/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getImportRejections_streamsNdjson() {
+        when(loanImportUseCase.findJob(jobId)).thenReturn(Mono.just(job(LoanImportStatus.COMPLETED, false)));
+        when(loanImportUseCase.findRejections(jobId)).thenReturn(Flux.just(
+                new LoanImportRejection(3, "UNKNOWN_LOAN_TYPE", "x,1,12,a@example.com,APPROVED,NOPE,"),
+                new LoanImportRejection(7, "INVALID_EMAIL", "y,1,12,bad,APPROVED,PERSONAL,")));
+
+        client.get().uri("/loans/import/{jobId}/rejections", jobId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(LoanImportRejectionResponse.class)
+                .value(rows -> assertThat(rows)
+                        .extracting(LoanImportRejectionResponse::line, LoanImportRejectionResponse::reason)
+                        .containsExactly(
+                                tuple(3L, "UNKNOWN_LOAN_TYPE"),
+                                tuple(7L, "INVALID_EMAIL")));
+    }
+
+    @Test
+    void getImportRejections_unknownJob_returns404BeforeStreaming() {
+        when(loanImportUseCase.findJob(jobId))
+                .thenReturn(Mono.error(new DomainNotFoundException("Loan import job not found: " + jobId)));
+
+        client.get().uri("/loans/import/{jobId}/rejections", jobId)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(loanImportUseCase, never()).findRejections(anyString());
+    }
+}
@@ -1,24 +1,27 @@
 package co.com.crediya.api.config;
 
 import co.com.crediya.api.Handler;
+import co.com.crediya.api.LoanImportHandler;
 import co.com.crediya.api.RouterRest;
 import co.com.crediya.api.mapper.loan.LoanDTOMapper;
 import co.com.crediya.api.validation.DtoValidator;
-import co.com.crediya.model.loan.gateways.Notification;
 import co.com.crediya.usecase.loan.LoanUseCase;
 import reactor.core.publisher.Flux;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.context.annotation.Import;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+
 @ContextConfiguration(classes = {RouterRest.class, Handler.class})
 @WebFluxTest
 @EnableConfigurationProperties(LoanPath.class)
@@ -32,23 +35,24 @@ class ConfigTest {
     private LoanUseCase loanUseCase;
 
     @MockitoBean
-    private LoanDTOMapper loanDTOMapper;
+    private LoanImportHandler loanImportHandler;
 
     @MockitoBean
-    private DtoValidator dtoValidator;
+    private LoanDTOMapper loanDTOMapper;
 
     @MockitoBean
-    private Notification notification;
+    private DtoValidator dtoValidator;
 
     @BeforeEach
     void setUp() {
-        Mockito.when(loanUseCase.getAllLoans()).thenReturn(Flux.empty());
+        Mockito.when(loanUseCase.getAllLoans(ArgumentMatchers.any())).thenReturn(Flux.empty());
     }
 
     @Test
-    @WithMockUser(roles = {"ADMIN"})
     void corsConfigurationShouldAllowOrigins() {
-        webTestClient.get()
+        // el listado lee el alcance del JwtAuthenticationToken
+        webTestClient.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .get()
                 .uri("/api/v1/loans")
                 .exchange()
                 .expectStatus().isOk()
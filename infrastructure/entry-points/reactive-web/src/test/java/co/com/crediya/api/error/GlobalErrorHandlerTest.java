@@ -1,5 +1,6 @@
 package co.com.crediya.api.error;
 
+import co.com.crediya.model.exceptions.DomainConflictException;
 import co.com.crediya.model.exceptions.DomainNotFoundException;
 import co.com.crediya.model.exceptions.DomainValidationException;
 import lombok.extern.slf4j.Slf4j;
@@ -81,6 +82,17 @@ class GlobalErrorHandlerTest {
                         exchange.getResponse().getHeaders().getContentType()).toString());
     }
 
+    @Test
+    void domainConflictException_returns409() {
+        var request  = MockServerHttpRequest.put("/loans/status").build();
+        var exchange = MockServerWebExchange.from(request);
+
+        var ex = new DomainConflictException("LOAN_STATUS_CONFLICT", "changed concurrently");
+        handler.handle(exchange, ex).block();
+
+        assertEquals(HttpStatus.CONFLICT, exchange.getResponse().getStatusCode());
+    }
+
     @Test
     void webInputException_returns400() {
         // 1) Arrange: un exchange de prueba
@@ -0,0 +1,110 @@
+package co.com.crediya.api.export;
+
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ArrowLoanExportWriterTest {
+
+    private static final Instant CREATED = Instant.parse("2025-03-04T05:06:07.123456Z");
+
+    private final DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+    private void collect(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        received.writeBytes(bytes);
+    }
+
+    private record Row(String id, BigDecimal amount, int term, String email, String state, String type,
+                       long createdMicros) {
+    }
+
+    private static List<Row> readAll(InputStream in, List<Integer> batchSizes) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (var allocator = new RootAllocator(); var reader = new ArrowStreamReader(in, allocator)) {
+            var root = reader.getVectorSchemaRoot();
+            assertThat(root.getSchema().getFields()).extracting(Field::getName, Field::getType)
+                    .containsExactlyElementsOf(ArrowLoanExportWriter.SCHEMA.getFields().stream()
+                            .map(field -> tuple(field.getName(), field.getType())).toList());
+            while (reader.loadNextBatch()) {
+                batchSizes.add(root.getRowCount());
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    var email = (VarCharVector) root.getVector("email");
+                    rows.add(new Row(
+                            ((VarCharVector) root.getVector("id")).getObject(i).toString(),
+                            ((DecimalVector) root.getVector("amount")).getObject(i),
+                            ((IntVector) root.getVector("term_months")).get(i),
+                            email.isNull(i) ? null : email.getObject(i).toString(),
+                            ((VarCharVector) root.getVector("state")).getObject(i).toString(),
+                            ((VarCharVector) root.getVector("type")).getObject(i).toString(),
+                            ((TimeStampMicroTZVector) root.getVector("created_at")).get(i)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void writesOneRecordBatchPerChunk_readableWithArrowStreamReader() throws IOException {
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        try (var writer = new ArrowLoanExportWriter(factory, false, 2)) {
+            collect(writer.start());
+            writer.row(first, new BigDecimal("1500.5"), 12, "a@mail.com", "APPROVED", "PERSONAL", CREATED);
+            writer.row(second, new BigDecimal("20000.00"), 24, null, "REJECTED", "VEHICULAR", CREATED);
+            collect(writer.drain());
+            writer.row(first, new BigDecimal("10.00"), 1, "c@mail.com", "PENDING_REVIEW", "PERSONAL", CREATED);
+            collect(writer.finish());
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        var rows = readAll(new ByteArrayInputStream(received.toByteArray()), batchSizes);
+
+        long micros = CREATED.getEpochSecond() * 1_000_000L + 123_456;
+        assertThat(batchSizes).containsExactly(2, 1);
+        assertThat(rows).containsExactly(
+                new Row(first.toString(), new BigDecimal("1500.50"), 12, "a@mail.com", "APPROVED", "PERSONAL", micros),
+                new Row(second.toString(), new BigDecimal("20000.00"), 24, null, "REJECTED", "VEHICULAR", micros),
+                new Row(first.toString(), new BigDecimal("10.00"), 1, "c@mail.com", "PENDING_REVIEW", "PERSONAL",
+                        micros));
+    }
+
+    @Test
+    void gzip_emptyExport_isAValidStreamWithSchemaOnly() throws IOException {
+        try (var writer = new ArrowLoanExportWriter(factory, true, 8)) {
+            collect(writer.start());
+            collect(writer.finish());
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        var rows = readAll(new GZIPInputStream(new ByteArrayInputStream(received.toByteArray())), batchSizes);
+
+        assertThat(batchSizes).isEmpty();
+        assertThat(rows).isEmpty();
+    }
+}
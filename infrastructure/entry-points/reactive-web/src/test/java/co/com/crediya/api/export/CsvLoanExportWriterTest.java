@@ -0,0 +1,91 @@
+package co.com.crediya.api.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvLoanExportWriterTest {
+
+    private static final UUID ID = UUID.fromString("0191e7a4-5b7c-7d3e-9f10-123456789abc");
+    private static final Instant CREATED = Instant.parse("2025-03-04T05:06:07.123456Z");
+
+    private final DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+    private void collect(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        received.writeBytes(bytes);
+    }
+
+    @Test
+    void writesHeaderAndOneLinePerRow_acrossChunks() {
+        try (var writer = new CsvLoanExportWriter(factory, false, 2)) {
+            collect(writer.start());
+            writer.row(ID, new BigDecimal("1500.50"), 12, "a@mail.com", "APPROVED", "PERSONAL", CREATED);
+            assertThat(writer.pendingRows()).isEqualTo(1);
+            collect(writer.drain());
+            assertThat(writer.pendingRows()).isZero();
+            writer.row(ID, new BigDecimal("20000"), 7, "b@mail.com", "PENDING_REVIEW", "VEHICULAR", CREATED);
+            collect(writer.finish());
+        }
+
+        assertThat(received.toString(StandardCharsets.UTF_8)).isEqualTo(CsvLoanExportWriter.HEADER
+                + "0191e7a4-5b7c-7d3e-9f10-123456789abc,1500.50,12,a@mail.com,APPROVED,PERSONAL,"
+                + "2025-03-04T05:06:07.123456Z\n"
+                + "0191e7a4-5b7c-7d3e-9f10-123456789abc,20000,7,b@mail.com,PENDING_REVIEW,VEHICULAR,"
+                + "2025-03-04T05:06:07.123456Z\n");
+    }
+
+    @Test
+    void quotesFieldsWithSeparators_andEncodesUtf8() {
+        try (var writer = new CsvLoanExportWriter(factory, false, 1)) {
+            collect(writer.start());
+            writer.row(ID, BigDecimal.ONE, 1, "x@mail.com", "APROBADO, \"FINAL\"", "Crédito 🏠", CREATED);
+            collect(writer.finish());
+        }
+
+        assertThat(received.toString(StandardCharsets.UTF_8))
+                .endsWith(",\"APROBADO, \"\"FINAL\"\"\",Crédito 🏠,2025-03-04T05:06:07.123456Z\n");
+    }
+
+    @Test
+    void gzip_chunksDecompressToTheSameCsv() throws IOException {
+        try (var writer = new CsvLoanExportWriter(factory, true, 16)) {
+            collect(writer.start());
+            writer.row(ID, new BigDecimal("1500.50"), 12, "a@mail.com", "APPROVED", "PERSONAL", CREATED);
+            collect(writer.drain());
+            collect(writer.finish());
+        }
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(received.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(CsvLoanExportWriter.HEADER
+                    + "0191e7a4-5b7c-7d3e-9f10-123456789abc,1500.50,12,a@mail.com,APPROVED,PERSONAL,"
+                    + "2025-03-04T05:06:07.123456Z\n");
+        }
+    }
+
+    @Test
+    void close_withoutFinish_releasesPendingChunk_andIgnoresLateRows() {
+        var writer = new CsvLoanExportWriter(factory, false, 4);
+        writer.start();
+        writer.row(ID, BigDecimal.TEN, 3, "a@mail.com", "APPROVED", "PERSONAL", CREATED);
+        writer.close();
+
+        writer.row(ID, BigDecimal.TEN, 3, "a@mail.com", "APPROVED", "PERSONAL", CREATED);
+        assertThat(writer.drain().readableByteCount()).isZero();
+    }
+}
@@ -0,0 +1,150 @@
+package co.com.crediya.api.export;
+
+import co.com.crediya.api.dto.loan.LoanResponse;
+import co.com.crediya.api.mapper.loan.LoanDTOMapper;
+import co.com.crediya.model.loan.Loan;
+import co.com.crediya.model.value.Email;
+import co.com.crediya.model.value.Money;
+import co.com.crediya.model.value.TermMonths;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mapstruct.factory.Mappers;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Filas por segundo y bytes asignados por fila de cada camino del export, con los mismos datos
+ * sintéticos y buffers pooled de Netty. El camino NDJSON es el del GET /api/v1/loans: Loan, LoanResponse
+ * y Jackson por fila. No mide la base de datos, solo la serialización.
+ * <p>
+ * {@code ./gradlew :reactive-web:test -Dbenchmark=true --tests '*LoanExportBenchmark'}
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoanExportBenchmark {
+
+    private static final int ROWS = 500_000;
+    private static final int CHUNK_ROWS = 500;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 5;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private static final String[] STATES = {"PENDING_REVIEW", "APPROVED", "REJECTED", "MANUAL_REVIEW"};
+    private static final String[] TYPES = {"PERSONAL", "VEHICULAR", "HIPOTECARIO"};
+
+    private final DataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final LoanDTOMapper mapper = Mappers.getMapper(LoanDTOMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UUID[] ids = new UUID[1024];
+    private final BigDecimal[] amounts = new BigDecimal[1024];
+    private final String[] emails = new String[1024];
+    private final Instant createdAt = Instant.parse("2025-03-04T05:06:07.123456Z");
+
+    LoanExportBenchmark() {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID();
+            amounts[i] = new BigDecimal(1_000 + i * 37).movePointLeft(2).add(BigDecimal.valueOf(500));
+            emails[i] = "user" + i + "@mail.com";
+        }
+    }
+
+    private interface Path {
+        long run();
+    }
+
+    @Test
+    void compareNdjsonCsvAndArrow() {
+        log.info("%-8s %14s %12s %14s".formatted("path", "rows/s", "bytes/row", "alloc B/row"));
+        report("ndjson", this::ndjson);
+        report("csv", () -> export(ExportFormat.CSV, false));
+        report("csv.gz", () -> export(ExportFormat.CSV, true));
+        report("arrow", () -> export(ExportFormat.ARROW, false));
+    }
+
+    private void report(String name, Path path) {
+        for (int i = 0; i < WARMUP; i++) {
+            path.run();
+        }
+        long bytes = 0;
+        long elapsed = 0;
+        long allocated = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            bytes += path.run();
+            elapsed += System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        long rows = (long) ROWS * ITERATIONS;
+        assertThat(bytes).isPositive();
+        log.info("%-8s %,14.0f %12.1f %14.1f".formatted(name, rows / (elapsed / 1e9),
+                (double) bytes / rows, (double) allocated / rows));
+    }
+
+    /** Lo que hace hoy el endpoint NDJSON por cada fila. */
+    private long ndjson() {
+        long bytes = 0;
+        DataBuffer chunk = factory.allocateBuffer(CHUNK_ROWS * 200);
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                int k = i & 1023;
+                var loan = new Loan(ids[k].toString(), new Money(amounts[k]), new TermMonths(12 + (i % 48)),
+                        new Email(emails[k]), STATES[i % STATES.length], TYPES[i % TYPES.length]);
+                LoanResponse response = mapper.toResponse(loan);
+                chunk.write(objectMapper.writeValueAsBytes(response));
+                chunk.write(NEWLINE);
+                if ((i + 1) % CHUNK_ROWS == 0) {
+                    bytes += chunk.readableByteCount();
+                    DataBufferUtils.release(chunk);
+                    chunk = factory.allocateBuffer(CHUNK_ROWS * 200);
+                }
+            }
+            return bytes + chunk.readableByteCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(chunk);
+        }
+    }
+
+    /** Igual que el adapter: una fila por callback del driver y un bloque cada CHUNK_ROWS filas. */
+    private long export(ExportFormat format, boolean gzip) {
+        long bytes = 0;
+        try (var writer = format.writer(factory, gzip, CHUNK_ROWS)) {
+            bytes += consume(writer.start());
+            for (int i = 0; i < ROWS; i++) {
+                int k = i & 1023;
+                writer.row(ids[k], amounts[k], 12 + (i % 48), emails[k], STATES[i % STATES.length],
+                        TYPES[i % TYPES.length], createdAt);
+                if (writer.pendingRows() >= CHUNK_ROWS) {
+                    bytes += consume(writer.drain());
+                }
+            }
+            bytes += consume(writer.finish());
+        }
+        return bytes;
+    }
+
+    private static long consume(DataBuffer buffer) {
+        long size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}